@@ -16,12 +16,33 @@ public abstract class AbstractNode<IN, OUT> extends AbstractOutputNode<OUT>
 
     @Override
     public void onInput(final IN input) {
-        out(processInput(null, input));
+        if (mMetrics == null) {
+            out(processInput(null, input));
+        } else {
+            processInstrumented(null, input);
+        }
     }
 
     @Override
     public void onInput(final OutputNode<IN> outputNode, final IN input) {
-        out(processInput(outputNode, input));
+        if (mMetrics == null) {
+            out(processInput(outputNode, input));
+        } else {
+            processInstrumented(outputNode, input);
+        }
+    }
+
+    /**
+     * Processes the given input while recording the runtime metrics of this {@link AbstractNode}.
+     * @param outputNode An {@link OutputNode} that emitted the input.
+     * @param input The input {@link Object}.
+     */
+    private void processInstrumented(final OutputNode<IN> outputNode, final IN input) {
+        mMetrics.onInput();
+        final long startTime = System.nanoTime();
+        final OUT output = processInput(outputNode, input);
+        mMetrics.onProcessed(System.nanoTime() - startTime, output == null);
+        out(output);
     }
 
     /**
@@ -1,6 +1,11 @@
 package com.robopupu.api.graph;
 
+import com.robopupu.api.graph.metrics.NodeMetrics;
+import com.robopupu.api.graph.trace.Tracer;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * {@link AbstractOutputNode} provide an abstract base class for implementing {@link OutputNode}s.
@@ -10,6 +15,10 @@ public abstract class AbstractOutputNode<OUT> implements OutputNode<OUT> {
 
     protected final ArrayList<InputNode<OUT>> mInputNodes;
 
+    protected NodeMetrics mMetrics;
+    protected int mModificationCount;
+    protected Tracer mTracer;
+
     /**
      * Constructs a new instance of {@link AbstractOutputNode}.
      */
@@ -28,12 +37,34 @@ public abstract class AbstractOutputNode<OUT> implements OutputNode<OUT> {
      */
     protected void out(final OUT output) {
         if (output != null) {
-            for (final InputNode<OUT> inputNode : mInputNodes) {
-                inputNode.onInput(this, output);
+            if (mMetrics != null) {
+                mMetrics.onOutput();
+            }
+
+            if (mTracer != null) {
+                mTracer.beginHop(this);
+
+                try {
+                    dispatch(output);
+                } finally {
+                    mTracer.endHop(this);
+                }
+            } else {
+                dispatch(output);
             }
         }
     }
 
+    /**
+     * Dispatches the given output to attached {@link InputNode}s.
+     * @param output The outbut {@link Object}.
+     */
+    private void dispatch(final OUT output) {
+        for (final InputNode<OUT> inputNode : mInputNodes) {
+            inputNode.onInput(this, output);
+        }
+    }
+
     /**
      * Invoked to notify all {@link InputNode}s about completion.
      * @param outputNode The completed {@link OutputNode}.
@@ -50,6 +81,9 @@ public abstract class AbstractOutputNode<OUT> implements OutputNode<OUT> {
      * @param throwable A {@link Throwable} representing the error.
      */
     protected void error(final OutputNode<?> outputNode, final Throwable throwable) {
+        if (mMetrics != null && outputNode == this) {
+            mMetrics.onError();
+        }
         for (final InputNode<OUT> inputNode : mInputNodes) {
             inputNode.onError(outputNode, throwable);
         }
@@ -67,6 +101,7 @@ public abstract class AbstractOutputNode<OUT> implements OutputNode<OUT> {
     protected void addInputNode(final InputNode<OUT> inputNode) {
         if (!mInputNodes.contains(inputNode)) {
             mInputNodes.add(inputNode);
+            mModificationCount++;
             onAttached(inputNode);
         }
     }
@@ -91,6 +126,7 @@ public abstract class AbstractOutputNode<OUT> implements OutputNode<OUT> {
      */
     protected void removeInputNode(final InputNode<OUT> inputNode) {
         if (mInputNodes.remove(inputNode)) {
+            mModificationCount++;
             onDetached(inputNode);
         }
     }
@@ -105,6 +141,87 @@ public abstract class AbstractOutputNode<OUT> implements OutputNode<OUT> {
         // By default do nothing
     }
 
+    /**
+     * Gets the {@link NodeMetrics} recording the runtime metrics of this {@link AbstractOutputNode}.
+     * @return A {@link NodeMetrics}, or {@code null} if this node is not instrumented.
+     */
+    public NodeMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Sets the {@link NodeMetrics} for recording the runtime metrics of this
+     * {@link AbstractOutputNode}.
+     * @param metrics A {@link NodeMetrics}. If {@code null}, the instrumentation is disabled.
+     */
+    public void setMetrics(final NodeMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Gets the {@link Tracer} recording the lineage of sampled events through this
+     * {@link AbstractOutputNode}.
+     * @return A {@link Tracer}, or {@code null} if this node is not traced.
+     */
+    public Tracer getTracer() {
+        return mTracer;
+    }
+
+    /**
+     * Sets the {@link Tracer} for recording the lineage of sampled events through this
+     * {@link AbstractOutputNode}.
+     * @param tracer A {@link Tracer}. If {@code null}, the tracing is disabled.
+     */
+    public void setTracer(final Tracer tracer) {
+        mTracer = tracer;
+    }
+
+    /**
+     * Gets the number of inputs currently buffered by this {@link AbstractOutputNode}. Nodes that
+     * buffer inputs override this method.
+     * @return The buffer depth as an {@code int}.
+     */
+    public int getBufferDepth() {
+        return 0;
+    }
+
+    /**
+     * Replaces the given attached {@link InputNode} with another {@link InputNode} keeping its
+     * position in the dispatch order.
+     * @param inputNode The attached {@link InputNode}.
+     * @param replacement The replacing {@link InputNode}.
+     * @return A {@code boolean} value indicating if the {@link InputNode} was replaced.
+     */
+    public boolean replace(final InputNode<OUT> inputNode, final InputNode<OUT> replacement) {
+        final int index = mInputNodes.indexOf(inputNode);
+
+        if (index >= 0 && !mInputNodes.contains(replacement)) {
+            mInputNodes.set(index, replacement);
+            mModificationCount++;
+            onDetached(inputNode);
+            onAttached(replacement);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the modification count that is incremented whenever an {@link InputNode} is attached,
+     * detached or replaced.
+     * @return The modification count as an {@code int}.
+     */
+    public int getModificationCount() {
+        return mModificationCount;
+    }
+
+    /**
+     * Gets the attached {@link InputNode}s.
+     * @return An unmodifiable {@link List} containing the {@link InputNode}s.
+     */
+    public List<InputNode<OUT>> getInputNodes() {
+        return Collections.unmodifiableList(mInputNodes);
+    }
+
     /**
      * Tests if this {@link OutputNode} has any attached @link InputNode}s.
      * @return A {@code boolean} value.
@@ -3,22 +3,45 @@ package com.robopupu.api.graph;
 import android.view.View;
 import android.widget.TextView;
 
+import com.robopupu.api.graph.cache.TinyLfuCache;
 import com.robopupu.api.graph.functions.BooleanFunction;
+import com.robopupu.api.graph.functions.Function2;
+import com.robopupu.api.graph.journal.Journal;
+import com.robopupu.api.graph.journal.JournalNode;
+import com.robopupu.api.graph.journal.ReplayNode;
+import com.robopupu.api.graph.metrics.MetricsRegistry;
 import com.robopupu.api.graph.nodes.ActionNode;
+import com.robopupu.api.graph.nodes.Aggregate;
+import com.robopupu.api.graph.nodes.AggregateNode;
 import com.robopupu.api.graph.nodes.BooleanNode;
 import com.robopupu.api.graph.nodes.BufferNode;
 import com.robopupu.api.graph.nodes.ByteNode;
+import com.robopupu.api.graph.nodes.CachedFunctionNode;
 import com.robopupu.api.graph.nodes.CharacterNode;
+import com.robopupu.api.graph.nodes.DistinctNode;
+import com.robopupu.api.graph.nodes.DoubleArrayNode;
 import com.robopupu.api.graph.nodes.DoubleNode;
 import com.robopupu.api.graph.nodes.FilterNode;
 import com.robopupu.api.graph.nodes.FloatNode;
 import com.robopupu.api.graph.nodes.FunctionNode;
+import com.robopupu.api.graph.nodes.FusedNode;
+import com.robopupu.api.graph.nodes.GroupByNode;
+import com.robopupu.api.graph.nodes.IntArrayNode;
+import com.robopupu.api.graph.nodes.ItemSketchNode;
 import com.robopupu.api.graph.nodes.IntNode;
+import com.robopupu.api.graph.nodes.IterableNode;
 import com.robopupu.api.graph.nodes.ListNode;
+import com.robopupu.api.graph.nodes.LongArrayNode;
 import com.robopupu.api.graph.nodes.LongNode;
+import com.robopupu.api.graph.nodes.LookupJoinNode;
+import com.robopupu.api.graph.nodes.LookupTable;
+import com.robopupu.api.graph.nodes.MergeNode;
+import com.robopupu.api.graph.nodes.PooledTextViewNode;
 import com.robopupu.api.graph.nodes.RepeatNode;
 import com.robopupu.api.graph.nodes.RequestNode;
+import com.robopupu.api.graph.nodes.ShareNode;
 import com.robopupu.api.graph.nodes.ShortNode;
+import com.robopupu.api.graph.nodes.SketchNode;
 import com.robopupu.api.graph.nodes.SkipNode;
 import com.robopupu.api.graph.nodes.SkipWhileNode;
 import com.robopupu.api.graph.nodes.StringNode;
@@ -27,28 +50,61 @@ import com.robopupu.api.graph.nodes.TakeNode;
 import com.robopupu.api.graph.nodes.TextViewNode;
 import com.robopupu.api.graph.nodes.ViewNode;
 import com.robopupu.api.graph.nodes.ZipInputNode;
+import com.robopupu.api.graph.pool.EventPool;
+import com.robopupu.api.graph.pool.TextEvent;
+import com.robopupu.api.graph.sketch.HyperLogLog;
+import com.robopupu.api.graph.sketch.ScalableBloomFilter;
+import com.robopupu.api.graph.sketch.Sketch;
+import com.robopupu.api.graph.sketch.TopK;
+import com.robopupu.api.graph.state.KeyedStateStore;
+import com.robopupu.api.graph.state.Snapshot;
+import com.robopupu.api.graph.state.StatefulNode;
+import com.robopupu.api.graph.trace.Tracer;
 import com.robopupu.api.network.RequestDelegate;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * {@link Graph} is a builder utility for constructing graphcs consisting of {@link Node}s.
  *
+ * Nodes created by the builder methods, e.g. {@link #map(Function)} and {@link #filter(BooleanFunction)},
+ * are not instantiated immediately. Instead {@link Graph} records a plan of the nodes, and the plan
+ * is materialized on the first {@link #emit()}, on the first event emitted by a source node, or when
+ * the nodes are accessed, e.g. via {@link #getBeginNode()}. While materializing, consecutive
+ * mapping functions are composed into a single {@link FunctionNode}.
+ *
  * @param <T> The parametrized output type of the {@link Graph}.
  */
 public class Graph<T> {
 
-    protected final HashMap<Tag, OutputNode<?>> mTaggedNodes;
+    protected final LinkedHashMap<Tag, OutputNode<?>> mTaggedNodes;
     protected final Tag<T> mBeginTag;
 
+    protected final ArrayList<PlannedNode> mPlannedNodes;
+    protected final HashMap<Tag, PlannedNode> mPlannedTags;
+    protected final IdentityHashMap<OutputNode<?>, ArrayList<Node<?, ?>>> mTerminalNodes;
+
     protected OutputNode<T> mBeginNode;
+    protected PlannedNode mBeginPlannedNode;
     protected OutputNode<?> mCurrentNode;
+    protected PlannedNode mCurrentPlannedNode;
     protected Tag mPendingAttachTag;
 
     protected Graph() {
         mBeginTag = new Tag<>();
-        mTaggedNodes = new HashMap<>();
+        mTaggedNodes = new LinkedHashMap<>();
+        mPlannedNodes = new ArrayList<>();
+        mPlannedTags = new HashMap<>();
+        mTerminalNodes = new IdentityHashMap<>();
     }
 
     /**
@@ -65,6 +121,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <T_Node extends OutputNode<?>> T_Node getBeginNode() {
+        materialize();
         return (T_Node)mBeginNode;
     }
 
@@ -81,6 +138,7 @@ public class Graph<T> {
         }
         mBeginNode = outputNode;
         mCurrentNode = outputNode;
+        mCurrentPlannedNode = null;
     }
 
     /**
@@ -92,6 +150,7 @@ public class Graph<T> {
         mTaggedNodes.put(tag, outputNode);
         mBeginNode = outputNode;
         mCurrentNode = outputNode;
+        mCurrentPlannedNode = null;
     }
 
     /**
@@ -100,6 +159,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <T_Node> T_Node getCurrentNode() {
+        materialize();
         return (T_Node)mCurrentNode;
     }
 
@@ -176,6 +236,64 @@ public class Graph<T> {
         return begin(tag, new ListNode<>(list));
     }
 
+    /**
+     * Begins this {@link Graph} with an {@link IterableNode} as a begin node. The elements of the
+     * given {@link Iterable} are streamed without copying them.
+     * @param iterable An {@link Iterable}.
+     * @return A {@link Graph}.
+     */
+    public static <OUT> Graph<OUT> begin(final Iterable<OUT> iterable) {
+        return begin(new IterableNode<>(iterable));
+    }
+
+    /**
+     * Begins this {@link Graph} with an {@link IterableNode} as a begin node. The elements of the
+     * given {@link Iterator} are streamed once without copying them.
+     * @param iterator An {@link Iterator}.
+     * @return A {@link Graph}.
+     */
+    public static <OUT> Graph<OUT> begin(final Iterator<OUT> iterator) {
+        return begin(new IterableNode<>(iterator));
+    }
+
+    /**
+     * Begins this {@link Graph} with a {@link ReplayNode} as a begin node. The events of the given
+     * {@link Journal} are re-emitted starting from the given offset.
+     * @param journal A {@link Journal}.
+     * @param offset The offset of the first re-emitted event.
+     * @return A {@link Graph}.
+     */
+    public static <OUT> Graph<OUT> replay(final Journal journal, final long offset) {
+        return begin(new ReplayNode<OUT>(journal, offset));
+    }
+
+    /**
+     * Begins this {@link Graph} with an {@link IntArrayNode} as a begin node.
+     * @param array An {@code int} array.
+     * @return A {@link Graph}.
+     */
+    public static Graph<Integer> begin(final int[] array) {
+        return begin(new IntArrayNode(array));
+    }
+
+    /**
+     * Begins this {@link Graph} with a {@link LongArrayNode} as a begin node.
+     * @param array A {@code long} array.
+     * @return A {@link Graph}.
+     */
+    public static Graph<Long> begin(final long[] array) {
+        return begin(new LongArrayNode(array));
+    }
+
+    /**
+     * Begins this {@link Graph} with a {@link DoubleArrayNode} as a begin node.
+     * @param array A {@code double} array.
+     * @return A {@link Graph}.
+     */
+    public static Graph<Double> begin(final double[] array) {
+        return begin(new DoubleArrayNode(array));
+    }
+
     /**
      * Finds a {@link OutputNode} tagged with the given {@link Tag} and sets it to be current node.
      * @param tag A {@link Tag}.
@@ -184,8 +302,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <OUT> Graph<OUT> n(final Tag<OUT> tag) {
-        mCurrentNode = mTaggedNodes.get(tag);
-        return (Graph<OUT>)this;
+        return node(tag);
     }
 
     /**
@@ -196,7 +313,8 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <OUT> Graph<OUT> node(final Tag<OUT> tag) {
-        mCurrentNode = mTaggedNodes.get(tag);
+        mCurrentPlannedNode = mPlannedTags.get(tag);
+        mCurrentNode = (mCurrentPlannedNode == null) ? mTaggedNodes.get(tag) : null;
         return (Graph<OUT>)this;
     }
 
@@ -208,9 +326,176 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <OUT> OutputNode<OUT> findNode(final Tag tag) {
+        materialize();
         return (OutputNode<OUT>)mTaggedNodes.get(tag);
     }
 
+    /**
+     * Collects all {@link OutputNode}s of this {@link Graph} by traversing the attached nodes
+     * starting from the begin node and the tagged nodes.
+     * @return A {@link List} containing the {@link OutputNode}s in traversal order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<OutputNode<?>> getNodes() {
+        materialize();
+
+        final ArrayList<OutputNode<?>> nodes = new ArrayList<>();
+        final IdentityHashMap<OutputNode<?>, Boolean> visited = new IdentityHashMap<>();
+        final ArrayList<OutputNode<?>> pending = new ArrayList<>();
+
+        pending.addAll(mTaggedNodes.values());
+
+        if (mBeginNode != null) {
+            pending.add(mBeginNode);
+        }
+
+        while (!pending.isEmpty()) {
+            final OutputNode<?> node = pending.remove(pending.size() - 1);
+
+            if (node == null || visited.put(node, Boolean.TRUE) != null) {
+                continue;
+            }
+            nodes.add(node);
+
+            if (node instanceof ZipInputNode) {
+                pending.add(((ZipInputNode<?, ?>) node).getZipNode());
+            }
+
+            if (node instanceof AbstractOutputNode) {
+                final ArrayList<InputNode<?>> inputNodes = new ArrayList<>(((AbstractOutputNode<?>) node).mInputNodes);
+
+                for (int i = inputNodes.size() - 1; i >= 0; i--) {
+                    final InputNode<?> inputNode = inputNodes.get(i);
+
+                    if (inputNode instanceof OutputNode) {
+                        pending.add((OutputNode<?>) inputNode);
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Compiles this {@link Graph} for a frozen topology by fusing linear chains of stateless
+     * {@link FunctionNode}s, {@link FilterNode}s and {@link ActionNode}s into {@link FusedNode}s that
+     * execute each chain as a single stage. If nodes are later attached to or detached from a fused
+     * chain, the affected {@link FusedNode} falls back to dispatching through the original nodes.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> compile() {
+        FusedNode.fuse(getNodes());
+        return this;
+    }
+
+    /**
+     * Captures the state of the {@link StatefulNode}s of this {@link Graph} into a binary checkpoint
+     * that can be restored with {@link #restore(byte[])} into a freshly built {@link Graph} of the
+     * same structure. A node tagged with a named {@link Tag} is identified by the name of its tag,
+     * and other nodes by their position in the traversal order of {@link #getNodes()}. The traversal
+     * order depends only on the order in which the {@link Graph} is built, so the positions are
+     * stable for graphs built by the same code. Nodes whose position may change between versions
+     * of the code should be tagged with named {@link Tag}s.
+     * @return The checkpoint as a {@code byte} array.
+     * @throws IOException If the state of a node cannot be written.
+     */
+    public byte[] snapshot() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Snapshot.write(getStatefulNodes(), output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Restores the state of the {@link StatefulNode}s of this {@link Graph} from a checkpoint
+     * captured with {@link #snapshot()}.
+     * @param snapshot The checkpoint as a {@code byte} array.
+     * @return This {@link Graph}.
+     * @throws IOException If the checkpoint is invalid or does not match this {@link Graph}, i.e. if
+     * a node in the checkpoint is missing or of a different type, or if a {@link StatefulNode} of this
+     * {@link Graph} is not contained in the checkpoint.
+     */
+    public Graph<T> restore(final byte[] snapshot) throws IOException {
+        final Map<String, StatefulNode> statefulNodes = getStatefulNodes();
+        final int restoredCount = Snapshot.read(statefulNodes, new ByteArrayInputStream(snapshot));
+
+        if (restoredCount != statefulNodes.size()) {
+            throw new IOException("Snapshot contains " + restoredCount + " of the " + statefulNodes.size() + " stateful nodes");
+        }
+        return this;
+    }
+
+    /**
+     * Collects the {@link StatefulNode}s of this {@link Graph} by their snapshot keys.
+     * @return A {@link Map} of {@link StatefulNode}s in traversal order.
+     */
+    protected Map<String, StatefulNode> getStatefulNodes() {
+        final IdentityHashMap<OutputNode<?>, String> tagNames = new IdentityHashMap<>();
+
+        for (final Map.Entry<Tag, OutputNode<?>> entry : mTaggedNodes.entrySet()) {
+            if (entry.getKey().getName() != null) {
+                tagNames.put(entry.getValue(), entry.getKey().getName());
+            }
+        }
+
+        final LinkedHashMap<String, StatefulNode> statefulNodes = new LinkedHashMap<>();
+        final List<OutputNode<?>> nodes = getNodes();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            final OutputNode<?> node = nodes.get(i);
+
+            if (node instanceof StatefulNode) {
+                final String tagName = tagNames.get(node);
+                statefulNodes.put(tagName != null ? "tag:" + tagName : "#" + i, (StatefulNode) node);
+            }
+        }
+        return statefulNodes;
+    }
+
+    /**
+     * Creates a {@link Topology} snapshot of the nodes and edges of this {@link Graph}.
+     * @return A {@link Topology}.
+     */
+    public Topology getTopology() {
+        materialize();
+        return new Topology(this);
+    }
+
+    /**
+     * Instruments all nodes of this {@link Graph} that extend {@link AbstractOutputNode} to record
+     * their runtime metrics into the given {@link MetricsRegistry}. Nodes attached after invoking
+     * this method are not instrumented.
+     * @param registry A {@link MetricsRegistry}. If {@code null}, the instrumentation is removed.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> instrument(final MetricsRegistry registry) {
+        for (final OutputNode<?> node : getNodes()) {
+            if (node instanceof AbstractOutputNode) {
+                final AbstractOutputNode<?> outputNode = (AbstractOutputNode<?>) node;
+                outputNode.setMetrics(registry != null ? registry.register(outputNode) : null);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Enables tracing the lineage of sampled events with the given {@link Tracer} for all nodes of
+     * this {@link Graph} that extend {@link AbstractOutputNode}. Nodes attached after invoking this
+     * method are not traced.
+     * @param tracer A {@link Tracer}. If {@code null}, the tracing is disabled.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> trace(final Tracer tracer) {
+        for (final OutputNode<?> node : getNodes()) {
+            if (node instanceof AbstractOutputNode) {
+                if (tracer != null) {
+                    tracer.register(node);
+                }
+                ((AbstractOutputNode<?>) node).setTracer(tracer);
+            }
+        }
+        return this;
+    }
+
     /**
      * Attaches an {@link ActionNode} with the given action to the current {@link OutputNode}.
      * @param action The action as an {@link Action}.
@@ -218,7 +503,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public Graph<T> action(final Action<T> action) {
-        return next(new ActionNode<>(action));
+        return plan(null, () -> new ActionNode<>(action), null);
     }
 
     /**
@@ -228,7 +513,29 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <OUT> Graph<OUT> map(final Function<T, OUT> function) {
-        return next(new FunctionNode<>(function));
+        return plan(null, () -> new FunctionNode<>(function), (Function<Object, Object>) function);
+    }
+
+    /**
+     * Attaches a {@link CachedFunctionNode} that memoizes the results of the given mapping function
+     * in a {@link TinyLfuCache} holding at most the given number of results.
+     * @param function The function as a {@link Function}.
+     * @param maxWeight The maximum number of cached results.
+     * @return This {@link Graph}.
+     */
+    public <OUT> Graph<OUT> mapCached(final Function<T, OUT> function, final long maxWeight) {
+        return plan(null, () -> new CachedFunctionNode<>(function, maxWeight), null);
+    }
+
+    /**
+     * Attaches a {@link CachedFunctionNode} that memoizes the results of the given mapping function
+     * in the given {@link TinyLfuCache}.
+     * @param function The function as a {@link Function}.
+     * @param cache A {@link TinyLfuCache}.
+     * @return This {@link Graph}.
+     */
+    public <OUT> Graph<OUT> mapCached(final Function<T, OUT> function, final TinyLfuCache<T, OUT> cache) {
+        return plan(null, () -> new CachedFunctionNode<>(function, cache), null);
     }
 
     /**
@@ -249,6 +556,10 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <OUT> Graph<OUT> next(final Node<T, OUT> node) {
+        if (mCurrentPlannedNode != null) {
+            return plan(node, null, null);
+        }
+
         Node<T, OUT> nextNode = node;
 
         if (node instanceof ZipInputNode) {
@@ -283,6 +594,28 @@ public class Graph<T> {
         return next(node);
     }
 
+    /**
+     * Attaches a {@link DistinctNode} dropping the outputs whose key has been seen within the given
+     * time window.
+     * @param keyFunction A {@link Function} extracting the key of an output.
+     * @param window The window in milliseconds.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> distinct(final Function<T, ?> keyFunction, final long window) {
+        return plan(null, () -> new DistinctNode<>(keyFunction).window(window), null);
+    }
+
+    /**
+     * Attaches a {@link DistinctNode} dropping the outputs whose key might have been seen according
+     * to the given {@link ScalableBloomFilter}.
+     * @param keyFunction A {@link Function} extracting the key of an output.
+     * @param filter A {@link ScalableBloomFilter}.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> distinct(final Function<T, ?> keyFunction, final ScalableBloomFilter filter) {
+        return plan(null, () -> new DistinctNode<>(keyFunction, filter), null);
+    }
+
     /**
      * Attaches a {@link FilterNode} with the given condition to the current {@link OutputNode}.
      * @param condition The condition as a {@link BooleanFunction}.
@@ -290,7 +623,72 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public Graph<T> filter(final BooleanFunction<T> condition) {
-        return next(new FilterNode<>(condition));
+        return plan(null, () -> new FilterNode<>(condition), null);
+    }
+
+    /**
+     * Attaches an {@link AggregateNode} to the current {@link OutputNode} for maintaining the count,
+     * sum, minimum, maximum and mean of the values of each key. The binary form of a key may have
+     * at most {@link KeyedStateStore#DEFAULT_MAX_KEY_SIZE} bytes, and outputs with longer keys are
+     * dropped. Use {@link #aggregate(Function, Function, AggregateNode.Combiner, int)} for longer keys.
+     * @param keyFunction A {@link Function} extracting the key of an output.
+     * @param valueFunction A {@link Function} extracting the aggregated value of an output.
+     * @return This {@link Graph}.
+     */
+    public Graph<Aggregate> aggregate(final Function<T, ?> keyFunction, final Function<T, ? extends Number> valueFunction) {
+        return plan(null, () -> new AggregateNode<>(keyFunction, valueFunction), null);
+    }
+
+    /**
+     * Attaches an {@link AggregateNode} to the current {@link OutputNode} for maintaining the count,
+     * sum, minimum, maximum, mean and a custom combined value of the values of each key. The binary
+     * form of a key may have at most {@link KeyedStateStore#DEFAULT_MAX_KEY_SIZE} bytes, and outputs
+     * with longer keys are dropped.
+     * @param keyFunction A {@link Function} extracting the key of an output.
+     * @param valueFunction A {@link Function} extracting the aggregated value of an output.
+     * @param combiner An associative {@link AggregateNode.Combiner}.
+     * @return This {@link Graph}.
+     */
+    public Graph<Aggregate> aggregate(final Function<T, ?> keyFunction, final Function<T, ? extends Number> valueFunction,
+                                      final AggregateNode.Combiner combiner) {
+        return plan(null, () -> new AggregateNode<>(keyFunction, valueFunction, combiner), null);
+    }
+
+    /**
+     * Attaches an {@link AggregateNode} to the current {@link OutputNode} for maintaining the count,
+     * sum, minimum, maximum, mean and an optional custom combined value of the values of each key,
+     * with the given maximum size of the binary form of a key. Outputs with longer keys are dropped.
+     * @param keyFunction A {@link Function} extracting the key of an output.
+     * @param valueFunction A {@link Function} extracting the aggregated value of an output.
+     * @param combiner An associative {@link AggregateNode.Combiner}, or {@code null}.
+     * @param maxKeySize The maximum size of a key in bytes. At most {@code 255}.
+     * @return This {@link Graph}.
+     */
+    public Graph<Aggregate> aggregate(final Function<T, ?> keyFunction, final Function<T, ? extends Number> valueFunction,
+                                      final AggregateNode.Combiner combiner, final int maxKeySize) {
+        return plan(null, () -> new AggregateNode<>(keyFunction, valueFunction, combiner,
+                new KeyedStateStore(AggregateNode.VALUE_SIZE, maxKeySize)), null);
+    }
+
+    /**
+     * Attaches an {@link AggregateNode} merging the partial {@link Aggregate}s received from
+     * the current {@link OutputNode}.
+     * @param combiner The {@link AggregateNode.Combiner} used for the partials, or {@code null}.
+     * @return This {@link Graph}.
+     */
+    public Graph<Aggregate> mergeAggregates(final AggregateNode.Combiner combiner) {
+        return plan(null, () -> AggregateNode.merge(combiner), null);
+    }
+
+    /**
+     * Attaches an {@link AggregateNode} merging the partial {@link Aggregate}s received from
+     * the current {@link OutputNode}, with the given maximum size of the binary form of a key.
+     * @param combiner The {@link AggregateNode.Combiner} used for the partials, or {@code null}.
+     * @param maxKeySize The maximum size of a key in bytes. At most {@code 255}.
+     * @return This {@link Graph}.
+     */
+    public Graph<Aggregate> mergeAggregates(final AggregateNode.Combiner combiner, final int maxKeySize) {
+        return plan(null, () -> AggregateNode.merge(combiner, new KeyedStateStore(AggregateNode.VALUE_SIZE, maxKeySize)), null);
     }
 
     /**
@@ -300,7 +698,65 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public Graph<T> buffer(final int capacity) {
-        return next(new BufferNode<>(capacity));
+        return plan(null, () -> new BufferNode<>(capacity), null);
+    }
+
+    /**
+     * Attaches a {@link GroupByNode} to the current {@link OutputNode}. Each output is routed by its
+     * key to a sub-graph that is built with the given {@link GroupByNode.Template} when the key is
+     * first seen. The outputs of all sub-graphs are emitted by the {@link GroupByNode}.
+     * @param keyFunction A {@link Function} extracting the key of an output.
+     * @param template A {@link GroupByNode.Template} for building the sub-graph of a key.
+     * @param <OUT> The output type of the sub-graphs.
+     * @return This {@link Graph}.
+     */
+    public <OUT> Graph<OUT> groupBy(final Function<T, ?> keyFunction, final GroupByNode.Template<T, OUT> template) {
+        return plan(null, () -> new GroupByNode<>(keyFunction, template), null);
+    }
+
+    /**
+     * Attaches a {@link JournalNode} appending the outputs of the current {@link OutputNode} to
+     * the given {@link Journal}.
+     * @param journal A {@link Journal}.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> journal(final Journal journal) {
+        return plan(null, () -> new JournalNode<>(journal), null);
+    }
+
+    /**
+     * Attaches a {@link LookupJoinNode} enriching the outputs of the current {@link OutputNode} with
+     * the values of the given {@link LookupTable}.
+     * @param table A {@link LookupTable}.
+     * @param keyFunction A {@link Function} extracting the key of an output.
+     * @param joinFunction A {@link Function2} combining an output and its value.
+     * @param <K> The key type.
+     * @param <V> The value type.
+     * @param <OUT> The output type.
+     * @return This {@link Graph}.
+     */
+    public <K, V, OUT> Graph<OUT> lookup(final LookupTable<K, V> table, final Function<T, K> keyFunction,
+                                         final Function2<T, V, OUT> joinFunction) {
+        return plan(null, () -> new LookupJoinNode<>(table, keyFunction, joinFunction), null);
+    }
+
+    /**
+     * Attaches a {@link MergeNode} to the current {@link OutputNode} and to the given sources. The
+     * outputs of all sources are emitted by the {@link MergeNode} in turns by a single thread at a time.
+     * The planned nodes are materialized, as the given sources may emit before the current
+     * {@link OutputNode} of this {@link Graph}.
+     * @param sources A {@link List} of the other source {@link OutputNode}s.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> merge(final List<? extends OutputNode<T>> sources) {
+        final MergeNode<T> mergeNode = new MergeNode<>(sources.size() + 1);
+        final Graph<T> graph = plan(mergeNode, null, null);
+        materialize();
+
+        for (final OutputNode<T> source : sources) {
+            source.attach(mergeNode);
+        }
+        return graph;
     }
 
     /**
@@ -310,7 +766,41 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public Graph<T> repeat(final int times) {
-        return next(new RepeatNode<>(times));
+        return plan(null, () -> new RepeatNode<>(times), null);
+    }
+
+    /**
+     * Attaches a {@link ShareNode} to the current {@link OutputNode}. The {@link ShareNode} replays
+     * its most recent outputs to the nodes attached to it later.
+     * @param capacity The maximum number of replayed outputs.
+     * @param maxAge The maximum age of the replayed outputs in milliseconds, or zero.
+     * @return This {@link Graph}.
+     */
+    public Graph<T> share(final int capacity, final long maxAge) {
+        return plan(null, () -> new ShareNode<T>(capacity).maxAge(maxAge), null);
+    }
+
+    /**
+     * Attaches a {@link SketchNode} adding the values of the outputs of the current {@link OutputNode}
+     * to the given {@link Sketch}.
+     * @param valueFunction A {@link Function} extracting the value of an output.
+     * @param sketch A {@link Sketch}, e.g. a {@link com.robopupu.api.graph.sketch.LogHistogram}.
+     * @param <S> The type of the {@link Sketch}.
+     * @return This {@link Graph}.
+     */
+    public <S extends Sketch> Graph<S> sketch(final Function<T, ? extends Number> valueFunction, final S sketch) {
+        return plan(null, () -> new SketchNode<>(valueFunction, sketch), null);
+    }
+
+    /**
+     * Attaches a {@link SketchNode} merging the sketches received from the current {@link OutputNode}
+     * into the given {@link Sketch}.
+     * @param sketch A {@link Sketch}.
+     * @param <S> The type of the {@link Sketch}.
+     * @return This {@link Graph}.
+     */
+    public <S extends Sketch> Graph<S> mergeSketches(final S sketch) {
+        return plan(null, () -> SketchNode.merge(sketch), null);
     }
 
     /**
@@ -320,7 +810,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public Graph<T> skip(final int steps) {
-        return next(new SkipNode<>(steps));
+        return plan(null, () -> new SkipNode<>(steps), null);
     }
 
     /**
@@ -330,7 +820,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public Graph<T> skipWhile(final BooleanFunction<T> condition) {
-        return next(new SkipWhileNode<>(condition));
+        return plan(null, () -> new SkipWhileNode<>(condition), null);
     }
 
     /**
@@ -338,7 +828,32 @@ public class Graph<T> {
      * @return This {@link Graph}.
      */
     public Graph<String> string() {
-        return next(new StringNode<>());
+        return plan(null, StringNode::new, null);
+    }
+
+    /**
+     * Attaches an {@link ItemSketchNode} tracking the most frequent items of the outputs of
+     * the current {@link OutputNode} within the given sliding window.
+     * @param itemFunction A {@link Function} extracting the item of an output.
+     * @param k The number of tracked items.
+     * @param window The window in milliseconds.
+     * @param sliceCount The number of slices in the window.
+     * @return This {@link Graph}.
+     */
+    public Graph<TopK> topK(final Function<T, ?> itemFunction, final int k, final long window, final int sliceCount) {
+        return plan(null, () -> new ItemSketchNode<>(itemFunction, new TopK(k)).window(window, sliceCount), null);
+    }
+
+    /**
+     * Attaches an {@link ItemSketchNode} estimating the number of distinct items of the outputs of
+     * the current {@link OutputNode} within the given sliding window.
+     * @param itemFunction A {@link Function} extracting the item of an output.
+     * @param window The window in milliseconds.
+     * @param sliceCount The number of slices in the window.
+     * @return This {@link Graph}.
+     */
+    public Graph<HyperLogLog> countDistinct(final Function<T, ?> itemFunction, final long window, final int sliceCount) {
+        return plan(null, () -> new ItemSketchNode<>(itemFunction, new HyperLogLog()).window(window, sliceCount), null);
     }
 
     /**
@@ -348,7 +863,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public Graph<T> take(final int steps) {
-        return next(new TakeNode<>(steps));
+        return plan(null, () -> new TakeNode<>(steps), null);
     }
 
     /**
@@ -356,7 +871,7 @@ public class Graph<T> {
      * @return This {@link Graph}.
      */
     public Graph<Double> sum() {
-        return next(new SumNode<>());
+        return plan(null, SumNode::new, null);
     }
 
     /**
@@ -384,6 +899,30 @@ public class Graph<T> {
         return graph;
     }
 
+    /**
+     * Attaches a {@link PooledTextViewNode} for the given {@link TextView} to produce inputted text
+     * as reusable {@link TextEvent}s obtained from a new {@link EventPool} owned by the created
+     * {@link Graph}. The emitted {@link TextEvent}s are released after they have been dispatched.
+     * @param view A {@link TextView}.
+     * @return This {@link Graph}.
+     */
+    public static Graph<TextEvent> onTextEvents(final TextView view) {
+        return onTextEvents(view, new EventPool<>(TextEvent::new));
+    }
+
+    /**
+     * Attaches a {@link PooledTextViewNode} for the given {@link TextView} to produce inputted text
+     * as reusable {@link TextEvent}s obtained from the given {@link EventPool}.
+     * @param view A {@link TextView}.
+     * @param eventPool An {@link EventPool} for {@link TextEvent}s.
+     * @return This {@link Graph}.
+     */
+    public static Graph<TextEvent> onTextEvents(final TextView view, final EventPool<TextEvent> eventPool) {
+        final Graph<TextEvent> graph = new Graph<>();
+        graph.setBeginNode(new PooledTextViewNode(view, eventPool));
+        return graph;
+    }
+
     /**
      * Attaches an {@link RequestNode} for the given {@link RequestDelegate}.
      * @param delegate A {@link RequestDelegate}.
@@ -391,7 +930,7 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <OUT> Graph<OUT> request(final RequestDelegate<OUT> delegate) {
-        return next(new RequestNode<>(delegate));
+        return plan(null, () -> new RequestNode<>(delegate), null);
     }
 
     /**
@@ -401,14 +940,12 @@ public class Graph<T> {
         getBeginNode().emit();
     }
 
-
     /**
      * Invokes emit on {@link Graph} and converts the emitted output to {@code boolean} value.
      * @return A {@code boolean} value.
      */
     public boolean toBoolean() {
-        final BooleanNode<T> node = new BooleanNode<>();
-        next(node);
+        final BooleanNode<T> node = getTerminalNode(BooleanNode.class, BooleanNode::new);
         emit();
         return node.getValue();
     }
@@ -418,8 +955,7 @@ public class Graph<T> {
      * @return A {@code byte} value.
      */
     public byte toByte() {
-        final ByteNode<T> node = new ByteNode<>();
-        next(node);
+        final ByteNode<T> node = getTerminalNode(ByteNode.class, ByteNode::new);
         emit();
         return node.getValue();
     }
@@ -429,8 +965,7 @@ public class Graph<T> {
      * @return A {@code char} value.
      */
     public char toChar() {
-        final CharacterNode<T> node = new CharacterNode<>();
-        next(node);
+        final CharacterNode<T> node = getTerminalNode(CharacterNode.class, CharacterNode::new);
         emit();
         return node.getValue();
     }
@@ -440,8 +975,7 @@ public class Graph<T> {
      * @return A {@code double} value.
      */
     public double toDouble() {
-        final DoubleNode<T> node = new DoubleNode<>();
-        next(node);
+        final DoubleNode<T> node = getTerminalNode(DoubleNode.class, DoubleNode::new);
         emit();
         return node.getValue();
     }
@@ -451,8 +985,7 @@ public class Graph<T> {
      * @return A {@code float} value.
      */
     public float toFloat() {
-        final FloatNode<T> node = new FloatNode<>();
-        next(node);
+        final FloatNode<T> node = getTerminalNode(FloatNode.class, FloatNode::new);
         emit();
         return node.getValue();
     }
@@ -462,8 +995,7 @@ public class Graph<T> {
      * @return An {@code int} value.
      */
     public int toInt() {
-        final IntNode<T> node = new IntNode<>();
-        next(node);
+        final IntNode<T> node = getTerminalNode(IntNode.class, IntNode::new);
         emit();
         return node.getValue();
     }
@@ -473,8 +1005,7 @@ public class Graph<T> {
      * @return A {@code long} value.
      */
     public long toLong() {
-        final LongNode<T> node = new LongNode<>();
-        next(node);
+        final LongNode<T> node = getTerminalNode(LongNode.class, LongNode::new);
         emit();
         return node.getValue();
     }
@@ -484,8 +1015,7 @@ public class Graph<T> {
      * @return A {@code short} value.
      */
     public short toShort() {
-        final ShortNode<T> node = new ShortNode<>();
-        next(node);
+        final ShortNode<T> node = getTerminalNode(ShortNode.class, ShortNode::new);
         emit();
         return node.getValue();
     }
@@ -496,7 +1026,11 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <IN> Graph<IN> end(final InputNode<IN> inputNode) {
-        ((OutputNode<IN>)mCurrentNode).attach(inputNode);
+        if (mCurrentPlannedNode != null) {
+            addPlannedNode((InputNode<Object>) inputNode, null, null);
+        } else {
+            ((OutputNode<IN>)mCurrentNode).attach(inputNode);
+        }
         return (Graph<IN>)this;
     }
 
@@ -506,10 +1040,206 @@ public class Graph<T> {
      */
     @SuppressWarnings("unchecked")
     public <IN> Graph<IN> end(final Action<IN> action) {
-        ((OutputNode<IN>)mCurrentNode).attach(new ActionNode<>(action));
+        if (mCurrentPlannedNode != null || mCurrentNode instanceof AbstractOutputNode) {
+            addPlannedNode(null, () -> new ActionNode<>(action), null);
+        } else {
+            ((OutputNode<IN>)mCurrentNode).attach(new ActionNode<>(action));
+        }
         return (Graph<IN>)this;
     }
 
+    /**
+     * Materializes the planned nodes of this {@link Graph}. The nodes are instantiated and attached,
+     * and the tags and the current node refer to the materialized nodes. Invoking this method is
+     * not required, as the plan is materialized automatically when the {@link Graph} is first used.
+     *
+     * Materialization is synchronized, as source nodes may emit their first events concurrently.
+     * A {@link LazyNode} is replaced with its materialized {@link Node} only after all planned
+     * nodes have been attached, so that events never reach a partially attached {@link Node}.
+     * @return This {@link Graph}.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Graph<T> materialize() {
+        if (mPlannedNodes.isEmpty()) {
+            return this;
+        }
+
+        final ArrayList<PlannedNode> plannedNodes = new ArrayList<>(mPlannedNodes);
+        final ArrayList<PlannedNode> lazyNodes = new ArrayList<>();
+        composeFunctions(plannedNodes);
+
+        for (final PlannedNode plannedNode : plannedNodes) {
+            if (plannedNode.mComposed) {
+                continue;
+            }
+
+            final InputNode<Object> node = plannedNode.create();
+
+            if (plannedNode.mLazyNode != null) {
+                lazyNodes.add(plannedNode);
+            } else if (plannedNode.mParent != null) {
+                plannedNode.mParent.getOutputNode().attach(node);
+            }
+
+            if (plannedNode.mTag != null) {
+                mTaggedNodes.put(plannedNode.mTag, plannedNode.getOutputNode());
+            }
+        }
+
+        for (final PlannedNode plannedNode : lazyNodes) {
+            ((AbstractOutputNode<Object>) plannedNode.mParentNode).replace(plannedNode.mLazyNode, plannedNode.mNode);
+            plannedNode.mLazyNode.mNode = plannedNode.mNode;
+        }
+        mPlannedNodes.clear();
+
+        if (mBeginPlannedNode != null) {
+            mBeginNode = (OutputNode<T>) mBeginPlannedNode.mNode;
+            mBeginPlannedNode = null;
+        }
+
+        if (mCurrentPlannedNode != null) {
+            mCurrentNode = mCurrentPlannedNode.getOutputNode();
+            mCurrentPlannedNode = null;
+        }
+        mPlannedTags.clear();
+        return this;
+    }
+
+    /**
+     * Tests if all nodes of this {@link Graph} have been materialized.
+     * @return A {@code boolean} value.
+     */
+    public synchronized boolean isMaterialized() {
+        return mPlannedNodes.isEmpty();
+    }
+
+    /**
+     * Records a planned {@link Node} to be the next {@link Node} after the current {@link Node}.
+     * @param node A {@link Node}, or {@code null} if the node is created with the given {@link NodeFactory}.
+     * @param factory A {@link NodeFactory}, or {@code null} if a {@link Node} is given.
+     * @param function The mapping {@link Function} of a planned {@link FunctionNode}, or {@code null}.
+     * @return This {@link Graph}.
+     */
+    @SuppressWarnings("unchecked")
+    protected <OUT> Graph<OUT> plan(final Node<?, ?> node, final NodeFactory factory, final Function<Object, Object> function) {
+        if (mCurrentPlannedNode == null && mCurrentNode != null && !(mCurrentNode instanceof AbstractOutputNode)) {
+            return next((Node<T, OUT>) (node != null ? node : factory.create()));
+        }
+
+        final PlannedNode plannedNode = addPlannedNode((InputNode<Object>) node, factory, function);
+
+        if (mPendingAttachTag != null) {
+            plannedNode.mTag = mPendingAttachTag;
+            mPlannedTags.put(mPendingAttachTag, plannedNode);
+            mPendingAttachTag = null;
+        }
+
+        if (mBeginNode == null && mBeginPlannedNode == null) {
+            mBeginPlannedNode = plannedNode;
+        }
+        mCurrentNode = null;
+        mCurrentPlannedNode = plannedNode;
+        return (Graph<OUT>)this;
+    }
+
+    /**
+     * Adds a {@link PlannedNode} attached to the current {@link Node} without changing the current
+     * {@link Node}. If the current {@link Node} has already been materialized, a {@link LazyNode}
+     * is attached to it for materializing this {@link Graph} on the first received event.
+     */
+    @SuppressWarnings("unchecked")
+    private PlannedNode addPlannedNode(final InputNode<Object> node, final NodeFactory factory, final Function<Object, Object> function) {
+        final PlannedNode plannedNode = new PlannedNode(mCurrentPlannedNode, node, factory, function);
+
+        if (mCurrentPlannedNode == null && mCurrentNode != null) {
+            plannedNode.mParentNode = (OutputNode<Object>) mCurrentNode;
+            plannedNode.mLazyNode = new LazyNode(this);
+            plannedNode.mParentNode.attach(plannedNode.mLazyNode);
+        }
+        mPlannedNodes.add(plannedNode);
+        return plannedNode;
+    }
+
+    /**
+     * Composes the functions of consecutive planned {@link FunctionNode}s into a single
+     * {@link Function}. A planned {@link FunctionNode} is composed with its child only if it is
+     * the only child, and the planned {@link FunctionNode} is neither tagged nor the current node.
+     * @param plannedNodes A {@link List} of {@link PlannedNode}s in the recorded order.
+     */
+    private void composeFunctions(final List<PlannedNode> plannedNodes) {
+        final IdentityHashMap<PlannedNode, Integer> childCounts = new IdentityHashMap<>();
+
+        for (final PlannedNode plannedNode : plannedNodes) {
+            if (plannedNode.mParent != null) {
+                final Integer childCount = childCounts.get(plannedNode.mParent);
+                childCounts.put(plannedNode.mParent, (childCount != null) ? childCount + 1 : 1);
+            }
+        }
+
+        for (final PlannedNode plannedNode : plannedNodes) {
+            final PlannedNode parent = plannedNode.mParent;
+
+            if (plannedNode.mFunction != null && parent != null && parent.mFunction != null
+                    && parent.mTag == null && parent != mCurrentPlannedNode && childCounts.get(parent) == 1) {
+                final Function<Object, Object> first = parent.mFunction;
+                final Function<Object, Object> second = plannedNode.mFunction;
+                final Function<Object, Object> composed = input -> {
+                    final Object output = first.eval(input);
+                    return (output != null) ? second.eval(output) : null;
+                };
+
+                plannedNode.mFunction = composed;
+                plannedNode.mFactory = () -> new FunctionNode<>(composed);
+                plannedNode.mParent = parent.mParent;
+                plannedNode.mParentNode = parent.mParentNode;
+                plannedNode.mLazyNode = parent.mLazyNode;
+                parent.mComposed = true;
+
+                if (mBeginPlannedNode == parent) {
+                    mBeginPlannedNode = plannedNode;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a conversion {@link Node} of the given type attached to the current {@link Node}. A
+     * conversion {@link Node} is created and attached only once for each current {@link Node}, and
+     * it does not change the current {@link Node}.
+     * @param nodeClass The {@link Class} of the conversion {@link Node}.
+     * @param factory A {@link NodeFactory} for creating the conversion {@link Node}.
+     * @return The conversion {@link Node}.
+     */
+    @SuppressWarnings("unchecked")
+    private <T_Node extends Node<?, ?>> T_Node getTerminalNode(final Class<?> nodeClass, final NodeFactory factory) {
+        materialize();
+
+        ArrayList<Node<?, ?>> terminalNodes = mTerminalNodes.get(mCurrentNode);
+
+        if (terminalNodes == null) {
+            terminalNodes = new ArrayList<>();
+            mTerminalNodes.put(mCurrentNode, terminalNodes);
+        }
+
+        for (final Node<?, ?> terminalNode : terminalNodes) {
+            if (terminalNode.getClass() == nodeClass) {
+                return (T_Node) terminalNode;
+            }
+        }
+
+        final Node<Object, ?> node = (Node<Object, ?>) factory.create();
+
+        if (mCurrentNode != null) {
+            ((OutputNode<Object>) mCurrentNode).attach(node);
+        }
+
+        if (mBeginNode == null) {
+            mBeginNode = (OutputNode<T>) node;
+        }
+        terminalNodes.add(node);
+        return (T_Node) node;
+    }
+
     /**
      * Converts this {@link Graph}.
      * @return This {@link Graph}.
@@ -519,4 +1249,88 @@ public class Graph<T> {
         return (T_Graph)this;
     }
 
+    /**
+     * {@link NodeFactory} defines an interface for creating planned {@link Node}s.
+     */
+    protected interface NodeFactory {
+
+        /**
+         * Creates a new {@link Node}.
+         * @return The created {@link Node}.
+         */
+        Node<?, ?> create();
+    }
+
+    /**
+     * {@link PlannedNode} records a {@link Node} of the plan of a {@link Graph}.
+     */
+    protected static class PlannedNode {
+
+        private final InputNode<Object> mGivenNode;
+
+        private boolean mComposed;
+        private NodeFactory mFactory;
+        private Function<Object, Object> mFunction;
+        private LazyNode mLazyNode;
+        private InputNode<Object> mNode;
+        private PlannedNode mParent;
+        private OutputNode<Object> mParentNode;
+        private Tag mTag;
+
+        private PlannedNode(final PlannedNode parent, final InputNode<Object> node, final NodeFactory factory,
+                            final Function<Object, Object> function) {
+            mParent = parent;
+            mGivenNode = node;
+            mFactory = factory;
+            mFunction = function;
+        }
+
+        @SuppressWarnings("unchecked")
+        private InputNode<Object> create() {
+            mNode = (mGivenNode != null) ? mGivenNode : (InputNode<Object>) mFactory.create();
+            return mNode;
+        }
+
+        @SuppressWarnings("unchecked")
+        private OutputNode<Object> getOutputNode() {
+            if (mNode instanceof ZipInputNode) {
+                return ((ZipInputNode<?, Object>) mNode).getZipNode();
+            }
+            return (OutputNode<Object>) mNode;
+        }
+    }
+
+    /**
+     * {@link LazyNode} is attached to a materialized {@link OutputNode} in place of a planned
+     * {@link Node}. On the first received event it materializes the {@link Graph}, replaces itself
+     * with the materialized {@link Node}, and forwards the event to it.
+     */
+    private static class LazyNode implements InputNode<Object> {
+
+        private final Graph<?> mGraph;
+
+        private volatile InputNode<Object> mNode;
+
+        private LazyNode(final Graph<?> graph) {
+            mGraph = graph;
+        }
+
+        @Override
+        public void onInput(final OutputNode<Object> outputNode, final Object input) {
+            mGraph.materialize();
+            mNode.onInput(outputNode, input);
+        }
+
+        @Override
+        public void onCompleted(final OutputNode<?> outputNode) {
+            mGraph.materialize();
+            mNode.onCompleted(outputNode);
+        }
+
+        @Override
+        public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+            mGraph.materialize();
+            mNode.onError(outputNode, throwable);
+        }
+    }
 }
@@ -6,6 +6,16 @@ package com.robopupu.api.graph;
  */
 public class Tag<T> {
 
+    private final String mName;
+
+    public Tag() {
+        this(null);
+    }
+
+    public Tag(final String name) {
+        mName = name;
+    }
+
     /**
      * Creates a new instance of {@link Tag}.
      * @param <OUT> The type of the tagged {@link Node}.
@@ -14,4 +24,27 @@ public class Tag<T> {
     public static <OUT> Tag<OUT> create() {
         return new Tag<>();
     }
+
+    /**
+     * Creates a new instance of {@link Tag} with the given name.
+     * @param name The name as a {@link String}. Used when the topology of a {@link Graph} is exported.
+     * @param <OUT> The type of the tagged {@link Node}.
+     * @return A new instance of  {@link Tag}.
+     */
+    public static <OUT> Tag<OUT> create(final String name) {
+        return new Tag<>(name);
+    }
+
+    /**
+     * Gets the name of this {@link Tag}.
+     * @return The name as a {@link String}. May return {@code null}.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    @Override
+    public String toString() {
+        return (mName != null) ? mName : "Tag@" + Integer.toHexString(hashCode());
+    }
 }
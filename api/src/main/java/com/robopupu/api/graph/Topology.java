@@ -0,0 +1,299 @@
+package com.robopupu.api.graph;
+
+import com.robopupu.api.graph.metrics.NodeMetrics;
+import com.robopupu.api.graph.nodes.ZipInputNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@link Topology} is a snapshot of the nodes and edges of a {@link Graph}. It can be exported
+ * as JSON or as Graphviz DOT. For nodes instrumented with
+ * {@link Graph#instrument(com.robopupu.api.graph.metrics.MetricsRegistry)} the export is annotated
+ * with the event rates and buffer depths, so that hot edges and large fan-outs can be spotted.
+ * The rates are the recent rates given by {@link NodeMetrics#getRecentOutputRate()}, sampled once
+ * when the {@link Topology} is created, rather than averages over the lifetime of the nodes.
+ */
+public class Topology {
+
+    private final ArrayList<Edge> mEdges;
+    private final IdentityHashMap<Object, Integer> mNodeIds;
+    private final ArrayList<Object> mNodes;
+    private final IdentityHashMap<Object, Double> mRates;
+    private final IdentityHashMap<Object, List<String>> mTags;
+
+    /**
+     * Constructs a new instance of {@link Topology} for the given {@link Graph}.
+     * @param graph A {@link Graph}.
+     */
+    public Topology(final Graph<?> graph) {
+        mEdges = new ArrayList<>();
+        mNodeIds = new IdentityHashMap<>();
+        mNodes = new ArrayList<>();
+        mRates = new IdentityHashMap<>();
+        mTags = new IdentityHashMap<>();
+
+        for (final Map.Entry<Tag, OutputNode<?>> entry : graph.mTaggedNodes.entrySet()) {
+            List<String> tags = mTags.get(entry.getValue());
+
+            if (tags == null) {
+                tags = new ArrayList<>();
+                mTags.put(entry.getValue(), tags);
+            }
+            tags.add(entry.getKey() == graph.getBeginTag() ? "begin" : entry.getKey().toString());
+        }
+
+        for (final OutputNode<?> node : graph.getNodes()) {
+            addNode(node);
+
+            final NodeMetrics metrics = getMetrics(node);
+
+            if (metrics != null) {
+                mRates.put(node, metrics.getRecentOutputRate());
+            }
+        }
+
+        for (final OutputNode<?> node : graph.getNodes()) {
+            if (node instanceof ZipInputNode) {
+                final ZipInputNode<?, ?> zipInputNode = (ZipInputNode<?, ?>) node;
+                mEdges.add(new Edge(node, addNode(zipInputNode.getZipNode()), zipInputNode.getIndex()));
+            }
+
+            if (node instanceof AbstractOutputNode) {
+                for (final InputNode<?> inputNode : ((AbstractOutputNode<?>) node).getInputNodes()) {
+                    mEdges.add(new Edge(node, addNode(inputNode), -1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the nodes of this {@link Topology}. A node is an {@link OutputNode} or an {@link InputNode}.
+     * @return A {@link List} containing the nodes.
+     */
+    public List<Object> getNodes() {
+        return new ArrayList<>(mNodes);
+    }
+
+    /**
+     * Gets the number of edges going out from the given node.
+     * @param node A node.
+     * @return The fan-out as an {@code int}.
+     */
+    public int getFanOut(final Object node) {
+        int fanOut = 0;
+
+        for (final Edge edge : mEdges) {
+            if (edge.mFrom == node) {
+                fanOut++;
+            }
+        }
+        return fanOut;
+    }
+
+    /**
+     * Exports this {@link Topology} as JSON.
+     * @return The JSON as a {@link String}.
+     */
+    public String toJson() {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"nodes\":[");
+
+        for (int i = 0; i < mNodes.size(); i++) {
+            final Object node = mNodes.get(i);
+
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\n{\"id\":").append(i);
+            json.append(",\"class\":").append(quote(node.getClass().getName()));
+            json.append(",\"tags\":[");
+
+            final List<String> tags = getTags(node);
+
+            for (int j = 0; j < tags.size(); j++) {
+                if (j > 0) {
+                    json.append(',');
+                }
+                json.append(quote(tags.get(j)));
+            }
+            json.append("],\"fanOut\":").append(getFanOut(node));
+
+            final NodeMetrics metrics = getMetrics(node);
+
+            if (metrics != null) {
+                json.append(",\"metrics\":{\"in\":").append(metrics.getInputCount());
+                json.append(",\"out\":").append(metrics.getOutputCount());
+                json.append(",\"drops\":").append(metrics.getDropCount());
+                json.append(",\"errors\":").append(metrics.getErrorCount());
+                json.append(",\"rate\":").append(formatRate(getRate(node)));
+                json.append(",\"buffered\":").append(metrics.getBufferDepth());
+                json.append('}');
+            }
+            json.append('}');
+        }
+        json.append("\n],\"edges\":[");
+
+        for (int i = 0; i < mEdges.size(); i++) {
+            final Edge edge = mEdges.get(i);
+
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\n{\"from\":").append(mNodeIds.get(edge.mFrom));
+            json.append(",\"to\":").append(mNodeIds.get(edge.mTo));
+
+            if (edge.mZipIndex >= 0) {
+                json.append(",\"zipInput\":").append(edge.mZipIndex);
+            }
+
+            final NodeMetrics metrics = getMetrics(edge.mFrom);
+
+            if (metrics != null) {
+                json.append(",\"events\":").append(metrics.getOutputCount());
+                json.append(",\"rate\":").append(formatRate(getRate(edge.mFrom)));
+            }
+
+            final NodeMetrics toMetrics = getMetrics(edge.mTo);
+
+            if (toMetrics != null) {
+                json.append(",\"queueDepth\":").append(toMetrics.getBufferDepth());
+            }
+            json.append('}');
+        }
+        json.append("\n]}");
+        return json.toString();
+    }
+
+    /**
+     * Exports this {@link Topology} as a Graphviz DOT digraph. The width of an edge grows with
+     * the rate of events passing through it.
+     * @return The DOT as a {@link String}.
+     */
+    public String toDot() {
+        final StringBuilder dot = new StringBuilder();
+        dot.append("digraph G {\n  node [shape=box, fontname=\"monospace\"];\n");
+
+        for (int i = 0; i < mNodes.size(); i++) {
+            final Object node = mNodes.get(i);
+            final StringBuilder label = new StringBuilder(node.getClass().getSimpleName());
+            final List<String> tags = getTags(node);
+
+            if (!tags.isEmpty()) {
+                label.append("\n").append(tags.toString());
+            }
+
+            final NodeMetrics metrics = getMetrics(node);
+
+            if (metrics != null) {
+                label.append("\nin=").append(metrics.getInputCount());
+                label.append(" out=").append(metrics.getOutputCount());
+                label.append(" drops=").append(metrics.getDropCount());
+
+                if (metrics.getBufferDepth() > 0) {
+                    label.append("\nbuffered=").append(metrics.getBufferDepth());
+                }
+            }
+            dot.append("  n").append(i).append(" [label=").append(quote(label.toString())).append("];\n");
+        }
+
+        for (final Edge edge : mEdges) {
+            dot.append("  n").append(mNodeIds.get(edge.mFrom)).append(" -> n").append(mNodeIds.get(edge.mTo));
+
+            final StringBuilder label = new StringBuilder();
+
+            if (edge.mZipIndex >= 0) {
+                label.append("input").append(edge.mZipIndex + 1);
+            }
+
+            final NodeMetrics metrics = getMetrics(edge.mFrom);
+            double penWidth = 1.0;
+
+            if (metrics != null) {
+                if (label.length() > 0) {
+                    label.append("\n");
+                }
+                label.append(formatRate(getRate(edge.mFrom))).append("/s");
+                penWidth += Math.log10(1.0 + getRate(edge.mFrom));
+            }
+
+            final NodeMetrics toMetrics = getMetrics(edge.mTo);
+
+            if (toMetrics != null && toMetrics.getBufferDepth() > 0) {
+                label.append(" q=").append(toMetrics.getBufferDepth());
+            }
+
+            dot.append(" [label=").append(quote(label.toString()));
+            dot.append(", penwidth=").append(String.format(Locale.US, "%.1f", penWidth)).append("];\n");
+        }
+        dot.append("}\n");
+        return dot.toString();
+    }
+
+    private Object addNode(final Object node) {
+        if (!mNodeIds.containsKey(node)) {
+            mNodeIds.put(node, mNodes.size());
+            mNodes.add(node);
+        }
+        return node;
+    }
+
+    private List<String> getTags(final Object node) {
+        final List<String> tags = mTags.get(node);
+        return (tags != null) ? tags : new ArrayList<String>();
+    }
+
+    private double getRate(final Object node) {
+        final Double rate = mRates.get(node);
+        return (rate != null) ? rate : 0;
+    }
+
+    private static NodeMetrics getMetrics(final Object node) {
+        return (node instanceof AbstractOutputNode) ? ((AbstractOutputNode<?>) node).getMetrics() : null;
+    }
+
+    private static String formatRate(final double rate) {
+        return String.format(Locale.US, "%.2f", rate);
+    }
+
+    private static String quote(final String string) {
+        final StringBuilder quoted = new StringBuilder("\"");
+
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                default: {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * {@link Edge} connects an {@link OutputNode} to an attached node.
+     */
+    private static class Edge {
+
+        private final Object mFrom;
+        private final Object mTo;
+        private final int mZipIndex;
+
+        private Edge(final Object from, final Object to, final int zipIndex) {
+            mFrom = from;
+            mTo = to;
+            mZipIndex = zipIndex;
+        }
+    }
+}
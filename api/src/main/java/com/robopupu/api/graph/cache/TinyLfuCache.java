@@ -0,0 +1,412 @@
+package com.robopupu.api.graph.cache;
+
+import com.robopupu.api.graph.sketch.FrequencySketch;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TinyLfuCache} is a bounded cache with W-TinyLFU admission and eviction. New entries enter
+ * a small LRU admission window. An entry leaving the window competes with the least recently used
+ * entry of the main segment, and the entry with the lower estimated access frequency, as recorded
+ * by a {@link FrequencySketch}, is evicted. The main segment is a segmented LRU with a probation
+ * and a protected segment, so that entries accessed repeatedly are retained over entries accessed
+ * once, while the window still admits bursts of new entries.
+ *
+ * The capacity is expressed as a total weight of the entries, given by a {@link Weigher}.
+ * Optionally entries expire after a fixed time from their write. The operations are synchronized.
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int WINDOW_PERCENTAGE = 1;
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    /**
+     * {@link Weigher} defines an interface for computing the weight of a cache entry.
+     * @param <K> The key type.
+     * @param <V> The value type.
+     */
+    public interface Weigher<K, V> {
+
+        /**
+         * Computes the weight of the given entry.
+         * @param key The key.
+         * @param value The value.
+         * @return The weight as a non-negative {@code int}.
+         */
+        int weigh(K key, V value);
+    }
+
+    private final HashMap<K, Entry<K, V>> mEntries;
+    private final AtomicLong mEvictionCount;
+    private final AtomicLong mHitCount;
+    private final long mMaxMainWeight;
+    private final long mMaxProtectedWeight;
+    private final long mMaxWeight;
+    private final long mMaxWindowWeight;
+    private final AtomicLong mMissCount;
+    private final EntryList<K, V> mProbation;
+    private final EntryList<K, V> mProtected;
+    private final FrequencySketch mSketch;
+    private final EntryList<K, V> mWindow;
+
+    private long mExpireAfterWrite;
+    private long mMainWeight;
+    private long mProtectedWeight;
+    private Weigher<? super K, ? super V> mWeigher;
+    private long mWindowWeight;
+
+    /**
+     * Constructs a new instance of {@link TinyLfuCache}.
+     * @param maxWeight The maximum total weight of the entries. By default each entry weighs one.
+     */
+    public TinyLfuCache(final long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be greater than zero");
+        }
+        mMaxWeight = maxWeight;
+        mMaxWindowWeight = Math.max(1, maxWeight * WINDOW_PERCENTAGE / 100);
+        mMaxMainWeight = Math.max(0, maxWeight - mMaxWindowWeight);
+        mMaxProtectedWeight = mMaxMainWeight * PROTECTED_PERCENTAGE / 100;
+        mEntries = new HashMap<>();
+        mSketch = new FrequencySketch(maxWeight);
+        mWindow = new EntryList<>();
+        mProbation = new EntryList<>();
+        mProtected = new EntryList<>();
+        mEvictionCount = new AtomicLong();
+        mHitCount = new AtomicLong();
+        mMissCount = new AtomicLong();
+    }
+
+    /**
+     * Sets the {@link Weigher} of the entries. Must be set before entries are added.
+     * @param weigher A {@link Weigher}.
+     * @return This {@link TinyLfuCache}.
+     */
+    public synchronized TinyLfuCache<K, V> weigher(final Weigher<? super K, ? super V> weigher) {
+        mWeigher = weigher;
+        return this;
+    }
+
+    /**
+     * Sets the time after which an entry expires from its write.
+     * @param expireAfterWrite The time in milliseconds. Zero disables the expiration.
+     * @return This {@link TinyLfuCache}.
+     */
+    public synchronized TinyLfuCache<K, V> expireAfterWrite(final long expireAfterWrite) {
+        mExpireAfterWrite = expireAfterWrite;
+        return this;
+    }
+
+    /**
+     * Gets the value of the given key, and records the access of the key.
+     * @param key The key.
+     * @return The value, or {@code null} if the key is not cached or has expired.
+     */
+    public synchronized V get(final K key) {
+        mSketch.increment(key);
+
+        final Entry<K, V> entry = mEntries.get(key);
+
+        if (entry == null) {
+            mMissCount.incrementAndGet();
+            return null;
+        } else if (mExpireAfterWrite > 0 && currentTime() - entry.mWriteTime >= mExpireAfterWrite) {
+            removeEntry(entry);
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        mHitCount.incrementAndGet();
+        onAccess(entry);
+        return entry.mValue;
+    }
+
+    /**
+     * Puts the given value for the given key. An entry heavier than the maximum weight is not cached.
+     * @param key The key.
+     * @param value The value.
+     */
+    public synchronized void put(final K key, final V value) {
+        final Entry<K, V> existing = mEntries.get(key);
+
+        if (existing != null) {
+            removeEntry(existing);
+        }
+
+        final int weight = (mWeigher != null) ? mWeigher.weigh(key, value) : 1;
+
+        if (weight > mMaxWeight) {
+            return;
+        }
+
+        final Entry<K, V> entry = new Entry<>(key, value, weight, currentTime());
+        mEntries.put(key, entry);
+        mWindow.add(entry);
+        mWindowWeight += weight;
+        evict();
+    }
+
+    /**
+     * Removes the given key.
+     * @param key The key.
+     * @return The removed value, or {@code null} if not found.
+     */
+    public synchronized V remove(final K key) {
+        final Entry<K, V> entry = mEntries.get(key);
+
+        if (entry != null) {
+            removeEntry(entry);
+            return entry.mValue;
+        }
+        return null;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+        mWindow.clear();
+        mProbation.clear();
+        mProtected.clear();
+        mWindowWeight = 0;
+        mMainWeight = 0;
+        mProtectedWeight = 0;
+    }
+
+    /**
+     * Gets the number of entries.
+     * @return The size as an {@code int}.
+     */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Gets the total weight of the entries.
+     * @return The weight as a {@code long}.
+     */
+    public synchronized long getWeight() {
+        return mWindowWeight + mMainWeight;
+    }
+
+    /**
+     * Gets the number of lookups that found a value.
+     * @return The count as a {@code long}.
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a value.
+     * @return The count as a {@code long}.
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the maximum weight.
+     * @return The count as a {@code long}.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * Gets the current time used for the expiration.
+     * @return The time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private void onAccess(final Entry<K, V> entry) {
+        switch (entry.mSegment) {
+            case WINDOW: {
+                mWindow.moveToTail(entry);
+                break;
+            }
+            case PROBATION: {
+                mProbation.remove(entry);
+                mMainWeight -= entry.mWeight;
+                entry.mSegment = PROTECTED;
+                mProtected.add(entry);
+                mMainWeight += entry.mWeight;
+                mProtectedWeight += entry.mWeight;
+
+                while (mProtectedWeight > mMaxProtectedWeight && mProtected.mHead.mNext != entry) {
+                    final Entry<K, V> demoted = mProtected.mHead.mNext;
+                    mProtected.remove(demoted);
+                    mProtectedWeight -= demoted.mWeight;
+                    demoted.mSegment = PROBATION;
+                    mProbation.add(demoted);
+                }
+                break;
+            }
+            default: {
+                mProtected.moveToTail(entry);
+                break;
+            }
+        }
+    }
+
+    private void evict() {
+        while (mWindowWeight > mMaxWindowWeight) {
+            final Entry<K, V> candidate = mWindow.mHead.mNext;
+            mWindow.remove(candidate);
+            mWindowWeight -= candidate.mWeight;
+            admit(candidate);
+        }
+
+        while (mWindowWeight + mMainWeight > mMaxWeight) {
+            final Entry<K, V> victim = mProbation.isEmpty()
+                    ? (mProtected.isEmpty() ? mWindow.mHead.mNext : mProtected.mHead.mNext)
+                    : mProbation.mHead.mNext;
+            removeEntry(victim);
+            mEvictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Admits the given candidate leaving the window to the main segment, if its estimated frequency
+     * is higher than the frequency of each victim that has to be evicted to make room for it. The
+     * candidate is compared against all of these victims before any of them is evicted, so that no
+     * victim is evicted for a candidate that is rejected.
+     * @param candidate The candidate {@link Entry}.
+     */
+    private void admit(final Entry<K, V> candidate) {
+        final int candidateFrequency = mSketch.frequency(candidate.mKey);
+        Entry<K, V> victim = nextVictim(mProbation.mHead);
+        long freedWeight = 0;
+
+        while (mMainWeight - freedWeight + candidate.mWeight > mMaxMainWeight) {
+            if (victim == null || candidateFrequency <= mSketch.frequency(victim.mKey)) {
+                mEntries.remove(candidate.mKey);
+                mEvictionCount.incrementAndGet();
+                return;
+            }
+            freedWeight += victim.mWeight;
+            victim = nextVictim(victim);
+        }
+
+        while (mMainWeight + candidate.mWeight > mMaxMainWeight) {
+            removeEntry(mProbation.isEmpty() ? mProtected.mHead.mNext : mProbation.mHead.mNext);
+            mEvictionCount.incrementAndGet();
+        }
+        candidate.mSegment = PROBATION;
+        mProbation.add(candidate);
+        mMainWeight += candidate.mWeight;
+    }
+
+    /**
+     * Gets the victim following the given one in eviction order: the probation segment from the least
+     * recently used entry, followed by the protected segment.
+     * @param victim The previous victim {@link Entry}, or the head of the probation segment.
+     * @return The next victim {@link Entry}, or {@code null} if there are no more entries.
+     */
+    private Entry<K, V> nextVictim(final Entry<K, V> victim) {
+        Entry<K, V> next = victim.mNext;
+
+        if (next == mProbation.mHead) {
+            next = mProtected.mHead.mNext;
+        }
+        return (next == mProtected.mHead) ? null : next;
+    }
+
+    private void removeEntry(final Entry<K, V> entry) {
+        mEntries.remove(entry.mKey);
+
+        switch (entry.mSegment) {
+            case WINDOW: {
+                mWindow.remove(entry);
+                mWindowWeight -= entry.mWeight;
+                break;
+            }
+            case PROBATION: {
+                mProbation.remove(entry);
+                mMainWeight -= entry.mWeight;
+                break;
+            }
+            default: {
+                mProtected.remove(entry);
+                mMainWeight -= entry.mWeight;
+                mProtectedWeight -= entry.mWeight;
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@link Entry} is a cache entry linked to the list of its segment.
+     */
+    private static class Entry<K, V> {
+
+        private final K mKey;
+        private final V mValue;
+        private final int mWeight;
+        private final long mWriteTime;
+
+        private Entry<K, V> mNext;
+        private Entry<K, V> mPrevious;
+        private byte mSegment;
+
+        private Entry(final K key, final V value, final int weight, final long writeTime) {
+            mKey = key;
+            mValue = value;
+            mWeight = weight;
+            mWriteTime = writeTime;
+            mSegment = WINDOW;
+        }
+    }
+
+    /**
+     * {@link EntryList} is a doubly linked list of {@link Entry}s in access order, with the least
+     * recently accessed {@link Entry} at the head.
+     */
+    private static class EntryList<K, V> {
+
+        private final Entry<K, V> mHead;
+
+        private EntryList() {
+            mHead = new Entry<>(null, null, 0, 0);
+            mHead.mNext = mHead;
+            mHead.mPrevious = mHead;
+        }
+
+        private boolean isEmpty() {
+            return mHead.mNext == mHead;
+        }
+
+        private void add(final Entry<K, V> entry) {
+            entry.mPrevious = mHead.mPrevious;
+            entry.mNext = mHead;
+            mHead.mPrevious.mNext = entry;
+            mHead.mPrevious = entry;
+        }
+
+        private void remove(final Entry<K, V> entry) {
+            entry.mPrevious.mNext = entry.mNext;
+            entry.mNext.mPrevious = entry.mPrevious;
+            entry.mNext = null;
+            entry.mPrevious = null;
+        }
+
+        private void moveToTail(final Entry<K, V> entry) {
+            remove(entry);
+            add(entry);
+        }
+
+        private void clear() {
+            mHead.mNext = mHead;
+            mHead.mPrevious = mHead;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.robopupu.api.graph.journal;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * {@link Journal} is an append-only log of timestamped events stored in a directory as a sequence
+ * of memory-mapped segment files. Each event is identified by its offset, i.e. its index in the
+ * journal. An event is stored as a record consisting of the length of the payload, a CRC32 checksum,
+ * the timestamp and the payload encoded with {@link StateOutput#writeValue(Object)}.
+ *
+ * Appended records are written to the mapped segment immediately, but forced to the storage device
+ * only on commit. With group commit, a commit is made after a number of records or after a time
+ * interval, so that the cost of a commit is shared by a group of records. When a {@link Journal}
+ * is opened, a torn or corrupt tail left by a crash is detected with the checksums and discarded.
+ */
+public class Journal implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final CRC32 mChecksum;
+    private final File mDirectory;
+    private final ByteArrayOutputStream mPayload;
+    private final StateOutput mPayloadOutput;
+    private final int mSegmentSize;
+
+    private int mCommitRecords;
+    private long mCommitInterval;
+    private long mLastCommitTime;
+    private long mNextOffset;
+    private int mPendingRecords;
+    private MappedByteBuffer mSegment;
+
+    /**
+     * Opens a {@link Journal} with {@link #DEFAULT_SEGMENT_SIZE} in the given directory.
+     * @param directory The directory {@link File}. Created if it does not exist.
+     * @throws IOException If opening the journal fails.
+     */
+    public Journal(final File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a {@link Journal} in the given directory.
+     * @param directory The directory {@link File}. Created if it does not exist.
+     * @param segmentSize The size of a segment file in bytes.
+     * @throws IOException If opening the journal fails.
+     */
+    public Journal(final File directory, final int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be greater than " + HEADER_SIZE);
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        mDirectory = directory;
+        mSegmentSize = segmentSize;
+        mChecksum = new CRC32();
+        mPayload = new ByteArrayOutputStream();
+        mPayloadOutput = new StateOutput(mPayload);
+        mLastCommitTime = System.nanoTime();
+        recover();
+    }
+
+    /**
+     * Enables group commit. A commit is made when the given number of records has been appended
+     * since the previous commit, or when the given interval has elapsed at the time of an append.
+     * @param records The number of records per commit. Zero commits only on the interval.
+     * @param interval The commit interval in milliseconds. Zero commits only on the record count.
+     * @return This {@link Journal}.
+     */
+    public synchronized Journal groupCommit(final int records, final long interval) {
+        mCommitRecords = records;
+        mCommitInterval = interval;
+        return this;
+    }
+
+    /**
+     * Gets the offset of the next appended event.
+     * @return The offset as a {@code long}.
+     */
+    public synchronized long getNextOffset() {
+        return mNextOffset;
+    }
+
+    /**
+     * Appends the given event with the current time as its timestamp.
+     * @param value The event.
+     * @return The offset of the appended event.
+     * @throws IOException If appending fails.
+     */
+    public long append(final Object value) throws IOException {
+        return append(System.currentTimeMillis(), value);
+    }
+
+    /**
+     * Appends the given event.
+     * @param timestamp The timestamp of the event in milliseconds.
+     * @param value The event.
+     * @return The offset of the appended event.
+     * @throws IOException If appending fails.
+     */
+    public synchronized long append(final long timestamp, final Object value) throws IOException {
+        if (mSegment == null) {
+            throw new IOException("Journal is closed");
+        }
+
+        mPayload.reset();
+        mPayloadOutput.writeValue(value);
+        mPayloadOutput.flush();
+
+        final byte[] payload = mPayload.toByteArray();
+        final int recordSize = HEADER_SIZE + payload.length;
+
+        if (recordSize > mSegmentSize) {
+            throw new IOException("Event of " + payload.length + " bytes exceeds the segment size");
+        }
+
+        if (mSegment.remaining() < recordSize) {
+            commit();
+            mSegment = mapSegment(mNextOffset);
+        }
+
+        final int position = mSegment.position();
+        mSegment.position(position + 4);
+        mSegment.putInt(checksum(timestamp, payload, 0, payload.length));
+        mSegment.putLong(timestamp);
+        mSegment.put(payload);
+        mSegment.putInt(position, payload.length);
+
+        mPendingRecords++;
+
+        if ((mCommitRecords > 0 && mPendingRecords >= mCommitRecords) || (mCommitInterval > 0
+                && System.nanoTime() - mLastCommitTime >= TimeUnit.MILLISECONDS.toNanos(mCommitInterval))) {
+            commit();
+        }
+        return mNextOffset++;
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     */
+    public synchronized void commit() {
+        if (mSegment != null && mPendingRecords > 0) {
+            mSegment.force();
+        }
+        mPendingRecords = 0;
+        mLastCommitTime = System.nanoTime();
+    }
+
+    /**
+     * Commits the appended records and closes this {@link Journal}.
+     */
+    @Override
+    public synchronized void close() {
+        commit();
+        mSegment = null;
+    }
+
+    /**
+     * Creates a {@link Reader} for reading the events starting from the given offset.
+     * @param offset The offset of the first read event.
+     * @return A {@link Reader}.
+     * @throws IOException If the segment files cannot be listed.
+     */
+    public Reader read(final long offset) throws IOException {
+        return new Reader(listSegments(), offset);
+    }
+
+    /**
+     * Finds the end of the last segment and discards a torn or corrupt tail.
+     */
+    private void recover() throws IOException {
+        final long[] segments = listSegments();
+
+        if (segments.length == 0) {
+            mNextOffset = 0;
+            mSegment = mapSegment(0);
+            return;
+        }
+
+        final long baseOffset = segments[segments.length - 1];
+        final MappedByteBuffer segment = mapSegment(baseOffset);
+        final CRC32 checksum = new CRC32();
+        long count = 0;
+        int position = 0;
+        int recordSize;
+
+        while ((recordSize = getRecordSize(segment, position, checksum)) > 0) {
+            position += recordSize;
+            count++;
+        }
+
+        for (int i = position; i < segment.limit(); i++) {
+            if (segment.get(i) != 0) {
+                segment.put(i, (byte) 0);
+            }
+        }
+        segment.force();
+        segment.position(position);
+
+        mSegment = segment;
+        mNextOffset = baseOffset + count;
+    }
+
+    private MappedByteBuffer mapSegment(final long baseOffset) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(getSegmentFile(mDirectory, baseOffset), "rw");
+
+        try {
+            if (file.length() < mSegmentSize) {
+                file.setLength(mSegmentSize);
+            }
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+        } finally {
+            file.close();
+        }
+    }
+
+    private long[] listSegments() throws IOException {
+        final File[] files = mDirectory.listFiles();
+
+        if (files == null) {
+            throw new IOException("Cannot list directory " + mDirectory);
+        }
+
+        final ArrayList<Long> baseOffsets = new ArrayList<>();
+
+        for (final File file : files) {
+            final String name = file.getName();
+
+            if (name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    baseOffsets.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not a segment file
+                }
+            }
+        }
+
+        final long[] segments = new long[baseOffsets.size()];
+
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = baseOffsets.get(i);
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    private int checksum(final long timestamp, final byte[] payload, final int offset, final int length) {
+        mChecksum.reset();
+        updateChecksum(mChecksum, timestamp);
+        mChecksum.update(payload, offset, length);
+        return (int) mChecksum.getValue();
+    }
+
+    private static void updateChecksum(final CRC32 checksum, final long timestamp) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            checksum.update((int) (timestamp >>> shift));
+        }
+    }
+
+    /**
+     * Validates the record at the given position of a segment.
+     * @return The size of the record, or {@code 0} if there is no valid record at the position.
+     */
+    private static int getRecordSize(final ByteBuffer segment, final int position, final CRC32 checksum) {
+        if (position + HEADER_SIZE > segment.limit()) {
+            return 0;
+        }
+
+        final int length = segment.getInt(position);
+
+        if (length <= 0 || length > segment.limit() - position - HEADER_SIZE) {
+            return 0;
+        }
+
+        checksum.reset();
+        updateChecksum(checksum, segment.getLong(position + 8));
+
+        for (int i = 0; i < length; i++) {
+            checksum.update(segment.get(position + HEADER_SIZE + i));
+        }
+        return ((int) checksum.getValue() == segment.getInt(position + 4)) ? HEADER_SIZE + length : 0;
+    }
+
+    private static File getSegmentFile(final File directory, final long baseOffset) {
+        return new File(directory, String.format(Locale.US, "%020d", baseOffset) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * {@link Reader} reads the events of a {@link Journal} in the order of their offsets.
+     */
+    public class Reader {
+
+        private final CRC32 mReaderChecksum;
+        private final long[] mSegments;
+
+        private long mOffset;
+        private int mPosition;
+        private MappedByteBuffer mReadSegment;
+        private int mRecordCount;
+        private int mSegmentIndex;
+        private long mTimestamp;
+        private Object mValue;
+
+        private Reader(final long[] segments, final long offset) {
+            mSegments = segments;
+            mReaderChecksum = new CRC32();
+            mSegmentIndex = -1;
+            mOffset = offset - 1;
+
+            for (int i = 0; i < segments.length && segments[i] <= offset; i++) {
+                mSegmentIndex = i;
+            }
+        }
+
+        /**
+         * Reads the next event.
+         * @return {@code false} if there are no more events.
+         * @throws IOException If reading fails.
+         */
+        public boolean next() throws IOException {
+            if (mSegmentIndex < 0 || mSegmentIndex >= mSegments.length) {
+                return false;
+            }
+
+            if (mReadSegment == null) {
+                openSegment();
+            }
+
+            while (true) {
+                final long offset = mSegments[mSegmentIndex] + mRecordCount;
+                final int recordSize = getRecordSize(mReadSegment, mPosition, mReaderChecksum);
+
+                if (recordSize == 0) {
+                    if (mSegmentIndex + 1 < mSegments.length && mSegments[mSegmentIndex + 1] == offset) {
+                        mSegmentIndex++;
+                        openSegment();
+                        continue;
+                    }
+                    return false;
+                }
+
+                final int position = mPosition;
+                mPosition += recordSize;
+                mRecordCount++;
+
+                if (offset > mOffset) {
+                    final byte[] payload = new byte[recordSize - HEADER_SIZE];
+
+                    for (int i = 0; i < payload.length; i++) {
+                        payload[i] = mReadSegment.get(position + HEADER_SIZE + i);
+                    }
+                    mTimestamp = mReadSegment.getLong(position + 8);
+                    mValue = new StateInput(new ByteArrayInputStream(payload)).readValue();
+                    mOffset = offset;
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gets the offset of the current event.
+         * @return The offset as a {@code long}.
+         */
+        public long getOffset() {
+            return mOffset;
+        }
+
+        /**
+         * Gets the timestamp of the current event.
+         * @return The timestamp in milliseconds.
+         */
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+
+        /**
+         * Gets the current event.
+         * @return The event.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T getValue() {
+            return (T) mValue;
+        }
+
+        private void openSegment() throws IOException {
+            final RandomAccessFile file = new RandomAccessFile(getSegmentFile(mDirectory, mSegments[mSegmentIndex]), "r");
+
+            try {
+                mReadSegment = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            } finally {
+                file.close();
+            }
+            mPosition = 0;
+            mRecordCount = 0;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.robopupu.api.graph.journal;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.OutputNode;
+
+import java.io.IOException;
+
+/**
+ * {@link JournalNode} appends each received input to a {@link Journal} and passes it through.
+ * Attached directly to a source node, it records exactly what the source emitted, so that the
+ * events can be replayed later with a {@link ReplayNode}. A failed append is dispatched as an
+ * error, but the input is still passed through.
+ * @param <IN> The input and output type.
+ */
+public class JournalNode<IN> extends AbstractNode<IN, IN> {
+
+    private final Journal mJournal;
+
+    public JournalNode(final Journal journal) {
+        mJournal = journal;
+    }
+
+    /**
+     * Gets the {@link Journal} of this {@link JournalNode}.
+     * @return A {@link Journal}.
+     */
+    public Journal getJournal() {
+        return mJournal;
+    }
+
+    @Override
+    protected IN processInput(final OutputNode<IN> outputNode, final IN input) {
+        try {
+            mJournal.append(input);
+        } catch (IOException e) {
+            error(this, e);
+        }
+        return input;
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        mJournal.commit();
+        super.onCompleted(outputNode);
+    }
+}
@@ -0,0 +1,80 @@
+package com.robopupu.api.graph.journal;
+
+import com.robopupu.api.graph.nodes.StreamNode;
+
+import java.io.IOException;
+
+/**
+ * {@link ReplayNode} is a {@link StreamNode} that re-emits the events of a {@link Journal} starting
+ * from a given offset at full speed, e.g. for recovery or offline benchmarking. The offset and the
+ * timestamp of the event being dispatched are available via {@link #getOffset()} and
+ * {@link #getTimestamp()}.
+ * @param <OUT> The output type.
+ */
+public class ReplayNode<OUT> extends StreamNode<OUT> {
+
+    private final Journal mJournal;
+    private final long mStartOffset;
+
+    private boolean mAvailable;
+    private boolean mPeeked;
+    private Journal.Reader mReader;
+
+    public ReplayNode(final Journal journal, final long offset) {
+        mJournal = journal;
+        mStartOffset = offset;
+    }
+
+    /**
+     * Gets the offset of the event being dispatched.
+     * @return The offset as a {@code long}.
+     */
+    public long getOffset() {
+        return (mReader != null) ? mReader.getOffset() : -1;
+    }
+
+    /**
+     * Gets the timestamp of the event being dispatched.
+     * @return The timestamp in milliseconds.
+     */
+    public long getTimestamp() {
+        return (mReader != null) ? mReader.getTimestamp() : 0;
+    }
+
+    @Override
+    protected void open() {
+        mPeeked = false;
+
+        try {
+            mReader = mJournal.read(mStartOffset);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    protected boolean hasNextOutput() {
+        if (!mPeeked) {
+            mPeeked = true;
+
+            try {
+                mAvailable = mReader.next();
+            } catch (IOException e) {
+                mAvailable = false;
+                fail(e);
+            }
+        }
+        return mAvailable;
+    }
+
+    @Override
+    protected OUT nextOutput() {
+        mPeeked = false;
+        return mReader.getValue();
+    }
+
+    private void fail(final IOException exception) {
+        cancel();
+        error(this, exception);
+    }
+}
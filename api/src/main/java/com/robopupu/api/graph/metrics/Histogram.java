@@ -0,0 +1,87 @@
+package com.robopupu.api.graph.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link Histogram} records non-negative {@code long} values into buckets whose bounds grow
+ * in powers of two. Recording is constant time and the memory use is fixed.
+ */
+public class Histogram {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray mBuckets;
+
+    public Histogram() {
+        mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    }
+
+    /**
+     * Records the given value.
+     * @param value The value as a {@code long}. Negative values are recorded as zero.
+     */
+    public void record(final long value) {
+        mBuckets.incrementAndGet(getBucketIndex(value));
+    }
+
+    /**
+     * Gets the total number of recorded values.
+     * @return The count as a {@code long}.
+     */
+    public long getCount() {
+        long count = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += mBuckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets an upper bound estimate for the given percentile of the recorded values.
+     * @param percentile The percentile as a {@code double} between {@code 0} and {@code 100}.
+     * @return The value as a {@code long}, or {@code 0} if no values have been recorded.
+     */
+    public long getPercentile(final double percentile) {
+        final long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mBuckets.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long count = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts[i];
+
+            if (count >= rank) {
+                return getBucketUpperBound(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets.set(i, 0);
+        }
+    }
+
+    private static int getBucketIndex(final long value) {
+        return (value <= 0) ? 0 : BUCKET_COUNT - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long getBucketUpperBound(final int index) {
+        return (index >= BUCKET_COUNT - 1) ? Long.MAX_VALUE : (1L << index) - 1;
+    }
+}
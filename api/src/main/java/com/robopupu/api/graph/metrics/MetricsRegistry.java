@@ -0,0 +1,77 @@
+package com.robopupu.api.graph.metrics;
+
+import com.robopupu.api.graph.AbstractOutputNode;
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.OutputNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * {@link MetricsRegistry} collects the {@link NodeMetrics} of the nodes instrumented with
+ * {@link Graph#instrument(MetricsRegistry)}.
+ */
+public class MetricsRegistry {
+
+    private final ArrayList<NodeMetrics> mMetrics;
+    private final IdentityHashMap<OutputNode<?>, NodeMetrics> mNodeMetrics;
+
+    public MetricsRegistry() {
+        mMetrics = new ArrayList<>();
+        mNodeMetrics = new IdentityHashMap<>();
+    }
+
+    /**
+     * Creates and registers {@link NodeMetrics} for the given {@link AbstractOutputNode}. If the node
+     * is already registered, the existing {@link NodeMetrics} is returned.
+     * @param node An {@link AbstractOutputNode}.
+     * @return The {@link NodeMetrics}.
+     */
+    public synchronized NodeMetrics register(final AbstractOutputNode<?> node) {
+        NodeMetrics metrics = getMetrics(node);
+
+        if (metrics == null) {
+            metrics = new NodeMetrics(node, node.getClass().getSimpleName() + "#" + mMetrics.size());
+            mMetrics.add(metrics);
+            mNodeMetrics.put(node, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Gets the {@link NodeMetrics} of the given {@link OutputNode}.
+     * @param node An {@link OutputNode}.
+     * @return The {@link NodeMetrics}. May return {@code null}.
+     */
+    public synchronized NodeMetrics getMetrics(final OutputNode<?> node) {
+        return mNodeMetrics.get(node);
+    }
+
+    /**
+     * Gets all registered {@link NodeMetrics}.
+     * @return A {@link List} containing the {@link NodeMetrics}.
+     */
+    public synchronized List<NodeMetrics> getMetrics() {
+        return new ArrayList<>(mMetrics);
+    }
+
+    /**
+     * Resets all registered {@link NodeMetrics}.
+     */
+    public synchronized void reset() {
+        for (final NodeMetrics metrics : mMetrics) {
+            metrics.reset();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder();
+
+        for (final NodeMetrics metrics : mMetrics) {
+            builder.append(metrics).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package com.robopupu.api.graph.metrics;
+
+import com.robopupu.api.graph.AbstractOutputNode;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link NodeMetrics} holds the runtime metrics recorded for a single instrumented
+ * {@link AbstractOutputNode}.
+ */
+public class NodeMetrics {
+
+    public static final long RATE_MIN_INTERVAL = 100000000L; // 100 ms in nanoseconds
+    public static final long RATE_TIME_CONSTANT = 5000000000L; // 5 s in nanoseconds
+
+    private final AtomicLong mCacheHits;
+    private final AtomicLong mCacheMisses;
+    private final AtomicLong mDrops;
+    private final AtomicLong mErrors;
+    private final AtomicLong mInputs;
+    private final String mName;
+    private final AbstractOutputNode<?> mNode;
+    private final AtomicLong mOutputs;
+    private final Histogram mProcessingTimes;
+
+    private boolean mRateSampled;
+    private long mRateSampleCount;
+    private long mRateSampleTime;
+    private double mRecentOutputRate;
+    private volatile long mStartTime;
+
+    public NodeMetrics(final AbstractOutputNode<?> node, final String name) {
+        mNode = node;
+        mName = name;
+        mCacheHits = new AtomicLong();
+        mCacheMisses = new AtomicLong();
+        mDrops = new AtomicLong();
+        mErrors = new AtomicLong();
+        mInputs = new AtomicLong();
+        mOutputs = new AtomicLong();
+        mProcessingTimes = new Histogram();
+        mStartTime = System.nanoTime();
+        mRateSampleTime = mStartTime;
+    }
+
+    /**
+     * Gets the instrumented {@link AbstractOutputNode}.
+     * @return An {@link AbstractOutputNode}.
+     */
+    public AbstractOutputNode<?> getNode() {
+        return mNode;
+    }
+
+    /**
+     * Gets the name of the instrumented node.
+     * @return The name as a {@link String}.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Invoked when the node has received an input.
+     */
+    public void onInput() {
+        mInputs.incrementAndGet();
+    }
+
+    /**
+     * Invoked when the node has emitted an output.
+     */
+    public void onOutput() {
+        mOutputs.incrementAndGet();
+    }
+
+    /**
+     * Invoked when the node has processed an input.
+     * @param duration The processing time in nanoseconds.
+     * @param dropped A {@code boolean} value indicating if processing did not produce an output.
+     */
+    public void onProcessed(final long duration, final boolean dropped) {
+        mProcessingTimes.record(duration);
+
+        if (dropped) {
+            mDrops.incrementAndGet();
+        }
+    }
+
+    /**
+     * Invoked when the node has dropped an input without processing it.
+     */
+    public void onDrop() {
+        mDrops.incrementAndGet();
+    }
+
+    /**
+     * Invoked when the node has dispatched an error.
+     */
+    public void onError() {
+        mErrors.incrementAndGet();
+    }
+
+    /**
+     * Invoked when the node has found a cached result for an input.
+     */
+    public void onCacheHit() {
+        mCacheHits.incrementAndGet();
+    }
+
+    /**
+     * Invoked when the node has not found a cached result for an input.
+     */
+    public void onCacheMiss() {
+        mCacheMisses.incrementAndGet();
+    }
+
+    public long getInputCount() {
+        return mInputs.get();
+    }
+
+    public long getOutputCount() {
+        return mOutputs.get();
+    }
+
+    public long getDropCount() {
+        return mDrops.get();
+    }
+
+    public long getErrorCount() {
+        return mErrors.get();
+    }
+
+    public long getCacheHitCount() {
+        return mCacheHits.get();
+    }
+
+    public long getCacheMissCount() {
+        return mCacheMisses.get();
+    }
+
+    /**
+     * Gets the time elapsed since the metrics were created or reset.
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedTime() {
+        return (System.nanoTime() - mStartTime) / 1000000L;
+    }
+
+    /**
+     * Gets the average rate of emitted outputs since the metrics were created or reset.
+     * @return The rate as outputs per second.
+     */
+    public double getOutputRate() {
+        final double seconds = (System.nanoTime() - mStartTime) / 1e9;
+        return (seconds > 0) ? getOutputCount() / seconds : 0;
+    }
+
+    /**
+     * Gets the recent rate of emitted outputs as an exponentially weighted moving average with a
+     * time constant of {@link #RATE_TIME_CONSTANT}. The output count is sampled when this method is
+     * invoked, at most once per {@link #RATE_MIN_INTERVAL}, so that recording outputs stays as cheap
+     * as incrementing a counter. Until the first sample the average rate since the metrics were
+     * created or reset is returned.
+     * @return The rate as outputs per second.
+     */
+    public synchronized double getRecentOutputRate() {
+        final long time = System.nanoTime();
+        final long elapsedTime = time - mRateSampleTime;
+
+        if (elapsedTime >= RATE_MIN_INTERVAL) {
+            final long count = getOutputCount();
+            final double rate = (count - mRateSampleCount) * 1e9 / elapsedTime;
+
+            if (mRateSampled) {
+                final double alpha = 1.0 - Math.exp(-(double) elapsedTime / RATE_TIME_CONSTANT);
+                mRecentOutputRate += alpha * (rate - mRecentOutputRate);
+            } else {
+                mRecentOutputRate = rate;
+                mRateSampled = true;
+            }
+            mRateSampleCount = count;
+            mRateSampleTime = time;
+        } else if (!mRateSampled) {
+            return getOutputRate();
+        }
+        return mRecentOutputRate;
+    }
+
+    /**
+     * Gets the {@link Histogram} of processing times in nanoseconds.
+     * @return A {@link Histogram}.
+     */
+    public Histogram getProcessingTimes() {
+        return mProcessingTimes;
+    }
+
+    /**
+     * Gets the current number of inputs buffered by the node.
+     * @return The buffer depth as an {@code int}.
+     */
+    public int getBufferDepth() {
+        return mNode.getBufferDepth();
+    }
+
+    /**
+     * Resets the recorded metrics.
+     */
+    public void reset() {
+        mCacheHits.set(0);
+        mCacheMisses.set(0);
+        mDrops.set(0);
+        mErrors.set(0);
+        mInputs.set(0);
+        mOutputs.set(0);
+        mProcessingTimes.reset();
+        mStartTime = System.nanoTime();
+
+        synchronized (this) {
+            mRateSampled = false;
+            mRateSampleCount = 0;
+            mRateSampleTime = mStartTime;
+            mRecentOutputRate = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final long cacheLookups = getCacheHitCount() + getCacheMissCount();
+        return mName + " in=" + getInputCount() + " out=" + getOutputCount() + " drops=" + getDropCount()
+                + " errors=" + getErrorCount() + " buffered=" + getBufferDepth()
+                + (cacheLookups > 0 ? " hits=" + getCacheHitCount() + " misses=" + getCacheMissCount() : "")
+                + " p50=" + mProcessingTimes.getPercentile(50) + "ns p99=" + mProcessingTimes.getPercentile(99) + "ns";
+    }
+}
@@ -17,6 +17,10 @@ public class ActionNode<IN, OUT> extends AbstractNode<IN, OUT> {
         mAction = action;
     }
 
+    public Action<IN> getAction() {
+        return mAction;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected OUT processInput(final OutputNode<IN> outputNode, final IN input) {
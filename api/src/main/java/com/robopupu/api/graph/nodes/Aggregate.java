@@ -0,0 +1,110 @@
+package com.robopupu.api.graph.nodes;
+
+import java.io.Serializable;
+
+/**
+ * {@link Aggregate} is an immutable result of an {@link AggregateNode}. It holds the count, sum,
+ * minimum, maximum and the custom combined value of the values aggregated for a key. Aggregates
+ * of the same key are merged with {@link #merge(Aggregate, AggregateNode.Combiner)}.
+ */
+public class Aggregate implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object mKey;
+    private final long mCount;
+    private final double mSum;
+    private final double mMin;
+    private final double mMax;
+    private final double mCombined;
+
+    public Aggregate(final Object key, final long count, final double sum, final double min, final double max, final double combined) {
+        mKey = key;
+        mCount = count;
+        mSum = sum;
+        mMin = min;
+        mMax = max;
+        mCombined = combined;
+    }
+
+    /**
+     * Gets the key of this {@link Aggregate}.
+     * @return The key.
+     */
+    @SuppressWarnings("unchecked")
+    public <K> K getKey() {
+        return (K) mKey;
+    }
+
+    /**
+     * Gets the number of aggregated values.
+     * @return The count as a {@code long}.
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Gets the sum of the aggregated values.
+     * @return The sum as a {@code double}.
+     */
+    public double getSum() {
+        return mSum;
+    }
+
+    /**
+     * Gets the minimum of the aggregated values.
+     * @return The minimum as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    public double getMin() {
+        return (mCount > 0) ? mMin : Double.NaN;
+    }
+
+    /**
+     * Gets the maximum of the aggregated values.
+     * @return The maximum as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    public double getMax() {
+        return (mCount > 0) ? mMax : Double.NaN;
+    }
+
+    /**
+     * Gets the mean of the aggregated values.
+     * @return The mean as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    public double getMean() {
+        return (mCount > 0) ? mSum / mCount : Double.NaN;
+    }
+
+    /**
+     * Gets the value combined with the {@link AggregateNode.Combiner} of the {@link AggregateNode}.
+     * @return The combined value as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    public double getCombined() {
+        return (mCount > 0) ? mCombined : Double.NaN;
+    }
+
+    /**
+     * Merges this {@link Aggregate} with the given {@link Aggregate} of the same key.
+     * @param aggregate An {@link Aggregate}.
+     * @param combiner The {@link AggregateNode.Combiner} used for the combined values, or {@code null}.
+     * @return The merged {@link Aggregate}.
+     */
+    public Aggregate merge(final Aggregate aggregate, final AggregateNode.Combiner combiner) {
+        if (aggregate.mCount == 0) {
+            return this;
+        } else if (mCount == 0) {
+            return aggregate;
+        }
+
+        final double combined = (combiner != null) ? combiner.combine(mCombined, aggregate.mCombined) : 0;
+        return new Aggregate(mKey, mCount + aggregate.mCount, mSum + aggregate.mSum,
+                Math.min(mMin, aggregate.mMin), Math.max(mMax, aggregate.mMax), combined);
+    }
+
+    @Override
+    public String toString() {
+        return "Aggregate[key=" + mKey + ", count=" + mCount + ", sum=" + mSum + ", min=" + getMin()
+                + ", max=" + getMax() + ", mean=" + getMean() + "]";
+    }
+}
@@ -0,0 +1,284 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.state.KeyedStateStore;
+
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AggregateNode} maintains incremental per-key aggregates of numeric values. For each input
+ * the count, sum, minimum, maximum and an optional custom {@link Combiner} value of its key are
+ * updated in constant time in a {@link KeyedStateStore}. An updated {@link Aggregate} is emitted
+ * after every given number of updates of a key, on a fixed interval, and when the node receives
+ * a completion.
+ *
+ * Parallel instances of a graph can emit partial aggregates by setting {@link #resetOnEmit(boolean)},
+ * and the partial aggregates are merged into totals with an {@link AggregateNode} created with
+ * {@link #merge(Combiner)}.
+ *
+ * The keys are stored in their binary form in a {@link KeyedStateStore}, by default with at most
+ * {@link KeyedStateStore#DEFAULT_MAX_KEY_SIZE} bytes, e.g. a {@link String} of up to 27 ASCII
+ * characters. Inputs with longer keys are dropped, so a store with a larger maximum key size has to
+ * be given for longer keys.
+ *
+ * If the {@link KeyedStateStore} has a time-to-live, a key that is not updated within it expires
+ * together with its updates that have not been emitted yet. Such updates are lost, so an expiring
+ * store should be combined with emitting on every update, or with an emit interval that is shorter
+ * than the time-to-live.
+ *
+ * The emission is serialized, so that the {@link Aggregate}s emitted on an interval by the scheduler
+ * thread and those emitted on inputs are emitted one at a time and in the order they were taken.
+ * The attached nodes are never invoked concurrently, but an input waits while an emission on
+ * the interval is in progress.
+ * @param <IN> The input type.
+ */
+public class AggregateNode<IN> extends KeyedStateNode<IN, Aggregate> {
+
+    public static final int VALUE_SIZE = 44;
+
+    private static final int COUNT_OFFSET = 0;
+    private static final int SUM_OFFSET = 8;
+    private static final int MIN_OFFSET = 16;
+    private static final int MAX_OFFSET = 24;
+    private static final int COMBINED_OFFSET = 32;
+    private static final int PENDING_OFFSET = 40;
+
+    /**
+     * {@link Combiner} defines an interface for a custom aggregate. The combine operation has to be
+     * associative, so that partial aggregates can be merged in any grouping.
+     */
+    public interface Combiner {
+
+        /**
+         * Combines the given values.
+         * @param value1 The first value.
+         * @param value2 The second value.
+         * @return The combined value.
+         */
+        double combine(double value1, double value2);
+    }
+
+    private final Combiner mCombiner;
+    private final Object mEmitLock;
+    private final Function<IN, ? extends Number> mValueFunction;
+
+    private int mEmitEvery;
+    private boolean mResetOnEmit;
+    private ScheduledFuture<?> mScheduledEmit;
+
+    public AggregateNode(final Function<IN, ?> keyFunction, final Function<IN, ? extends Number> valueFunction) {
+        this(keyFunction, valueFunction, null, new KeyedStateStore(VALUE_SIZE));
+    }
+
+    public AggregateNode(final Function<IN, ?> keyFunction, final Function<IN, ? extends Number> valueFunction,
+                         final Combiner combiner) {
+        this(keyFunction, valueFunction, combiner, new KeyedStateStore(VALUE_SIZE));
+    }
+
+    public AggregateNode(final Function<IN, ?> keyFunction, final Function<IN, ? extends Number> valueFunction,
+                         final Combiner combiner, final KeyedStateStore store) {
+        super(keyFunction, store);
+
+        if (store.getValueSize() < VALUE_SIZE) {
+            throw new IllegalArgumentException("Value size of the store must be at least " + VALUE_SIZE);
+        }
+        mValueFunction = valueFunction;
+        mCombiner = combiner;
+        mEmitLock = new Object();
+        mEmitEvery = 1;
+    }
+
+    /**
+     * Sets the number of updates of a key after which its {@link Aggregate} is emitted. The pending
+     * updates of a key that expires from a {@link KeyedStateStore} with a time-to-live are not
+     * emitted.
+     * @param updates The number of updates. Zero disables emitting on updates.
+     * @return This {@link AggregateNode}.
+     */
+    public synchronized AggregateNode<IN> emitEvery(final int updates) {
+        mEmitEvery = updates;
+        return this;
+    }
+
+    /**
+     * Sets the interval for emitting the {@link Aggregate}s of all keys updated since they were
+     * last emitted.
+     * @param interval The interval in milliseconds. Zero disables emitting on an interval.
+     * @param scheduler A {@link ScheduledExecutorService}.
+     * @return This {@link AggregateNode}.
+     */
+    public synchronized AggregateNode<IN> emitInterval(final long interval, final ScheduledExecutorService scheduler) {
+        if (mScheduledEmit != null) {
+            mScheduledEmit.cancel(false);
+            mScheduledEmit = null;
+        }
+
+        if (interval > 0) {
+            mScheduledEmit = scheduler.scheduleWithFixedDelay(this::emit, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Sets whether the aggregate of a key is removed after it has been emitted. If set, the emitted
+     * {@link Aggregate}s are partials that can be merged with {@link #merge(Combiner)}.
+     * @param resetOnEmit A {@code boolean} value.
+     * @return This {@link AggregateNode}.
+     */
+    public synchronized AggregateNode<IN> resetOnEmit(final boolean resetOnEmit) {
+        mResetOnEmit = resetOnEmit;
+        return this;
+    }
+
+    /**
+     * Gets the current {@link Aggregate} of the given key.
+     * @param key The key.
+     * @return An {@link Aggregate}, or {@code null} if the key has no aggregate.
+     */
+    public synchronized Aggregate getAggregate(final Object key) {
+        final int slot = mStore.getSlot(key);
+        return (slot >= 0) ? createAggregate(key, slot) : null;
+    }
+
+    @Override
+    public void onInput(final IN input) {
+        synchronized (mEmitLock) {
+            super.onInput(input);
+        }
+    }
+
+    @Override
+    public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        synchronized (mEmitLock) {
+            super.onInput(outputNode, input);
+        }
+    }
+
+    @Override
+    protected synchronized Aggregate processInput(final OutputNode<IN> outputNode, final IN input) {
+        return super.processInput(outputNode, input);
+    }
+
+    @Override
+    protected Aggregate processKeyedInput(final Object key, final int slot, final IN input) {
+        if (mValueFunction == null) {
+            final Aggregate aggregate = (Aggregate) input;
+
+            if (aggregate.getCount() == 0) {
+                return null;
+            }
+            update(slot, aggregate.getCount(), aggregate.getSum(), aggregate.getMin(), aggregate.getMax(), aggregate.getCombined());
+        } else {
+            final Number number = mValueFunction.eval(input);
+
+            if (number == null) {
+                return null;
+            }
+
+            final double value = number.doubleValue();
+            update(slot, 1, value, value, value, value);
+        }
+
+        final int pending = mStore.getInt(slot, PENDING_OFFSET) + 1;
+
+        if (mEmitEvery > 0 && pending >= mEmitEvery) {
+            return emitSlot(key, slot);
+        }
+        mStore.putInt(slot, PENDING_OFFSET, pending);
+        return null;
+    }
+
+    /**
+     * Emits the {@link Aggregate}s of all keys updated since they were last emitted.
+     */
+    @Override
+    public void emit() {
+        synchronized (mEmitLock) {
+            final ArrayList<Aggregate> aggregates = new ArrayList<>();
+
+            synchronized (this) {
+                for (int slot = mStore.nextSlot(-1); slot >= 0; slot = mStore.nextSlot(slot)) {
+                    if (mStore.getInt(slot, PENDING_OFFSET) > 0) {
+                        aggregates.add(emitSlot(mStore.getKey(slot), slot));
+                    }
+                }
+            }
+
+            for (final Aggregate aggregate : aggregates) {
+                out(aggregate);
+            }
+        }
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        synchronized (this) {
+            if (mScheduledEmit != null) {
+                mScheduledEmit.cancel(false);
+                mScheduledEmit = null;
+            }
+        }
+        emit();
+        super.onCompleted(outputNode);
+    }
+
+    private void update(final int slot, final long count, final double sum, final double min, final double max, final double combined) {
+        final long currentCount = mStore.getLong(slot, COUNT_OFFSET);
+
+        if (currentCount == 0) {
+            mStore.putDouble(slot, SUM_OFFSET, sum);
+            mStore.putDouble(slot, MIN_OFFSET, min);
+            mStore.putDouble(slot, MAX_OFFSET, max);
+            mStore.putDouble(slot, COMBINED_OFFSET, (mCombiner != null) ? combined : 0);
+        } else {
+            mStore.putDouble(slot, SUM_OFFSET, mStore.getDouble(slot, SUM_OFFSET) + sum);
+            mStore.putDouble(slot, MIN_OFFSET, Math.min(mStore.getDouble(slot, MIN_OFFSET), min));
+            mStore.putDouble(slot, MAX_OFFSET, Math.max(mStore.getDouble(slot, MAX_OFFSET), max));
+
+            if (mCombiner != null) {
+                mStore.putDouble(slot, COMBINED_OFFSET, mCombiner.combine(mStore.getDouble(slot, COMBINED_OFFSET), combined));
+            }
+        }
+        mStore.putLong(slot, COUNT_OFFSET, currentCount + count);
+    }
+
+    private Aggregate emitSlot(final Object key, final int slot) {
+        final Aggregate aggregate = createAggregate(key, slot);
+
+        if (mResetOnEmit) {
+            mStore.remove(key);
+        } else {
+            mStore.putInt(slot, PENDING_OFFSET, 0);
+        }
+        return aggregate;
+    }
+
+    private Aggregate createAggregate(final Object key, final int slot) {
+        return new Aggregate(key, mStore.getLong(slot, COUNT_OFFSET), mStore.getDouble(slot, SUM_OFFSET),
+                mStore.getDouble(slot, MIN_OFFSET), mStore.getDouble(slot, MAX_OFFSET), mStore.getDouble(slot, COMBINED_OFFSET));
+    }
+
+    /**
+     * Creates an {@link AggregateNode} that merges partial {@link Aggregate}s by their keys.
+     * @param combiner The {@link Combiner} used by the instances that produced the partials, or {@code null}.
+     * @return An {@link AggregateNode}.
+     */
+    public static AggregateNode<Aggregate> merge(final Combiner combiner) {
+        return new AggregateNode<>(Aggregate::getKey, null, combiner);
+    }
+
+    /**
+     * Creates an {@link AggregateNode} that merges partial {@link Aggregate}s by their keys in
+     * the given {@link KeyedStateStore}.
+     * @param combiner The {@link Combiner} used by the instances that produced the partials, or {@code null}.
+     * @param store The {@link KeyedStateStore} for the merged aggregates.
+     * @return An {@link AggregateNode}.
+     */
+    public static AggregateNode<Aggregate> merge(final Combiner combiner, final KeyedStateStore store) {
+        return new AggregateNode<>(Aggregate::getKey, null, combiner, store);
+    }
+}
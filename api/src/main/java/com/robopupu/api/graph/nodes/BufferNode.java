@@ -2,10 +2,15 @@ package com.robopupu.api.graph.nodes;
 
 import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.pool.PooledEvent;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
-public class BufferNode<IN> extends AbstractNode<IN, IN> {
+public class BufferNode<IN> extends AbstractNode<IN, IN> implements StatefulNode {
 
     private ArrayList<IN> mBuffer;
     private int mCapacity;
@@ -19,14 +24,41 @@ public class BufferNode<IN> extends AbstractNode<IN, IN> {
     @Override
     protected IN processInput(final OutputNode<IN> outputNode, final IN input) {
         if (mBuffer.size() < mCapacity) {
+            PooledEvent.retainIfPooled(input);
             mBuffer.add(input);
             return null;
         } else {
-            for (final IN output : mBuffer) {
-                out(output);
+            try {
+                for (final IN output : mBuffer) {
+                    out(output);
+                }
+            } finally {
+                releaseBuffer();
             }
-            mBuffer.clear();
             return null;
         }
     }
+
+    private void releaseBuffer() {
+        for (final IN output : mBuffer) {
+            PooledEvent.releaseIfPooled(output);
+        }
+        mBuffer.clear();
+    }
+
+    @Override
+    public int getBufferDepth() {
+        return mBuffer.size();
+    }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        output.writeValues(mBuffer);
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        releaseBuffer();
+        input.readValues(mBuffer);
+    }
 }
@@ -0,0 +1,72 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.cache.TinyLfuCache;
+
+/**
+ * {@link CachedFunctionNode} memoizes the results of a mapping {@link Function} in
+ * a {@link TinyLfuCache} keyed by the input. The function is evaluated only for inputs whose result
+ * is not cached, and the evaluation is performed outside the lock of the cache. A {@code null}
+ * result is not cached. If the node is instrumented, the cache hits and misses are recorded to its
+ * {@link com.robopupu.api.graph.metrics.NodeMetrics}.
+ * @param <IN> The input type.
+ * @param <OUT> The output type.
+ */
+public class CachedFunctionNode<IN, OUT> extends AbstractNode<IN, OUT> {
+
+    private final TinyLfuCache<IN, OUT> mCache;
+    private final Function<IN, OUT> mFunction;
+
+    public CachedFunctionNode(final Function<IN, OUT> function, final long maxWeight) {
+        this(function, new TinyLfuCache<IN, OUT>(maxWeight));
+    }
+
+    public CachedFunctionNode(final Function<IN, OUT> function, final TinyLfuCache<IN, OUT> cache) {
+        mFunction = function;
+        mCache = cache;
+    }
+
+    /**
+     * Gets the {@link Function} whose results are cached by this {@link CachedFunctionNode}.
+     * @return A {@link Function}.
+     */
+    public Function<IN, OUT> getFunction() {
+        return mFunction;
+    }
+
+    /**
+     * Gets the {@link TinyLfuCache} of this {@link CachedFunctionNode}.
+     * @return A {@link TinyLfuCache}.
+     */
+    public TinyLfuCache<IN, OUT> getCache() {
+        return mCache;
+    }
+
+    @Override
+    protected OUT processInput(final OutputNode<IN> outputNode, final IN input) {
+        if (input == null) {
+            return null;
+        }
+
+        OUT output = mCache.get(input);
+
+        if (output != null) {
+            if (mMetrics != null) {
+                mMetrics.onCacheHit();
+            }
+            return output;
+        }
+
+        if (mMetrics != null) {
+            mMetrics.onCacheMiss();
+        }
+        output = mFunction.eval(input);
+
+        if (output != null) {
+            mCache.put(input, output);
+        }
+        return output;
+    }
+}
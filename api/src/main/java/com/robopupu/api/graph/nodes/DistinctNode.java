@@ -0,0 +1,164 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.sketch.ScalableBloomFilter;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link DistinctNode} drops inputs whose key has already been seen. The key of an input is
+ * extracted with a key {@link Function}. Two backends are supported:
+ * <ul>
+ *     <li>An exact set of the keys seen within a sliding time window. The keys are kept in least
+ *     recently seen order, and the set is bounded by a maximum number of keys.</li>
+ *     <li>A {@link ScalableBloomFilter} that detects duplicates in a fixed memory budget at the cost
+ *     of dropping unique inputs with a configured false positive rate.</li>
+ * </ul>
+ * @param <IN> The input and output type.
+ */
+public class DistinctNode<IN> extends AbstractNode<IN, IN> implements StatefulNode {
+
+    public static final int DEFAULT_MAX_KEYS = 64 * 1024;
+
+    private final ScalableBloomFilter mFilter;
+    private final Function<IN, ?> mKeyFunction;
+    private final LinkedHashMap<Object, Long> mKeys;
+
+    private int mMaxKeys;
+    private long mWindow;
+
+    /**
+     * Constructs a new instance of {@link DistinctNode} that keeps an exact set of the seen keys.
+     * @param keyFunction A {@link Function} extracting the key of an input.
+     */
+    public DistinctNode(final Function<IN, ?> keyFunction) {
+        mKeyFunction = keyFunction;
+        mKeys = new LinkedHashMap<>(16, 0.75f, true);
+        mFilter = null;
+        mMaxKeys = DEFAULT_MAX_KEYS;
+    }
+
+    /**
+     * Constructs a new instance of {@link DistinctNode} that detects the seen keys with
+     * the given {@link ScalableBloomFilter}.
+     * @param keyFunction A {@link Function} extracting the key of an input.
+     * @param filter A {@link ScalableBloomFilter}.
+     */
+    public DistinctNode(final Function<IN, ?> keyFunction, final ScalableBloomFilter filter) {
+        mKeyFunction = keyFunction;
+        mKeys = null;
+        mFilter = filter;
+    }
+
+    /**
+     * Sets the time window of the exact set. A key is a duplicate if it has been seen within
+     * the window.
+     * @param window The window in milliseconds. Zero keeps the keys until they are evicted by
+     * the maximum number of keys.
+     * @return This {@link DistinctNode}.
+     */
+    public DistinctNode<IN> window(final long window) {
+        mWindow = window;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of keys in the exact set. When exceeded, the least recently seen key
+     * is evicted.
+     * @param maxKeys The maximum number of keys.
+     * @return This {@link DistinctNode}.
+     */
+    public DistinctNode<IN> maxKeys(final int maxKeys) {
+        mMaxKeys = maxKeys;
+        return this;
+    }
+
+    /**
+     * Gets the {@link ScalableBloomFilter} of this {@link DistinctNode}.
+     * @return A {@link ScalableBloomFilter}, or {@code null} if an exact set is used.
+     */
+    public ScalableBloomFilter getFilter() {
+        return mFilter;
+    }
+
+    @Override
+    public int getBufferDepth() {
+        return (mKeys != null) ? mKeys.size() : mFilter.getFilterCount();
+    }
+
+    @Override
+    protected IN processInput(final OutputNode<IN> outputNode, final IN input) {
+        final Object key = mKeyFunction.eval(input);
+
+        if (mFilter != null) {
+            return mFilter.put(key) ? input : null;
+        }
+
+        final long time = currentTime();
+        final Long seenTime = mKeys.put(key, time);
+
+        evictKeys(time);
+
+        return (seenTime != null && (mWindow <= 0 || time - seenTime < mWindow)) ? null : input;
+    }
+
+    /**
+     * Gets the current time used for the time window.
+     * @return The time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private void evictKeys(final long time) {
+        final Iterator<Long> times = mKeys.values().iterator();
+
+        while (times.hasNext()) {
+            final long seenTime = times.next();
+
+            if (mKeys.size() > mMaxKeys || (mWindow > 0 && time - seenTime >= mWindow)) {
+                times.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        if (mFilter != null) {
+            mFilter.save(output);
+        } else {
+            output.writeInt(mKeys.size());
+
+            for (final Map.Entry<Object, Long> entry : mKeys.entrySet()) {
+                output.writeValue(entry.getKey());
+                output.writeLong(entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        if (mFilter != null) {
+            mFilter.restore(input);
+        } else {
+            mKeys.clear();
+
+            final int count = input.readInt();
+
+            for (int i = 0; i < count; i++) {
+                final Object key = input.readValue();
+                mKeys.put(key, input.readLong());
+            }
+        }
+    }
+}
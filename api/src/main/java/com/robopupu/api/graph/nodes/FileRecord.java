@@ -0,0 +1,108 @@
+package com.robopupu.api.graph.nodes;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * {@link FileRecord} is a view to a record of a file read by a {@link MappedFileNode}. The bytes
+ * of the record are not copied from the mapped file. A {@link FileRecord} is reused for each
+ * emitted record, so it is valid only while it is dispatched. Nodes that need the record afterwards
+ * have to copy it with {@link #toByteArray()} or {@link #toString(Charset)}.
+ */
+public class FileRecord {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ByteBuffer mBuffer;
+    private int mLength;
+    private int mOffset;
+    private long mPosition;
+
+    protected FileRecord() {
+    }
+
+    /**
+     * Sets the content of this {@link FileRecord}.
+     * @param buffer The {@link ByteBuffer} containing the record.
+     * @param offset The offset of the record in the {@link ByteBuffer}.
+     * @param length The length of the record in bytes.
+     * @param position The position of the record in the file.
+     */
+    protected void set(final ByteBuffer buffer, final int offset, final int length, final long position) {
+        mBuffer = buffer;
+        mOffset = offset;
+        mLength = length;
+        mPosition = position;
+    }
+
+    /**
+     * Gets the length of this {@link FileRecord}.
+     * @return The length in bytes.
+     */
+    public int getLength() {
+        return mLength;
+    }
+
+    /**
+     * Gets the position of this {@link FileRecord} in the file.
+     * @return The position as a {@code long}.
+     */
+    public long getPosition() {
+        return mPosition;
+    }
+
+    /**
+     * Gets the byte at the given index of this {@link FileRecord}.
+     * @param index The index of the byte.
+     * @return A {@code byte} value.
+     */
+    public byte byteAt(final int index) {
+        if (index < 0 || index >= mLength) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + mLength);
+        }
+        return mBuffer.get(mOffset + index);
+    }
+
+    /**
+     * Copies the bytes of this {@link FileRecord} to the given array.
+     * @param bytes The destination array.
+     * @param offset The offset in the destination array.
+     */
+    public void copyTo(final byte[] bytes, final int offset) {
+        if (offset < 0 || offset + mLength > bytes.length) {
+            throw new IndexOutOfBoundsException("Record does not fit to the given array");
+        }
+
+        final ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(mOffset);
+        buffer.get(bytes, offset, mLength);
+    }
+
+    /**
+     * Copies the bytes of this {@link FileRecord} to a new array.
+     * @return A {@code byte} array.
+     */
+    public byte[] toByteArray() {
+        final byte[] bytes = new byte[mLength];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Decodes this {@link FileRecord} to a {@link String} using the given {@link Charset}.
+     * @param charset A {@link Charset}.
+     * @return A {@link String}.
+     */
+    public String toString(final Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+
+    /**
+     * Decodes this {@link FileRecord} to a {@link String} using UTF-8.
+     * @return A {@link String}.
+     */
+    @Override
+    public String toString() {
+        return toString(UTF_8);
+    }
+}
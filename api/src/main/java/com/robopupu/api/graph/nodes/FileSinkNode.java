@@ -0,0 +1,444 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractInputNode;
+import com.robopupu.api.graph.OutputNode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileSinkNode} is an end node that appends the received inputs to a file. The inputs are
+ * encoded with an {@link Encoder} into a direct {@link ByteBuffer}, which is written to the file
+ * with a single {@link FileChannel} write when the buffer is full, when the flush interval has
+ * elapsed, or when the sink receives a completion. Optionally the file is rotated when it reaches
+ * a maximum size, and the written data is synchronized to the storage device according to
+ * a {@link SyncPolicy}.
+ *
+ * Write errors are not propagated to the graph. The most recent error can be queried with
+ * {@link #getError()}. The data of a failed write is kept in the buffer and written by the next
+ * flush. While the buffer is full of unwritten data, further inputs are dropped and counted by
+ * {@link #getDropCount()}.
+ * @param <IN> The input type.
+ */
+public class FileSinkNode<IN> extends AbstractInputNode<IN> {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * {@link Encoder} defines an interface for encoding inputs to bytes.
+     * @param <IN> The input type.
+     */
+    public interface Encoder<IN> {
+
+        /**
+         * Encodes the given input into the given {@link ByteBuffer}.
+         * @param input The input to be encoded.
+         * @param buffer The {@link ByteBuffer}.
+         * @throws BufferOverflowException If the encoded input does not fit to the {@link ByteBuffer}.
+         */
+        void encode(IN input, ByteBuffer buffer);
+    }
+
+    /**
+     * {@link SyncPolicy} defines when the written data is forced to the storage device.
+     */
+    public enum SyncPolicy {
+
+        /**
+         * The data is never explicitly forced to the storage device.
+         */
+        NEVER,
+
+        /**
+         * The data is forced to the storage device after each flush.
+         */
+        ON_FLUSH,
+
+        /**
+         * The data is forced to the storage device when the file is closed or rotated.
+         */
+        ON_CLOSE
+    }
+
+    private final Encoder<? super IN> mEncoder;
+    private final File mFile;
+
+    private ByteBuffer mBuffer;
+    private int mBufferSize;
+    private long mBytesWritten;
+    private FileChannel mChannel;
+    private int mDropCount;
+    private IOException mError;
+    private long mFlushInterval;
+    private long mLastFlushTime;
+    private long mMaxFileSize;
+    private int mMaxFiles;
+    private int mRotationCount;
+    private ScheduledFuture<?> mScheduledFlush;
+    private ScheduledExecutorService mScheduler;
+    private SyncPolicy mSyncPolicy;
+    private int mWriteCount;
+
+    /**
+     * Constructs a new instance of {@link FileSinkNode} that writes the inputs as lines using
+     * {@link #lineEncoder()}.
+     * @param file The {@link File} to be appended.
+     */
+    public FileSinkNode(final File file) {
+        this(file, lineEncoder());
+    }
+
+    /**
+     * Constructs a new instance of {@link FileSinkNode}.
+     * @param file The {@link File} to be appended.
+     * @param encoder The {@link Encoder} for encoding the inputs.
+     */
+    public FileSinkNode(final File file, final Encoder<? super IN> encoder) {
+        mFile = file;
+        mEncoder = encoder;
+        mBufferSize = DEFAULT_BUFFER_SIZE;
+        mSyncPolicy = SyncPolicy.NEVER;
+    }
+
+    /**
+     * Sets the size of the write buffer. The buffer is flushed when it is full.
+     * @param bufferSize The buffer size in bytes.
+     * @return This {@link FileSinkNode}.
+     */
+    public synchronized FileSinkNode<IN> bufferSize(final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than zero");
+        }
+        flush();
+        mBufferSize = bufferSize;
+        mBuffer = null;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time that inputs are buffered. The interval is checked when an input is
+     * received. If a {@link ScheduledExecutorService} is given, the buffer is also flushed
+     * periodically when no inputs are received. The periodic flush is cancelled when the file is
+     * closed, and restarted when more inputs are received.
+     * @param interval The flush interval in milliseconds. Zero disables the time threshold.
+     * @param scheduler A {@link ScheduledExecutorService}, or {@code null}.
+     * @return This {@link FileSinkNode}.
+     */
+    public synchronized FileSinkNode<IN> flushInterval(final long interval, final ScheduledExecutorService scheduler) {
+        mFlushInterval = interval;
+        mScheduler = scheduler;
+        cancelScheduledFlush();
+        scheduleFlush();
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of the file. When appending a batch would exceed the maximum size,
+     * the file is closed and renamed with a numeric suffix, e.g. {@code events.log.1}, and a new
+     * file is started. The suffix is one greater than the highest existing suffix, so the highest
+     * suffix is the newest rotated file. The rotated files are never deleted.
+     * @param maxFileSize The maximum file size in bytes. Zero disables the rotation.
+     * @return This {@link FileSinkNode}.
+     */
+    public synchronized FileSinkNode<IN> rotate(final long maxFileSize) {
+        return rotate(maxFileSize, 0);
+    }
+
+    /**
+     * Sets the maximum size of the file and the maximum number of kept rotated files. When
+     * the maximum number is exceeded, the oldest rotated files, i.e. the ones with the lowest
+     * suffixes, are deleted.
+     * @param maxFileSize The maximum file size in bytes. Zero disables the rotation.
+     * @param maxFiles The maximum number of rotated files. Zero keeps all rotated files.
+     * @return This {@link FileSinkNode}.
+     */
+    public synchronized FileSinkNode<IN> rotate(final long maxFileSize, final int maxFiles) {
+        mMaxFileSize = maxFileSize;
+        mMaxFiles = maxFiles;
+        return this;
+    }
+
+    /**
+     * Sets the {@link SyncPolicy}.
+     * @param syncPolicy A {@link SyncPolicy}.
+     * @return This {@link FileSinkNode}.
+     */
+    public synchronized FileSinkNode<IN> sync(final SyncPolicy syncPolicy) {
+        mSyncPolicy = syncPolicy;
+        return this;
+    }
+
+    /**
+     * Gets the number of batches written to the file.
+     * @return The write count as an {@code int}.
+     */
+    public synchronized int getWriteCount() {
+        return mWriteCount;
+    }
+
+    /**
+     * Gets the total number of bytes written.
+     * @return The byte count as a {@code long}.
+     */
+    public synchronized long getBytesWritten() {
+        return mBytesWritten;
+    }
+
+    /**
+     * Gets the number of times the file has been rotated.
+     * @return The rotation count as an {@code int}.
+     */
+    public synchronized int getRotationCount() {
+        return mRotationCount;
+    }
+
+    /**
+     * Gets the number of inputs dropped because the buffer was full of unwritten data.
+     * @return The drop count as an {@code int}.
+     */
+    public synchronized int getDropCount() {
+        return mDropCount;
+    }
+
+    /**
+     * Gets the most recent write error.
+     * @return An {@link IOException}, or {@code null} if no errors have occurred.
+     */
+    public synchronized IOException getError() {
+        return mError;
+    }
+
+    @Override
+    protected synchronized void processInput(final OutputNode<IN> outputNode, final IN input) {
+        if (mBuffer == null) {
+            mBuffer = ByteBuffer.allocateDirect(mBufferSize);
+            mLastFlushTime = System.nanoTime();
+        }
+
+        if (mScheduledFlush == null) {
+            scheduleFlush();
+        }
+
+        final int position = mBuffer.position();
+
+        try {
+            mEncoder.encode(input, mBuffer);
+        } catch (BufferOverflowException e) {
+            mBuffer.position(position);
+            flush();
+
+            final int unwritten = mBuffer.position();
+
+            try {
+                mEncoder.encode(input, mBuffer);
+            } catch (BufferOverflowException overflow) {
+                mBuffer.position(unwritten);
+
+                if (unwritten > 0) {
+                    mDropCount++; // The unwritten data of a failed flush fills the buffer
+                } else {
+                    mError = new IOException("Encoded input exceeds the buffer size " + mBufferSize);
+                }
+                return;
+            }
+        }
+
+        if (!mBuffer.hasRemaining()) {
+            flush();
+        } else {
+            flushIfDue();
+        }
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        close();
+    }
+
+    @Override
+    public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+        flush();
+    }
+
+    /**
+     * Writes the buffered inputs to the file. If the write fails, the unwritten data is kept in
+     * the buffer, and the file is reopened by the next flush.
+     */
+    public synchronized void flush() {
+        mLastFlushTime = System.nanoTime();
+
+        if (mBuffer == null || mBuffer.position() == 0) {
+            return;
+        }
+        mBuffer.flip();
+
+        try {
+            if (mChannel == null) {
+                mChannel = new FileOutputStream(mFile, true).getChannel();
+            }
+
+            if (mMaxFileSize > 0 && mChannel.size() > 0 && mChannel.size() + mBuffer.remaining() > mMaxFileSize) {
+                rotateFile();
+            }
+
+            while (mBuffer.hasRemaining()) {
+                mBytesWritten += mChannel.write(mBuffer);
+            }
+            mWriteCount++;
+
+            if (mSyncPolicy == SyncPolicy.ON_FLUSH) {
+                mChannel.force(false);
+            }
+            mBuffer.clear();
+        } catch (IOException e) {
+            mError = e;
+            mBuffer.compact();
+            abandonChannel();
+        }
+    }
+
+    /**
+     * Flushes the buffered inputs and closes the file. The file is reopened if more inputs
+     * are received.
+     */
+    public synchronized void close() {
+        cancelScheduledFlush();
+        flush();
+
+        if (mChannel != null) {
+            try {
+                closeChannel();
+            } catch (IOException e) {
+                mError = e;
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (mFlushInterval > 0 && mScheduler != null) {
+            mScheduledFlush = mScheduler.scheduleWithFixedDelay(this::flushIfDue, mFlushInterval, mFlushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (mScheduledFlush != null) {
+            mScheduledFlush.cancel(false);
+            mScheduledFlush = null;
+        }
+    }
+
+    private synchronized void flushIfDue() {
+        if (mFlushInterval > 0 && System.nanoTime() - mLastFlushTime >= TimeUnit.MILLISECONDS.toNanos(mFlushInterval)) {
+            flush();
+        }
+    }
+
+    private void rotateFile() throws IOException {
+        closeChannel();
+
+        final File directory = mFile.getAbsoluteFile().getParentFile();
+        final String[] names = (directory != null) ? directory.list() : null;
+        final String prefix = mFile.getName() + ".";
+        long sequence = 0;
+
+        if (names != null) {
+            for (final String name : names) {
+                sequence = Math.max(sequence, getSuffix(name, prefix));
+            }
+        }
+        sequence++;
+
+        final File rotatedFile = new File(mFile.getPath() + "." + sequence);
+
+        if (!mFile.renameTo(rotatedFile)) {
+            throw new IOException("Failed to rotate " + mFile + " to " + rotatedFile);
+        }
+        mRotationCount++;
+
+        if (mMaxFiles > 0 && names != null) {
+            for (final String name : names) {
+                final long suffix = getSuffix(name, prefix);
+
+                if (suffix > 0 && suffix <= sequence - mMaxFiles) {
+                    new File(directory, name).delete();
+                }
+            }
+        }
+        mChannel = new FileOutputStream(mFile, true).getChannel();
+    }
+
+    /**
+     * Gets the numeric suffix of the given file name of a rotated file.
+     * @return The suffix, or zero if the name is not a name of a rotated file.
+     */
+    private static long getSuffix(final String name, final String prefix) {
+        if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() - prefix.length() > 18) {
+            return 0;
+        }
+
+        for (int i = prefix.length(); i < name.length(); i++) {
+            final char c = name.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+        }
+        return Long.parseLong(name.substring(prefix.length()));
+    }
+
+    private void abandonChannel() {
+        if (mChannel != null) {
+            try {
+                mChannel.close();
+            } catch (IOException e) {
+                // The original error is kept
+            }
+            mChannel = null;
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        try {
+            if (mSyncPolicy != SyncPolicy.NEVER) {
+                mChannel.force(false);
+            }
+        } finally {
+            mChannel.close();
+            mChannel = null;
+        }
+    }
+
+    /**
+     * Gets an {@link Encoder} that writes each input as a line. A {@link FileRecord} is copied as
+     * such, and other inputs are converted to {@link String}s and encoded using UTF-8.
+     * @return An {@link Encoder}.
+     */
+    public static <IN> Encoder<IN> lineEncoder() {
+        return (input, buffer) -> {
+            if (input instanceof FileRecord) {
+                final FileRecord record = (FileRecord) input;
+
+                if (record.getLength() + 1 > buffer.remaining()) {
+                    throw new BufferOverflowException();
+                }
+
+                for (int i = 0; i < record.getLength(); i++) {
+                    buffer.put(record.byteAt(i));
+                }
+            } else {
+                buffer.put(input.toString().getBytes(UTF_8));
+            }
+            buffer.put((byte) '\n');
+        };
+    }
+}
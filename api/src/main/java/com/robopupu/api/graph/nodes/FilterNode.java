@@ -15,6 +15,10 @@ public class FilterNode<IN> extends AbstractNode<IN, IN> {
         setCondition(condition);
     }
 
+    public BooleanFunction<IN> getCondition() {
+        return mCondition;
+    }
+
     public void setCondition(final BooleanFunction condition) {
         mCondition = condition;
     }
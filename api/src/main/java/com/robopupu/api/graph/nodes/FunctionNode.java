@@ -15,6 +15,10 @@ public class FunctionNode<IN, OUT> extends AbstractNode<IN, OUT> {
         mFunction = function;
     }
 
+    public Function<IN, OUT> getFunction() {
+        return mFunction;
+    }
+
     @Override
     protected OUT processInput(final OutputNode<IN> outputNode, final IN input) {
         if (mFunction != null) {
@@ -0,0 +1,221 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.AbstractOutputNode;
+import com.robopupu.api.graph.InputNode;
+import com.robopupu.api.graph.OutputNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * {@link FusedNode} executes a linear chain of stateless {@link FunctionNode}s, {@link FilterNode}s
+ * and {@link ActionNode}s as a single stage. Instead of dispatching each input through
+ * {@link InputNode#onInput(OutputNode, Object)} and {@link AbstractOutputNode#out(Object)} of every
+ * node in the chain, the functions, conditions and actions of the chain are invoked in a loop,
+ * and the result is dispatched directly to the nodes attached to the last node of the chain.
+ *
+ * A {@link FusedNode} is valid only as long as the topology of the fused chain is unchanged, and
+ * while it is valid its attached nodes are those of the last fused node. If a node is attached to
+ * or detached from any fused node, the {@link FusedNode} falls back to dispatching inputs,
+ * completions and errors to the original first node of the chain.
+ */
+public class FusedNode<IN, OUT> extends AbstractNode<IN, OUT> {
+
+    private static final byte STAGE_MAP = 0;
+    private static final byte STAGE_FILTER = 1;
+    private static final byte STAGE_ACTION = 2;
+
+    private final AbstractNode<?, ?>[] mNodes;
+    private final byte[] mStages;
+
+    private int mModificationCount;
+
+    @SuppressWarnings("unchecked")
+    protected FusedNode(final List<AbstractNode<?, ?>> nodes) {
+        mNodes = nodes.toArray(new AbstractNode<?, ?>[nodes.size()]);
+        mStages = new byte[mNodes.length];
+
+        for (int i = 0; i < mNodes.length; i++) {
+            mStages[i] = getStage(mNodes[i]);
+        }
+
+        final AbstractNode<?, OUT> lastNode = (AbstractNode<?, OUT>) mNodes[mNodes.length - 1];
+
+        for (final InputNode<OUT> inputNode : lastNode.getInputNodes()) {
+            attach(inputNode);
+        }
+        mModificationCount = getFusedModificationCount();
+    }
+
+    /**
+     * Gets the number of fused nodes.
+     * @return The count as an {@code int}.
+     */
+    public int getFusedCount() {
+        return mNodes.length;
+    }
+
+    /**
+     * Tests if the topology of the fused chain is unchanged, and this {@link FusedNode} can
+     * execute the chain as a single stage.
+     * @return A {@code boolean} value.
+     */
+    public boolean isValid() {
+        return mModificationCount == getFusedModificationCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        if (isValid()) {
+            super.onInput(outputNode, input);
+        } else {
+            ((AbstractNode<IN, ?>) mNodes[0]).onInput(outputNode, input);
+        }
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        if (isValid()) {
+            super.onCompleted(outputNode);
+        } else {
+            mNodes[0].onCompleted(outputNode);
+        }
+    }
+
+    @Override
+    public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+        if (isValid()) {
+            super.onError(outputNode, throwable);
+        } else {
+            mNodes[0].onError(outputNode, throwable);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected OUT processInput(final OutputNode<IN> outputNode, final IN input) {
+        Object value = input;
+
+        for (int i = 0; i < mStages.length && value != null; i++) {
+            switch (mStages[i]) {
+                case STAGE_MAP: {
+                    value = ((FunctionNode<Object, Object>) mNodes[i]).getFunction().eval(value);
+                    break;
+                }
+                case STAGE_FILTER: {
+                    if (!((FilterNode<Object>) mNodes[i]).getCondition().eval(value)) {
+                        value = null;
+                    }
+                    break;
+                }
+                default: {
+                    ((ActionNode<Object, ?>) mNodes[i]).getAction().execute(value);
+                    break;
+                }
+            }
+        }
+        return (OUT) value;
+    }
+
+    private int getFusedModificationCount() {
+        int count = getModificationCount();
+
+        for (final AbstractNode<?, ?> node : mNodes) {
+            count += node.getModificationCount();
+        }
+        return count;
+    }
+
+    /**
+     * Fuses the linear chains of stateless nodes found among the given nodes. Each chain of at
+     * least two fusable nodes is replaced by a {@link FusedNode} in the node that feeds the chain.
+     * A node is fusable if it is a {@link FunctionNode}, {@link FilterNode} or {@link ActionNode} with
+     * a function, condition or action, it is not instrumented or traced, and it has a single
+     * feeding node. Intermediate nodes of a chain must have a single attached node.
+     * @param nodes A {@link List} of the {@link OutputNode}s of a graph.
+     * @return A {@link List} of the created {@link FusedNode}s.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<FusedNode<?, ?>> fuse(final List<OutputNode<?>> nodes) {
+        final IdentityHashMap<InputNode<?>, Integer> inDegrees = new IdentityHashMap<>();
+
+        for (final OutputNode<?> node : nodes) {
+            if (node instanceof AbstractOutputNode) {
+                for (final InputNode<?> inputNode : ((AbstractOutputNode<?>) node).getInputNodes()) {
+                    final Integer inDegree = inDegrees.get(inputNode);
+                    inDegrees.put(inputNode, (inDegree != null) ? inDegree + 1 : 1);
+                }
+            }
+        }
+
+        final ArrayList<FusedNode<?, ?>> fusedNodes = new ArrayList<>();
+
+        for (final OutputNode<?> node : nodes) {
+            if (!(node instanceof AbstractOutputNode)) {
+                continue;
+            }
+
+            final AbstractOutputNode<Object> source = (AbstractOutputNode<Object>) node;
+
+            for (final InputNode<Object> head : new ArrayList<>(source.getInputNodes())) {
+                final ArrayList<AbstractNode<?, ?>> chain = new ArrayList<>();
+                InputNode<?> current = head;
+
+                while (isFusable(current, inDegrees)) {
+                    final AbstractNode<?, ?> chainNode = (AbstractNode<?, ?>) current;
+                    chain.add(chainNode);
+
+                    if (chainNode.getInputNodes().size() != 1) {
+                        break;
+                    }
+                    current = chainNode.getInputNodes().get(0);
+                }
+
+                if (chain.size() >= 2) {
+                    final FusedNode<Object, Object> fusedNode = new FusedNode<>(chain);
+
+                    if (source.replace(head, fusedNode)) {
+                        fusedNodes.add(fusedNode);
+                    }
+                }
+            }
+        }
+        return fusedNodes;
+    }
+
+    private static boolean isFusable(final InputNode<?> node, final IdentityHashMap<InputNode<?>, Integer> inDegrees) {
+        if (!(node instanceof AbstractNode)) {
+            return false;
+        }
+
+        final AbstractNode<?, ?> abstractNode = (AbstractNode<?, ?>) node;
+        final Integer inDegree = inDegrees.get(node);
+
+        if (inDegree == null || inDegree != 1 || abstractNode.getMetrics() != null || abstractNode.getTracer() != null) {
+            return false;
+        }
+
+        final Class<?> nodeClass = node.getClass();
+
+        if (nodeClass == FunctionNode.class) {
+            return ((FunctionNode<?, ?>) node).getFunction() != null;
+        } else if (nodeClass == FilterNode.class) {
+            return ((FilterNode<?>) node).getCondition() != null;
+        } else if (nodeClass == ActionNode.class) {
+            return ((ActionNode<?, ?>) node).getAction() != null;
+        }
+        return false;
+    }
+
+    private static byte getStage(final AbstractNode<?, ?> node) {
+        if (node instanceof FunctionNode) {
+            return STAGE_MAP;
+        } else if (node instanceof FilterNode) {
+            return STAGE_FILTER;
+        }
+        return STAGE_ACTION;
+    }
+}
@@ -0,0 +1,192 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.InputNode;
+import com.robopupu.api.graph.OutputNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * {@link GroupByNode} partitions its inputs by key. The key of each input is extracted with a key
+ * {@link Function}, and the input is routed with a single hash lookup to the sub-graph of the key.
+ * A sub-graph is built from a {@link Template} when the first input with the key is received, and
+ * the outputs of all sub-graphs are emitted by this {@link GroupByNode}.
+ *
+ * To keep the number of live sub-graphs bounded, a sub-graph is evicted when it has not received
+ * inputs within the idle timeout, or when the maximum number of groups is exceeded, in which case
+ * the least recently used sub-graph is evicted. An evicted sub-graph is notified about completion,
+ * so that it can emit its final outputs.
+ * @param <IN> The input type.
+ * @param <OUT> The output type.
+ */
+public class GroupByNode<IN, OUT> extends AbstractNode<IN, OUT> {
+
+    public static final int DEFAULT_MAX_GROUPS = 1024;
+
+    /**
+     * {@link Template} defines an interface for building the sub-graph of a key.
+     * @param <IN> The input type.
+     * @param <OUT> The output type.
+     */
+    public interface Template<IN, OUT> {
+
+        /**
+         * Builds a sub-graph for the given key by attaching nodes to the given {@link Graph}.
+         * @param key The key of the group.
+         * @param graph A {@link Graph} whose begin node receives the inputs of the group.
+         * @return The {@link Graph} positioned at the node whose outputs are emitted.
+         */
+        Graph<OUT> build(Object key, Graph<IN> graph);
+    }
+
+    private final LinkedHashMap<Object, Group> mGroups;
+    private final Function<IN, ?> mKeyFunction;
+    private final Template<IN, OUT> mTemplate;
+
+    private long mIdleTimeout;
+    private int mMaxGroups;
+
+    public GroupByNode(final Function<IN, ?> keyFunction, final Template<IN, OUT> template) {
+        mKeyFunction = keyFunction;
+        mTemplate = template;
+        mGroups = new LinkedHashMap<>(16, 0.75f, true);
+        mMaxGroups = DEFAULT_MAX_GROUPS;
+    }
+
+    /**
+     * Sets the maximum number of live groups.
+     * @param maxGroups The maximum number of groups.
+     * @return This {@link GroupByNode}.
+     */
+    public GroupByNode<IN, OUT> maxGroups(final int maxGroups) {
+        if (maxGroups <= 0) {
+            throw new IllegalArgumentException("Maximum number of groups must be greater than zero");
+        }
+        mMaxGroups = maxGroups;
+        return this;
+    }
+
+    /**
+     * Sets the time after which a group that has not received inputs is evicted.
+     * @param idleTimeout The timeout in milliseconds. Zero disables the idle eviction.
+     * @return This {@link GroupByNode}.
+     */
+    public GroupByNode<IN, OUT> idleTimeout(final long idleTimeout) {
+        mIdleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * Gets the number of live groups.
+     * @return The group count as an {@code int}.
+     */
+    public int getGroupCount() {
+        return mGroups.size();
+    }
+
+    @Override
+    public int getBufferDepth() {
+        return mGroups.size();
+    }
+
+    @Override
+    protected OUT processInput(final OutputNode<IN> outputNode, final IN input) {
+        final Object key = mKeyFunction.eval(input);
+
+        if (key == null) {
+            return null;
+        }
+
+        final long time = currentTime();
+        Group group = mGroups.get(key);
+
+        if (group == null) {
+            group = new Group(key);
+            mGroups.put(key, group);
+        }
+        group.mLastInputTime = time;
+        group.mEntryNode.onInput(input);
+
+        evictGroups(time);
+        return null;
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        final ArrayList<Group> groups = new ArrayList<>(mGroups.values());
+        mGroups.clear();
+
+        for (final Group group : groups) {
+            group.complete();
+        }
+        super.onCompleted(outputNode);
+    }
+
+    /**
+     * Gets the current time used for the idle timeout.
+     * @return The time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private void evictGroups(final long time) {
+        final Iterator<Group> groups = mGroups.values().iterator();
+
+        while (groups.hasNext()) {
+            final Group group = groups.next();
+
+            if (mGroups.size() > mMaxGroups || (mIdleTimeout > 0 && time - group.mLastInputTime >= mIdleTimeout)) {
+                groups.remove();
+                group.complete();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@link Group} holds the sub-graph of a key.
+     */
+    private class Group implements InputNode<OUT> {
+
+        private final SimpleNode<IN, IN> mEntryNode;
+
+        private long mLastInputTime;
+
+        @SuppressWarnings("unchecked")
+        private Group(final Object key) {
+            mEntryNode = new SimpleNode<>();
+
+            final Graph<OUT> graph = mTemplate.build(key, Graph.begin(mEntryNode));
+            final OutputNode<OUT> exitNode = graph.getCurrentNode();
+
+            if (exitNode != null) {
+                exitNode.attach(this);
+            }
+        }
+
+        private void complete() {
+            mEntryNode.onCompleted(mEntryNode);
+        }
+
+        @Override
+        public void onInput(final OutputNode<OUT> outputNode, final OUT input) {
+            out(input);
+        }
+
+        @Override
+        public void onCompleted(final OutputNode<?> outputNode) {
+            // The completion of a group is not propagated
+        }
+
+        @Override
+        public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+            error(outputNode, throwable);
+        }
+    }
+}
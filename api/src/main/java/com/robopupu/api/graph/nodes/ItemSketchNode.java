@@ -0,0 +1,248 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.sketch.ItemSketch;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ItemSketchNode} adds the items of its inputs to an {@link ItemSketch}, such as
+ * a {@link com.robopupu.api.graph.sketch.TopK} or a {@link com.robopupu.api.graph.sketch.HyperLogLog},
+ * and emits a summary {@link ItemSketch} after every given number of inputs, on a fixed interval,
+ * and when the node receives a completion.
+ *
+ * If a window is set, the window is divided into slices with an {@link ItemSketch} each. An input
+ * is added to the sketch of the current slice, the sketch of an expired slice is reset when it is
+ * reused, and the emitted summary merges the sketches of the slices within the window. Thus the
+ * memory stays fixed while the summary slides over the window with the granularity of a slice.
+ * Summaries emitted by parallel instances are merged with an {@link ItemSketchNode} created with
+ * {@link #merge(ItemSketch)}.
+ *
+ * The emission is serialized, so that the summaries emitted on an interval by the scheduler thread
+ * and those emitted on inputs are emitted one at a time and in the order they were taken.
+ * @param <IN> The input type.
+ * @param <S> The type of the {@link ItemSketch}.
+ */
+public class ItemSketchNode<IN, S extends ItemSketch<S>> extends AbstractNode<IN, S> implements StatefulNode {
+
+    private final Object mEmitLock;
+    private final Function<IN, ?> mItemFunction;
+    private final S mSketch;
+    private final ArrayList<S> mSlices;
+
+    private int mEmitEvery;
+    private int mPendingCount;
+    private ScheduledFuture<?> mScheduledEmit;
+    private long[] mSliceEpochs;
+    private long mSliceDuration;
+
+    /**
+     * Constructs a new instance of {@link ItemSketchNode}.
+     * @param itemFunction A {@link Function} extracting the item of an input.
+     * @param sketch The {@link ItemSketch} used as a prototype for the slices of the window.
+     */
+    public ItemSketchNode(final Function<IN, ?> itemFunction, final S sketch) {
+        mItemFunction = itemFunction;
+        mSketch = sketch;
+        mSlices = new ArrayList<>();
+        mSlices.add(sketch);
+        mSliceEpochs = new long[1];
+        mEmitLock = new Object();
+    }
+
+    /**
+     * Sets the sliding window of the summary.
+     * @param window The window in milliseconds.
+     * @param sliceCount The number of slices in the window.
+     * @return This {@link ItemSketchNode}.
+     */
+    public synchronized ItemSketchNode<IN, S> window(final long window, final int sliceCount) {
+        if (window <= 0 || sliceCount <= 0) {
+            throw new IllegalArgumentException("Window and slice count must be greater than zero");
+        }
+        mSketch.reset();
+        mSlices.clear();
+        mSlices.add(mSketch);
+
+        for (int i = 1; i < sliceCount; i++) {
+            mSlices.add(mSketch.copy());
+        }
+        mSliceEpochs = new long[sliceCount];
+        mSliceDuration = Math.max(1, window / sliceCount);
+        return this;
+    }
+
+    /**
+     * Sets the number of inputs after which a summary is emitted.
+     * @param inputs The number of inputs. Zero disables emitting on inputs.
+     * @return This {@link ItemSketchNode}.
+     */
+    public synchronized ItemSketchNode<IN, S> emitEvery(final int inputs) {
+        mEmitEvery = inputs;
+        return this;
+    }
+
+    /**
+     * Sets the interval for emitting a summary.
+     * @param interval The interval in milliseconds. Zero disables emitting on an interval.
+     * @param scheduler A {@link ScheduledExecutorService}.
+     * @return This {@link ItemSketchNode}.
+     */
+    public synchronized ItemSketchNode<IN, S> emitInterval(final long interval, final ScheduledExecutorService scheduler) {
+        if (mScheduledEmit != null) {
+            mScheduledEmit.cancel(false);
+            mScheduledEmit = null;
+        }
+
+        if (interval > 0) {
+            mScheduledEmit = scheduler.scheduleWithFixedDelay(this::emit, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Creates a summary of the items within the window.
+     * @return An {@link ItemSketch}.
+     */
+    public synchronized S getSummary() {
+        final long epoch = getEpoch();
+        final S summary = mSketch.copy();
+        summary.reset();
+
+        for (int i = 0; i < mSlices.size(); i++) {
+            if (epoch - mSliceEpochs[i] < mSlices.size()) {
+                summary.merge(mSlices.get(i));
+            }
+        }
+        return summary;
+    }
+
+    @Override
+    public void onInput(final IN input) {
+        synchronized (mEmitLock) {
+            super.onInput(input);
+        }
+    }
+
+    @Override
+    public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        synchronized (mEmitLock) {
+            super.onInput(outputNode, input);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected synchronized S processInput(final OutputNode<IN> outputNode, final IN input) {
+        final long epoch = getEpoch();
+        final int index = (int) (epoch % mSlices.size());
+        final S slice = mSlices.get(index);
+
+        if (mSliceEpochs[index] != epoch) {
+            slice.reset();
+            mSliceEpochs[index] = epoch;
+        }
+
+        if (mItemFunction == null) {
+            slice.merge((S) input);
+        } else {
+            final Object item = mItemFunction.eval(input);
+
+            if (item == null) {
+                return null;
+            }
+            slice.add(item);
+        }
+        mPendingCount++;
+
+        if (mEmitEvery > 0 && mPendingCount >= mEmitEvery) {
+            mPendingCount = 0;
+            return getSummary();
+        }
+        return null;
+    }
+
+    /**
+     * Emits a summary of the items within the window.
+     */
+    @Override
+    public void emit() {
+        synchronized (mEmitLock) {
+            final S summary;
+
+            synchronized (this) {
+                mPendingCount = 0;
+                summary = getSummary();
+            }
+            out(summary);
+        }
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        synchronized (this) {
+            if (mScheduledEmit != null) {
+                mScheduledEmit.cancel(false);
+                mScheduledEmit = null;
+            }
+        }
+        emit();
+        super.onCompleted(outputNode);
+    }
+
+    /**
+     * Gets the current time used for the window.
+     * @return The time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private long getEpoch() {
+        return (mSliceDuration > 0) ? currentTime() / mSliceDuration : 0;
+    }
+
+    @Override
+    public synchronized void saveState(final StateOutput output) throws IOException {
+        output.writeInt(mSlices.size());
+
+        for (int i = 0; i < mSlices.size(); i++) {
+            output.writeLong(mSliceEpochs[i]);
+            mSlices.get(i).save(output);
+        }
+    }
+
+    @Override
+    public synchronized void restoreState(final StateInput input) throws IOException {
+        final int sliceCount = input.readInt();
+
+        if (sliceCount != mSlices.size()) {
+            throw new IOException("Slice count " + sliceCount + " does not match " + mSlices.size());
+        }
+
+        for (int i = 0; i < sliceCount; i++) {
+            mSliceEpochs[i] = input.readLong();
+            mSlices.get(i).restore(input);
+        }
+    }
+
+    /**
+     * Creates an {@link ItemSketchNode} that merges the received summaries into the given
+     * {@link ItemSketch}.
+     * @param sketch The {@link ItemSketch} for the merged summaries.
+     * @param <S> The type of the {@link ItemSketch}.
+     * @return An {@link ItemSketchNode}.
+     */
+    public static <S extends ItemSketch<S>> ItemSketchNode<S, S> merge(final S sketch) {
+        return new ItemSketchNode<>(null, sketch);
+    }
+}
@@ -0,0 +1,43 @@
+package com.robopupu.api.graph.nodes;
+
+import java.util.Iterator;
+
+/**
+ * {@link IterableNode} is a {@link StreamNode} that emits the elements of an {@link Iterable}
+ * or an {@link Iterator} without copying them. An {@link Iterable} is iterated again on each
+ * {@link #emit()}, whereas an {@link Iterator} can be emitted only once. The source must not be
+ * modified while it is emitted.
+ * @param <OUT> The output type.
+ */
+public class IterableNode<OUT> extends StreamNode<OUT> {
+
+    private final Iterable<OUT> mIterable;
+
+    private Iterator<OUT> mIterator;
+
+    public IterableNode(final Iterable<OUT> iterable) {
+        mIterable = iterable;
+    }
+
+    public IterableNode(final Iterator<OUT> iterator) {
+        mIterable = null;
+        mIterator = iterator;
+    }
+
+    @Override
+    protected void open() {
+        if (mIterable != null) {
+            mIterator = mIterable.iterator();
+        }
+    }
+
+    @Override
+    protected boolean hasNextOutput() {
+        return mIterator.hasNext();
+    }
+
+    @Override
+    protected OUT nextOutput() {
+        return mIterator.next();
+    }
+}
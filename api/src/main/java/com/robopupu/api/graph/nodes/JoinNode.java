@@ -0,0 +1,256 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.functions.Function2;
+import com.robopupu.api.graph.pool.PooledEvent;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * {@link JoinNode} extends {@link ZipNode} for joining two streams by key within a time window.
+ * Unlike {@link Zip2Node}, which pairs its inputs by arrival order, {@link JoinNode} indexes the
+ * inputs of each side by key, and emits a combined output for each pair of inputs that have
+ * the same key and whose times differ at most by the window. Inputs are expired when they fall
+ * out of the window, so the buffered state is bounded by the input rate and the window.
+ *
+ * The time of an input is the current time, or the time given by a timestamp {@link Function}.
+ * Timestamps are expected to be roughly increasing, as inputs are expired in arrival order.
+ * Pooled inputs, see {@link PooledEvent}, are retained while they are buffered.
+ */
+public class JoinNode<IN1, IN2, OUT> extends ZipNode<OUT> {
+
+    public final ZipInputNode<IN1, OUT> input1;
+    public final ZipInputNode<IN2, OUT> input2;
+
+    private final Function2<IN1, IN2, OUT> mCombineFunction;
+    private final Side<IN1> mSide1;
+    private final Side<IN2> mSide2;
+    private final long mWindow;
+
+    private long mWatermark;
+
+    /**
+     * Constructs a new instance of {@link JoinNode}.
+     * @param keyFunction1 A {@link Function} extracting the key of a first input.
+     * @param keyFunction2 A {@link Function} extracting the key of a second input.
+     * @param window The window in milliseconds.
+     * @param combineFunction A {@link Function2} combining a matching pair of inputs.
+     */
+    public JoinNode(final Function<IN1, ?> keyFunction1, final Function<IN2, ?> keyFunction2, final long window,
+                    final Function2<IN1, IN2, OUT> combineFunction) {
+        super(2);
+        mSide1 = new Side<>(keyFunction1);
+        mSide2 = new Side<>(keyFunction2);
+        mWindow = window;
+        mCombineFunction = combineFunction;
+        mWatermark = Long.MIN_VALUE;
+        input1 = new ZipInputNode<>(this, 0);
+        input2 = new ZipInputNode<>(this, 1);
+    }
+
+    /**
+     * Sets the timestamp {@link Function}s used instead of the current time.
+     * @param timestampFunction1 A {@link Function} extracting the timestamp of a first input.
+     * @param timestampFunction2 A {@link Function} extracting the timestamp of a second input.
+     * @return This {@link JoinNode}.
+     */
+    public JoinNode<IN1, IN2, OUT> timestamps(final Function<IN1, Long> timestampFunction1,
+                                              final Function<IN2, Long> timestampFunction2) {
+        mSide1.mTimestampFunction = timestampFunction1;
+        mSide2.mTimestampFunction = timestampFunction2;
+        return this;
+    }
+
+    /**
+     * Handles an input of either side. An input without a key, or an input that is older than
+     * the window allows, is counted as a drop.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <IN> void onInput(final ZipInputNode<IN, OUT> inputNode, final IN input) {
+        if (mMetrics != null) {
+            mMetrics.onInput();
+        }
+
+        if (inputNode.getIndex() == 0) {
+            join(mSide1, mSide2, (IN1) input, true);
+        } else {
+            join(mSide2, mSide1, (IN2) input, false);
+        }
+    }
+
+    private <T> void join(final Side<T> side, final Side<?> otherSide, final T input, final boolean first) {
+        final Object key = side.mKeyFunction.eval(input);
+
+        if (key == null) {
+            onDrop();
+            return;
+        }
+
+        final long time = (side.mTimestampFunction != null) ? side.mTimestampFunction.eval(input) : currentTime();
+
+        if (time > mWatermark) {
+            mWatermark = time;
+            mSide1.expire(mWatermark - mWindow);
+            mSide2.expire(mWatermark - mWindow);
+        } else if (time < mWatermark - mWindow) {
+            onDrop();
+            return;
+        }
+
+        side.add(new Entry(key, time, input));
+
+        final ArrayDeque<Entry> matches = otherSide.mEntries.get(key);
+
+        if (matches != null) {
+            final ArrayList<OUT> outputs = new ArrayList<>();
+
+            for (final Entry match : matches) {
+                if (Math.abs(match.mTime - time) <= mWindow) {
+                    outputs.add(first ? combine(input, match.mValue) : combine(match.mValue, input));
+                }
+            }
+
+            for (final OUT output : outputs) {
+                out(output);
+            }
+        }
+    }
+
+    private void onDrop() {
+        if (mMetrics != null) {
+            mMetrics.onDrop();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private OUT combine(final Object value1, final Object value2) {
+        return mCombineFunction.eval((IN1) value1, (IN2) value2);
+    }
+
+    /**
+     * Gets the current time used when no timestamp {@link Function}s are set.
+     * @return The time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    protected OUT zip() {
+        return null;
+    }
+
+    @Override
+    protected boolean isReadyToZip() {
+        return false;
+    }
+
+    @Override
+    public int getBufferDepth() {
+        return mSide1.mQueue.size() + mSide2.mQueue.size();
+    }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        output.writeLong(mWatermark);
+        mSide1.save(output);
+        mSide2.save(output);
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        mWatermark = input.readLong();
+        mSide1.restore(input);
+        mSide2.restore(input);
+    }
+
+    /**
+     * {@link Side} holds the key and timestamp {@link Function}s of one side, and indexes its
+     * buffered inputs by key.
+     * @param <T> The input type of the side.
+     */
+    private static class Side<T> {
+
+        private final HashMap<Object, ArrayDeque<Entry>> mEntries = new HashMap<>();
+        private final Function<T, ?> mKeyFunction;
+        private final ArrayDeque<Entry> mQueue = new ArrayDeque<>();
+
+        private Function<T, Long> mTimestampFunction;
+
+        private Side(final Function<T, ?> keyFunction) {
+            mKeyFunction = keyFunction;
+        }
+
+        private void add(final Entry entry) {
+            ArrayDeque<Entry> entries = mEntries.get(entry.mKey);
+
+            if (entries == null) {
+                entries = new ArrayDeque<>();
+                mEntries.put(entry.mKey, entries);
+            }
+            PooledEvent.retainIfPooled(entry.mValue);
+            entries.add(entry);
+            mQueue.add(entry);
+        }
+
+        private void expire(final long time) {
+            while (!mQueue.isEmpty() && mQueue.peek().mTime < time) {
+                final Entry entry = mQueue.poll();
+                final ArrayDeque<Entry> entries = mEntries.get(entry.mKey);
+                entries.remove(entry);
+
+                if (entries.isEmpty()) {
+                    mEntries.remove(entry.mKey);
+                }
+                PooledEvent.releaseIfPooled(entry.mValue);
+            }
+        }
+
+        private void save(final StateOutput output) throws IOException {
+            output.writeInt(mQueue.size());
+
+            for (final Entry entry : mQueue) {
+                output.writeLong(entry.mTime);
+                output.writeValue(entry.mValue);
+            }
+        }
+
+        private void restore(final StateInput input) throws IOException {
+            for (final Entry entry : mQueue) {
+                PooledEvent.releaseIfPooled(entry.mValue);
+            }
+            mEntries.clear();
+            mQueue.clear();
+
+            final int count = input.readInt();
+
+            for (int i = 0; i < count; i++) {
+                final long time = input.readLong();
+                final T value = input.readValue();
+                add(new Entry(mKeyFunction.eval(value), time, value));
+            }
+        }
+    }
+
+    /**
+     * {@link Entry} is a buffered input with its key and time.
+     */
+    private static class Entry {
+
+        private final Object mKey;
+        private final long mTime;
+        private final Object mValue;
+
+        private Entry(final Object key, final long time, final Object value) {
+            mKey = key;
+            mTime = time;
+            mValue = value;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.state.KeyedStateStore;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
+
+/**
+ * {@link KeyedStateNode} provides an abstract base class for nodes that keep per-key state in
+ * a {@link KeyedStateStore}. The key of each input is extracted with a key {@link Function}, and
+ * the input is processed with the slot of the key in the {@link KeyedStateStore}. Inputs with
+ * a {@code null} key, and inputs whose key cannot be stored, e.g. because its binary form exceeds
+ * the maximum key size of the {@link KeyedStateStore}, are dropped and counted as drops in the
+ * metrics of an instrumented node. The state is included in graph snapshots.
+ * @param <IN> The input type.
+ * @param <OUT> The output type.
+ */
+public abstract class KeyedStateNode<IN, OUT> extends AbstractNode<IN, OUT> implements StatefulNode {
+
+    protected final Function<IN, ?> mKeyFunction;
+    protected final KeyedStateStore mStore;
+
+    protected KeyedStateNode(final Function<IN, ?> keyFunction, final KeyedStateStore store) {
+        mKeyFunction = keyFunction;
+        mStore = store;
+    }
+
+    /**
+     * Gets the {@link KeyedStateStore} of this {@link KeyedStateNode}.
+     * @return A {@link KeyedStateStore}.
+     */
+    public KeyedStateStore getStore() {
+        return mStore;
+    }
+
+    @Override
+    protected OUT processInput(final OutputNode<IN> outputNode, final IN input) {
+        final Object key = mKeyFunction.eval(input);
+
+        if (key == null) {
+            return null;
+        }
+
+        final int slot = mStore.tryGetOrCreateSlot(key);
+        return (slot >= 0) ? processKeyedInput(key, slot, input) : null;
+    }
+
+    /**
+     * Invoked to process the given input with the slot of its key.
+     * @param key The key of the input.
+     * @param slot The slot index of the key in the {@link KeyedStateStore}.
+     * @param input The input {@link Object}.
+     * @return The output, or {@code null} if nothing is emitted.
+     */
+    protected abstract OUT processKeyedInput(final Object key, final int slot, final IN input);
+
+    @Override
+    public int getBufferDepth() {
+        return mStore.size();
+    }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        mStore.save(output);
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        mStore.restore(input);
+    }
+}
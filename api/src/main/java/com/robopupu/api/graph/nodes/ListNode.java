@@ -3,13 +3,24 @@ package com.robopupu.api.graph.nodes;
 import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.AbstractOutputNode;
 import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.pool.PooledEvent;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ListNode<IN> extends AbstractNode<IN, IN> {
+/**
+ * {@link ListNode} emits the elements of a given {@link List}. The given {@link List} is not copied,
+ * and it must not be modified while it is emitted. A {@link ListNode} constructed without a list,
+ * or with an empty list, collects its inputs and emits them on {@link #emit()}.
+ * @param <IN> The input and output type.
+ */
+public class ListNode<IN> extends AbstractNode<IN, IN> implements StatefulNode {
 
-    protected ArrayList<IN> mList;
+    protected List<IN> mList;
     protected boolean mMutableList;
 
     public ListNode() {
@@ -18,14 +29,18 @@ public class ListNode<IN> extends AbstractNode<IN, IN> {
     }
 
     public ListNode(final List<IN> list) {
-        mList = new ArrayList<>();
-        mList.addAll(list);
         mMutableList = list.isEmpty();
+        mList = mMutableList ? new ArrayList<IN>() : list;
     }
 
     @Override
     public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        if (mMetrics != null) {
+            mMetrics.onInput();
+        }
+
         if (mMutableList) {
+            PooledEvent.retainIfPooled(input);
             mList.add(input);
         }
     }
@@ -35,14 +50,47 @@ public class ListNode<IN> extends AbstractNode<IN, IN> {
      */
     @Override
     public void emit() {
+        if (mMutableList) {
+            try {
+                for (final IN output : mList) {
+                    out(output);
+                }
+            } finally {
+                releaseList();
+            }
+        } else {
+            for (final IN output : mList) {
+                out(output);
+            }
+            completed(this);
+        }
+    }
+
+    private void releaseList() {
         for (final IN output : mList) {
-            out(output);
+            PooledEvent.releaseIfPooled(output);
         }
+        mList.clear();
+    }
+
+    /**
+     * Writes the collected inputs of a {@link ListNode} constructed without a list. The contents of
+     * a given list are not written.
+     */
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        output.writeBoolean(mMutableList);
 
         if (mMutableList) {
-            mList.clear();
-        } else {
-            completed(this);
+            output.writeValues(mList);
+        }
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        if (input.readBoolean() && mMutableList) {
+            releaseList();
+            input.readValues(mList);
         }
     }
 }
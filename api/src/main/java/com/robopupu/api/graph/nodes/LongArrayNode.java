@@ -0,0 +1,42 @@
+package com.robopupu.api.graph.nodes;
+
+/**
+ * {@link LongArrayNode} is a {@link StreamNode} that emits a range of a {@code long} array without
+ * copying it. Each element is boxed only when it is emitted.
+ */
+public class LongArrayNode extends StreamNode<Long> {
+
+    private final long[] mArray;
+    private final int mEnd;
+    private final int mOffset;
+
+    private int mIndex;
+
+    public LongArrayNode(final long[] array) {
+        this(array, 0, array.length);
+    }
+
+    public LongArrayNode(final long[] array, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset + length > array.length) {
+            throw new IndexOutOfBoundsException("Invalid range: offset = " + offset + ", length = " + length);
+        }
+        mArray = array;
+        mOffset = offset;
+        mEnd = offset + length;
+    }
+
+    @Override
+    protected void open() {
+        mIndex = mOffset;
+    }
+
+    @Override
+    protected boolean hasNextOutput() {
+        return mIndex < mEnd;
+    }
+
+    @Override
+    protected Long nextOutput() {
+        return mArray[mIndex++];
+    }
+}
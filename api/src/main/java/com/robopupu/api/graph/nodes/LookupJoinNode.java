@@ -0,0 +1,90 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.functions.Function2;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link LookupJoinNode} enriches its inputs with reference data from a {@link LookupTable}.
+ * The key of an input is extracted with a key {@link Function}, its value is looked up from
+ * the current version of the {@link LookupTable}, and the input and the value are combined with
+ * a join {@link Function2}. An input whose key is not found is combined with a {@code null} value,
+ * or dropped if {@link #dropMissing(boolean)} is set.
+ * @param <IN> The input type.
+ * @param <K> The key type.
+ * @param <V> The value type.
+ * @param <OUT> The output type.
+ */
+public class LookupJoinNode<IN, K, V, OUT> extends AbstractNode<IN, OUT> {
+
+    private final AtomicLong mHitCount;
+    private final Function2<IN, V, OUT> mJoinFunction;
+    private final Function<IN, K> mKeyFunction;
+    private final AtomicLong mMissCount;
+    private final LookupTable<K, V> mTable;
+
+    private boolean mDropMissing;
+
+    public LookupJoinNode(final LookupTable<K, V> table, final Function<IN, K> keyFunction,
+                          final Function2<IN, V, OUT> joinFunction) {
+        mTable = table;
+        mKeyFunction = keyFunction;
+        mJoinFunction = joinFunction;
+        mHitCount = new AtomicLong();
+        mMissCount = new AtomicLong();
+    }
+
+    /**
+     * Sets whether inputs whose key is not found are dropped.
+     * @param dropMissing A {@code boolean} value.
+     * @return This {@link LookupJoinNode}.
+     */
+    public LookupJoinNode<IN, K, V, OUT> dropMissing(final boolean dropMissing) {
+        mDropMissing = dropMissing;
+        return this;
+    }
+
+    /**
+     * Gets the {@link LookupTable} of this {@link LookupJoinNode}.
+     * @return A {@link LookupTable}.
+     */
+    public LookupTable<K, V> getTable() {
+        return mTable;
+    }
+
+    /**
+     * Gets the number of inputs whose key was found.
+     * @return The count as a {@code long}.
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Gets the number of inputs whose key was not found.
+     * @return The count as a {@code long}.
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    @Override
+    protected OUT processInput(final OutputNode<IN> outputNode, final IN input) {
+        final K key = mKeyFunction.eval(input);
+        final V value = (key != null) ? mTable.get(key) : null;
+
+        if (value != null) {
+            mHitCount.incrementAndGet();
+        } else {
+            mMissCount.incrementAndGet();
+
+            if (mDropMissing) {
+                return null;
+            }
+        }
+        return mJoinFunction.eval(input, value);
+    }
+}
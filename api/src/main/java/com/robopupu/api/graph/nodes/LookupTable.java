@@ -0,0 +1,121 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractInputNode;
+import com.robopupu.api.graph.OutputNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link LookupTable} is a slowly changing table of reference data for {@link LookupJoinNode}s.
+ * The table is an immutable {@link Map} that is replaced atomically with a new version, so that
+ * lookups are lock-free reads of the current version and never observe a partially updated table.
+ * As an {@link AbstractInputNode}, a {@link LookupTable} can be attached to a graph branch, such as
+ * a periodic {@link RequestNode}, that emits complete tables as {@link Map}s. A single table can be
+ * shared by any number of {@link LookupJoinNode}s.
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class LookupTable<K, V> extends AbstractInputNode<Map<K, V>> {
+
+    private final AtomicReference<Version<K, V>> mVersion;
+
+    /**
+     * Constructs a new empty instance of {@link LookupTable}.
+     */
+    public LookupTable() {
+        mVersion = new AtomicReference<>(new Version<K, V>(Collections.<K, V>emptyMap(), 0));
+    }
+
+    /**
+     * Gets the value of the given key in the current version.
+     * @param key The key.
+     * @return The value, or {@code null} if not found.
+     */
+    public V get(final K key) {
+        return mVersion.get().mEntries.get(key);
+    }
+
+    /**
+     * Gets the number of entries in the current version.
+     * @return The size as an {@code int}.
+     */
+    public int size() {
+        return mVersion.get().mEntries.size();
+    }
+
+    /**
+     * Gets the current version number. The number is incremented on every update.
+     * @return The version as a {@code long}.
+     */
+    public long getVersion() {
+        return mVersion.get().mNumber;
+    }
+
+    /**
+     * Gets the entries of the current version.
+     * @return An unmodifiable {@link Map}.
+     */
+    public Map<K, V> getEntries() {
+        return mVersion.get().mEntries;
+    }
+
+    /**
+     * Replaces the table with a copy of the given entries.
+     * @param entries A {@link Map} of entries.
+     */
+    public void swap(final Map<K, V> entries) {
+        final Map<K, V> copy = Collections.unmodifiableMap(new HashMap<>(entries));
+        Version<K, V> version;
+
+        do {
+            version = mVersion.get();
+        } while (!mVersion.compareAndSet(version, new Version<>(copy, version.mNumber + 1)));
+    }
+
+    /**
+     * Puts the given entry to a new version of the table. As each update copies the table, this is
+     * intended for infrequent updates of individual entries.
+     * @param key The key.
+     * @param value The value, or {@code null} to remove the key.
+     */
+    public void put(final K key, final V value) {
+        Version<K, V> version;
+        Map<K, V> entries;
+
+        do {
+            version = mVersion.get();
+            final HashMap<K, V> copy = new HashMap<>(version.mEntries);
+
+            if (value != null) {
+                copy.put(key, value);
+            } else {
+                copy.remove(key);
+            }
+            entries = Collections.unmodifiableMap(copy);
+        } while (!mVersion.compareAndSet(version, new Version<>(entries, version.mNumber + 1)));
+    }
+
+    @Override
+    protected void processInput(final OutputNode<Map<K, V>> outputNode, final Map<K, V> input) {
+        if (input != null) {
+            swap(input);
+        }
+    }
+
+    /**
+     * {@link Version} is an immutable version of the table.
+     */
+    private static class Version<K, V> {
+
+        private final Map<K, V> mEntries;
+        private final long mNumber;
+
+        private Version(final Map<K, V> entries, final long number) {
+            mEntries = entries;
+            mNumber = number;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.robopupu.api.graph.nodes;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link MappedFileNode} is a {@link StreamNode} that reads the records of a file by memory mapping
+ * it with {@link FileChannel#map(FileChannel.MapMode, long, long)}. A file larger than the segment
+ * size is mapped one segment at a time. The records are emitted as a reused {@link FileRecord} that
+ * refers to the mapped bytes, so no objects are allocated per record unless the record is copied.
+ * When an emission ends, the node drops its references to the mapped segment, so that the mapping
+ * can be released by the garbage collector, as Java provides no way to unmap it explicitly.
+ *
+ * A file can be split into ranges with {@link #split(File, Format, int, int)} to be read by
+ * {@link MappedFileNode}s of parallel graph instances. Each range starts at a record boundary.
+ */
+public class MappedFileNode extends StreamNode<FileRecord> {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    /**
+     * {@link Format} defines how the records of a file are delimited.
+     */
+    public enum Format {
+
+        /**
+         * Records are delimited by a newline. A trailing carriage return is not included in a record.
+         */
+        LINES,
+
+        /**
+         * Records have a fixed width in bytes. A trailing partial record fails the emission.
+         */
+        FIXED_WIDTH,
+
+        /**
+         * Records are prefixed by their length as a four byte big-endian integer.
+         */
+        LENGTH_PREFIXED
+    }
+
+    private final long mEnd;
+    private final File mFile;
+    private final Format mFormat;
+    private final FileRecord mRecord;
+    private final int mRecordWidth;
+    private final long mStart;
+
+    private MappedByteBuffer mBuffer;
+    private long mBufferPosition;
+    private long mFileSize;
+    private long mLimit;
+    private long mPosition;
+    private int mSegmentSize;
+
+    /**
+     * Constructs a new instance of {@link MappedFileNode} for reading newline delimited records.
+     * @param file The {@link File} to be read.
+     */
+    public MappedFileNode(final File file) {
+        this(file, Format.LINES, 0);
+    }
+
+    /**
+     * Constructs a new instance of {@link MappedFileNode} for reading a whole file.
+     * @param file The {@link File} to be read.
+     * @param format The {@link Format} of the records.
+     * @param recordWidth The width of records in bytes for {@link Format#FIXED_WIDTH}.
+     */
+    public MappedFileNode(final File file, final Format format, final int recordWidth) {
+        this(file, format, recordWidth, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new instance of {@link MappedFileNode} for reading the records that start within
+     * the given range of a file. The start of the range has to be at a record boundary.
+     * @param file The {@link File} to be read.
+     * @param format The {@link Format} of the records.
+     * @param recordWidth The width of records in bytes for {@link Format#FIXED_WIDTH}.
+     * @param start The start position of the range.
+     * @param end The end position of the range, exclusive.
+     */
+    public MappedFileNode(final File file, final Format format, final int recordWidth, final long start, final long end) {
+        if (format == Format.FIXED_WIDTH && recordWidth <= 0) {
+            throw new IllegalArgumentException("Record width must be greater than zero");
+        }
+        mFile = file;
+        mFormat = format;
+        mRecordWidth = recordWidth;
+        mStart = start;
+        mEnd = end;
+        mRecord = new FileRecord();
+        mSegmentSize = DEFAULT_SEGMENT_SIZE;
+    }
+
+    /**
+     * Sets the maximum size of a mapped segment. A single record may not be longer than a segment.
+     * @param segmentSize The segment size in bytes.
+     * @return This {@link MappedFileNode}.
+     */
+    public MappedFileNode segmentSize(final int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be greater than zero");
+        }
+        mSegmentSize = segmentSize;
+        return this;
+    }
+
+    @Override
+    protected void open() {
+        mBuffer = null;
+        mPosition = mStart;
+        mFileSize = mFile.length();
+        mLimit = Math.min(mEnd, mFileSize);
+
+        if (!mFile.isFile()) {
+            fail(new IOException("Not a readable file: " + mFile));
+        }
+    }
+
+    @Override
+    protected void close() {
+        mBuffer = null;
+        mRecord.set(null, 0, 0, 0);
+    }
+
+    @Override
+    protected boolean hasNextOutput() {
+        return mPosition < mLimit;
+    }
+
+    @Override
+    protected FileRecord nextOutput() {
+        try {
+            switch (mFormat) {
+                case LINES: {
+                    readLine();
+                    break;
+                }
+                case FIXED_WIDTH: {
+                    setRecord(mPosition, 0, mRecordWidth);
+                    break;
+                }
+                default: {
+                    map(mPosition, LENGTH_PREFIX_SIZE);
+                    final int length = mBuffer.getInt((int) (mPosition - mBufferPosition));
+
+                    if (length < 0) {
+                        throw new IOException("Invalid record length " + length + " at position " + mPosition);
+                    }
+                    setRecord(mPosition, LENGTH_PREFIX_SIZE, length);
+                    break;
+                }
+            }
+            return mRecord;
+        } catch (IOException e) {
+            fail(e);
+            return null;
+        }
+    }
+
+    private void readLine() throws IOException {
+        map(mPosition, 0);
+
+        int offset = (int) (mPosition - mBufferPosition);
+        int index = findNewline(offset);
+
+        if (index < 0 && mBufferPosition + mBuffer.limit() < mFileSize) {
+            if (offset == 0) {
+                throw new IOException("Record at position " + mPosition + " exceeds the segment size");
+            }
+            remap(mPosition);
+            offset = 0;
+            index = findNewline(offset);
+
+            if (index < 0 && mBuffer.limit() < mFileSize - mPosition) {
+                throw new IOException("Record at position " + mPosition + " exceeds the segment size");
+            }
+        }
+
+        final long recordPosition = mPosition;
+        int length;
+
+        if (index >= 0) {
+            length = index - offset;
+            mPosition = mBufferPosition + index + 1;
+        } else {
+            length = mBuffer.limit() - offset;
+            mPosition = mBufferPosition + mBuffer.limit();
+        }
+
+        if (length > 0 && mBuffer.get(offset + length - 1) == '\r') {
+            length--;
+        }
+        mRecord.set(mBuffer, offset, length, recordPosition);
+    }
+
+    private int findNewline(final int offset) {
+        final int limit = mBuffer.limit();
+
+        for (int i = offset; i < limit; i++) {
+            if (mBuffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void setRecord(final long position, final int headerSize, final int length) throws IOException {
+        map(position, headerSize + length);
+        mRecord.set(mBuffer, (int) (position - mBufferPosition) + headerSize, length, position);
+        mPosition = position + headerSize + length;
+    }
+
+    /**
+     * Ensures that the given range of the file is mapped.
+     */
+    private void map(final long position, final int length) throws IOException {
+        if (position + length > mFileSize) {
+            throw new IOException("Truncated record at position " + position);
+        }
+
+        if (length > mSegmentSize) {
+            throw new IOException("Record at position " + position + " exceeds the segment size");
+        }
+
+        if (mBuffer == null || position < mBufferPosition || position + length > mBufferPosition + mBuffer.limit()
+                || (length == 0 && position == mBufferPosition + mBuffer.limit())) {
+            remap(position);
+        }
+    }
+
+    private void remap(final long position) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(mFile, "r");
+
+        try {
+            final long size = Math.min(mSegmentSize, mFileSize - position);
+            mBuffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, position, size);
+            mBufferPosition = position;
+        } finally {
+            file.close();
+        }
+    }
+
+    private void fail(final IOException exception) {
+        cancel();
+        error(this, exception);
+    }
+
+    /**
+     * Splits the given file into ranges that start at record boundaries, and creates a
+     * {@link MappedFileNode} for reading each range.
+     * @param file The {@link File} to be split.
+     * @param format The {@link Format} of the records.
+     * @param recordWidth The width of records in bytes for {@link Format#FIXED_WIDTH}.
+     * @param count The maximum number of ranges.
+     * @return A {@link List} of {@link MappedFileNode}s. Empty ranges are omitted.
+     * @throws IOException If reading the file fails.
+     */
+    public static List<MappedFileNode> split(final File file, final Format format, final int recordWidth, final int count) throws IOException {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be greater than zero");
+        }
+
+        final long fileSize = file.length();
+        final long[] boundaries = new long[count + 1];
+        boundaries[count] = fileSize;
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+        try {
+            long position = 0;
+
+            for (int i = 1; i < count; i++) {
+                final long target = Math.max(position, fileSize * i / count);
+                position = align(randomAccessFile, format, recordWidth, position, target, fileSize);
+                boundaries[i] = position;
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+
+        final ArrayList<MappedFileNode> nodes = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            if (boundaries[i] < boundaries[i + 1]) {
+                nodes.add(new MappedFileNode(file, format, recordWidth, boundaries[i], boundaries[i + 1]));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Finds the first record boundary at or after the given target position.
+     * @param position A known record boundary before the target position.
+     */
+    private static long align(final RandomAccessFile file, final Format format, final int recordWidth,
+                              final long position, final long target, final long fileSize) throws IOException {
+        switch (format) {
+            case LINES: {
+                if (target == 0) {
+                    return 0;
+                }
+                file.seek(target - 1);
+                long boundary = target;
+                int value = file.read();
+
+                while (value >= 0 && value != '\n') {
+                    value = file.read();
+                    boundary++;
+                }
+                return Math.min(boundary, fileSize);
+            }
+            case FIXED_WIDTH: {
+                return Math.min(fileSize, (target + recordWidth - 1) / recordWidth * recordWidth);
+            }
+            default: {
+                long boundary = position;
+
+                while (boundary < target && boundary + LENGTH_PREFIX_SIZE <= fileSize) {
+                    file.seek(boundary);
+                    boundary += LENGTH_PREFIX_SIZE + (file.readInt() & 0xFFFFFFFFL);
+                }
+                return Math.min(boundary, fileSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.pool.PooledEvent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link MergeNode} merges the inputs of several {@link OutputNode}s that may emit on arbitrary
+ * threads. The inputs of each source are enqueued to a lock-free queue of the source, and
+ * a single drainer at a time emits them, so that the attached nodes are never invoked concurrently.
+ * The drainer takes one input from each source in turn, so that a source emitting at a high rate
+ * cannot starve the other sources.
+ *
+ * The drainer is the thread whose input finds the node idle, or the given {@link Executor}. The
+ * completion is emitted once all of the given number of sources have completed and their inputs
+ * have been drained. Pooled inputs, see {@link PooledEvent}, are retained while they are queued.
+ * @param <T> The input and output type.
+ */
+public class MergeNode<T> extends AbstractNode<T, T> {
+
+    private static final Object NO_SOURCE = new Object();
+
+    private final AtomicInteger mCompletedCount;
+    private final int mInputCount;
+    private final AtomicInteger mQueuedCount;
+    private final ConcurrentHashMap<Object, Source> mSourceMap;
+    private final CopyOnWriteArrayList<Source> mSources;
+    private final AtomicInteger mWorkInProgress;
+
+    private volatile boolean mCompleted;
+    private boolean mCompletionEmitted;
+    private Executor mExecutor;
+
+    /**
+     * Constructs a new instance of {@link MergeNode}.
+     * @param inputCount The number of sources that have to complete before the completion is emitted.
+     */
+    public MergeNode(final int inputCount) {
+        mInputCount = inputCount;
+        mCompletedCount = new AtomicInteger();
+        mQueuedCount = new AtomicInteger();
+        mSourceMap = new ConcurrentHashMap<>();
+        mSources = new CopyOnWriteArrayList<>();
+        mWorkInProgress = new AtomicInteger();
+    }
+
+    /**
+     * Sets the {@link Executor} used for draining the inputs. If set, the sources only enqueue their
+     * inputs and never run the attached nodes.
+     * @param executor An {@link Executor}, or {@code null} to drain on the emitting threads.
+     * @return This {@link MergeNode}.
+     */
+    public MergeNode<T> drainOn(final Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Gets the number of sources that have emitted inputs.
+     * @return The count as an {@code int}.
+     */
+    public int getSourceCount() {
+        return mSources.size();
+    }
+
+    @Override
+    public int getBufferDepth() {
+        return mQueuedCount.get();
+    }
+
+    @Override
+    public void onInput(final T input) {
+        enqueue(null, input);
+    }
+
+    @Override
+    public void onInput(final OutputNode<T> outputNode, final T input) {
+        enqueue(outputNode, input);
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        if (mCompletedCount.incrementAndGet() >= mInputCount) {
+            mCompleted = true;
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+        enqueue(outputNode, new Failure(outputNode, throwable));
+    }
+
+    private void enqueue(final OutputNode<?> outputNode, final Object input) {
+        if (input == null) {
+            return;
+        }
+
+        if (mMetrics != null && !(input instanceof Failure)) {
+            mMetrics.onInput();
+        }
+
+        final Object key = (outputNode != null) ? outputNode : NO_SOURCE;
+        Source source = mSourceMap.get(key);
+
+        if (source == null) {
+            final Source newSource = new Source();
+            source = mSourceMap.putIfAbsent(key, newSource);
+
+            if (source == null) {
+                source = newSource;
+                mSources.add(source);
+            }
+        }
+        PooledEvent.retainIfPooled(input);
+        mQueuedCount.incrementAndGet();
+        source.mQueue.offer(input);
+        drain();
+    }
+
+    private void drain() {
+        if (mWorkInProgress.getAndIncrement() == 0) {
+            if (mExecutor != null) {
+                mExecutor.execute(this::drainLoop);
+            } else {
+                drainLoop();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainLoop() {
+        int missed = 1;
+
+        do {
+            boolean drained;
+
+            do {
+                drained = false;
+
+                for (final Source source : mSources) {
+                    final Object input = source.mQueue.poll();
+
+                    if (input != null) {
+                        mQueuedCount.decrementAndGet();
+                        drained = true;
+
+                        try {
+                            if (input instanceof Failure) {
+                                final Failure failure = (Failure) input;
+                                error(failure.mOutputNode, failure.mThrowable);
+                            } else {
+                                out((T) input);
+                            }
+                        } finally {
+                            PooledEvent.releaseIfPooled(input);
+                        }
+                    }
+                }
+            } while (drained);
+
+            if (mCompleted && !mCompletionEmitted && mQueuedCount.get() == 0) {
+                mCompletionEmitted = true;
+                completed(this);
+            }
+            missed = mWorkInProgress.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * {@link Source} holds the queue of the inputs of a source.
+     */
+    private static class Source {
+
+        private final ConcurrentLinkedQueue<Object> mQueue = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * {@link Failure} is an error enqueued in order with the inputs of a source.
+     */
+    private static class Failure {
+
+        private final OutputNode<?> mOutputNode;
+        private final Throwable mThrowable;
+
+        private Failure(final OutputNode<?> outputNode, final Throwable throwable) {
+            mOutputNode = outputNode;
+            mThrowable = throwable;
+        }
+    }
+}
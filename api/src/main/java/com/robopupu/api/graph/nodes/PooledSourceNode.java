@@ -0,0 +1,54 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractOutputNode;
+import com.robopupu.api.graph.pool.EventPool;
+import com.robopupu.api.graph.pool.PooledEvent;
+
+/**
+ * {@link PooledSourceNode} provides an abstract base class for source nodes that emit reusable
+ * {@link PooledEvent}s obtained from an {@link EventPool} instead of allocating a new object for
+ * each event. A carrier is released right after it has been dispatched to all attached nodes, so
+ * nodes that need it afterwards have to invoke {@link PooledEvent#retain()}. Only the nodes
+ * {@link BufferNode}, {@link JoinNode}, {@link ListNode}, {@link MergeNode}, {@link ShareNode},
+ * {@link TimerNode} and {@link ZipNode} retain the carriers they hold. Any other node that keeps
+ * a reference to its input, for example a {@link CachedFunctionNode} or a {@link DistinctNode}
+ * keyed by the carrier itself, is not safe to use with carriers, and has to be preceded by a node
+ * that maps the carriers to immutable values.
+ * @param <OUT> The type of the emitted {@link PooledEvent}s.
+ */
+public abstract class PooledSourceNode<OUT extends PooledEvent> extends AbstractOutputNode<OUT> {
+
+    protected final EventPool<OUT> mEventPool;
+
+    protected PooledSourceNode(final EventPool<OUT> eventPool) {
+        mEventPool = eventPool;
+    }
+
+    /**
+     * Gets the {@link EventPool} used by this {@link PooledSourceNode}.
+     * @return An {@link EventPool}.
+     */
+    public EventPool<OUT> getEventPool() {
+        return mEventPool;
+    }
+
+    /**
+     * Obtains a carrier from the {@link EventPool}.
+     * @return A {@link PooledEvent}.
+     */
+    protected OUT obtain() {
+        return mEventPool.obtain();
+    }
+
+    /**
+     * Emits the given carrier to attached nodes and releases it.
+     * @param event A {@link PooledEvent} obtained with {@link #obtain()}.
+     */
+    protected void outPooled(final OUT event) {
+        try {
+            out(event);
+        } finally {
+            event.release();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.robopupu.api.graph.nodes;
+
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.TextView;
+
+import com.robopupu.api.graph.pool.EventPool;
+import com.robopupu.api.graph.pool.TextEvent;
+
+/**
+ * {@link PooledTextViewNode} is a variant of {@link TextViewNode} that emits the text as reusable
+ * {@link TextEvent}s instead of allocating a new {@link String} for each text change.
+ */
+public class PooledTextViewNode extends PooledSourceNode<TextEvent> implements TextWatcher {
+
+    protected boolean mEnabled;
+    private TextView mTextView;
+
+    public PooledTextViewNode(final TextView textView, final EventPool<TextEvent> eventPool) {
+        super(eventPool);
+        mTextView = textView;
+        mTextView.addTextChangedListener(this);
+        mEnabled = true;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence charSequence, int start, int count, int after) {
+        // Do nothing
+    }
+
+    @Override
+    public void onTextChanged(CharSequence charSequence, int start, int before, int count) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterTextChanged(final Editable editable) {
+        if (mEnabled) {
+            outPooled(obtain().set(editable));
+        }
+    }
+}
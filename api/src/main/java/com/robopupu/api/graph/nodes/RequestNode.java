@@ -26,6 +26,9 @@ public class RequestNode<IN, OUT> extends AbstractNode<IN, OUT> implements Reque
 
     @Override
     public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        if (mMetrics != null) {
+            mMetrics.onInput();
+        }
         emit();
     }
 
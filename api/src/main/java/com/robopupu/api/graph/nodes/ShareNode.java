@@ -0,0 +1,320 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.InputNode;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.pool.PooledEvent;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * {@link ShareNode} multicasts its inputs to the attached {@link InputNode}s and keeps the most
+ * recent inputs in a fixed size ring buffer, optionally bounded also by age. An {@link InputNode}
+ * attached late first receives the buffered inputs and then the live inputs in order. The replay
+ * runs on the attaching thread, and live inputs received meanwhile are queued for the attached node,
+ * so the replay never blocks the live path.
+ *
+ * Pooled inputs, see {@link PooledEvent}, are retained while they are buffered or queued, and
+ * released when they are overwritten, aged out or delivered.
+ *
+ * The attached nodes are reference counted: when the last one is detached, this {@link ShareNode}
+ * detaches itself from its sources, and it reattaches to them when a node is attached again.
+ * The sources are the {@link OutputNode}s that have emitted inputs to this {@link ShareNode}.
+ * @param <T> The input and output type.
+ */
+public class ShareNode<T> extends AbstractNode<T, T> {
+
+    private final int mCapacity;
+    private final Object[] mEvents;
+    private final ArrayList<OutputNode<T>> mSources;
+    private final IdentityHashMap<InputNode<T>, Subscriber<T>> mSubscribers;
+    private final long[] mTimes;
+
+    private boolean mCompleted;
+    private boolean mConnected;
+    private int mHead;
+    private long mMaxAge;
+    private Subscriber<T> mReplacedSubscriber;
+    private boolean mReplacing;
+    private int mSize;
+
+    /**
+     * Constructs a new instance of {@link ShareNode}.
+     * @param capacity The maximum number of buffered inputs.
+     */
+    public ShareNode(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        mCapacity = capacity;
+        mEvents = new Object[capacity];
+        mTimes = new long[capacity];
+        mSources = new ArrayList<>();
+        mSubscribers = new IdentityHashMap<>();
+        mConnected = true;
+    }
+
+    /**
+     * Sets the maximum age of the replayed inputs.
+     * @param maxAge The age in milliseconds. Zero disables the age limit.
+     * @return This {@link ShareNode}.
+     */
+    public synchronized ShareNode<T> maxAge(final long maxAge) {
+        mMaxAge = maxAge;
+        return this;
+    }
+
+    /**
+     * Tests if this {@link ShareNode} is attached to its sources.
+     * @return A {@code boolean} value.
+     */
+    public synchronized boolean isConnected() {
+        return mConnected;
+    }
+
+    /**
+     * Gets the number of attached {@link InputNode}s.
+     * @return The count as an {@code int}.
+     */
+    public synchronized int getSubscriberCount() {
+        return mSubscribers.size();
+    }
+
+    @Override
+    public synchronized int getBufferDepth() {
+        return mSize;
+    }
+
+    @Override
+    public void onInput(final T input) {
+        share(null, input);
+    }
+
+    @Override
+    public void onInput(final OutputNode<T> outputNode, final T input) {
+        share(outputNode, input);
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        final List<Subscriber<T>> subscribers;
+
+        synchronized (this) {
+            mCompleted = true;
+            subscribers = getLiveSubscribers();
+        }
+
+        for (final Subscriber<T> subscriber : subscribers) {
+            subscriber.mInputNode.onCompleted(this);
+        }
+    }
+
+    private void share(final OutputNode<T> outputNode, final T input) {
+        if (input == null) {
+            return;
+        }
+
+        if (mMetrics != null) {
+            mMetrics.onInput();
+        }
+
+        final List<Subscriber<T>> subscribers;
+
+        synchronized (this) {
+            if (outputNode != null && !mSources.contains(outputNode)) {
+                mSources.add(outputNode);
+            }
+
+            if (mCapacity > 0) {
+                final long time = currentTime();
+                PooledEvent.releaseIfPooled(mEvents[mHead]);
+                PooledEvent.retainIfPooled(input);
+                mEvents[mHead] = input;
+                mTimes[mHead] = time;
+                mHead = (mHead + 1) % mCapacity;
+                mSize = Math.min(mSize + 1, mCapacity);
+            }
+            subscribers = getLiveSubscribers();
+
+            for (final Subscriber<T> subscriber : mSubscribers.values()) {
+                if (subscriber.mPending != null) {
+                    PooledEvent.retainIfPooled(input);
+                    subscriber.mPending.add(input);
+                }
+            }
+        }
+
+        if (mMetrics != null) {
+            mMetrics.onOutput();
+        }
+
+        for (final Subscriber<T> subscriber : subscribers) {
+            subscriber.mInputNode.onInput(this, input);
+        }
+    }
+
+    /**
+     * Replaces the given attached {@link InputNode} without replaying the buffered inputs to
+     * the replacing {@link InputNode}, as it continues the subscription of the replaced one.
+     */
+    @Override
+    public boolean replace(final InputNode<T> inputNode, final InputNode<T> replacement) {
+        synchronized (this) {
+            mReplacing = true;
+        }
+
+        try {
+            return super.replace(inputNode, replacement);
+        } finally {
+            synchronized (this) {
+                mReplacing = false;
+                mReplacedSubscriber = null;
+            }
+        }
+    }
+
+    @Override
+    protected void onAttached(final InputNode<T> inputNode) {
+        final Subscriber<T> subscriber = new Subscriber<>(inputNode);
+        final List<OutputNode<T>> sources;
+        List<T> events;
+
+        synchronized (this) {
+            if (mReplacing && mReplacedSubscriber != null) {
+                subscriber.mPending = mReplacedSubscriber.mPending;
+                mSubscribers.put(inputNode, subscriber);
+                return;
+            }
+            events = getBufferedEvents();
+            mSubscribers.put(inputNode, subscriber);
+            sources = connect(true);
+        }
+
+        for (final OutputNode<T> source : sources) {
+            source.attach(this);
+        }
+
+        boolean completed;
+
+        while (true) {
+            for (final T event : events) {
+                try {
+                    inputNode.onInput(this, event);
+                } finally {
+                    PooledEvent.releaseIfPooled(event);
+                }
+            }
+
+            synchronized (this) {
+                if (subscriber.mPending.isEmpty()) {
+                    subscriber.mPending = null;
+                    completed = mCompleted;
+                    break;
+                }
+                events = subscriber.mPending;
+                subscriber.mPending = new ArrayList<>();
+            }
+        }
+
+        if (completed) {
+            inputNode.onCompleted(this);
+        }
+    }
+
+    @Override
+    protected void onDetached(final InputNode<T> inputNode) {
+        final List<OutputNode<T>> sources;
+
+        synchronized (this) {
+            final Subscriber<T> subscriber = mSubscribers.remove(inputNode);
+
+            if (mReplacing) {
+                mReplacedSubscriber = subscriber;
+                return;
+            }
+            sources = connect(false);
+        }
+
+        for (final OutputNode<T> source : sources) {
+            source.detach(this);
+        }
+    }
+
+    /**
+     * Gets the current time used for the age limit.
+     * @return The time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private List<OutputNode<T>> connect(final boolean connect) {
+        if (connect != mConnected && (connect || mSubscribers.isEmpty())) {
+            mConnected = connect;
+            return new ArrayList<>(mSources);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Gets the buffered inputs to be replayed. The inputs that have aged out from the head of
+     * the ring buffer are removed from it. The returned pooled inputs are retained for the replay.
+     * @return A {@link List} of inputs.
+     */
+    @SuppressWarnings("unchecked")
+    private List<T> getBufferedEvents() {
+        final long minTime = (mMaxAge > 0) ? currentTime() - mMaxAge : Long.MIN_VALUE;
+
+        while (mSize > 0) {
+            final int index = (mHead - mSize + mCapacity) % mCapacity;
+
+            if (mTimes[index] >= minTime) {
+                break;
+            }
+            PooledEvent.releaseIfPooled(mEvents[index]);
+            mEvents[index] = null;
+            mSize--;
+        }
+
+        final ArrayList<T> events = new ArrayList<>(mSize);
+
+        for (int i = mSize; i > 0; i--) {
+            final int index = (mHead - i + mCapacity) % mCapacity;
+
+            if (mTimes[index] >= minTime) {
+                PooledEvent.retainIfPooled(mEvents[index]);
+                events.add((T) mEvents[index]);
+            }
+        }
+        return events;
+    }
+
+    private List<Subscriber<T>> getLiveSubscribers() {
+        final ArrayList<Subscriber<T>> subscribers = new ArrayList<>(mSubscribers.size());
+
+        for (final Subscriber<T> subscriber : mSubscribers.values()) {
+            if (subscriber.mPending == null) {
+                subscribers.add(subscriber);
+            }
+        }
+        return subscribers;
+    }
+
+    /**
+     * {@link Subscriber} holds an attached {@link InputNode} and the live inputs queued for it
+     * while the buffered inputs are replayed.
+     */
+    private static class Subscriber<T> {
+
+        private final InputNode<T> mInputNode;
+
+        private List<T> mPending;
+
+        private Subscriber(final InputNode<T> inputNode) {
+            mInputNode = inputNode;
+            mPending = new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractNode;
+import com.robopupu.api.graph.Function;
+import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.sketch.Sketch;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SketchNode} adds numeric values of its inputs to a {@link Sketch}, such as
+ * a {@link com.robopupu.api.graph.sketch.LogHistogram} or a {@link com.robopupu.api.graph.sketch.KllSketch},
+ * and emits copies of the {@link Sketch} after every given number of inputs, on a fixed interval,
+ * and when the node receives a completion. With {@link #resetOnEmit(boolean)} each emitted
+ * {@link Sketch} summarizes a tumbling window of inputs. Sketches emitted by parallel instances or
+ * windows are merged with a {@link SketchNode} created with {@link #merge(Sketch)}.
+ *
+ * The emission is serialized, so that the copies emitted on an interval by the scheduler thread
+ * and those emitted on inputs are emitted one at a time and in the order they were taken.
+ * @param <IN> The input type.
+ * @param <S> The type of the {@link Sketch}.
+ */
+public class SketchNode<IN, S extends Sketch> extends AbstractNode<IN, S> implements StatefulNode {
+
+    private final Object mEmitLock;
+    private final S mSketch;
+    private final Function<IN, ? extends Number> mValueFunction;
+
+    private int mEmitEvery;
+    private int mPendingCount;
+    private boolean mResetOnEmit;
+    private ScheduledFuture<?> mScheduledEmit;
+
+    /**
+     * Constructs a new instance of {@link SketchNode}.
+     * @param valueFunction A {@link Function} extracting the value of an input.
+     * @param sketch The {@link Sketch} for the values.
+     */
+    public SketchNode(final Function<IN, ? extends Number> valueFunction, final S sketch) {
+        mValueFunction = valueFunction;
+        mSketch = sketch;
+        mEmitLock = new Object();
+    }
+
+    /**
+     * Sets the number of inputs after which a copy of the {@link Sketch} is emitted.
+     * @param inputs The number of inputs. Zero disables emitting on inputs.
+     * @return This {@link SketchNode}.
+     */
+    public synchronized SketchNode<IN, S> emitEvery(final int inputs) {
+        mEmitEvery = inputs;
+        return this;
+    }
+
+    /**
+     * Sets the interval for emitting a copy of the {@link Sketch} if values have been added since
+     * it was last emitted.
+     * @param interval The interval in milliseconds. Zero disables emitting on an interval.
+     * @param scheduler A {@link ScheduledExecutorService}.
+     * @return This {@link SketchNode}.
+     */
+    public synchronized SketchNode<IN, S> emitInterval(final long interval, final ScheduledExecutorService scheduler) {
+        if (mScheduledEmit != null) {
+            mScheduledEmit.cancel(false);
+            mScheduledEmit = null;
+        }
+
+        if (interval > 0) {
+            mScheduledEmit = scheduler.scheduleWithFixedDelay(this::emit, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Sets whether the {@link Sketch} is reset after it has been emitted.
+     * @param resetOnEmit A {@code boolean} value.
+     * @return This {@link SketchNode}.
+     */
+    public synchronized SketchNode<IN, S> resetOnEmit(final boolean resetOnEmit) {
+        mResetOnEmit = resetOnEmit;
+        return this;
+    }
+
+    /**
+     * Gets the {@link Sketch} of this {@link SketchNode}. The {@link Sketch} must not be accessed
+     * while inputs are processed on another thread.
+     * @return A {@link Sketch}.
+     */
+    public S getSketch() {
+        return mSketch;
+    }
+
+    @Override
+    public void onInput(final IN input) {
+        synchronized (mEmitLock) {
+            super.onInput(input);
+        }
+    }
+
+    @Override
+    public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        synchronized (mEmitLock) {
+            super.onInput(outputNode, input);
+        }
+    }
+
+    @Override
+    protected synchronized S processInput(final OutputNode<IN> outputNode, final IN input) {
+        if (mValueFunction == null) {
+            mSketch.merge((Sketch) input);
+        } else {
+            final Number value = mValueFunction.eval(input);
+
+            if (value == null) {
+                return null;
+            }
+            mSketch.update(value.doubleValue());
+        }
+        mPendingCount++;
+        return (mEmitEvery > 0 && mPendingCount >= mEmitEvery) ? emitSketch() : null;
+    }
+
+    /**
+     * Emits a copy of the {@link Sketch} if values have been added since it was last emitted.
+     */
+    @Override
+    public void emit() {
+        synchronized (mEmitLock) {
+            final S sketch;
+
+            synchronized (this) {
+                sketch = (mPendingCount > 0) ? emitSketch() : null;
+            }
+
+            if (sketch != null) {
+                out(sketch);
+            }
+        }
+    }
+
+    @Override
+    public void onCompleted(final OutputNode<?> outputNode) {
+        synchronized (this) {
+            if (mScheduledEmit != null) {
+                mScheduledEmit.cancel(false);
+                mScheduledEmit = null;
+            }
+        }
+        emit();
+        super.onCompleted(outputNode);
+    }
+
+    @SuppressWarnings("unchecked")
+    private S emitSketch() {
+        final S sketch = (S) mSketch.copy();
+        mPendingCount = 0;
+
+        if (mResetOnEmit) {
+            mSketch.reset();
+        }
+        return sketch;
+    }
+
+    @Override
+    public synchronized void saveState(final StateOutput output) throws IOException {
+        output.writeInt(mPendingCount);
+        mSketch.save(output);
+    }
+
+    @Override
+    public synchronized void restoreState(final StateInput input) throws IOException {
+        mPendingCount = input.readInt();
+        mSketch.restore(input);
+    }
+
+    /**
+     * Creates a {@link SketchNode} that merges the received sketches into the given {@link Sketch}.
+     * @param sketch The {@link Sketch} for the merged sketches.
+     * @param <S> The type of the {@link Sketch}.
+     * @return A {@link SketchNode}.
+     */
+    public static <S extends Sketch> SketchNode<S, S> merge(final S sketch) {
+        return new SketchNode<>(null, sketch);
+    }
+}
@@ -2,12 +2,17 @@ package com.robopupu.api.graph.nodes;
 
 import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
 
 /**
  * {@link SkipNode} TODO
  * @param <IN>
  */
-public class SkipNode<IN> extends AbstractNode<IN, IN> {
+public class SkipNode<IN> extends AbstractNode<IN, IN> implements StatefulNode {
 
     private int mStepCounter;
     private int mSteps;
@@ -27,4 +32,14 @@ public class SkipNode<IN> extends AbstractNode<IN, IN> {
             return null;
         }
     }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        output.writeInt(mStepCounter);
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        mStepCounter = input.readInt();
+    }
 }
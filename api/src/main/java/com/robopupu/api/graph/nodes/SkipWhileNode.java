@@ -3,12 +3,17 @@ package com.robopupu.api.graph.nodes;
 import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.OutputNode;
 import com.robopupu.api.graph.functions.BooleanFunction;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
 
 /**
  * {@link SkipWhileNode} TODO
  * @param <IN>
  */
-public class SkipWhileNode<IN> extends AbstractNode<IN, IN> {
+public class SkipWhileNode<IN> extends AbstractNode<IN, IN> implements StatefulNode {
 
     private BooleanFunction<IN> mCondition;
     private boolean mSkippingEnded;
@@ -34,4 +39,14 @@ public class SkipWhileNode<IN> extends AbstractNode<IN, IN> {
         }
         return input;
     }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        output.writeBoolean(mSkippingEnded);
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        mSkippingEnded = input.readBoolean();
+    }
 }
@@ -0,0 +1,154 @@
+package com.robopupu.api.graph.nodes;
+
+import com.robopupu.api.graph.AbstractOutputNode;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link StreamNode} provides an abstract base class for source nodes that stream their outputs
+ * from an underlying source without copying it. By default all outputs are emitted synchronously
+ * by {@link #emit()}. If a chunk size and an {@link Executor} are given, the outputs are emitted in
+ * chunks, and the next chunk is scheduled with the {@link Executor}, so that a huge source does not
+ * monopolize the emitting thread. When the source is exhausted, the attached nodes are notified
+ * about completion. An output read while the emission is cancelled, e.g. because reading failed,
+ * is not emitted. A {@link RuntimeException} thrown while emitting cancels the emission and is
+ * notified to the attached nodes as an error, and the source is closed in any case.
+ * @param <OUT> The output type.
+ */
+public abstract class StreamNode<OUT> extends AbstractOutputNode<OUT> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private int mChunkSize;
+    private Executor mExecutor;
+    private volatile boolean mCancelled;
+    private volatile boolean mEmitting;
+
+    protected StreamNode() {
+        mChunkSize = DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Sets this {@link StreamNode} to emit its outputs in chunks of the given size, and to schedule
+     * the emission of each subsequent chunk with the given {@link Executor}, e.g. a {@code Handler}
+     * of the emitting thread.
+     * @param chunkSize The maximum number of outputs emitted at a time.
+     * @param executor An {@link Executor}. If {@code null}, all outputs are emitted synchronously.
+     * @return This {@link StreamNode}.
+     */
+    public StreamNode<OUT> chunked(final int chunkSize, final Executor executor) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero");
+        }
+        mChunkSize = chunkSize;
+        mExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Tests if this {@link StreamNode} has an emission in progress.
+     * @return A {@code boolean} value.
+     */
+    public boolean isEmitting() {
+        return mEmitting;
+    }
+
+    /**
+     * Cancels an emission in progress. The remaining chunks are not emitted, and the attached
+     * nodes are not notified about completion.
+     */
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    /**
+     * Invoked to emit the outputs of this {@link StreamNode}. An invocation is ignored if a chunked
+     * emission is already in progress.
+     */
+    @Override
+    public void emit() {
+        if (mEmitting) {
+            return;
+        }
+        mEmitting = true;
+        mCancelled = false;
+
+        try {
+            open();
+        } catch (RuntimeException e) {
+            finish(e);
+            return;
+        }
+        emitChunk();
+    }
+
+    private void emitChunk() {
+        int count = 0;
+
+        try {
+            while (!mCancelled && hasNextOutput()) {
+                if (mExecutor != null && count == mChunkSize) {
+                    mExecutor.execute(this::emitChunk);
+                    return;
+                }
+                final OUT output = nextOutput();
+
+                if (!mCancelled) {
+                    out(output);
+                }
+                count++;
+            }
+        } catch (RuntimeException e) {
+            finish(e);
+            return;
+        }
+        finish(null);
+    }
+
+    /**
+     * Ends the current emission. The source is closed, and the attached nodes are notified about
+     * the given exception, or about completion if the emission was not cancelled.
+     * @param exception A {@link RuntimeException} that ended the emission, or {@code null}.
+     */
+    private void finish(final RuntimeException exception) {
+        if (exception != null) {
+            mCancelled = true;
+        }
+        mEmitting = false;
+
+        try {
+            close();
+        } finally {
+            if (exception != null) {
+                error(this, exception);
+            } else if (!mCancelled) {
+                completed(this);
+            }
+        }
+    }
+
+    /**
+     * Invoked when an emission starts to position this {@link StreamNode} at the beginning of its
+     * source.
+     */
+    protected abstract void open();
+
+    /**
+     * Invoked when an emission has ended, because the source was exhausted or the emission was
+     * cancelled, to release the resources held for reading the source.
+     */
+    protected void close() {
+    }
+
+    /**
+     * Tests if the source has more outputs.
+     * @return A {@code boolean} value.
+     */
+    protected abstract boolean hasNextOutput();
+
+    /**
+     * Gets the next output from the source.
+     * @return The output.
+     */
+    protected abstract OUT nextOutput();
+}
@@ -3,12 +3,17 @@ package com.robopupu.api.graph.nodes;
 import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.InputNode;
 import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
 
 /**
  * {@link SumNode} sums the reveived input values until {@link InputNode#onCompleted(OutputNode)}
  * is invoked.
  */
-public class SumNode<IN> extends AbstractNode<IN, Double> {
+public class SumNode<IN> extends AbstractNode<IN, Double> implements StatefulNode {
 
     private double mSum;
 
@@ -27,4 +32,14 @@ public class SumNode<IN> extends AbstractNode<IN, Double> {
     public void onCompleted(final OutputNode<?> outputNode) {
         out(mSum);
     }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        output.writeDouble(mSum);
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        mSum = input.readDouble();
+    }
 }
@@ -2,12 +2,17 @@ package com.robopupu.api.graph.nodes;
 
 import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
+
+import java.io.IOException;
 
 /**
  * {@link TakeNode} TODO
  * @param <IN>
  */
-public class TakeNode<IN> extends AbstractNode<IN, IN> {
+public class TakeNode<IN> extends AbstractNode<IN, IN> implements StatefulNode {
 
     private int mStepCounter;
     private int mSteps;
@@ -28,4 +33,14 @@ public class TakeNode<IN> extends AbstractNode<IN, IN> {
             return input;
         }
     }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        output.writeInt(mStepCounter);
+    }
+
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        mStepCounter = input.readInt();
+    }
 }
@@ -5,7 +5,9 @@ import android.os.Looper;
 
 import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.pool.PooledEvent;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
@@ -19,6 +21,9 @@ public class TimerNode<IN> extends AbstractNode<IN, IN> {
     private final long mInterval;
     private final int mRepeatCount;
 
+    private Handler mHandler;
+    private long mNextHandleId;
+
     public TimerNode(final long delay) {
         this(delay, 0L, 0);
     }
@@ -32,6 +37,9 @@ public class TimerNode<IN> extends AbstractNode<IN, IN> {
 
     @Override
     public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        if (mMetrics != null) {
+            mMetrics.onInput();
+        }
         start(input);
     }
 
@@ -39,69 +47,156 @@ public class TimerNode<IN> extends AbstractNode<IN, IN> {
      * Stars a new timer.
      */
     public void start(final IN input) {
-        final TimerHandle handle = new TimerHandle(this, input, mDelay, mInterval, mRepeatCount);
+        final TimerHandle handle;
+
+        synchronized (mTimerHandles) {
+            handle = new TimerHandle(this, mNextHandleId++, input, mDelay, mInterval, mRepeatCount);
+            mTimerHandles.put(handle.getId(), handle);
+        }
+
+        if (mTracer != null && handle.getTraceId() != 0) {
+            mTracer.instant(handle.getTraceId(), this, "{\"delay\":" + mDelay + "}");
+        }
         handle.start();
     }
 
     protected void timeout(final TimerHandle handle, final IN input) {
-        out(input);
+        if (mTracer != null && handle.getTraceId() != 0) {
+            final long traceId = mTracer.setCurrentTraceId(handle.getTraceId());
+
+            try {
+                out(input);
+            } finally {
+                mTracer.setCurrentTraceId(traceId);
+            }
+        } else {
+            out(input);
+        }
 
         if (handle.isFinished()) {
             remove(handle);
         }
     }
 
+    /**
+     * Cancels all started timers.
+     */
+    public void cancel() {
+        final ArrayList<TimerHandle> handles;
+
+        synchronized (mTimerHandles) {
+            handles = new ArrayList<>(mTimerHandles.values());
+        }
+
+        for (final TimerHandle handle : handles) {
+            handle.cancel();
+        }
+    }
+
     protected void remove(final TimerHandle handle) {
-        mTimerHandles.remove(handle.getId());
+        synchronized (mTimerHandles) {
+            mTimerHandles.remove(handle.getId());
+        }
+    }
+
+    /**
+     * Schedules the given {@link Runnable} to be run after the given delay. By default, the timers
+     * are run on the main thread. Overridden to run the timers elsewhere, for example in tests.
+     * @param runnable The {@link Runnable} to be run.
+     * @param delay The delay in milliseconds.
+     */
+    protected void schedule(final Runnable runnable, final long delay) {
+        getHandler().postDelayed(runnable, delay);
+    }
+
+    /**
+     * Removes the given {@link Runnable} scheduled with {@link #schedule(Runnable, long)}.
+     * @param runnable The {@link Runnable} to be removed.
+     */
+    protected void unschedule(final Runnable runnable) {
+        getHandler().removeCallbacks(runnable);
+    }
+
+    private synchronized Handler getHandler() {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+        return mHandler;
+    }
+
+    @Override
+    public int getBufferDepth() {
+        synchronized (mTimerHandles) {
+            return mTimerHandles.size();
+        }
     }
 
     private class TimerHandle {
 
         private final long mDelay;
-        private final Handler mHandler;
         private final long mId;
         private final IN mInput;
         private final long mInterval;
         private final int mRepeatCount;
         private final Runnable mRunnable;
         private final TimerNode<IN> mTimerNode;
+        private final long mTraceId;
 
         private boolean mCancelled;
+        private boolean mReleased;
         private int mTimeoutCounter;
 
-        protected TimerHandle(final TimerNode<IN> timerNode, final IN input, final long delay, final long interval, final int repeatCount) {
+        protected TimerHandle(final TimerNode<IN> timerNode, final long id, final IN input, final long delay, final long interval, final int repeatCount) {
+            PooledEvent.retainIfPooled(input);
             mTimerNode = timerNode;
             mInput = input;
             mDelay = delay;
-            mHandler = new Handler(Looper.getMainLooper());
-            mId = System.currentTimeMillis();
+            mId = id;
             mInterval = interval;
             mRepeatCount = repeatCount;
             mRunnable = this::timeout;
             mCancelled = false;
             mTimeoutCounter = 0;
+            mTraceId = (timerNode.mTracer != null) ? timerNode.mTracer.getCurrentTraceId() : 0;
         }
 
         protected void start() {
-            mHandler.postDelayed(mRunnable, mDelay);
+            mTimerNode.schedule(mRunnable, mDelay);
         }
 
         public long getId() {
             return mId;
         }
 
+        public long getTraceId() {
+            return mTraceId;
+        }
+
         public void cancel() {
             mCancelled = true;
-            mHandler.removeCallbacks(mRunnable);
+            mTimerNode.unschedule(mRunnable);
             mTimerNode.remove(this);
+            release();
         }
 
         private void timeout() {
-            mTimerNode.timeout(this, mInput);
             mTimeoutCounter++;
+            mTimerNode.timeout(this, mInput);
+
+            if (!isFinished()) {
+                mTimerNode.schedule(mRunnable, mInterval);
+            } else {
+                release();
+            }
+        }
 
-            if (mTimeoutCounter < mRepeatCount) {
-                mHandler.postDelayed(mRunnable, mInterval);
+        /**
+         * Releases the input of this {@link TimerHandle} once it is finished or cancelled.
+         */
+        private synchronized void release() {
+            if (!mReleased) {
+                mReleased = true;
+                PooledEvent.releaseIfPooled(mInput);
             }
         }
 
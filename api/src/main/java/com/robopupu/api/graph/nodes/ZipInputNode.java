@@ -29,6 +29,9 @@ public class ZipInputNode<IN, OUT>  extends AbstractNode<IN, OUT> {
 
     @Override
     public void onInput(final OutputNode<IN> outputNode, final IN input) {
+        if (mMetrics != null) {
+            mMetrics.onInput();
+        }
         mZipNode.onInput(this, input);
     }
 }
@@ -4,27 +4,36 @@ import com.robopupu.api.graph.AbstractNode;
 import com.robopupu.api.graph.InputNode;
 import com.robopupu.api.graph.Node;
 import com.robopupu.api.graph.OutputNode;
+import com.robopupu.api.graph.pool.PooledEvent;
+import com.robopupu.api.graph.trace.Tracer;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+import com.robopupu.api.graph.state.StatefulNode;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
  * {@link ZipNode} extends {@link Node} to define an interface for {@link Node}s that are used
  * as input nodes for {@link ZipNode}s.
  */
-public abstract class ZipNode<OUT> extends AbstractNode<Void, OUT> {
+public abstract class ZipNode<OUT> extends AbstractNode<Void, OUT> implements StatefulNode {
 
     protected final ArrayList[] mBuffers;
     protected final int mInputCount;
     protected final ZipInputNode[] mInputs;
+    protected final ArrayList[] mTraceIds;
 
     protected ZipNode(final int inputCount) {
         mInputCount = inputCount;
         mInputs = new ZipInputNode[inputCount];
 
         mBuffers = new ArrayList[inputCount];
+        mTraceIds = new ArrayList[inputCount];
 
         for (int i = 0; i < inputCount; i++) {
             mBuffers[i] = new ArrayList<>();
+            mTraceIds[i] = new ArrayList<Long>();
         }
     }
 
@@ -34,11 +43,117 @@ public abstract class ZipNode<OUT> extends AbstractNode<Void, OUT> {
 
     @SuppressWarnings("unchecked")
     protected <IN> void onInput(final ZipInputNode<IN, OUT> inputNode, final IN input) {
+        if (mMetrics != null) {
+            mMetrics.onInput();
+        }
         final ArrayList<IN> buffer = (ArrayList<IN>)mBuffers[inputNode.getIndex()];
+        PooledEvent.retainIfPooled(input);
         buffer.add(input);
 
+        if (mTracer != null) {
+            ((ArrayList<Long>)mTraceIds[inputNode.getIndex()]).add(mTracer.getCurrentTraceId());
+        }
+
         if (isReadyToZip()) {
-            out(zip());
+            final Object[] pooledInputs = getPooledInputs();
+
+            try {
+                if (mTracer != null) {
+                    outTraced(zip());
+                } else {
+                    out(zip());
+                }
+            } finally {
+                if (pooledInputs != null) {
+                    for (final Object pooledInput : pooledInputs) {
+                        PooledEvent.releaseIfPooled(pooledInput);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the inputs to be zipped next if any of them is a retained {@link PooledEvent}, so that
+     * they can be released after the zipped output has been emitted.
+     * @return An array of inputs, or {@code null} if none of them is a {@link PooledEvent}.
+     */
+    private Object[] getPooledInputs() {
+        Object[] pooledInputs = null;
+
+        for (int i = 0; i < mInputCount; i++) {
+            final Object input = mBuffers[i].get(0);
+
+            if (input instanceof PooledEvent) {
+                if (pooledInputs == null) {
+                    pooledInputs = new Object[mInputCount];
+                }
+                pooledInputs[i] = input;
+            }
+        }
+        return pooledInputs;
+    }
+
+    /**
+     * Emits the given zipped output continuing the trace of the zipped inputs, if any of them was
+     * traced. The merge of the traces is recorded as an instant event. The event arguments are
+     * built only when there is a trace to record them for.
+     * @param output The zipped output.
+     */
+    @SuppressWarnings("unchecked")
+    private void outTraced(final OUT output) {
+        final long currentTraceId = mTracer.getCurrentTraceId();
+        long traceId = currentTraceId;
+
+        for (int i = 0; i < mInputCount && traceId == 0; i++) {
+            traceId = getInputTraceId((ArrayList<Long>)mTraceIds[i]);
+        }
+
+        if (traceId != 0) {
+            final StringBuilder args = new StringBuilder("{\"merged\":[");
+
+            for (int i = 0; i < mInputCount; i++) {
+                if (i > 0) {
+                    args.append(',');
+                }
+                args.append(getInputTraceId((ArrayList<Long>)mTraceIds[i]));
+            }
+            args.append("]}");
+            mTracer.instant(traceId, this, args.toString());
+        }
+
+        for (int i = 0; i < mInputCount; i++) {
+            final ArrayList<Long> traceIds = (ArrayList<Long>)mTraceIds[i];
+
+            if (!traceIds.isEmpty()) {
+                traceIds.remove(0);
+            }
+        }
+        mTracer.setCurrentTraceId(traceId);
+
+        try {
+            out(output);
+        } finally {
+            mTracer.setCurrentTraceId(currentTraceId);
+        }
+    }
+
+    private static long getInputTraceId(final ArrayList<Long> traceIds) {
+        return traceIds.isEmpty() ? 0 : traceIds.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setTracer(final Tracer tracer) {
+        super.setTracer(tracer);
+
+        for (int i = 0; i < mInputCount; i++) {
+            final ArrayList<Long> traceIds = (ArrayList<Long>)mTraceIds[i];
+            traceIds.clear();
+
+            for (int j = mBuffers[i].size(); j > 0; j--) {
+                traceIds.add(0L);
+            }
         }
     }
 
@@ -56,6 +171,16 @@ public abstract class ZipNode<OUT> extends AbstractNode<Void, OUT> {
         }
     }
 
+    @Override
+    public int getBufferDepth() {
+        int depth = 0;
+
+        for (int i = 0; i < mInputCount; i++) {
+            depth += mBuffers[i].size();
+        }
+        return depth;
+    }
+
     /**
      * Combines the input value to produce a new output value.
      * @return The combined output value of type {@code OUT}.
@@ -74,4 +199,24 @@ public abstract class ZipNode<OUT> extends AbstractNode<Void, OUT> {
         }
         return true;
     }
+
+    @Override
+    public void saveState(final StateOutput output) throws IOException {
+        for (int i = 0; i < mInputCount; i++) {
+            output.writeValues(mBuffers[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void restoreState(final StateInput input) throws IOException {
+        for (int i = 0; i < mInputCount; i++) {
+            for (final Object bufferedInput : mBuffers[i]) {
+                PooledEvent.releaseIfPooled(bufferedInput);
+            }
+            mBuffers[i].clear();
+            input.readValues(mBuffers[i]);
+        }
+        setTracer(mTracer);
+    }
 }
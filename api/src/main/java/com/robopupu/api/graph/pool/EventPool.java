@@ -0,0 +1,144 @@
+package com.robopupu.api.graph.pool;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * {@link EventPool} is a bounded pool of reusable {@link PooledEvent}s. Source nodes obtain carriers
+ * from the pool, fill them, and emit them; the carriers are returned to the pool when released.
+ *
+ * In debug mode released carriers are never reused, so that a node that accesses a carrier after
+ * its release fails fast, and the allocation site of each outstanding carrier is recorded for
+ * detecting leaks with {@link #getLeaks()}.
+ * @param <E> The type of the {@link PooledEvent}s.
+ */
+public class EventPool<E extends PooledEvent> {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * {@link Factory} creates new instances of {@link PooledEvent}s for an {@link EventPool}.
+     * @param <E> The type of the {@link PooledEvent}s.
+     */
+    public interface Factory<E extends PooledEvent> {
+        E create();
+    }
+
+    private final int mCapacity;
+    private final Factory<E> mFactory;
+    private final ArrayList<E> mFreeEvents;
+    private final IdentityHashMap<PooledEvent, Throwable> mOutstandingEvents;
+
+    private long mCreatedCount;
+    private volatile boolean mDebug;
+    private long mObtainedCount;
+
+    public EventPool(final Factory<E> factory) {
+        this(factory, DEFAULT_CAPACITY);
+    }
+
+    public EventPool(final Factory<E> factory, final int capacity) {
+        mFactory = factory;
+        mCapacity = capacity;
+        mFreeEvents = new ArrayList<>(capacity);
+        mOutstandingEvents = new IdentityHashMap<>();
+    }
+
+    /**
+     * Sets the debug mode.
+     * @param debug A {@code boolean} value.
+     * @return This {@link EventPool}.
+     */
+    public synchronized EventPool<E> setDebug(final boolean debug) {
+        mDebug = debug;
+
+        if (debug) {
+            mFreeEvents.clear();
+        } else {
+            mOutstandingEvents.clear();
+        }
+        return this;
+    }
+
+    /**
+     * Tests if debug mode is enabled.
+     * @return A {@code boolean} value.
+     */
+    public synchronized boolean isDebug() {
+        return mDebug;
+    }
+
+    /**
+     * Obtains a {@link PooledEvent} from this pool. A new one is created if the pool is empty.
+     * @return A {@link PooledEvent} with a reference count of one.
+     */
+    public E obtain() {
+        E event = null;
+
+        synchronized (this) {
+            mObtainedCount++;
+
+            if (!mFreeEvents.isEmpty()) {
+                event = mFreeEvents.remove(mFreeEvents.size() - 1);
+            }
+        }
+
+        if (event == null) {
+            event = mFactory.create();
+
+            synchronized (this) {
+                mCreatedCount++;
+            }
+        }
+
+        event.onObtained(this);
+
+        if (mDebug) {
+            synchronized (this) {
+                mOutstandingEvents.put(event, new Throwable("Obtained " + event.getClass().getSimpleName()));
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Returns the given {@link PooledEvent} to this pool. Invoked by {@link PooledEvent#release()}.
+     * @param event A {@link PooledEvent}.
+     */
+    synchronized void recycle(final E event) {
+        event.reset();
+
+        if (mDebug) {
+            mOutstandingEvents.remove(event);
+        } else if (mFreeEvents.size() < mCapacity) {
+            mFreeEvents.add(event);
+        }
+    }
+
+    /**
+     * Gets the number of carriers obtained from this pool.
+     * @return The count as a {@code long}.
+     */
+    public synchronized long getObtainedCount() {
+        return mObtainedCount;
+    }
+
+    /**
+     * Gets the number of carriers created by this pool. The difference to
+     * {@link #getObtainedCount()} is the number of reused carriers.
+     * @return The count as a {@code long}.
+     */
+    public synchronized long getCreatedCount() {
+        return mCreatedCount;
+    }
+
+    /**
+     * Gets the allocation sites of the carriers obtained but not yet released. Available only in
+     * debug mode.
+     * @return A {@link List} of {@link Throwable}s whose stack traces point to the allocation sites.
+     */
+    public synchronized List<Throwable> getLeaks() {
+        return new ArrayList<>(mOutstandingEvents.values());
+    }
+}
@@ -0,0 +1,114 @@
+package com.robopupu.api.graph.pool;
+
+/**
+ * {@link PooledEvent} provides an abstract base class for mutable event carriers that are obtained
+ * from an {@link EventPool} and recycled after use. A carrier obtained from a pool has a reference
+ * count of one. A node that keeps a reference to a carrier beyond
+ * {@link com.robopupu.api.graph.InputNode#onInput(com.robopupu.api.graph.OutputNode, Object)}
+ * has to invoke {@link #retain()}, and {@link #release()} when it no longer needs the carrier.
+ * When the reference count drops to zero, the carrier is returned to its {@link EventPool}.
+ */
+public abstract class PooledEvent {
+
+    private EventPool mPool;
+    private int mRefCount;
+
+    protected PooledEvent() {
+        mRefCount = 0;
+    }
+
+    /**
+     * Increments the reference count of this {@link PooledEvent}.
+     * @return This {@link PooledEvent}.
+     */
+    public synchronized PooledEvent retain() {
+        checkNotReleased();
+        mRefCount++;
+        return this;
+    }
+
+    /**
+     * Decrements the reference count of this {@link PooledEvent} and returns it to its
+     * {@link EventPool} when the reference count drops to zero.
+     */
+    @SuppressWarnings("unchecked")
+    public void release() {
+        final EventPool pool;
+
+        synchronized (this) {
+            checkNotReleased();
+
+            if (--mRefCount > 0) {
+                return;
+            }
+            pool = mPool;
+        }
+
+        if (pool != null) {
+            pool.recycle(this);
+        }
+    }
+
+    /**
+     * Tests if this {@link PooledEvent} has been released.
+     * @return A {@code boolean} value.
+     */
+    public synchronized boolean isReleased() {
+        return mRefCount <= 0;
+    }
+
+    /**
+     * Gets the current reference count.
+     * @return The reference count as an {@code int}.
+     */
+    public synchronized int getRefCount() {
+        return mRefCount;
+    }
+
+    /**
+     * Retains the given value if it is a {@link PooledEvent}. Invoked by nodes that keep their
+     * inputs beyond {@link com.robopupu.api.graph.InputNode#onInput(com.robopupu.api.graph.OutputNode, Object)}.
+     * @param value The value to be retained.
+     */
+    public static void retainIfPooled(final Object value) {
+        if (value instanceof PooledEvent) {
+            ((PooledEvent) value).retain();
+        }
+    }
+
+    /**
+     * Releases the given value if it is a {@link PooledEvent}. Invoked by nodes that have retained
+     * the value with {@link #retainIfPooled(Object)} when they no longer need it.
+     * @param value The value to be released.
+     */
+    public static void releaseIfPooled(final Object value) {
+        if (value instanceof PooledEvent) {
+            ((PooledEvent) value).release();
+        }
+    }
+
+    /**
+     * Checks that this {@link PooledEvent} has not been released. Subclasses invoke this from their
+     * accessors to detect use after release.
+     * @throws IllegalStateException If this {@link PooledEvent} has been released.
+     */
+    protected final void checkNotReleased() {
+        if (mRefCount <= 0) {
+            throw new IllegalStateException(getClass().getSimpleName() + " used after release");
+        }
+    }
+
+    /**
+     * Invoked when this {@link PooledEvent} is returned to its {@link EventPool} to clear its state.
+     */
+    protected abstract void reset();
+
+    /**
+     * Invoked by {@link EventPool} when this {@link PooledEvent} is handed out.
+     * @param pool The owning {@link EventPool}.
+     */
+    synchronized void onObtained(final EventPool pool) {
+        mPool = pool;
+        mRefCount = 1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.robopupu.api.graph.pool;
+
+/**
+ * {@link TextEvent} is a reusable {@link PooledEvent} carrying text. The text is copied into
+ * an internal buffer that grows as needed and is reused when the carrier is recycled.
+ */
+public class TextEvent extends PooledEvent implements CharSequence {
+
+    private char[] mChars;
+    private int mLength;
+
+    public TextEvent() {
+        mChars = new char[32];
+        mLength = 0;
+    }
+
+    /**
+     * Sets the text by copying the characters of the given {@link CharSequence}.
+     * @param text A {@link CharSequence}.
+     * @return This {@link TextEvent}.
+     */
+    public TextEvent set(final CharSequence text) {
+        checkNotReleased();
+        final int length = text.length();
+
+        if (length > mChars.length) {
+            mChars = new char[Math.max(length, mChars.length * 2)];
+        }
+
+        for (int i = 0; i < length; i++) {
+            mChars[i] = text.charAt(i);
+        }
+        mLength = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        checkNotReleased();
+        return mLength;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        checkNotReleased();
+
+        if (index < 0 || index >= mLength) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + mLength);
+        }
+        return mChars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        checkNotReleased();
+        return new String(mChars, start, end - start);
+    }
+
+    /**
+     * Creates a {@link String} copy of the text. Use this to keep the text after the carrier
+     * has been released.
+     * @return A {@link String}.
+     */
+    @Override
+    public String toString() {
+        checkNotReleased();
+        return new String(mChars, 0, mLength);
+    }
+
+    @Override
+    protected void reset() {
+        mLength = 0;
+    }
+}
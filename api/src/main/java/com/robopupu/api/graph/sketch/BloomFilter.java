@@ -0,0 +1,209 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+
+/**
+ * {@link BloomFilter} is a fixed size probabilistic set. A value that has been put into the filter
+ * is always reported to be contained, while a value that has not been put is reported to be
+ * contained with the false positive rate given for the expected number of insertions. The bit
+ * indexes of a value are derived from its 64-bit {@link Hashing#hash64(Object)} with double hashing.
+ */
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final long[] mBits;
+    private final long mBitCount;
+    private final long mCapacity;
+    private final double mFalsePositiveRate;
+    private final int mHashCount;
+
+    private long mCount;
+
+    /**
+     * Constructs a new instance of {@link BloomFilter}.
+     * @param capacity The expected number of insertions.
+     * @param falsePositiveRate The false positive rate at the expected number of insertions.
+     */
+    public BloomFilter(final long capacity, final double falsePositiveRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between zero and one");
+        }
+
+        final long bitCount = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        mBits = new long[(int) ((bitCount + 63) >>> 6)];
+        mBitCount = (long) mBits.length << 6;
+        mCapacity = capacity;
+        mFalsePositiveRate = falsePositiveRate;
+        mHashCount = Math.max(1, (int) Math.round((double) mBitCount / capacity * LN2));
+    }
+
+    /**
+     * Gets the size of the given {@link BloomFilter} parameters in bytes.
+     * @param capacity The expected number of insertions.
+     * @param falsePositiveRate The false positive rate.
+     * @return The size in bytes as a {@code long}.
+     */
+    public static long getMemorySize(final long capacity, final double falsePositiveRate) {
+        final long bitCount = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        return ((bitCount + 63) >>> 6) << 3;
+    }
+
+    /**
+     * Gets the expected number of insertions.
+     * @return The capacity as a {@code long}.
+     */
+    public long getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Gets the number of values that have changed the filter when they were put.
+     * @return The count as a {@code long}.
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Gets the false positive rate given for the expected number of insertions.
+     * @return The false positive rate as a {@code double}.
+     */
+    public double getFalsePositiveRate() {
+        return mFalsePositiveRate;
+    }
+
+    /**
+     * Gets the size of the bit array in bytes.
+     * @return The size as a {@code long}.
+     */
+    public long getMemorySize() {
+        return (long) mBits.length << 3;
+    }
+
+    /**
+     * Tests if the expected number of insertions has been reached.
+     * @return A {@code boolean} value.
+     */
+    public boolean isFull() {
+        return mCount >= mCapacity;
+    }
+
+    /**
+     * Tests if the given value might have been put into this {@link BloomFilter}.
+     * @param value The value.
+     * @return A {@code boolean} value.
+     */
+    public boolean mightContain(final Object value) {
+        return mightContainHash(Hashing.hash64(value));
+    }
+
+    /**
+     * Tests if a value with the given hash might have been put into this {@link BloomFilter}.
+     * @param hash The 64-bit hash of the value.
+     * @return A {@code boolean} value.
+     */
+    public boolean mightContainHash(final long hash) {
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= mHashCount; i++) {
+            final long index = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % mBitCount;
+
+            if ((mBits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts the given value into this {@link BloomFilter}.
+     * @param value The value.
+     * @return {@code true} if the filter changed, i.e. the value was certainly not contained before.
+     */
+    public boolean put(final Object value) {
+        return putHash(Hashing.hash64(value));
+    }
+
+    /**
+     * Puts a value with the given hash into this {@link BloomFilter}.
+     * @param hash The 64-bit hash of the value.
+     * @return {@code true} if the filter changed, i.e. the value was certainly not contained before.
+     */
+    public boolean putHash(final long hash) {
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        boolean changed = false;
+
+        for (int i = 1; i <= mHashCount; i++) {
+            final long index = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % mBitCount;
+            final int word = (int) (index >>> 6);
+            final long bit = 1L << index;
+
+            if ((mBits[word] & bit) == 0) {
+                mBits[word] |= bit;
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            mCount++;
+        }
+        return changed;
+    }
+
+    /**
+     * Merges the given {@link BloomFilter} into this {@link BloomFilter}. The filters must have
+     * been constructed with the same parameters.
+     * @param filter A {@link BloomFilter}.
+     */
+    public void merge(final BloomFilter filter) {
+        if (filter.mBitCount != mBitCount || filter.mHashCount != mHashCount) {
+            throw new IllegalArgumentException("Bloom filters have different parameters");
+        }
+
+        for (int i = 0; i < mBits.length; i++) {
+            mBits[i] |= filter.mBits[i];
+        }
+        mCount += filter.mCount;
+    }
+
+    /**
+     * Writes this {@link BloomFilter} to the given {@link StateOutput}.
+     * @param output A {@link StateOutput}.
+     * @throws IOException If writing fails.
+     */
+    public void save(final StateOutput output) throws IOException {
+        output.writeLong(mCapacity);
+        output.writeDouble(mFalsePositiveRate);
+        output.writeLong(mCount);
+
+        for (final long bits : mBits) {
+            output.writeLong(bits);
+        }
+    }
+
+    /**
+     * Reads a {@link BloomFilter} written with {@link #save(StateOutput)}.
+     * @param input A {@link StateInput}.
+     * @return The read {@link BloomFilter}.
+     * @throws IOException If reading fails.
+     */
+    public static BloomFilter read(final StateInput input) throws IOException {
+        final BloomFilter filter = new BloomFilter(input.readLong(), input.readDouble());
+        filter.mCount = input.readLong();
+
+        for (int i = 0; i < filter.mBits.length; i++) {
+            filter.mBits[i] = input.readLong();
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,166 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link CountMinSketch} estimates the frequencies of items in a fixed size table of counters.
+ * Each item increments one counter in each row, and the frequency of an item is estimated as
+ * the minimum of its counters. An estimate never underestimates the frequency, and with
+ * probability {@code 1 - delta} it overestimates it by at most {@code epsilon} times the total count.
+ */
+public class CountMinSketch {
+
+    private final long[] mCounters;
+    private final int mDepth;
+    private final int mWidth;
+
+    private long mTotalCount;
+
+    /**
+     * Constructs a new instance of {@link CountMinSketch} with the given error bounds.
+     * @param epsilon The relative error of an estimate.
+     * @param delta The probability of exceeding the relative error.
+     */
+    public CountMinSketch(final double epsilon, final double delta) {
+        this((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    /**
+     * Constructs a new instance of {@link CountMinSketch} with the given dimensions.
+     * @param width The number of counters in a row.
+     * @param depth The number of rows.
+     */
+    public CountMinSketch(final int width, final int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Width and depth must be greater than zero");
+        }
+        mWidth = width;
+        mDepth = depth;
+        mCounters = new long[width * depth];
+    }
+
+    /**
+     * Gets the number of counters in a row.
+     * @return The width as an {@code int}.
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Gets the number of rows.
+     * @return The depth as an {@code int}.
+     */
+    public int getDepth() {
+        return mDepth;
+    }
+
+    /**
+     * Gets the total count of the added items.
+     * @return The count as a {@code long}.
+     */
+    public long getTotalCount() {
+        return mTotalCount;
+    }
+
+    /**
+     * Adds the given item with the given count.
+     * @param item The item.
+     * @param count The count.
+     * @return The estimated frequency of the item after adding it.
+     */
+    public long add(final Object item, final long count) {
+        final long hash = Hashing.hash64(item);
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < mDepth; row++) {
+            final int index = getIndex(hash, row);
+            mCounters[index] += count;
+            estimate = Math.min(estimate, mCounters[index]);
+        }
+        mTotalCount += count;
+        return estimate;
+    }
+
+    /**
+     * Estimates the frequency of the given item.
+     * @param item The item.
+     * @return The estimated frequency as a {@code long}.
+     */
+    public long estimate(final Object item) {
+        final long hash = Hashing.hash64(item);
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < mDepth; row++) {
+            estimate = Math.min(estimate, mCounters[getIndex(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Merges the given {@link CountMinSketch} of the same dimensions into this {@link CountMinSketch}.
+     * @param sketch A {@link CountMinSketch}.
+     */
+    public void merge(final CountMinSketch sketch) {
+        if (sketch.mWidth != mWidth || sketch.mDepth != mDepth) {
+            throw new IllegalArgumentException("Sketches have different dimensions");
+        }
+
+        for (int i = 0; i < mCounters.length; i++) {
+            mCounters[i] += sketch.mCounters[i];
+        }
+        mTotalCount += sketch.mTotalCount;
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public void reset() {
+        Arrays.fill(mCounters, 0);
+        mTotalCount = 0;
+    }
+
+    /**
+     * Writes this {@link CountMinSketch} to the given {@link StateOutput}.
+     * @param output A {@link StateOutput}.
+     * @throws IOException If writing fails.
+     */
+    public void save(final StateOutput output) throws IOException {
+        output.writeInt(mWidth);
+        output.writeInt(mDepth);
+        output.writeLong(mTotalCount);
+
+        for (final long counter : mCounters) {
+            output.writeLong(counter);
+        }
+    }
+
+    /**
+     * Replaces the counters with the counters written with {@link #save(StateOutput)}.
+     * @param input A {@link StateInput}.
+     * @throws IOException If reading fails or the dimensions do not match.
+     */
+    public void restore(final StateInput input) throws IOException {
+        final int width = input.readInt();
+        final int depth = input.readInt();
+
+        if (width != mWidth || depth != mDepth) {
+            throw new IOException("Dimensions " + width + "x" + depth + " do not match " + mWidth + "x" + mDepth);
+        }
+        mTotalCount = input.readLong();
+
+        for (int i = 0; i < mCounters.length; i++) {
+            mCounters[i] = input.readLong();
+        }
+    }
+
+    private int getIndex(final long hash, final int row) {
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        return row * mWidth + (int) (((hash1 + (long) row * hash2) & Long.MAX_VALUE) % mWidth);
+    }
+}
@@ -0,0 +1,94 @@
+package com.robopupu.api.graph.sketch;
+
+import java.util.Arrays;
+
+/**
+ * {@link FrequencySketch} estimates the recent access frequencies of items for cache admission.
+ * It is a Count-Min sketch with four saturating counters per item in a single table. To keep
+ * the estimates recent, all counters are halved after a sample of ten times the table size has
+ * been recorded.
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int MAX_WIDTH = 1 << 22;
+    private static final int SAMPLE_FACTOR = 10;
+
+    private final byte[] mCounters;
+    private final int mMask;
+    private final int mSampleSize;
+
+    private int mSampleCount;
+
+    /**
+     * Constructs a new instance of {@link FrequencySketch}.
+     * @param capacity The expected number of distinct items.
+     */
+    public FrequencySketch(final long capacity) {
+        int width = 16;
+
+        while (width < capacity && width < MAX_WIDTH) {
+            width <<= 1;
+        }
+        mCounters = new byte[width];
+        mMask = width - 1;
+        mSampleSize = SAMPLE_FACTOR * width;
+    }
+
+    /**
+     * Records an access of the given item.
+     * @param item The item.
+     */
+    public void increment(final Object item) {
+        final long hash = Hashing.hash64(item);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        boolean incremented = false;
+
+        for (int i = 0; i < DEPTH; i++) {
+            final int index = (hash1 + i * hash2) & mMask;
+
+            if (mCounters[index] < MAX_COUNT) {
+                mCounters[index]++;
+                incremented = true;
+            }
+        }
+
+        if (incremented && ++mSampleCount >= mSampleSize) {
+            age();
+        }
+    }
+
+    /**
+     * Estimates the recent access frequency of the given item.
+     * @param item The item.
+     * @return The frequency between {@code 0} and {@code 15}.
+     */
+    public int frequency(final Object item) {
+        final long hash = Hashing.hash64(item);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        int frequency = MAX_COUNT;
+
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, mCounters[(hash1 + i * hash2) & mMask]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public void reset() {
+        Arrays.fill(mCounters, (byte) 0);
+        mSampleCount = 0;
+    }
+
+    private void age() {
+        for (int i = 0; i < mCounters.length; i++) {
+            mCounters[i] = (byte) (mCounters[i] >>> 1);
+        }
+        mSampleCount /= 2;
+    }
+}
@@ -0,0 +1,68 @@
+package com.robopupu.api.graph.sketch;
+
+/**
+ * {@link Hashing} provides the 64-bit hash function used by the sketches. Integral numbers,
+ * character sequences and byte arrays are hashed by their contents, so that the hashes are stable
+ * across processes and can be used for merging sketches of parallel graph instances. Floating point
+ * numbers and characters are hashed by their bits. Other objects are hashed with
+ * {@link Object#hashCode()}, which gives only 32 bits of entropy: among about 77000 distinct such
+ * objects two are likely to collide, which skews the sketches at large cardinalities, and the hashes
+ * are stable across processes only if {@link Object#hashCode()} is. Keys of other types should be
+ * mapped to one of the types hashed by their contents before they are given to a sketch.
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * Computes a 64-bit hash of the given value.
+     * @param value The value. May be {@code null}.
+     * @return The hash as a {@code long}.
+     */
+    public static long hash64(final Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return mix64(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            return mix64(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Float) {
+            return mix64(Float.floatToIntBits((Float) value));
+        } else if (value instanceof Character) {
+            return mix64((Character) value);
+        } else if (value instanceof CharSequence) {
+            final CharSequence chars = (CharSequence) value;
+            long hash = FNV_OFFSET_BASIS;
+
+            for (int i = 0; i < chars.length(); i++) {
+                hash = (hash ^ chars.charAt(i)) * FNV_PRIME;
+            }
+            return mix64(hash);
+        } else if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            long hash = FNV_OFFSET_BASIS;
+
+            for (final byte b : bytes) {
+                hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+            }
+            return mix64(hash);
+        }
+        return mix64(value.hashCode());
+    }
+
+    /**
+     * Mixes the bits of the given value with the finalizer of SplitMix64.
+     * @param value The value.
+     * @return The mixed value as a {@code long}.
+     */
+    public static long mix64(final long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,126 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link HyperLogLog} is an {@link ItemSketch} that estimates the number of distinct items in
+ * {@code 2^precision} one byte registers. The standard error of the estimate is about
+ * {@code 1.04 / sqrt(2^precision)}, e.g. 0.8% for the default precision of 14 in 16 kB.
+ * Small cardinalities are estimated with linear counting.
+ */
+public class HyperLogLog implements ItemSketch<HyperLogLog> {
+
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int mPrecision;
+    private final byte[] mRegisters;
+
+    /**
+     * Constructs a new instance of {@link HyperLogLog} with {@link #DEFAULT_PRECISION}.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Constructs a new instance of {@link HyperLogLog}.
+     * @param precision The number of index bits between {@code 4} and {@code 18}.
+     */
+    public HyperLogLog(final int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18");
+        }
+        mPrecision = precision;
+        mRegisters = new byte[1 << precision];
+    }
+
+    /**
+     * Gets the number of index bits.
+     * @return The precision as an {@code int}.
+     */
+    public int getPrecision() {
+        return mPrecision;
+    }
+
+    /**
+     * Estimates the number of distinct added items.
+     * @return The estimate as a {@code long}.
+     */
+    public long getEstimate() {
+        final int registerCount = mRegisters.length;
+        double sum = 0;
+        int zeroCount = 0;
+
+        for (final byte register : mRegisters) {
+            sum += 1.0 / (1L << register);
+
+            if (register == 0) {
+                zeroCount++;
+            }
+        }
+
+        final double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        final double estimate = alpha * registerCount * registerCount / sum;
+
+        if (estimate <= 2.5 * registerCount && zeroCount > 0) {
+            return Math.round(registerCount * Math.log((double) registerCount / zeroCount));
+        }
+        return Math.round(estimate);
+    }
+
+    @Override
+    public void add(final Object item) {
+        final long hash = Hashing.hash64(item);
+        final int index = (int) (hash >>> (64 - mPrecision));
+        final int rank = Math.min(Long.numberOfLeadingZeros(hash << mPrecision), 64 - mPrecision) + 1;
+
+        if (rank > mRegisters[index]) {
+            mRegisters[index] = (byte) rank;
+        }
+    }
+
+    @Override
+    public void merge(final HyperLogLog sketch) {
+        if (sketch.mPrecision != mPrecision) {
+            throw new IllegalArgumentException("Sketches have different precisions");
+        }
+
+        for (int i = 0; i < mRegisters.length; i++) {
+            if (sketch.mRegisters[i] > mRegisters[i]) {
+                mRegisters[i] = sketch.mRegisters[i];
+            }
+        }
+    }
+
+    @Override
+    public HyperLogLog copy() {
+        final HyperLogLog sketch = new HyperLogLog(mPrecision);
+        sketch.merge(this);
+        return sketch;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(mRegisters, (byte) 0);
+    }
+
+    @Override
+    public void save(final StateOutput output) throws IOException {
+        output.writeInt(mPrecision);
+        output.write(mRegisters);
+    }
+
+    @Override
+    public void restore(final StateInput input) throws IOException {
+        final int precision = input.readInt();
+
+        if (precision != mPrecision) {
+            throw new IOException("Precision " + precision + " does not match " + mPrecision);
+        }
+        input.readFully(mRegisters);
+    }
+}
@@ -0,0 +1,52 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+
+/**
+ * {@link ItemSketch} defines an interface for mergeable fixed memory summaries of streams of items,
+ * such as a {@link TopK} of the most frequent items or a {@link HyperLogLog} distinct count.
+ * @param <S> The type of the {@link ItemSketch}.
+ */
+public interface ItemSketch<S extends ItemSketch<S>> {
+
+    /**
+     * Adds the given item to this {@link ItemSketch}.
+     * @param item The item.
+     */
+    void add(Object item);
+
+    /**
+     * Merges the given {@link ItemSketch} of the same parameters into this {@link ItemSketch}.
+     * @param sketch An {@link ItemSketch}.
+     */
+    void merge(S sketch);
+
+    /**
+     * Creates a copy of this {@link ItemSketch}.
+     * @return An {@link ItemSketch}.
+     */
+    S copy();
+
+    /**
+     * Removes all items from this {@link ItemSketch}.
+     */
+    void reset();
+
+    /**
+     * Writes this {@link ItemSketch} to the given {@link StateOutput}.
+     * @param output A {@link StateOutput}.
+     * @throws IOException If writing fails.
+     */
+    void save(StateOutput output) throws IOException;
+
+    /**
+     * Replaces the contents of this {@link ItemSketch} with an {@link ItemSketch} written with
+     * {@link #save(StateOutput)}.
+     * @param input A {@link StateInput}.
+     * @throws IOException If reading fails or the parameters do not match.
+     */
+    void restore(StateInput input) throws IOException;
+}
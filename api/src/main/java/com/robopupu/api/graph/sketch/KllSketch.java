@@ -0,0 +1,316 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * {@link KllSketch} is a {@link Sketch} implementing the KLL quantile sketch for arbitrary values.
+ * Values are kept in a hierarchy of compactors. When the sketch is full, the lowest full compactor
+ * is sorted and every other value of it is promoted to the next level with a doubled weight. The
+ * capacities of the levels decrease geometrically towards the lower levels, so that the memory is
+ * {@code O(k)} and the rank error is roughly {@code 1.7 / k} for the default parameters.
+ */
+public class KllSketch implements Sketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+    private static final int MIN_CAPACITY = 8;
+
+    private final int mK;
+    private final ArrayList<double[]> mLevels;
+    private final Random mRandom;
+
+    private int[] mSizes;
+    private long mCount;
+    private double mMax;
+    private double mMin;
+
+    /**
+     * Constructs a new instance of {@link KllSketch} with {@link #DEFAULT_K}.
+     */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Constructs a new instance of {@link KllSketch}.
+     * @param k The accuracy parameter. The capacity of the top level compactor.
+     */
+    public KllSketch(final int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("K must be at least " + MIN_CAPACITY);
+        }
+        mK = k;
+        mLevels = new ArrayList<>();
+        mRandom = new Random(k);
+        mSizes = new int[0];
+        reset();
+    }
+
+    /**
+     * Gets the accuracy parameter.
+     * @return The k as an {@code int}.
+     */
+    public int getK() {
+        return mK;
+    }
+
+    /**
+     * Gets the number of values retained by this {@link KllSketch}.
+     * @return The count as an {@code int}.
+     */
+    public int getRetainedCount() {
+        int count = 0;
+
+        for (int level = 0; level < mLevels.size(); level++) {
+            count += mSizes[level];
+        }
+        return count;
+    }
+
+    @Override
+    public void update(final double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        add(0, value);
+        mCount++;
+        mMin = Math.min(mMin, value);
+        mMax = Math.max(mMax, value);
+        compress();
+    }
+
+    @Override
+    public long getCount() {
+        return mCount;
+    }
+
+    @Override
+    public double getMin() {
+        return (mCount > 0) ? mMin : Double.NaN;
+    }
+
+    @Override
+    public double getMax() {
+        return (mCount > 0) ? mMax : Double.NaN;
+    }
+
+    @Override
+    public double getQuantile(final double quantile) {
+        if (mCount == 0) {
+            return Double.NaN;
+        } else if (quantile <= 0) {
+            return mMin;
+        } else if (quantile >= 1) {
+            return mMax;
+        }
+
+        final int count = getRetainedCount();
+        final double[] values = new double[count];
+        final long[] weights = new long[count];
+        int index = 0;
+        long totalWeight = 0;
+
+        for (int level = 0; level < mLevels.size(); level++) {
+            final double[] items = mLevels.get(level);
+
+            for (int i = 0; i < mSizes[level]; i++) {
+                values[index] = items[i];
+                weights[index++] = 1L << level;
+            }
+            totalWeight += (long) mSizes[level] << level;
+        }
+        sortByValue(values, weights);
+
+        final double rank = quantile * totalWeight;
+        long weight = 0;
+
+        for (int i = 0; i < count; i++) {
+            weight += weights[i];
+
+            if (weight >= rank) {
+                return values[i];
+            }
+        }
+        return mMax;
+    }
+
+    @Override
+    public void merge(final Sketch sketch) {
+        final KllSketch kllSketch = (KllSketch) sketch;
+
+        if (kllSketch.mK != mK) {
+            throw new IllegalArgumentException("Sketches have different k parameters");
+        }
+
+        if (kllSketch.mCount == 0) {
+            return;
+        }
+
+        for (int level = 0; level < kllSketch.mLevels.size(); level++) {
+            final double[] items = kllSketch.mLevels.get(level);
+
+            for (int i = 0; i < kllSketch.mSizes[level]; i++) {
+                add(level, items[i]);
+            }
+        }
+        mCount += kllSketch.mCount;
+        mMin = Math.min(mMin, kllSketch.mMin);
+        mMax = Math.max(mMax, kllSketch.mMax);
+
+        while (compress()) {
+            // Compress until the sketch fits to its capacity
+        }
+    }
+
+    @Override
+    public KllSketch copy() {
+        final KllSketch sketch = new KllSketch(mK);
+        sketch.merge(this);
+        return sketch;
+    }
+
+    @Override
+    public void reset() {
+        mLevels.clear();
+        mSizes = new int[0];
+        mCount = 0;
+        mMin = Double.POSITIVE_INFINITY;
+        mMax = Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public void save(final StateOutput output) throws IOException {
+        output.writeInt(mK);
+        output.writeLong(mCount);
+        output.writeDouble(mMin);
+        output.writeDouble(mMax);
+        output.writeInt(mLevels.size());
+
+        for (int level = 0; level < mLevels.size(); level++) {
+            final double[] items = mLevels.get(level);
+            output.writeInt(mSizes[level]);
+
+            for (int i = 0; i < mSizes[level]; i++) {
+                output.writeDouble(items[i]);
+            }
+        }
+    }
+
+    @Override
+    public void restore(final StateInput input) throws IOException {
+        final int k = input.readInt();
+
+        if (k != mK) {
+            throw new IOException("K " + k + " does not match " + mK);
+        }
+        reset();
+
+        final long count = input.readLong();
+        final double min = input.readDouble();
+        final double max = input.readDouble();
+        final int levelCount = input.readInt();
+
+        for (int level = 0; level < levelCount; level++) {
+            final int size = input.readInt();
+
+            for (int i = 0; i < size; i++) {
+                add(level, input.readDouble());
+            }
+        }
+        mCount = count;
+        mMin = min;
+        mMax = max;
+    }
+
+    private void add(final int level, final double value) {
+        while (mLevels.size() <= level) {
+            mLevels.add(new double[MIN_CAPACITY]);
+            mSizes = Arrays.copyOf(mSizes, mLevels.size());
+        }
+
+        double[] items = mLevels.get(level);
+
+        if (mSizes[level] == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            mLevels.set(level, items);
+        }
+        items[mSizes[level]++] = value;
+    }
+
+    private int getCapacity(final int level) {
+        final int depth = mLevels.size() - level - 1;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(mK * Math.pow(CAPACITY_RATIO, depth)));
+    }
+
+    private boolean compress() {
+        int totalCapacity = 0;
+
+        for (int level = 0; level < mLevels.size(); level++) {
+            totalCapacity += getCapacity(level);
+        }
+
+        if (getRetainedCount() < totalCapacity) {
+            return false;
+        }
+
+        for (int level = 0; level < mLevels.size(); level++) {
+            if (mSizes[level] >= getCapacity(level)) {
+                compact(level);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void compact(final int level) {
+        final double[] items = mLevels.get(level);
+        final int size = mSizes[level];
+        final int pairs = size / 2;
+        final int offset = mRandom.nextBoolean() ? 1 : 0;
+
+        Arrays.sort(items, 0, size);
+
+        final double[] promoted = new double[pairs];
+
+        for (int i = 0; i < pairs; i++) {
+            promoted[i] = items[2 * i + offset];
+        }
+
+        // An odd value is kept on its level
+
+        if ((size & 1) == 1) {
+            items[0] = items[size - 1];
+            mSizes[level] = 1;
+        } else {
+            mSizes[level] = 0;
+        }
+
+        for (final double value : promoted) {
+            add(level + 1, value);
+        }
+    }
+
+    private static void sortByValue(final double[] values, final long[] weights) {
+        final Integer[] order = new Integer[values.length];
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (index1, index2) -> Double.compare(values[index1], values[index2]));
+
+        final double[] sortedValues = values.clone();
+        final long[] sortedWeights = weights.clone();
+
+        for (int i = 0; i < order.length; i++) {
+            values[i] = sortedValues[order[i]];
+            weights[i] = sortedWeights[order[i]];
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link LogHistogram} is a {@link Sketch} that counts non-negative values in logarithmic buckets,
+ * in the manner of HdrHistogram. Each power of two range is divided into {@code 2^precision}
+ * linear sub-buckets, so that the relative error of a quantile is at most {@code 2^-precision}.
+ * Values are rounded to integers, so the values should be scaled to a suitable unit, such as
+ * microseconds for latencies. The bucket array grows up to the largest recorded value, and its
+ * size is bounded by {@code (64 - precision) * 2^precision} counters.
+ */
+public class LogHistogram implements Sketch {
+
+    public static final int DEFAULT_PRECISION = 7;
+
+    private final int mPrecision;
+    private final int mSubBucketCount;
+
+    private long[] mCounts;
+    private long mCount;
+    private long mMax;
+    private long mMin;
+    private double mSum;
+
+    /**
+     * Constructs a new instance of {@link LogHistogram} with {@link #DEFAULT_PRECISION}.
+     */
+    public LogHistogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Constructs a new instance of {@link LogHistogram}.
+     * @param precision The number of sub-bucket bits between {@code 1} and {@code 16}.
+     */
+    public LogHistogram(final int precision) {
+        if (precision < 1 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 1 and 16");
+        }
+        mPrecision = precision;
+        mSubBucketCount = 1 << precision;
+        mCounts = new long[mSubBucketCount * 2];
+        reset();
+    }
+
+    /**
+     * Gets the number of sub-bucket bits.
+     * @return The precision as an {@code int}.
+     */
+    public int getPrecision() {
+        return mPrecision;
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     * @return The mean as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    public double getMean() {
+        return (mCount > 0) ? mSum / mCount : Double.NaN;
+    }
+
+    /**
+     * Records the given value.
+     * @param value A non-negative value.
+     */
+    public void record(final long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Records the given value the given number of times.
+     * @param value A non-negative value.
+     * @param count The number of times.
+     */
+    public void record(final long value, final long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+
+        final int index = getIndex(value);
+
+        if (index >= mCounts.length) {
+            mCounts = Arrays.copyOf(mCounts, Math.max(index + 1, mCounts.length * 2));
+        }
+        mCounts[index] += count;
+        mCount += count;
+        mSum += (double) value * count;
+        mMin = Math.min(mMin, value);
+        mMax = Math.max(mMax, value);
+    }
+
+    @Override
+    public void update(final double value) {
+        record(Math.round(value));
+    }
+
+    @Override
+    public long getCount() {
+        return mCount;
+    }
+
+    @Override
+    public double getMin() {
+        return (mCount > 0) ? mMin : Double.NaN;
+    }
+
+    @Override
+    public double getMax() {
+        return (mCount > 0) ? mMax : Double.NaN;
+    }
+
+    @Override
+    public double getQuantile(final double quantile) {
+        if (mCount == 0) {
+            return Double.NaN;
+        }
+
+        final long rank = Math.max(1, Math.min(mCount, (long) Math.ceil(quantile * mCount)));
+        long count = 0;
+
+        for (int i = 0; i < mCounts.length; i++) {
+            count += mCounts[i];
+
+            if (count >= rank) {
+                final long lowValue = getLowValue(i);
+                final long highValue = getLowValue(i + 1) - 1;
+                return Math.max(mMin, Math.min(mMax, lowValue + (highValue - lowValue) / 2));
+            }
+        }
+        return mMax;
+    }
+
+    @Override
+    public void merge(final Sketch sketch) {
+        final LogHistogram histogram = (LogHistogram) sketch;
+
+        if (histogram.mPrecision != mPrecision) {
+            throw new IllegalArgumentException("Histograms have different precisions");
+        }
+
+        if (histogram.mCount == 0) {
+            return;
+        }
+
+        if (histogram.mCounts.length > mCounts.length) {
+            mCounts = Arrays.copyOf(mCounts, histogram.mCounts.length);
+        }
+
+        for (int i = 0; i < histogram.mCounts.length; i++) {
+            mCounts[i] += histogram.mCounts[i];
+        }
+        mCount += histogram.mCount;
+        mSum += histogram.mSum;
+        mMin = Math.min(mMin, histogram.mMin);
+        mMax = Math.max(mMax, histogram.mMax);
+    }
+
+    @Override
+    public LogHistogram copy() {
+        final LogHistogram histogram = new LogHistogram(mPrecision);
+        histogram.merge(this);
+        return histogram;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+    }
+
+    @Override
+    public void save(final StateOutput output) throws IOException {
+        output.writeInt(mPrecision);
+        output.writeDouble(mSum);
+
+        int length = mCounts.length;
+
+        while (length > 0 && mCounts[length - 1] == 0) {
+            length--;
+        }
+        output.writeInt(length);
+
+        for (int i = 0; i < length; i++) {
+            output.writeLong(mCounts[i]);
+        }
+        output.writeLong(mMin);
+        output.writeLong(mMax);
+    }
+
+    @Override
+    public void restore(final StateInput input) throws IOException {
+        final int precision = input.readInt();
+
+        if (precision != mPrecision) {
+            throw new IOException("Precision " + precision + " does not match " + mPrecision);
+        }
+        reset();
+        mSum = input.readDouble();
+
+        final int length = input.readInt();
+
+        if (length > mCounts.length) {
+            mCounts = new long[length];
+        }
+
+        for (int i = 0; i < length; i++) {
+            mCounts[i] = input.readLong();
+            mCount += mCounts[i];
+        }
+        mMin = input.readLong();
+        mMax = input.readLong();
+    }
+
+    private int getIndex(final long value) {
+        if (value < mSubBucketCount) {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - mPrecision;
+        return ((shift + 1) << mPrecision) + (int) (value >>> shift) - mSubBucketCount;
+    }
+
+    private long getLowValue(final int index) {
+        if (index < mSubBucketCount) {
+            return index;
+        }
+
+        final int bucket = index >>> mPrecision;
+        final long mantissa = (index & (mSubBucketCount - 1)) + mSubBucketCount;
+        return mantissa << (bucket - 1);
+    }
+}
@@ -0,0 +1,184 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * {@link ScalableBloomFilter} is a probabilistic set that grows with the number of inserted values.
+ * When the current {@link BloomFilter} is full, a new filter with a larger capacity and a tighter
+ * false positive rate is added, so that the compound false positive rate stays below the given
+ * rate. The total size of the filters is bounded by a memory budget: when a new filter would
+ * exceed the budget, the filters stop growing and the oldest filters are dropped, so that the
+ * filter behaves as a window over the most recent values.
+ */
+public class ScalableBloomFilter {
+
+    public static final long DEFAULT_INITIAL_CAPACITY = 64 * 1024;
+    public static final int GROWTH_FACTOR = 2;
+    public static final double TIGHTENING_RATIO = 0.5;
+
+    private final ArrayList<BloomFilter> mFilters;
+    private final double mFalsePositiveRate;
+    private final long mInitialCapacity;
+    private final long mMaxMemory;
+
+    private int mDroppedCount;
+
+    /**
+     * Constructs a new instance of {@link ScalableBloomFilter}.
+     * @param falsePositiveRate The compound false positive rate.
+     * @param maxMemory The maximum total size of the filters in bytes.
+     */
+    public ScalableBloomFilter(final double falsePositiveRate, final long maxMemory) {
+        this(DEFAULT_INITIAL_CAPACITY, falsePositiveRate, maxMemory);
+    }
+
+    /**
+     * Constructs a new instance of {@link ScalableBloomFilter}.
+     * @param initialCapacity The capacity of the first filter.
+     * @param falsePositiveRate The compound false positive rate.
+     * @param maxMemory The maximum total size of the filters in bytes.
+     */
+    public ScalableBloomFilter(final long initialCapacity, final double falsePositiveRate, final long maxMemory) {
+        if (BloomFilter.getMemorySize(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO)) > maxMemory) {
+            throw new IllegalArgumentException("Initial filter does not fit to the memory budget");
+        }
+        mFilters = new ArrayList<>();
+        mFalsePositiveRate = falsePositiveRate;
+        mInitialCapacity = initialCapacity;
+        mMaxMemory = maxMemory;
+    }
+
+    /**
+     * Gets the number of filters dropped to stay within the memory budget.
+     * @return The count as an {@code int}.
+     */
+    public int getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * Gets the number of filters.
+     * @return The count as an {@code int}.
+     */
+    public int getFilterCount() {
+        return mFilters.size();
+    }
+
+    /**
+     * Gets the total size of the filters in bytes.
+     * @return The size as a {@code long}.
+     */
+    public long getMemorySize() {
+        long size = 0;
+
+        for (final BloomFilter filter : mFilters) {
+            size += filter.getMemorySize();
+        }
+        return size;
+    }
+
+    /**
+     * Tests if the given value might have been put into this {@link ScalableBloomFilter}.
+     * @param value The value.
+     * @return A {@code boolean} value.
+     */
+    public boolean mightContain(final Object value) {
+        return mightContainHash(Hashing.hash64(value));
+    }
+
+    private boolean mightContainHash(final long hash) {
+        for (int i = mFilters.size() - 1; i >= 0; i--) {
+            if (mFilters.get(i).mightContainHash(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts the given value into this {@link ScalableBloomFilter} unless it might be contained.
+     * @param value The value.
+     * @return {@code true} if the value was certainly not contained before.
+     */
+    public boolean put(final Object value) {
+        final long hash = Hashing.hash64(value);
+
+        if (mightContainHash(hash)) {
+            return false;
+        }
+
+        BloomFilter filter = mFilters.isEmpty() ? null : mFilters.get(mFilters.size() - 1);
+
+        if (filter == null || filter.isFull()) {
+            filter = addFilter(filter);
+        }
+        filter.putHash(hash);
+        return true;
+    }
+
+    /**
+     * Removes all filters.
+     */
+    public void clear() {
+        mFilters.clear();
+    }
+
+    private BloomFilter addFilter(final BloomFilter lastFilter) {
+        long capacity = mInitialCapacity;
+        double falsePositiveRate = mFalsePositiveRate * (1 - TIGHTENING_RATIO);
+
+        if (lastFilter != null) {
+            capacity = lastFilter.getCapacity() * GROWTH_FACTOR;
+            falsePositiveRate = lastFilter.getFalsePositiveRate() * TIGHTENING_RATIO;
+
+            if (BloomFilter.getMemorySize(capacity, falsePositiveRate) > mMaxMemory / 2) {
+                capacity = lastFilter.getCapacity();
+                falsePositiveRate = lastFilter.getFalsePositiveRate();
+            }
+        }
+
+        final long memorySize = BloomFilter.getMemorySize(capacity, falsePositiveRate);
+        long totalSize = getMemorySize();
+
+        while (!mFilters.isEmpty() && totalSize + memorySize > mMaxMemory) {
+            totalSize -= mFilters.remove(0).getMemorySize();
+            mDroppedCount++;
+        }
+
+        final BloomFilter filter = new BloomFilter(capacity, falsePositiveRate);
+        mFilters.add(filter);
+        return filter;
+    }
+
+    /**
+     * Writes the filters to the given {@link StateOutput}.
+     * @param output A {@link StateOutput}.
+     * @throws IOException If writing fails.
+     */
+    public void save(final StateOutput output) throws IOException {
+        output.writeInt(mFilters.size());
+
+        for (final BloomFilter filter : mFilters) {
+            filter.save(output);
+        }
+    }
+
+    /**
+     * Replaces the filters with the filters written with {@link #save(StateOutput)}.
+     * @param input A {@link StateInput}.
+     * @throws IOException If reading fails.
+     */
+    public void restore(final StateInput input) throws IOException {
+        clear();
+
+        final int count = input.readInt();
+
+        for (int i = 0; i < count; i++) {
+            mFilters.add(BloomFilter.read(input));
+        }
+    }
+}
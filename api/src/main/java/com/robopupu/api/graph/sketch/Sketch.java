@@ -0,0 +1,76 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+
+/**
+ * {@link Sketch} defines an interface for mergeable constant memory summaries of numeric streams
+ * that answer quantile queries, such as the 50th, 99th and 99.9th percentiles.
+ */
+public interface Sketch {
+
+    /**
+     * Adds the given value to this {@link Sketch}.
+     * @param value The value.
+     */
+    void update(double value);
+
+    /**
+     * Gets the number of values added to this {@link Sketch}.
+     * @return The count as a {@code long}.
+     */
+    long getCount();
+
+    /**
+     * Gets the smallest added value.
+     * @return The minimum as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    double getMin();
+
+    /**
+     * Gets the largest added value.
+     * @return The maximum as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    double getMax();
+
+    /**
+     * Gets the approximate value at the given quantile.
+     * @param quantile The quantile between {@code 0} and {@code 1}, e.g. {@code 0.99}.
+     * @return The value as a {@code double}, or {@link Double#NaN} if the count is zero.
+     */
+    double getQuantile(double quantile);
+
+    /**
+     * Merges the given {@link Sketch} of the same type and parameters into this {@link Sketch}.
+     * @param sketch A {@link Sketch}.
+     */
+    void merge(Sketch sketch);
+
+    /**
+     * Creates a copy of this {@link Sketch}.
+     * @return A {@link Sketch}.
+     */
+    Sketch copy();
+
+    /**
+     * Removes all values from this {@link Sketch}.
+     */
+    void reset();
+
+    /**
+     * Writes this {@link Sketch} to the given {@link StateOutput}.
+     * @param output A {@link StateOutput}.
+     * @throws IOException If writing fails.
+     */
+    void save(StateOutput output) throws IOException;
+
+    /**
+     * Replaces the contents of this {@link Sketch} with a {@link Sketch} written with
+     * {@link #save(StateOutput)}.
+     * @param input A {@link StateInput}.
+     * @throws IOException If reading fails or the parameters do not match.
+     */
+    void restore(StateInput input) throws IOException;
+}
@@ -0,0 +1,274 @@
+package com.robopupu.api.graph.sketch;
+
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * {@link TopK} is an {@link ItemSketch} that tracks the most frequent items, i.e. the heavy hitters,
+ * of a stream. The frequencies are estimated with a {@link CountMinSketch}, and the {@code k} items
+ * with the highest estimates are kept in a min-heap, so that an item replaces the least frequent
+ * candidate when its estimate exceeds the estimate of the candidate. Each tracked {@link Item}
+ * knows its position in the heap, so an update costs {@code O(log k)}.
+ */
+public class TopK implements ItemSketch<TopK> {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_WIDTH = 2048;
+
+    private final HashMap<Object, Item> mCandidates;
+    private final Item[] mHeap;
+    private final int mK;
+    private final CountMinSketch mSketch;
+
+    /**
+     * Constructs a new instance of {@link TopK} with the default {@link CountMinSketch} dimensions.
+     * @param k The number of tracked items.
+     */
+    public TopK(final int k) {
+        this(k, DEFAULT_WIDTH, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Constructs a new instance of {@link TopK}.
+     * @param k The number of tracked items.
+     * @param width The width of the {@link CountMinSketch}.
+     * @param depth The depth of the {@link CountMinSketch}.
+     */
+    public TopK(final int k, final int width, final int depth) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K must be greater than zero");
+        }
+        mK = k;
+        mSketch = new CountMinSketch(width, depth);
+        mCandidates = new HashMap<>();
+        mHeap = new Item[k];
+    }
+
+    /**
+     * Gets the number of tracked items.
+     * @return The k as an {@code int}.
+     */
+    public int getK() {
+        return mK;
+    }
+
+    /**
+     * Gets the total count of the added items.
+     * @return The count as a {@code long}.
+     */
+    public long getTotalCount() {
+        return mSketch.getTotalCount();
+    }
+
+    /**
+     * Estimates the frequency of the given item.
+     * @param item The item.
+     * @return The estimated frequency as a {@code long}.
+     */
+    public long estimate(final Object item) {
+        return mSketch.estimate(item);
+    }
+
+    /**
+     * Gets the tracked items in the order of decreasing estimated frequency.
+     * @return A {@link List} of {@link Item}s.
+     */
+    public List<Item> getTopK() {
+        final ArrayList<Item> items = new ArrayList<>(mCandidates.size());
+
+        for (final Item candidate : mCandidates.values()) {
+            items.add(new Item(candidate.mKey, candidate.mCount));
+        }
+        Collections.sort(items, (item1, item2) -> compare(item2.mCount, item1.mCount));
+        return items;
+    }
+
+    @Override
+    public void add(final Object item) {
+        add(item, 1);
+    }
+
+    /**
+     * Adds the given item with the given count.
+     * @param item The item.
+     * @param count The count.
+     */
+    public void add(final Object item, final long count) {
+        offer(item, mSketch.add(item, count));
+    }
+
+    @Override
+    public void merge(final TopK sketch) {
+        mSketch.merge(sketch.mSketch);
+
+        final ArrayList<Object> keys = new ArrayList<>(mCandidates.keySet());
+
+        for (final Object key : sketch.mCandidates.keySet()) {
+            if (!mCandidates.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        rebuild(keys);
+    }
+
+    @Override
+    public TopK copy() {
+        final TopK topK = new TopK(mK, mSketch.getWidth(), mSketch.getDepth());
+        topK.merge(this);
+        return topK;
+    }
+
+    @Override
+    public void reset() {
+        mSketch.reset();
+        clear();
+    }
+
+    @Override
+    public void save(final StateOutput output) throws IOException {
+        mSketch.save(output);
+        output.writeInt(mCandidates.size());
+
+        for (final Object key : mCandidates.keySet()) {
+            output.writeValue(key);
+        }
+    }
+
+    @Override
+    public void restore(final StateInput input) throws IOException {
+        mSketch.restore(input);
+
+        final int count = input.readInt();
+        final ArrayList<Object> keys = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            keys.add(input.readValue());
+        }
+        rebuild(keys);
+    }
+
+    private void offer(final Object key, final long estimate) {
+        Item candidate = mCandidates.get(key);
+
+        if (candidate != null) {
+            candidate.mCount = estimate;
+            siftDown(candidate.mIndex);
+            siftUp(candidate.mIndex);
+        } else if (mCandidates.size() < mK) {
+            candidate = new Item(key, estimate);
+            mCandidates.put(key, candidate);
+            mHeap[mCandidates.size() - 1] = candidate;
+            candidate.mIndex = mCandidates.size() - 1;
+            siftUp(candidate.mIndex);
+        } else if (estimate > mHeap[0].mCount) {
+            mCandidates.remove(mHeap[0].mKey);
+            candidate = new Item(key, estimate);
+            mCandidates.put(key, candidate);
+            mHeap[0] = candidate;
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int index) {
+        final Item item = mHeap[index];
+
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+
+            if (mHeap[parent].mCount <= item.mCount) {
+                break;
+            }
+            mHeap[index] = mHeap[parent];
+            mHeap[index].mIndex = index;
+            index = parent;
+        }
+        mHeap[index] = item;
+        item.mIndex = index;
+    }
+
+    private void siftDown(int index) {
+        final Item item = mHeap[index];
+        final int size = mCandidates.size();
+
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= size) {
+                break;
+            } else if (child + 1 < size && mHeap[child + 1].mCount < mHeap[child].mCount) {
+                child++;
+            }
+
+            if (item.mCount <= mHeap[child].mCount) {
+                break;
+            }
+            mHeap[index] = mHeap[child];
+            mHeap[index].mIndex = index;
+            index = child;
+        }
+        mHeap[index] = item;
+        item.mIndex = index;
+    }
+
+    private void rebuild(final List<Object> keys) {
+        clear();
+
+        for (final Object key : keys) {
+            offer(key, mSketch.estimate(key));
+        }
+    }
+
+    private void clear() {
+        mCandidates.clear();
+        Arrays.fill(mHeap, null);
+    }
+
+    private static int compare(final long count1, final long count2) {
+        return (count1 < count2) ? -1 : ((count1 == count2) ? 0 : 1);
+    }
+
+    /**
+     * {@link Item} is a tracked item and its estimated frequency.
+     */
+    public static class Item {
+
+        private final Object mKey;
+
+        private long mCount;
+        private int mIndex;
+
+        private Item(final Object key, final long count) {
+            mKey = key;
+            mCount = count;
+        }
+
+        /**
+         * Gets the item.
+         * @return The item.
+         */
+        @SuppressWarnings("unchecked")
+        public <K> K getKey() {
+            return (K) mKey;
+        }
+
+        /**
+         * Gets the estimated frequency of the item.
+         * @return The count as a {@code long}.
+         */
+        public long getCount() {
+            return mCount;
+        }
+
+        @Override
+        public String toString() {
+            return mKey + "=" + mCount;
+        }
+    }
+}
@@ -0,0 +1,642 @@
+package com.robopupu.api.graph.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link KeyedStateStore} is a hash table that keeps a fixed size value for each key in off-heap
+ * memory, so that millions of keys do not cost per-entry objects or garbage collection. The table
+ * uses open addressing with linear probing over fixed size slots in a direct {@link ByteBuffer}.
+ * Keys are stored in their binary form written by {@link StateOutput#writeValue(Object)}, so keys
+ * are equal if their binary forms are equal, e.g. {@code Integer} {@code 1} and {@code Long}
+ * {@code 1} are different keys.
+ *
+ * A slot is addressed by its index. The values of a slot are read and written with the typed
+ * accessors at offsets within the value. A slot index is valid until the next key is added, which
+ * may grow the table. Entries not updated within the time-to-live are treated as absent and
+ * removed lazily or by {@link #expire()}. If the table grows beyond the memory limit and a spill
+ * directory is set, the table is placed in a memory-mapped file instead of a direct buffer.
+ */
+public class KeyedStateStore implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_KEY_SIZE = 32;
+
+    private static final byte SLOT_EMPTY = 0;
+    private static final byte SLOT_USED = 1;
+    private static final byte SLOT_REMOVED = 2;
+
+    private static final int STATE_OFFSET = 0;
+    private static final int KEY_LENGTH_OFFSET = 1;
+    private static final int HASH_OFFSET = 2;
+    private static final int TIME_OFFSET = 6;
+    private static final int KEY_OFFSET = 14;
+
+    private static final float MAX_LOAD_FACTOR = 0.7f;
+
+    private final byte[] mKey;
+    private final ByteArrayOutputStream mKeyBytes;
+    private final StateOutput mKeyOutput;
+    private final int mMaxKeySize;
+    private final int mSlotSize;
+    private final int mValueSize;
+
+    private int mCapacity;
+    private long mMaxMemory;
+    private int mRemovedCount;
+    private int mSize;
+    private File mSpillDirectory;
+    private File mSpillFile;
+    private ByteBuffer mTable;
+    private long mTimeToLive;
+
+    /**
+     * Constructs a new instance of {@link KeyedStateStore} with {@link #DEFAULT_MAX_KEY_SIZE}.
+     * @param valueSize The size of a value in bytes.
+     */
+    public KeyedStateStore(final int valueSize) {
+        this(valueSize, DEFAULT_MAX_KEY_SIZE);
+    }
+
+    /**
+     * Constructs a new instance of {@link KeyedStateStore}.
+     * @param valueSize The size of a value in bytes.
+     * @param maxKeySize The maximum size of a key in its binary form. At most {@code 255}.
+     */
+    public KeyedStateStore(final int valueSize, final int maxKeySize) {
+        if (valueSize < 0 || maxKeySize <= 0 || maxKeySize > 255) {
+            throw new IllegalArgumentException("Invalid value size " + valueSize + " or key size " + maxKeySize);
+        }
+        mValueSize = valueSize;
+        mMaxKeySize = maxKeySize;
+        mSlotSize = KEY_OFFSET + maxKeySize + valueSize;
+        mKey = new byte[maxKeySize];
+        mKeyBytes = new ByteArrayOutputStream();
+        mKeyOutput = new StateOutput(mKeyBytes);
+        mCapacity = DEFAULT_CAPACITY;
+        mMaxMemory = Long.MAX_VALUE;
+    }
+
+    /**
+     * Sets the initial capacity. Has no effect after the first key has been added.
+     * @param capacity The number of slots. Rounded up to a power of two.
+     * @return This {@link KeyedStateStore}.
+     */
+    public KeyedStateStore capacity(final int capacity) {
+        if (mTable == null) {
+            mCapacity = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the time-to-live of the entries.
+     * @param timeToLive The time in milliseconds after the last update. Zero disables the expiry.
+     * @return This {@link KeyedStateStore}.
+     */
+    public KeyedStateStore ttl(final long timeToLive) {
+        mTimeToLive = timeToLive;
+        return this;
+    }
+
+    /**
+     * Sets the table to be placed in a memory-mapped file in the given directory, when its size
+     * exceeds the given limit.
+     * @param directory The spill directory {@link File}.
+     * @param maxMemory The maximum size in bytes of a table kept in a direct buffer.
+     * @return This {@link KeyedStateStore}.
+     */
+    public KeyedStateStore spill(final File directory, final long maxMemory) {
+        mSpillDirectory = directory;
+        mMaxMemory = maxMemory;
+        return this;
+    }
+
+    /**
+     * Gets the number of entries, including expired entries not yet removed.
+     * @return The size as an {@code int}.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Gets the size of a value in bytes.
+     * @return The value size as an {@code int}.
+     */
+    public int getValueSize() {
+        return mValueSize;
+    }
+
+    /**
+     * Tests if the table has been placed in a memory-mapped file.
+     * @return A {@code boolean} value.
+     */
+    public boolean isSpilled() {
+        return mSpillFile != null;
+    }
+
+    /**
+     * Gets the slot of the given key.
+     * @param key The key.
+     * @return The slot index, or {@code -1} if the key is not found or it has expired.
+     */
+    public int getSlot(final Object key) {
+        if (mTable == null) {
+            return -1;
+        }
+
+        final int keyLength = encodeKey(key, true);
+        final int hash = hash(mKey, keyLength);
+        final int slot = findSlot(hash, keyLength);
+
+        if (slot >= 0 && isExpired(slot, currentTime())) {
+            removeSlot(slot);
+            return -1;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the slot of the given key, or adds the key with a zeroed value. The update time of the
+     * entry is set to the current time.
+     * @param key The key.
+     * @return The slot index.
+     */
+    public int getOrCreateSlot(final Object key) {
+        return getOrCreateEncodedSlot(encodeKey(key, true));
+    }
+
+    /**
+     * Gets the slot of the given key, or adds the key with a zeroed value, if the key can be stored.
+     * Unlike {@link #getOrCreateSlot(Object)}, a key that cannot be encoded or that exceeds
+     * the maximum key size does not cause an exception.
+     * @param key The key.
+     * @return The slot index, or {@code -1} if the key cannot be stored.
+     */
+    public int tryGetOrCreateSlot(final Object key) {
+        final int keyLength = encodeKey(key, false);
+        return (keyLength >= 0) ? getOrCreateEncodedSlot(keyLength) : -1;
+    }
+
+    /**
+     * Gets the slot of the key encoded in {@link #mKey}, or adds the key with a zeroed value.
+     */
+    private int getOrCreateEncodedSlot(final int keyLength) {
+        if (mTable == null) {
+            mTable = allocate(mCapacity);
+        }
+
+        final int hash = hash(mKey, keyLength);
+        final long time = currentTime();
+        int slot = findSlot(hash, keyLength);
+
+        if (slot >= 0) {
+            if (isExpired(slot, time)) {
+                clearValue(slot);
+            }
+            mTable.putLong(slot * mSlotSize + TIME_OFFSET, time);
+            return slot;
+        }
+
+        if (mSize + mRemovedCount + 1 > mCapacity * MAX_LOAD_FACTOR) {
+            resize((mSize + 1 > mCapacity * MAX_LOAD_FACTOR / 2) ? mCapacity * 2 : mCapacity);
+        }
+
+        slot = hash & (mCapacity - 1);
+
+        while (mTable.get(slot * mSlotSize + STATE_OFFSET) == SLOT_USED) {
+            slot = (slot + 1) & (mCapacity - 1);
+        }
+
+        final int base = slot * mSlotSize;
+
+        if (mTable.get(base + STATE_OFFSET) == SLOT_REMOVED) {
+            mRemovedCount--;
+        }
+        mTable.put(base + STATE_OFFSET, SLOT_USED);
+        mTable.put(base + KEY_LENGTH_OFFSET, (byte) keyLength);
+        mTable.putInt(base + HASH_OFFSET, hash);
+        mTable.putLong(base + TIME_OFFSET, time);
+
+        for (int i = 0; i < keyLength; i++) {
+            mTable.put(base + KEY_OFFSET + i, mKey[i]);
+        }
+        clearValue(slot);
+        mSize++;
+        return slot;
+    }
+
+    /**
+     * Removes the given key.
+     * @param key The key.
+     * @return A {@code boolean} value indicating if the key was found.
+     */
+    public boolean remove(final Object key) {
+        final int slot = getSlot(key);
+
+        if (slot >= 0) {
+            removeSlot(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all expired entries.
+     * @return The number of removed entries.
+     */
+    public int expire() {
+        int count = 0;
+
+        if (mTable != null && mTimeToLive > 0) {
+            final long time = currentTime();
+
+            for (int slot = 0; slot < mCapacity; slot++) {
+                if (mTable.get(slot * mSlotSize + STATE_OFFSET) == SLOT_USED && isExpired(slot, time)) {
+                    removeSlot(slot);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the next used slot after the given slot, for iterating over the entries.
+     * @param slot The slot index, or {@code -1} to start from the beginning.
+     * @return The slot index, or {@code -1} if there are no more entries.
+     */
+    public int nextSlot(final int slot) {
+        if (mTable != null) {
+            final long time = currentTime();
+
+            for (int i = slot + 1; i < mCapacity; i++) {
+                if (mTable.get(i * mSlotSize + STATE_OFFSET) == SLOT_USED && !isExpired(i, time)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the key of the given slot.
+     * @param slot The slot index.
+     * @return The key.
+     */
+    public <T> T getKey(final int slot) {
+        final int base = slot * mSlotSize;
+        final byte[] key = new byte[mTable.get(base + KEY_LENGTH_OFFSET) & 0xFF];
+
+        for (int i = 0; i < key.length; i++) {
+            key[i] = mTable.get(base + KEY_OFFSET + i);
+        }
+
+        try {
+            return new StateInput(new ByteArrayInputStream(key)).readValue();
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt key in slot " + slot, e);
+        }
+    }
+
+    /**
+     * Gets an {@code int} at the given offset of the value of the given slot.
+     * @param slot The slot index.
+     * @param offset The offset within the value.
+     * @return An {@code int} value.
+     */
+    public int getInt(final int slot, final int offset) {
+        return mTable.getInt(getValuePosition(slot, offset, 4));
+    }
+
+    /**
+     * Puts an {@code int} at the given offset of the value of the given slot.
+     * @param slot The slot index.
+     * @param offset The offset within the value.
+     * @param value The {@code int} value.
+     */
+    public void putInt(final int slot, final int offset, final int value) {
+        mTable.putInt(getValuePosition(slot, offset, 4), value);
+    }
+
+    /**
+     * Gets a {@code long} at the given offset of the value of the given slot.
+     * @param slot The slot index.
+     * @param offset The offset within the value.
+     * @return A {@code long} value.
+     */
+    public long getLong(final int slot, final int offset) {
+        return mTable.getLong(getValuePosition(slot, offset, 8));
+    }
+
+    /**
+     * Puts a {@code long} at the given offset of the value of the given slot.
+     * @param slot The slot index.
+     * @param offset The offset within the value.
+     * @param value The {@code long} value.
+     */
+    public void putLong(final int slot, final int offset, final long value) {
+        mTable.putLong(getValuePosition(slot, offset, 8), value);
+    }
+
+    /**
+     * Gets a {@code double} at the given offset of the value of the given slot.
+     * @param slot The slot index.
+     * @param offset The offset within the value.
+     * @return A {@code double} value.
+     */
+    public double getDouble(final int slot, final int offset) {
+        return mTable.getDouble(getValuePosition(slot, offset, 8));
+    }
+
+    /**
+     * Puts a {@code double} at the given offset of the value of the given slot.
+     * @param slot The slot index.
+     * @param offset The offset within the value.
+     * @param value The {@code double} value.
+     */
+    public void putDouble(final int slot, final int offset, final double value) {
+        mTable.putDouble(getValuePosition(slot, offset, 8), value);
+    }
+
+    /**
+     * Writes all entries that have not expired to the given {@link StateOutput}.
+     * @param output A {@link StateOutput}.
+     * @throws IOException If writing fails.
+     */
+    public void save(final StateOutput output) throws IOException {
+        int count = 0;
+
+        for (int slot = nextSlot(-1); slot >= 0; slot = nextSlot(slot)) {
+            count++;
+        }
+        output.writeInt(mValueSize);
+        output.writeInt(count);
+
+        for (int slot = nextSlot(-1); slot >= 0; slot = nextSlot(slot)) {
+            final int base = slot * mSlotSize;
+            final int keyLength = mTable.get(base + KEY_LENGTH_OFFSET) & 0xFF;
+
+            output.writeLong(mTable.getLong(base + TIME_OFFSET));
+            output.writeByte(keyLength);
+
+            for (int i = 0; i < keyLength; i++) {
+                output.writeByte(mTable.get(base + KEY_OFFSET + i));
+            }
+
+            for (int i = 0; i < mValueSize; i++) {
+                output.writeByte(mTable.get(base + KEY_OFFSET + mMaxKeySize + i));
+            }
+        }
+    }
+
+    /**
+     * Clears this {@link KeyedStateStore} and reads the entries written with
+     * {@link #save(StateOutput)}.
+     * @param input A {@link StateInput}.
+     * @throws IOException If reading fails or the value size does not match.
+     */
+    public void restore(final StateInput input) throws IOException {
+        final int valueSize = input.readInt();
+
+        if (valueSize != mValueSize) {
+            throw new IOException("Value size " + valueSize + " does not match " + mValueSize);
+        }
+        clear();
+
+        final int count = input.readInt();
+        final byte[] key = new byte[mMaxKeySize];
+
+        for (int i = 0; i < count; i++) {
+            final long time = input.readLong();
+            final int keyLength = input.readUnsignedByte();
+
+            if (keyLength > mMaxKeySize) {
+                throw new IOException("Key size " + keyLength + " exceeds " + mMaxKeySize);
+            }
+            input.readFully(key, 0, keyLength);
+
+            final int slot = getOrCreateSlot(new StateInput(new ByteArrayInputStream(key, 0, keyLength)).readValue());
+            final int base = slot * mSlotSize;
+
+            for (int j = 0; j < mValueSize; j++) {
+                mTable.put(base + KEY_OFFSET + mMaxKeySize + j, input.readByte());
+            }
+            mTable.putLong(base + TIME_OFFSET, time);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        if (mTable != null) {
+            for (int slot = 0; slot < mCapacity; slot++) {
+                mTable.put(slot * mSlotSize + STATE_OFFSET, SLOT_EMPTY);
+            }
+        }
+        mSize = 0;
+        mRemovedCount = 0;
+    }
+
+    /**
+     * Releases the table and deletes the spill file, if any.
+     */
+    @Override
+    public void close() {
+        mTable = null;
+        mSize = 0;
+        mRemovedCount = 0;
+        deleteSpillFile();
+    }
+
+    /**
+     * Gets the current time used for the time-to-live.
+     * @return The time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Encodes the given key into {@link #mKey}. A {@link Long} key is encoded directly if it fits
+     * in the maximum key size.
+     * @param key The key.
+     * @param strict A {@code boolean} value indicating if a key that cannot be stored causes
+     * an {@link IllegalArgumentException} instead of returning {@code -1}.
+     * @return The length of the encoded key, or {@code -1}.
+     */
+    private int encodeKey(final Object key, final boolean strict) {
+        final int length;
+
+        if (key instanceof Long && mMaxKeySize >= 9) {
+            final long value = (Long) key;
+            mKey[0] = StateOutput.TYPE_LONG;
+
+            for (int i = 0; i < 8; i++) {
+                mKey[1 + i] = (byte) (value >>> (56 - 8 * i));
+            }
+            length = 9;
+        } else {
+            mKeyBytes.reset();
+
+            try {
+                mKeyOutput.writeValue(key);
+                mKeyOutput.flush();
+            } catch (IOException e) {
+                if (strict) {
+                    throw new IllegalArgumentException("Cannot encode key " + key, e);
+                }
+                return -1;
+            }
+
+            length = mKeyBytes.size();
+
+            if (length > mMaxKeySize) {
+                if (strict) {
+                    throw new IllegalArgumentException("Key " + key + " exceeds the maximum key size " + mMaxKeySize);
+                }
+                return -1;
+            }
+            System.arraycopy(mKeyBytes.toByteArray(), 0, mKey, 0, length);
+        }
+        return length;
+    }
+
+    private int findSlot(final int hash, final int keyLength) {
+        int slot = hash & (mCapacity - 1);
+
+        while (true) {
+            final int base = slot * mSlotSize;
+            final byte state = mTable.get(base + STATE_OFFSET);
+
+            if (state == SLOT_EMPTY) {
+                return -1;
+            }
+
+            if (state == SLOT_USED && mTable.getInt(base + HASH_OFFSET) == hash
+                    && (mTable.get(base + KEY_LENGTH_OFFSET) & 0xFF) == keyLength && keyEquals(base, keyLength)) {
+                return slot;
+            }
+            slot = (slot + 1) & (mCapacity - 1);
+        }
+    }
+
+    private boolean keyEquals(final int base, final int keyLength) {
+        for (int i = 0; i < keyLength; i++) {
+            if (mTable.get(base + KEY_OFFSET + i) != mKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isExpired(final int slot, final long time) {
+        return mTimeToLive > 0 && time - mTable.getLong(slot * mSlotSize + TIME_OFFSET) >= mTimeToLive;
+    }
+
+    private void removeSlot(final int slot) {
+        mTable.put(slot * mSlotSize + STATE_OFFSET, SLOT_REMOVED);
+        mSize--;
+        mRemovedCount++;
+    }
+
+    private void clearValue(final int slot) {
+        final int base = slot * mSlotSize + KEY_OFFSET + mMaxKeySize;
+
+        for (int i = 0; i < mValueSize; i++) {
+            mTable.put(base + i, (byte) 0);
+        }
+    }
+
+    private int getValuePosition(final int slot, final int offset, final int size) {
+        if (offset < 0 || offset + size > mValueSize) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is outside of the value");
+        }
+        return slot * mSlotSize + KEY_OFFSET + mMaxKeySize + offset;
+    }
+
+    private void resize(final int capacity) {
+        final ByteBuffer oldTable = mTable;
+        final int oldCapacity = mCapacity;
+        final File oldSpillFile = mSpillFile;
+
+        mSpillFile = null;
+        mTable = allocate(capacity);
+        mCapacity = capacity;
+        mRemovedCount = 0;
+
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            final int oldBase = oldSlot * mSlotSize;
+
+            if (oldTable.get(oldBase + STATE_OFFSET) == SLOT_USED) {
+                int slot = oldTable.getInt(oldBase + HASH_OFFSET) & (capacity - 1);
+
+                while (mTable.get(slot * mSlotSize + STATE_OFFSET) != SLOT_EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+
+                final int base = slot * mSlotSize;
+
+                for (int i = 0; i < mSlotSize; i++) {
+                    mTable.put(base + i, oldTable.get(oldBase + i));
+                }
+            }
+        }
+
+        if (oldSpillFile != null && !oldSpillFile.delete()) {
+            oldSpillFile.deleteOnExit();
+        }
+    }
+
+    private ByteBuffer allocate(final int capacity) {
+        final long size = (long) capacity * mSlotSize;
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Table of " + capacity + " slots exceeds the maximum size");
+        }
+
+        if (size > mMaxMemory && mSpillDirectory != null) {
+            try {
+                mSpillFile = File.createTempFile("state", ".table", mSpillDirectory);
+                final RandomAccessFile file = new RandomAccessFile(mSpillFile, "rw");
+
+                try {
+                    file.setLength(size);
+                    return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                } finally {
+                    file.close();
+                }
+            } catch (IOException e) {
+                deleteSpillFile();
+                throw new IllegalStateException("Cannot spill the table to " + mSpillDirectory, e);
+            }
+        }
+        return ByteBuffer.allocateDirect((int) size);
+    }
+
+    private void deleteSpillFile() {
+        if (mSpillFile != null) {
+            if (!mSpillFile.delete()) {
+                mSpillFile.deleteOnExit();
+            }
+            mSpillFile = null;
+        }
+    }
+
+    private static int hash(final byte[] key, final int length) {
+        int hash = 0x811C9DC5;
+
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ key[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
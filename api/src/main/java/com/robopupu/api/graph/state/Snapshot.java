@@ -0,0 +1,96 @@
+package com.robopupu.api.graph.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * {@link Snapshot} writes and reads binary checkpoints of the state of {@link StatefulNode}s.
+ * Each node is identified by a key that has to be stable across the processes, e.g. the name of
+ * its tag or its position in the graph. The state of each node is written as a length prefixed
+ * section, so that a corrupt or incompatible section is detected before it is applied.
+ */
+public class Snapshot {
+
+    private static final int MAGIC = 0x52505353;
+    private static final int VERSION = 2;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes a checkpoint of the given {@link StatefulNode}s.
+     * @param nodes A {@link Map} of {@link StatefulNode}s by their keys.
+     * @param output An {@link OutputStream}.
+     * @throws IOException If writing fails.
+     */
+    public static void write(final Map<String, StatefulNode> nodes, final OutputStream output) throws IOException {
+        final StateOutput stateOutput = new StateOutput(output);
+        final ByteArrayOutputStream section = new ByteArrayOutputStream();
+
+        stateOutput.writeInt(MAGIC);
+        stateOutput.writeInt(VERSION);
+        stateOutput.writeInt(nodes.size());
+
+        for (final Map.Entry<String, StatefulNode> entry : nodes.entrySet()) {
+            final StatefulNode node = entry.getValue();
+            final StateOutput sectionOutput = new StateOutput(section);
+
+            section.reset();
+            node.saveState(sectionOutput);
+            sectionOutput.flush();
+
+            stateOutput.writeString(entry.getKey());
+            stateOutput.writeString(node.getClass().getName());
+            stateOutput.writeInt(section.size());
+            section.writeTo(stateOutput);
+        }
+        stateOutput.flush();
+    }
+
+    /**
+     * Reads a checkpoint written with {@link #write(Map, OutputStream)} and restores it into
+     * the given {@link StatefulNode}s. The nodes not contained in the checkpoint are not modified.
+     * @param nodes A {@link Map} of {@link StatefulNode}s by their keys.
+     * @param input An {@link InputStream}.
+     * @return The number of restored {@link StatefulNode}s as an {@code int}.
+     * @throws IOException If reading fails, or if the checkpoint does not match the given nodes.
+     */
+    public static int read(final Map<String, StatefulNode> nodes, final InputStream input) throws IOException {
+        final StateInput stateInput = new StateInput(input);
+
+        if (stateInput.readInt() != MAGIC) {
+            throw new IOException("Not a snapshot");
+        }
+
+        final int version = stateInput.readInt();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+
+        final int count = stateInput.readInt();
+
+        for (int i = 0; i < count; i++) {
+            final String key = stateInput.readString();
+            final String className = stateInput.readString();
+            final byte[] section = new byte[stateInput.readInt()];
+            stateInput.readFully(section);
+
+            final StatefulNode node = nodes.get(key);
+
+            if (node == null) {
+                throw new IOException("No node for key " + key);
+            }
+
+            if (!node.getClass().getName().equals(className)) {
+                throw new IOException("Node " + key + " is a " + node.getClass().getName() + " instead of " + className);
+            }
+            node.restoreState(new StateInput(new ByteArrayInputStream(section)));
+        }
+        return count;
+    }
+}
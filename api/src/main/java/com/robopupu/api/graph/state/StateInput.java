@@ -0,0 +1,81 @@
+package com.robopupu.api.graph.state;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.Collection;
+
+/**
+ * {@link StateInput} is a {@link DataInputStream} used by {@link StatefulNode}s to read the state
+ * written with a {@link StateOutput}.
+ */
+public class StateInput extends DataInputStream {
+
+    public StateInput(final InputStream input) {
+        super(input);
+    }
+
+    /**
+     * Reads a value written with {@link StateOutput#writeValue(Object)}.
+     * @return The value. May be {@code null}.
+     * @throws IOException If reading fails.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T readValue() throws IOException {
+        final byte type = readByte();
+
+        switch (type) {
+            case StateOutput.TYPE_NULL: return null;
+            case StateOutput.TYPE_BOOLEAN: return (T) Boolean.valueOf(readBoolean());
+            case StateOutput.TYPE_BYTE: return (T) Byte.valueOf(readByte());
+            case StateOutput.TYPE_SHORT: return (T) Short.valueOf(readShort());
+            case StateOutput.TYPE_CHARACTER: return (T) Character.valueOf(readChar());
+            case StateOutput.TYPE_INTEGER: return (T) Integer.valueOf(readInt());
+            case StateOutput.TYPE_LONG: return (T) Long.valueOf(readLong());
+            case StateOutput.TYPE_FLOAT: return (T) Float.valueOf(readFloat());
+            case StateOutput.TYPE_DOUBLE: return (T) Double.valueOf(readDouble());
+            case StateOutput.TYPE_STRING: return (T) readString();
+            case StateOutput.TYPE_SERIALIZABLE: {
+                try {
+                    return (T) new ObjectInputStream(this).readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Cannot read a serialized value", e);
+                }
+            }
+            default: throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Reads a {@link String} written with {@link StateOutput#writeString(String)}.
+     * @return A {@link String}.
+     * @throws IOException If reading fails.
+     */
+    public String readString() throws IOException {
+        final int length = readInt();
+
+        if (length < 0) {
+            throw new IOException("Invalid string length " + length);
+        }
+
+        final byte[] bytes = new byte[length];
+        readFully(bytes);
+        return new String(bytes, StateOutput.UTF_8);
+    }
+
+    /**
+     * Reads the values written with {@link StateOutput#writeValues(Collection)} and adds them
+     * to the given {@link Collection}.
+     * @param values A {@link Collection}.
+     * @throws IOException If reading fails.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void readValues(final Collection<T> values) throws IOException {
+        final int size = readInt();
+
+        for (int i = 0; i < size; i++) {
+            values.add((T) readValue());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.robopupu.api.graph.state;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Collection;
+
+/**
+ * {@link StateOutput} is a {@link DataOutputStream} used by {@link StatefulNode}s to write their
+ * state. In addition to primitive values, it writes values of arbitrary types with
+ * {@link #writeValue(Object)}. Boxed primitives and {@link String}s are written in a compact form,
+ * and other {@link Serializable} values using Java serialization. {@link String}s are written with
+ * {@link #writeString(String)} as length prefixed UTF-8, as {@link #writeUTF(String)} is limited to
+ * 65535 bytes and does not encode supplementary characters as standard UTF-8.
+ */
+public class StateOutput extends DataOutputStream {
+
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_BOOLEAN = 1;
+    static final byte TYPE_BYTE = 2;
+    static final byte TYPE_SHORT = 3;
+    static final byte TYPE_CHARACTER = 4;
+    static final byte TYPE_INTEGER = 5;
+    static final byte TYPE_LONG = 6;
+    static final byte TYPE_FLOAT = 7;
+    static final byte TYPE_DOUBLE = 8;
+    static final byte TYPE_STRING = 9;
+    static final byte TYPE_SERIALIZABLE = 10;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public StateOutput(final OutputStream output) {
+        super(output);
+    }
+
+    /**
+     * Writes the given value.
+     * @param value The value. May be {@code null}.
+     * @throws IOException If writing fails, or if the value cannot be serialized.
+     */
+    public void writeValue(final Object value) throws IOException {
+        if (value == null) {
+            writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            writeByte(TYPE_BOOLEAN);
+            writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            writeByte(TYPE_BYTE);
+            writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            writeByte(TYPE_SHORT);
+            writeShort((Short) value);
+        } else if (value instanceof Character) {
+            writeByte(TYPE_CHARACTER);
+            writeChar((Character) value);
+        } else if (value instanceof Integer) {
+            writeByte(TYPE_INTEGER);
+            writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            writeByte(TYPE_LONG);
+            writeLong((Long) value);
+        } else if (value instanceof Float) {
+            writeByte(TYPE_FLOAT);
+            writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            writeByte(TYPE_DOUBLE);
+            writeDouble((Double) value);
+        } else if (value instanceof String) {
+            writeByte(TYPE_STRING);
+            writeString((String) value);
+        } else if (value instanceof Serializable) {
+            writeByte(TYPE_SERIALIZABLE);
+            final ObjectOutputStream objectOutput = new ObjectOutputStream(this);
+            objectOutput.writeObject(value);
+            objectOutput.flush();
+        } else {
+            throw new IOException("Cannot write a value of " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Writes the given {@link String} as a length prefixed UTF-8 byte array.
+     * @param value A {@link String}.
+     * @throws IOException If writing fails.
+     */
+    public void writeString(final String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        writeInt(bytes.length);
+        write(bytes);
+    }
+
+    /**
+     * Writes the size and the values of the given {@link Collection}.
+     * @param values A {@link Collection}.
+     * @throws IOException If writing fails.
+     */
+    public void writeValues(final Collection<?> values) throws IOException {
+        writeInt(values.size());
+
+        for (final Object value : values) {
+            writeValue(value);
+        }
+    }
+}
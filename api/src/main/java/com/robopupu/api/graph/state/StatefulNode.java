@@ -0,0 +1,24 @@
+package com.robopupu.api.graph.state;
+
+import java.io.IOException;
+
+/**
+ * {@link StatefulNode} defines an interface for nodes whose progress can be captured into
+ * a {@link Snapshot} and restored into a node of a freshly built graph.
+ */
+public interface StatefulNode {
+
+    /**
+     * Writes the state of this node to the given {@link StateOutput}.
+     * @param output A {@link StateOutput}.
+     * @throws IOException If writing fails.
+     */
+    void saveState(StateOutput output) throws IOException;
+
+    /**
+     * Restores the state of this node from the given {@link StateInput}.
+     * @param input A {@link StateInput}.
+     * @throws IOException If reading fails.
+     */
+    void restoreState(StateInput input) throws IOException;
+}
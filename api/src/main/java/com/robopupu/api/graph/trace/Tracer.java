@@ -0,0 +1,270 @@
+package com.robopupu.api.graph.trace;
+
+import com.robopupu.api.graph.AbstractOutputNode;
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.OutputNode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Tracer} records the lineage of sampled events through the nodes of a {@link Graph}. Every
+ * {@code N}th event emitted by a source node is given a trace id, and each hop the event takes
+ * through {@link AbstractOutputNode#out(Object)} of the traced nodes is recorded with timestamps into
+ * a bounded in-memory ring. When the ring is full, the oldest records are overwritten. The recorded
+ * events can be exported in Chrome trace-event JSON format to be inspected with
+ * {@code chrome://tracing} or Perfetto.
+ *
+ * Tracing is enabled for the nodes of a {@link Graph} with {@link Graph#trace(Tracer)}.
+ */
+public class Tracer {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final byte PHASE_BEGIN = 'B';
+    private static final byte PHASE_END = 'E';
+    private static final byte PHASE_INSTANT = 'i';
+
+    private final long[] mEventTraceIds;
+    private final String[] mEventNames;
+    private final byte[] mEventPhases;
+    private final long[] mEventThreadIds;
+    private final long[] mEventTimes;
+    private final String[] mEventArgs;
+    private final IdentityHashMap<OutputNode<?>, String> mNodeNames;
+    private final ThreadLocal<Context> mContext;
+    private final AtomicLong mSampleCounter;
+    private final int mSampleRate;
+    private final long mStartTime;
+
+    private int mEventCount;
+    private int mEventIndex;
+    private long mNextTraceId;
+
+    /**
+     * Constructs a new instance of {@link Tracer} with {@link #DEFAULT_CAPACITY}.
+     * @param sampleRate Every {@code sampleRate}th source event is traced.
+     */
+    public Tracer(final int sampleRate) {
+        this(sampleRate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new instance of {@link Tracer}.
+     * @param sampleRate Every {@code sampleRate}th source event is traced.
+     * @param capacity The maximum number of recorded trace events.
+     */
+    public Tracer(final int sampleRate, final int capacity) {
+        mSampleRate = Math.max(1, sampleRate);
+        mEventTraceIds = new long[capacity];
+        mEventNames = new String[capacity];
+        mEventPhases = new byte[capacity];
+        mEventThreadIds = new long[capacity];
+        mEventTimes = new long[capacity];
+        mEventArgs = new String[capacity];
+        mNodeNames = new IdentityHashMap<>();
+        mContext = new ThreadLocal<Context>() {
+            @Override
+            protected Context initialValue() {
+                return new Context();
+            }
+        };
+        mSampleCounter = new AtomicLong();
+        mStartTime = System.nanoTime();
+        mNextTraceId = 1;
+    }
+
+    /**
+     * Registers the given {@link OutputNode} to be traced.
+     * @param node An {@link OutputNode}.
+     */
+    public synchronized void register(final OutputNode<?> node) {
+        if (!mNodeNames.containsKey(node)) {
+            mNodeNames.put(node, node.getClass().getSimpleName() + "#" + mNodeNames.size());
+        }
+    }
+
+    /**
+     * Invoked by a traced {@link AbstractOutputNode} before it dispatches an output. If the output
+     * is not a part of an ongoing trace, it is a source event and it is sampled.
+     * @param node The {@link OutputNode} emitting the output.
+     */
+    public void beginHop(final OutputNode<?> node) {
+        final Context context = mContext.get();
+
+        if (context.mDepth == 0 && context.mTraceId == 0) {
+            if (mSampleCounter.getAndIncrement() % mSampleRate == 0) {
+                context.mTraceId = createTraceId();
+                context.mSampled = true;
+            }
+        }
+        context.mDepth++;
+
+        if (context.mTraceId != 0) {
+            record(context.mTraceId, PHASE_BEGIN, node, null);
+        }
+    }
+
+    /**
+     * Invoked by a traced {@link AbstractOutputNode} after it has dispatched an output.
+     * @param node The {@link OutputNode} that emitted the output.
+     */
+    public void endHop(final OutputNode<?> node) {
+        final Context context = mContext.get();
+
+        if (context.mTraceId != 0) {
+            record(context.mTraceId, PHASE_END, node, null);
+        }
+
+        if (--context.mDepth == 0 && context.mSampled) {
+            context.mTraceId = 0;
+            context.mSampled = false;
+        }
+    }
+
+    /**
+     * Gets the trace id of the event currently dispatched by the calling thread. Nodes that defer
+     * emitting their outputs, like {@code ZipNode} and {@code TimerNode}, use this to capture
+     * the trace of a buffered input.
+     * @return The trace id, or {@code 0} if the current event is not traced.
+     */
+    public long getCurrentTraceId() {
+        return mContext.get().mTraceId;
+    }
+
+    /**
+     * Sets the trace id of the event dispatched by the calling thread. This is used to continue
+     * a trace captured with {@link #getCurrentTraceId()} when a deferred output is emitted.
+     * @param traceId The trace id, or {@code 0}.
+     * @return The previous trace id that should be restored after the dispatch.
+     */
+    public long setCurrentTraceId(final long traceId) {
+        final Context context = mContext.get();
+        final long previousTraceId = context.mTraceId;
+        context.mTraceId = traceId;
+        return previousTraceId;
+    }
+
+    /**
+     * Records an instant event for the given trace.
+     * @param traceId The trace id.
+     * @param node The {@link OutputNode} recording the event.
+     * @param args The event arguments as a JSON object {@link String}. May be {@code null}.
+     */
+    public void instant(final long traceId, final OutputNode<?> node, final String args) {
+        if (traceId != 0) {
+            record(traceId, PHASE_INSTANT, node, args);
+        }
+    }
+
+    /**
+     * Gets the number of currently held trace events.
+     * @return The event count as an {@code int}.
+     */
+    public synchronized int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * Clears all recorded trace events.
+     */
+    public synchronized void clear() {
+        mEventCount = 0;
+        mEventIndex = 0;
+    }
+
+    /**
+     * Exports the recorded trace events in Chrome trace-event JSON format.
+     * @return The JSON as a {@link String}.
+     */
+    public String toChromeTrace() {
+        final StringWriter writer = new StringWriter();
+
+        try {
+            writeChromeTrace(writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the recorded trace events in Chrome trace-event JSON format to the given {@link Writer}.
+     * @param writer A {@link Writer}.
+     * @throws IOException If writing fails.
+     */
+    public synchronized void writeChromeTrace(final Writer writer) throws IOException {
+        final int capacity = mEventTimes.length;
+        final int first = (mEventCount < capacity) ? 0 : mEventIndex;
+
+        writer.write("{\"traceEvents\":[");
+
+        for (int i = 0; i < mEventCount; i++) {
+            final int index = (first + i) % capacity;
+            final long traceId = mEventTraceIds[index];
+
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write("\n{\"name\":\"");
+            writer.write(mEventNames[index]);
+            writer.write("\",\"cat\":\"trace\",\"ph\":\"");
+            writer.write((char) mEventPhases[index]);
+            writer.write("\",\"ts\":");
+            writer.write(String.format(Locale.US, "%.3f", (mEventTimes[index] - mStartTime) / 1000.0));
+            writer.write(",\"pid\":1,\"tid\":");
+            writer.write(Long.toString(mEventThreadIds[index]));
+
+            if (mEventPhases[index] == PHASE_INSTANT) {
+                writer.write(",\"s\":\"t\"");
+            }
+            writer.write(",\"args\":{\"traceId\":");
+            writer.write(Long.toString(traceId));
+
+            if (mEventArgs[index] != null) {
+                writer.write(",\"data\":");
+                writer.write(mEventArgs[index]);
+            }
+            writer.write("}}");
+        }
+        writer.write("\n]}");
+    }
+
+    private synchronized long createTraceId() {
+        return mNextTraceId++;
+    }
+
+    private synchronized void record(final long traceId, final byte phase, final OutputNode<?> node, final String args) {
+        final int index = mEventIndex;
+        String name = mNodeNames.get(node);
+
+        if (name == null) {
+            name = node.getClass().getSimpleName();
+        }
+
+        mEventTraceIds[index] = traceId;
+        mEventNames[index] = name;
+        mEventPhases[index] = phase;
+        mEventThreadIds[index] = Thread.currentThread().getId();
+        mEventTimes[index] = System.nanoTime();
+        mEventArgs[index] = args;
+        mEventIndex = (index + 1) % mEventTimes.length;
+
+        if (mEventCount < mEventTimes.length) {
+            mEventCount++;
+        }
+    }
+
+    /**
+     * {@link Context} holds the trace state of the event dispatched by a thread.
+     */
+    private static class Context {
+        private int mDepth;
+        private boolean mSampled;
+        private long mTraceId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.robopupu.api.network;
+
+/**
+ * {@link CancellableRequestDelegate} extends {@link RequestDelegate} with the capability to cancel
+ * a request that has been started with {@link RequestDelegate#executeRequest(RequestCallback)}.
+ */
+public interface CancellableRequestDelegate<T_Response> extends RequestDelegate<T_Response> {
+
+    /**
+     * Cancels the request that was executed with the given {@link RequestCallback}.
+     * @param callback The {@link RequestCallback} given to
+     *                 {@link RequestDelegate#executeRequest(RequestCallback)}.
+     */
+    void cancelRequest(RequestCallback<T_Response> callback);
+}
@@ -0,0 +1,309 @@
+package com.robopupu.api.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CircuitBreakerRequestDelegate} implements {@link RequestDelegate} that wraps another
+ * {@link RequestDelegate} with a circuit breaker. The outcomes of the most recent requests are
+ * kept in a sliding window. When the rate of failed or slow requests exceeds the configured
+ * threshold, the circuit opens and requests are rejected with a {@link CircuitOpenError} without
+ * executing them. After the open duration has elapsed, the circuit becomes half-open and a limited
+ * number of probe requests are let through. If the probes succeed the circuit closes, otherwise
+ * it opens again. A probe that has not completed within the slow call duration is counted as
+ * failed, so that a lost probe cannot keep the circuit half-open.
+ *
+ * Each state change starts a new generation of the circuit, and the outcome of a request is
+ * recorded only if the circuit is still in the generation in which the request was started.
+ */
+public class CircuitBreakerRequestDelegate<T_Response> implements RequestDelegate<T_Response> {
+
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+    public static final int DEFAULT_MIN_CALLS = 10;
+    public static final double DEFAULT_FAILURE_RATE = 0.5;
+    public static final long DEFAULT_SLOW_CALL_DURATION = 5000L;
+    public static final double DEFAULT_SLOW_CALL_RATE = 1.0;
+    public static final long DEFAULT_OPEN_DURATION = 10000L;
+    public static final int DEFAULT_PROBES = 3;
+
+    private static final byte OUTCOME_SUCCESS = 0;
+    private static final byte OUTCOME_FAILURE = 1;
+    private static final byte OUTCOME_SLOW = 2;
+
+    /**
+     * {@link State} defines the states of a circuit.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final RequestDelegate<T_Response> mDelegate;
+
+    private double mFailureRate;
+    private int mFailureCount;
+    private int mGeneration;
+    private long mLastProbeTime;
+    private int mMinCalls;
+    private long mOpenDuration;
+    private long mOpenedTime;
+    private int mOutcomeCount;
+    private int mOutcomeIndex;
+    private byte[] mOutcomes;
+    private int mProbes;
+    private int mProbesStarted;
+    private int mProbeSuccesses;
+    private long mSlowCallDuration;
+    private double mSlowCallRate;
+    private int mSlowCount;
+    private State mState;
+
+    public CircuitBreakerRequestDelegate(final RequestDelegate<T_Response> delegate) {
+        mDelegate = delegate;
+        mOutcomes = new byte[DEFAULT_WINDOW_SIZE];
+        mMinCalls = DEFAULT_MIN_CALLS;
+        mFailureRate = DEFAULT_FAILURE_RATE;
+        mSlowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+        mSlowCallRate = DEFAULT_SLOW_CALL_RATE;
+        mOpenDuration = DEFAULT_OPEN_DURATION;
+        mProbes = DEFAULT_PROBES;
+        mState = State.CLOSED;
+    }
+
+    /**
+     * Gets the wrapped {@link RequestDelegate}.
+     * @return A {@link RequestDelegate}.
+     */
+    public RequestDelegate<T_Response> getDelegate() {
+        return mDelegate;
+    }
+
+    /**
+     * Sets the size of the sliding window and the minimum number of recorded outcomes required
+     * before the failure rates are evaluated.
+     * @param windowSize The number of most recent outcomes kept.
+     * @param minCalls The minimum number of outcomes.
+     * @return This {@link CircuitBreakerRequestDelegate}.
+     */
+    public synchronized CircuitBreakerRequestDelegate<T_Response> window(final int windowSize, final int minCalls) {
+        mOutcomes = new byte[windowSize];
+        mMinCalls = Math.min(windowSize, minCalls);
+        resetWindow();
+        return this;
+    }
+
+    /**
+     * Sets the failure rate that opens the circuit.
+     * @param failureRate The rate as a {@code double} between {@code 0} and {@code 1}.
+     * @return This {@link CircuitBreakerRequestDelegate}.
+     */
+    public synchronized CircuitBreakerRequestDelegate<T_Response> failureRate(final double failureRate) {
+        mFailureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * Sets the duration after which a request is considered slow and the rate of slow requests
+     * that opens the circuit.
+     * @param duration The duration in milliseconds.
+     * @param slowCallRate The rate as a {@code double} between {@code 0} and {@code 1}.
+     * @return This {@link CircuitBreakerRequestDelegate}.
+     */
+    public synchronized CircuitBreakerRequestDelegate<T_Response> slowCalls(final long duration, final double slowCallRate) {
+        mSlowCallDuration = duration;
+        mSlowCallRate = slowCallRate;
+        return this;
+    }
+
+    /**
+     * Sets the duration the circuit stays open before probe requests are let through.
+     * @param duration The duration in milliseconds.
+     * @return This {@link CircuitBreakerRequestDelegate}.
+     */
+    public synchronized CircuitBreakerRequestDelegate<T_Response> openDuration(final long duration) {
+        mOpenDuration = duration;
+        return this;
+    }
+
+    /**
+     * Sets the number of probe requests let through while the circuit is half-open.
+     * @param probes The number of probes as an {@code int}.
+     * @return This {@link CircuitBreakerRequestDelegate}.
+     */
+    public synchronized CircuitBreakerRequestDelegate<T_Response> probes(final int probes) {
+        mProbes = Math.max(1, probes);
+        return this;
+    }
+
+    /**
+     * Gets the current {@link State} of the circuit.
+     * @return A {@link State}.
+     */
+    public synchronized State getState() {
+        if (mState == State.OPEN && getElapsedTime(mOpenedTime) >= mOpenDuration) {
+            return State.HALF_OPEN;
+        }
+        return mState;
+    }
+
+    @Override
+    public void executeRequest(final RequestCallback<T_Response> callback) {
+        final long retryAfter;
+        final int generation;
+
+        synchronized (this) {
+            retryAfter = acquire();
+            generation = mGeneration;
+        }
+
+        if (retryAfter > 0) {
+            callback.onError(new CircuitOpenError(retryAfter));
+            return;
+        }
+
+        final long startTime = System.nanoTime();
+
+        mDelegate.executeRequest(new RequestCallback<T_Response>() {
+
+            @Override
+            public void onResponse(final T_Response response) {
+                record(generation, OUTCOME_SUCCESS, getElapsedTime(startTime));
+                callback.onResponse(response);
+            }
+
+            @Override
+            public void onError(final RequestError error) {
+                record(generation, isFailure(error) ? OUTCOME_FAILURE : OUTCOME_SUCCESS, getElapsedTime(startTime));
+                callback.onError(error);
+            }
+        });
+    }
+
+    /**
+     * Tests if the given {@link RequestError} is counted as a failure. By default errors without
+     * a response and server errors are counted as failures, while client errors are not.
+     * @param error A {@link RequestError}.
+     * @return A {@code boolean} value.
+     */
+    protected boolean isFailure(final RequestError error) {
+        final int statusCode = error.getStatusCode();
+        return statusCode < 400 || statusCode >= 500;
+    }
+
+    /**
+     * Tries to acquire a permission to execute a request.
+     * @return {@code 0} if the request may be executed, otherwise the time in milliseconds until
+     * the circuit allows probe requests.
+     */
+    private synchronized long acquire() {
+        if (mState == State.HALF_OPEN && mProbesStarted >= mProbes) {
+            final long elapsedTime = getElapsedTime(mLastProbeTime);
+
+            if (elapsedTime < mSlowCallDuration) {
+                return Math.max(1, mSlowCallDuration - elapsedTime);
+            }
+            open(); // The pending probes have timed out
+        }
+
+        if (mState == State.OPEN) {
+            final long elapsedTime = getElapsedTime(mOpenedTime);
+
+            if (elapsedTime < mOpenDuration) {
+                return mOpenDuration - elapsedTime;
+            }
+            mState = State.HALF_OPEN;
+            mGeneration++;
+            mProbesStarted = 0;
+            mProbeSuccesses = 0;
+        }
+
+        if (mState == State.HALF_OPEN) {
+            mProbesStarted++;
+            mLastProbeTime = System.nanoTime();
+        }
+        return 0;
+    }
+
+    private synchronized void record(final int generation, final byte outcome, final long duration) {
+        if (generation != mGeneration) {
+            return; // The request was started before the latest change of the state
+        }
+
+        final byte recordedOutcome = (outcome == OUTCOME_SUCCESS && duration >= mSlowCallDuration) ? OUTCOME_SLOW : outcome;
+
+        switch (mState) {
+            case HALF_OPEN: {
+                if (recordedOutcome == OUTCOME_SUCCESS) {
+                    mProbeSuccesses++;
+
+                    if (mProbeSuccesses >= mProbes) {
+                        mState = State.CLOSED;
+                        mGeneration++;
+                        resetWindow();
+                    }
+                } else {
+                    open();
+                }
+                break;
+            }
+            case CLOSED: {
+                addOutcome(recordedOutcome);
+
+                if (mOutcomeCount >= mMinCalls) {
+                    if (mFailureCount >= mFailureRate * mOutcomeCount
+                            || mSlowCount >= mSlowCallRate * mOutcomeCount) {
+                        open();
+                    }
+                }
+                break;
+            }
+            default: {
+                // Outcomes of requests started before the circuit opened are ignored
+                break;
+            }
+        }
+    }
+
+    private void addOutcome(final byte outcome) {
+        if (mOutcomeCount == mOutcomes.length) {
+            removeOutcome(mOutcomes[mOutcomeIndex]);
+        } else {
+            mOutcomeCount++;
+        }
+
+        mOutcomes[mOutcomeIndex] = outcome;
+        mOutcomeIndex = (mOutcomeIndex + 1) % mOutcomes.length;
+
+        if (outcome == OUTCOME_FAILURE) {
+            mFailureCount++;
+        } else if (outcome == OUTCOME_SLOW) {
+            mSlowCount++;
+        }
+    }
+
+    private void removeOutcome(final byte outcome) {
+        if (outcome == OUTCOME_FAILURE) {
+            mFailureCount--;
+        } else if (outcome == OUTCOME_SLOW) {
+            mSlowCount--;
+        }
+    }
+
+    private void open() {
+        mState = State.OPEN;
+        mGeneration++;
+        mOpenedTime = System.nanoTime();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        mOutcomeCount = 0;
+        mOutcomeIndex = 0;
+        mFailureCount = 0;
+        mSlowCount = 0;
+    }
+
+    private static long getElapsedTime(final long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+}
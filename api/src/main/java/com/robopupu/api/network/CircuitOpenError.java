@@ -0,0 +1,25 @@
+package com.robopupu.api.network;
+
+/**
+ * {@link CircuitOpenError} extends {@link RequestError} to indicate that a request was rejected
+ * without being executed because the circuit of a {@link CircuitBreakerRequestDelegate} is open.
+ */
+public class CircuitOpenError extends RequestError {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long mRetryAfter;
+
+    public CircuitOpenError(final long retryAfter) {
+        mRetryAfter = retryAfter;
+        setMessage("Circuit is open");
+    }
+
+    /**
+     * Gets the time after which the circuit allows probe requests.
+     * @return The time in milliseconds.
+     */
+    public final long getRetryAfter() {
+        return mRetryAfter;
+    }
+}
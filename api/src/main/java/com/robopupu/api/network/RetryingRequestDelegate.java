@@ -0,0 +1,406 @@
+package com.robopupu.api.network;
+
+import com.robopupu.api.util.LatencyTracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RetryingRequestDelegate} implements {@link RequestDelegate} that wraps another
+ * {@link RequestDelegate} and retries failed requests using exponential backoff with jitter.
+ * The number of retries is budgeted per HTTP status code given by
+ * {@link RequestError#getStatusCode()}. Optionally requests can be hedged: if a response has not
+ * been received within the observed 95th percentile latency, a duplicate request is executed
+ * and the first received response is delivered. If the wrapped {@link RequestDelegate} is
+ * a {@link CancellableRequestDelegate}, the losing request is cancelled.
+ *
+ * The observed latencies are measured from the start of the first attempt of each try, whether
+ * it ended with a response or an error, so that hedged attempts do not bias the percentile
+ * downwards. The share of hedged requests is capped by a hedge budget. Hedging requires that
+ * the wrapped {@link RequestDelegate} supports concurrent executions.
+ */
+public class RetryingRequestDelegate<T_Response> implements RequestDelegate<T_Response> {
+
+    /**
+     * The status code used by {@link RequestError}s for failures without a response, e.g. timeouts.
+     */
+    public static final int NO_STATUS_CODE = 0;
+
+    public static final long DEFAULT_INITIAL_DELAY = 250L;
+    public static final long DEFAULT_MAX_DELAY = 10000L;
+    public static final double DEFAULT_MULTIPLIER = 2.0;
+    public static final double DEFAULT_JITTER = 0.5;
+    public static final int DEFAULT_RETRIES = 2;
+    public static final double DEFAULT_HEDGE_BUDGET = 0.1;
+
+    private static final double HEDGE_PERCENTILE = 95.0;
+    private static final int HEDGE_MIN_SAMPLES = 20;
+
+    private static ScheduledExecutorService sDefaultScheduler;
+
+    private final AtomicLong mCallCount;
+    private final RequestDelegate<T_Response> mDelegate;
+    private final AtomicLong mHedgeCount;
+    private final LatencyTracker mLatencyTracker;
+    private final Random mRandom;
+    private final HashMap<Integer, Integer> mRetryBudgets;
+
+    private int mDefaultRetries;
+    private double mHedgeBudget;
+    private boolean mHedging;
+    private double mJitter;
+    private long mInitialDelay;
+    private long mMaxDelay;
+    private long mMinHedgeDelay;
+    private double mMultiplier;
+    private ScheduledExecutorService mScheduler;
+
+    public RetryingRequestDelegate(final RequestDelegate<T_Response> delegate) {
+        mDelegate = delegate;
+        mCallCount = new AtomicLong();
+        mHedgeCount = new AtomicLong();
+        mLatencyTracker = new LatencyTracker();
+        mRandom = new Random();
+        mRetryBudgets = new HashMap<>();
+        mDefaultRetries = DEFAULT_RETRIES;
+        mHedgeBudget = DEFAULT_HEDGE_BUDGET;
+        mHedging = false;
+        mJitter = DEFAULT_JITTER;
+        mInitialDelay = DEFAULT_INITIAL_DELAY;
+        mMaxDelay = DEFAULT_MAX_DELAY;
+        mMultiplier = DEFAULT_MULTIPLIER;
+    }
+
+    /**
+     * Gets the wrapped {@link RequestDelegate}.
+     * @return A {@link RequestDelegate}.
+     */
+    public RequestDelegate<T_Response> getDelegate() {
+        return mDelegate;
+    }
+
+    /**
+     * Gets the {@link LatencyTracker} recording the latencies of requests.
+     * @return A {@link LatencyTracker}.
+     */
+    public LatencyTracker getLatencyTracker() {
+        return mLatencyTracker;
+    }
+
+    /**
+     * Sets the number of retries for errors whose status code has no specific retry budget.
+     * @param retries The number of retries as an {@code int}.
+     * @return This {@link RetryingRequestDelegate}.
+     */
+    public RetryingRequestDelegate<T_Response> retries(final int retries) {
+        mDefaultRetries = retries;
+        return this;
+    }
+
+    /**
+     * Sets the number of retries for errors with the given status code.
+     * @param statusCode The HTTP status code, or {@link #NO_STATUS_CODE}.
+     * @param retries The number of retries as an {@code int}. Zero disables retrying.
+     * @return This {@link RetryingRequestDelegate}.
+     */
+    public RetryingRequestDelegate<T_Response> retries(final int statusCode, final int retries) {
+        mRetryBudgets.put(statusCode, retries);
+        return this;
+    }
+
+    /**
+     * Sets the exponential backoff parameters.
+     * @param initialDelay The delay before the first retry in milliseconds.
+     * @param maxDelay The maximum delay between retries in milliseconds.
+     * @param multiplier The multiplier applied to the delay after each retry.
+     * @return This {@link RetryingRequestDelegate}.
+     */
+    public RetryingRequestDelegate<T_Response> backoff(final long initialDelay, final long maxDelay, final double multiplier) {
+        mInitialDelay = initialDelay;
+        mMaxDelay = maxDelay;
+        mMultiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * Sets the jitter applied to backoff delays. With jitter {@code j} a delay {@code d} is
+     * randomized to range {@code [d * (1 - j), d]}.
+     * @param jitter The jitter as a {@code double} between {@code 0} and {@code 1}.
+     * @return This {@link RetryingRequestDelegate}.
+     */
+    public RetryingRequestDelegate<T_Response> jitter(final double jitter) {
+        mJitter = Math.max(0.0, Math.min(1.0, jitter));
+        return this;
+    }
+
+    /**
+     * Enables hedging. A duplicate request is executed if a response has not been received within
+     * the observed 95th percentile latency, but not before the given minimum delay.
+     * @param minDelay The minimum hedging delay in milliseconds.
+     * @return This {@link RetryingRequestDelegate}.
+     */
+    public RetryingRequestDelegate<T_Response> hedge(final long minDelay) {
+        mHedging = true;
+        mMinHedgeDelay = minDelay;
+        return this;
+    }
+
+    /**
+     * Sets the hedge budget. A hedged request is executed only while the number of executed hedged
+     * requests is below the given share of all executed requests. By default the budget is
+     * {@link #DEFAULT_HEDGE_BUDGET}.
+     * @param budget The share as a {@code double} between {@code 0} and {@code 1}.
+     * @return This {@link RetryingRequestDelegate}.
+     */
+    public RetryingRequestDelegate<T_Response> hedgeBudget(final double budget) {
+        mHedgeBudget = Math.max(0.0, Math.min(1.0, budget));
+        return this;
+    }
+
+    /**
+     * Gets the number of executed hedged requests.
+     * @return The count as a {@code long}.
+     */
+    public long getHedgeCount() {
+        return mHedgeCount.get();
+    }
+
+    /**
+     * Sets the {@link ScheduledExecutorService} used for delayed retries and hedged requests.
+     * @param scheduler A {@link ScheduledExecutorService}.
+     * @return This {@link RetryingRequestDelegate}.
+     */
+    public RetryingRequestDelegate<T_Response> scheduler(final ScheduledExecutorService scheduler) {
+        mScheduler = scheduler;
+        return this;
+    }
+
+    @Override
+    public void executeRequest(final RequestCallback<T_Response> callback) {
+        mCallCount.incrementAndGet();
+        new Call(callback).start();
+    }
+
+    /**
+     * Gets the retry budget for the given status code.
+     * @param statusCode The HTTP status code.
+     * @return The number of allowed retries as an {@code int}.
+     */
+    protected int getRetryBudget(final int statusCode) {
+        final Integer retries = mRetryBudgets.get(statusCode);
+        return (retries != null) ? retries : mDefaultRetries;
+    }
+
+    /**
+     * Computes the backoff delay before the given retry.
+     * @param retry The index of the retry starting from zero.
+     * @return The delay in milliseconds.
+     */
+    protected long getBackoffDelay(final int retry) {
+        final double delay = Math.min(mMaxDelay, mInitialDelay * Math.pow(mMultiplier, retry));
+        return (long) (delay * (1.0 - mJitter * mRandom.nextDouble()));
+    }
+
+    /**
+     * Computes the delay after which a hedged request is executed.
+     * @return The delay in milliseconds.
+     */
+    protected long getHedgeDelay() {
+        if (mLatencyTracker.getSampleCount() < HEDGE_MIN_SAMPLES) {
+            return mMinHedgeDelay;
+        }
+        return Math.max(mMinHedgeDelay, mLatencyTracker.getPercentile(HEDGE_PERCENTILE));
+    }
+
+    /**
+     * Acquires a permit for a hedged request from the hedge budget.
+     * @return A {@code boolean} value indicating if the hedged request can be executed.
+     */
+    private boolean acquireHedge() {
+        while (true) {
+            final long hedgeCount = mHedgeCount.get();
+
+            if (hedgeCount >= mHedgeBudget * mCallCount.get()) {
+                return false;
+            } else if (mHedgeCount.compareAndSet(hedgeCount, hedgeCount + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        if (mScheduler == null) {
+            mScheduler = getDefaultScheduler();
+        }
+        return mScheduler;
+    }
+
+    private static synchronized ScheduledExecutorService getDefaultScheduler() {
+        if (sDefaultScheduler == null) {
+            sDefaultScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "RetryingRequestDelegate");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return sDefaultScheduler;
+    }
+
+    /**
+     * {@link Call} tracks the attempts made for a single invocation of
+     * {@link RetryingRequestDelegate#executeRequest(RequestCallback)}.
+     */
+    private class Call {
+
+        private final ArrayList<Attempt> mAttempts;
+        private final RequestCallback<T_Response> mCallback;
+
+        private boolean mCompleted;
+        private boolean mHedged;
+        private ScheduledFuture<?> mPendingHedge;
+        private int mRetryCount;
+        private long mStartTime;
+
+        private Call(final RequestCallback<T_Response> callback) {
+            mAttempts = new ArrayList<>();
+            mCallback = callback;
+            mCompleted = false;
+            mHedged = false;
+            mRetryCount = 0;
+        }
+
+        private void start() {
+            final Attempt attempt;
+
+            synchronized (this) {
+                if (mCompleted) {
+                    return;
+                }
+                attempt = new Attempt(this);
+                mAttempts.add(attempt);
+                mStartTime = System.nanoTime();
+
+                if (mHedging && !mHedged) {
+                    mPendingHedge = getScheduler().schedule(this::hedge, getHedgeDelay(), TimeUnit.MILLISECONDS);
+                }
+            }
+            mDelegate.executeRequest(attempt);
+        }
+
+        private void hedge() {
+            final Attempt attempt;
+
+            synchronized (this) {
+                mPendingHedge = null;
+
+                if (mCompleted || mHedged || mAttempts.isEmpty() || !acquireHedge()) {
+                    return;
+                }
+                mHedged = true;
+                attempt = new Attempt(this);
+                mAttempts.add(attempt);
+            }
+            mDelegate.executeRequest(attempt);
+        }
+
+        private void onResponse(final Attempt attempt, final T_Response response) {
+            final ArrayList<Attempt> losers;
+
+            synchronized (this) {
+                if (mCompleted || !mAttempts.remove(attempt)) {
+                    return;
+                }
+                mCompleted = true;
+                losers = new ArrayList<>(mAttempts);
+                mAttempts.clear();
+                cancelPendingHedge();
+                recordLatency();
+            }
+
+            for (final Attempt loser : losers) {
+                loser.cancel();
+            }
+            mCallback.onResponse(response);
+        }
+
+        private void onError(final Attempt attempt, final RequestError error) {
+            synchronized (this) {
+                if (mCompleted || !mAttempts.remove(attempt)) {
+                    return;
+                }
+
+                if (!mAttempts.isEmpty()) {
+                    return; // A hedged attempt is still in flight
+                }
+                cancelPendingHedge();
+                recordLatency();
+
+                if (mRetryCount < getRetryBudget(error.getStatusCode())) {
+                    final long delay = getBackoffDelay(mRetryCount);
+                    mRetryCount++;
+                    mHedged = false;
+                    getScheduler().schedule(this::start, delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                mCompleted = true;
+            }
+            mCallback.onError(error);
+        }
+
+        private void recordLatency() {
+            mLatencyTracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mStartTime));
+        }
+
+        private void cancelPendingHedge() {
+            if (mPendingHedge != null) {
+                mPendingHedge.cancel(false);
+                mPendingHedge = null;
+            }
+        }
+    }
+
+    /**
+     * {@link Attempt} is the {@link RequestCallback} given to the wrapped {@link RequestDelegate}
+     * for a single execution of the request.
+     */
+    private class Attempt implements RequestCallback<T_Response> {
+
+        private final Call mCall;
+
+        private volatile boolean mCancelled;
+
+        private Attempt(final Call call) {
+            mCall = call;
+            mCancelled = false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void cancel() {
+            mCancelled = true;
+
+            if (mDelegate instanceof CancellableRequestDelegate) {
+                ((CancellableRequestDelegate<T_Response>) mDelegate).cancelRequest(this);
+            }
+        }
+
+        @Override
+        public void onResponse(final T_Response response) {
+            if (!mCancelled) {
+                mCall.onResponse(this, response);
+            }
+        }
+
+        @Override
+        public void onError(final RequestError error) {
+            if (!mCancelled) {
+                mCall.onError(this, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.robopupu.api.util;
+
+import java.util.Arrays;
+
+/**
+ * {@link LatencyTracker} keeps a fixed size window of the most recently recorded latency samples
+ * and provides percentile estimates over them.
+ */
+public class LatencyTracker {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final long[] mSamples;
+
+    private int mCount;
+    private int mIndex;
+
+    /**
+     * Constructs a new instance of {@link LatencyTracker} with {@link #DEFAULT_CAPACITY}.
+     */
+    public LatencyTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new instance of {@link LatencyTracker}.
+     * @param capacity The number of most recent samples kept.
+     */
+    public LatencyTracker(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        mSamples = new long[capacity];
+        mCount = 0;
+        mIndex = 0;
+    }
+
+    /**
+     * Records the given latency sample.
+     * @param latency The latency in milliseconds.
+     */
+    public synchronized void record(final long latency) {
+        mSamples[mIndex] = latency;
+        mIndex = (mIndex + 1) % mSamples.length;
+
+        if (mCount < mSamples.length) {
+            mCount++;
+        }
+    }
+
+    /**
+     * Gets the number of currently held samples.
+     * @return The sample count as an {@code int}.
+     */
+    public synchronized int getSampleCount() {
+        return mCount;
+    }
+
+    /**
+     * Gets the given percentile of the currently held samples.
+     * @param percentile The percentile as a {@code double} between {@code 0} and {@code 100}.
+     * @return The latency in milliseconds, or {@code -1} if no samples have been recorded.
+     */
+    public synchronized long getPercentile(final double percentile) {
+        if (mCount == 0) {
+            return -1;
+        }
+        final long[] sorted = Arrays.copyOf(mSamples, mCount);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100.0 * mCount) - 1;
+        return sorted[Math.max(0, Math.min(mCount - 1, index))];
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public synchronized void clear() {
+        mCount = 0;
+        mIndex = 0;
+    }
+}
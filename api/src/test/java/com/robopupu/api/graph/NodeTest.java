@@ -17,11 +17,17 @@ package com.robopupu.api.graph;
 
 import android.test.suitebuilder.annotation.SmallTest;
 
+import com.robopupu.api.graph.metrics.MetricsRegistry;
+import com.robopupu.api.graph.metrics.NodeMetrics;
 import com.robopupu.api.graph.nodes.ActionNode;
+import com.robopupu.api.graph.nodes.FusedNode;
+import com.robopupu.api.graph.nodes.GroupByNode;
+import com.robopupu.api.graph.nodes.IterableNode;
 import com.robopupu.api.graph.nodes.SimpleNode;
 import com.robopupu.api.graph.nodes.Zip2Node;
 import com.robopupu.api.graph.nodes.Zip3Node;
 import com.robopupu.api.graph.nodes.Zip9Node;
+import com.robopupu.api.graph.trace.Tracer;
 
 import org.junit.After;
 import org.junit.Before;
@@ -30,6 +36,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertTrue;
 
@@ -274,6 +281,245 @@ public class NodeTest {
         assertTrue(endNode.received("A1AA1AA1A", "B2BB2BB2B", "C3CC3CC3C"));
     }
 
+    @Test
+    public void test_instrument() {
+
+        final MetricsRegistry registry = new MetricsRegistry();
+        final TerminalNode<Integer> endNode = new TerminalNode<>();
+        final Graph<Integer> graph = Graph.begin(mIntList);
+        graph.filter(value -> value % 2 == 0).buffer(2).end(endNode);
+        graph.instrument(registry).emit();
+
+        final NodeMetrics filterMetrics = registry.getMetrics().get(1);
+        assertTrue(filterMetrics.getInputCount() == 10);
+        assertTrue(filterMetrics.getOutputCount() == 5);
+        assertTrue(filterMetrics.getDropCount() == 5);
+
+        final NodeMetrics bufferMetrics = registry.getMetrics().get(2);
+        assertTrue(bufferMetrics.getInputCount() == 5);
+        assertTrue(bufferMetrics.getBufferDepth() == 2);
+        assertTrue(registry.getMetrics(endNode).getInputCount() == 2);
+
+        graph.instrument(null);
+        assertTrue(graph.getNodes().size() == 4);
+        assertTrue(((AbstractOutputNode<?>) graph.getBeginNode()).getMetrics() == null);
+    }
+
+    @Test
+    public void test_trace() {
+
+        final TerminalNode<String> endNode = new TerminalNode<>();
+        final Zip2Node<Character, Integer, String> zipNode =
+                new Zip2Node<>((input1, input2) -> Character.toString(input1) + Integer.toString(input2));
+        final Tag<Character> begin = Tag.create();
+        final Tracer tracer = new Tracer(2);
+
+        final Graph<Character> graph = Graph.begin(begin, createList('A', 'B', 'C', 'D'));
+        graph.node(begin).next(zipNode.input1).
+                node(begin).map(c -> c - 'A' + 1).next(zipNode.input2).
+                end(endNode);
+        graph.trace(tracer).emit();
+
+        assertTrue(endNode.received("A1", "B2", "C3", "D4"));
+
+        final String json = tracer.toChromeTrace();
+        assertTrue(json.startsWith("{\"traceEvents\":["));
+        assertTrue(json.contains("\"traceId\":1"));
+        assertTrue(json.contains("\"traceId\":2"));
+        assertTrue(!json.contains("\"traceId\":3"));
+        assertTrue(json.contains("\"merged\":[1,1]"));
+        assertTrue(json.contains("\"name\":\"Zip2Node"));
+    }
+
+    @Test
+    public void test_topology() {
+
+        final Zip2Node<Character, Integer, String> zipNode =
+                new Zip2Node<>((input1, input2) -> Character.toString(input1) + Integer.toString(input2));
+        final Tag<Character> begin = Tag.create("letters");
+
+        final Graph<Character> graph = Graph.begin(begin, createList('A', 'B', 'C'));
+        graph.node(begin).next(zipNode.input1).
+                node(begin).map(c -> c - 'A' + 1).next(zipNode.input2).
+                end(new TerminalNode<>());
+        graph.instrument(new MetricsRegistry()).emit();
+
+        final Topology topology = graph.getTopology();
+        assertTrue(topology.getNodes().size() == 6);
+        assertTrue(topology.getFanOut(graph.getBeginNode()) == 2);
+
+        final String json = topology.toJson();
+        assertTrue(json.contains("\"tags\":[\"letters\"]"));
+        assertTrue(json.contains("\"zipInput\":1"));
+        assertTrue(topology.toDot().contains("label=\"input2"));
+    }
+
+    @Test
+    public void test_compile() {
+
+        final TerminalNode<Integer> endNode = new TerminalNode<>();
+        final TerminalNode<Integer> branchNode = new TerminalNode<>();
+        final Tag<Integer> last = Tag.create();
+        final ArrayList<Integer> actions = new ArrayList<>();
+
+        final Graph<Integer> graph = Graph.begin(mIntList);
+        graph.filter(value -> value % 2 == 0).map(value -> value * 10).<Integer>action(actions::add).
+                tag(last).map(value -> value + 1).end(endNode);
+        graph.compile();
+
+        assertTrue(graph.getNodes().get(1) instanceof FusedNode);
+        assertTrue(((FusedNode) graph.getNodes().get(1)).getFusedCount() == 4);
+
+        graph.emit();
+        assertTrue(endNode.received(1, 21, 41, 61, 81));
+        assertTrue(actions.size() == 5);
+
+        // Changing the topology of a fused chain falls back to the original nodes
+
+        endNode.reset();
+        graph.node(last).end(branchNode);
+        graph.emit();
+        assertTrue(!((FusedNode) graph.getNodes().get(1)).isValid());
+        assertTrue(endNode.received(1, 21, 41, 61, 81));
+        assertTrue(branchNode.received(1, 21, 41, 61, 81));
+        assertTrue(endNode.isCompleted() && branchNode.isCompleted());
+    }
+
+    @Test
+    public void test_compileDetached() {
+
+        final TerminalNode<Integer> endNode = new TerminalNode<>();
+        final Tag<Integer> last = Tag.create();
+
+        final Graph<Integer> graph = Graph.begin(mIntList);
+        graph.filter(value -> value % 2 == 0).tag(last).map(value -> value * 10).end(endNode);
+        graph.compile();
+        assertTrue(graph.getNodes().get(1) instanceof FusedNode);
+
+        // A node detached from the last fused node receives neither inputs nor the completion
+
+        graph.<Integer>findNode(last).detach(endNode);
+        graph.emit();
+        assertTrue(endNode.received());
+        assertTrue(!endNode.isCompleted());
+    }
+
+    @Test
+    public void test_materialize() {
+
+        final TerminalNode<Integer> endNode = new TerminalNode<>();
+        final Graph<Integer> graph = Graph.begin(mIntList);
+        graph.map(value -> value + 1).map(value -> value * 2).filter(value -> value > 10).end(endNode);
+
+        assertTrue(!graph.isMaterialized());
+        graph.emit();
+        assertTrue(graph.isMaterialized());
+        assertTrue(endNode.received(12, 14, 16, 18, 20));
+        assertTrue(graph.getNodes().size() == 4);
+
+        // A source event materializes the graph
+
+        final SimpleNode<Integer, Integer> sourceNode = new SimpleNode<>();
+        final Graph<Integer> lazyGraph = Graph.begin(sourceNode);
+        endNode.reset();
+        lazyGraph.filter(value -> value > 1).end(endNode);
+
+        assertTrue(!lazyGraph.isMaterialized());
+        sourceNode.onInput(1);
+        sourceNode.onInput(2);
+        assertTrue(lazyGraph.isMaterialized());
+        assertTrue(endNode.received(2));
+
+        // Conversion nodes are reused
+
+        final Graph<Integer> sumGraph = Graph.begin(mIntList).map(value -> value * 2);
+        assertTrue(sumGraph.toInt() == 18);
+        assertTrue(sumGraph.toInt() == 18);
+        assertTrue(sumGraph.getNodes().size() == 3);
+    }
+
+    @Test
+    public void test_materializeConcurrently() throws Exception {
+        for (int run = 0; run < 2000; run++) {
+            final List<Integer> outputs = Collections.synchronizedList(new ArrayList<Integer>());
+            final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+            final SimpleNode<Integer, Integer> sourceNode = new SimpleNode<>();
+            final CountDownLatch startLatch = new CountDownLatch(1);
+
+            Graph.begin(sourceNode).map(value -> value + 1).map(value -> value * 2).<Integer>end(outputs::add);
+
+            final Thread[] threads = new Thread[4];
+
+            for (int i = 0; i < threads.length; i++) {
+                final int input = i;
+                threads[i] = new Thread(() -> {
+                    try {
+                        startLatch.await();
+                        sourceNode.onInput(input);
+                    } catch (Throwable throwable) {
+                        errors.add(throwable);
+                    }
+                });
+                threads[i].start();
+            }
+            startLatch.countDown();
+
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(errors.isEmpty());
+            assertTrue(outputs.size() == 4 && outputs.contains(2) && outputs.contains(8));
+        }
+    }
+
+    @Test
+    public void test_stream() {
+
+        assertTrue(Graph.begin(new int[] {1, 2, 3, 4}).map(value -> value * 2).sum().toInt() == 20);
+
+        final ArrayList<Runnable> chunks = new ArrayList<>();
+        final TerminalNode<Integer> endNode = new TerminalNode<>();
+        final IterableNode<Integer> sourceNode = new IterableNode<>(mIntList);
+        sourceNode.chunked(4, chunks::add);
+        Graph.begin(sourceNode).end(endNode).emit();
+
+        assertTrue(endNode.received(0, 1, 2, 3));
+        assertTrue(sourceNode.isEmitting());
+
+        while (!chunks.isEmpty()) {
+            chunks.remove(0).run();
+        }
+        assertTrue(endNode.received(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertTrue(endNode.isCompleted());
+        assertTrue(!sourceNode.isEmitting());
+    }
+
+    @Test
+    public void test_groupBy() {
+
+        final TerminalNode<Integer> endNode = new TerminalNode<>();
+        Graph.begin(mIntList)
+                .groupBy(value -> value % 3, (key, group) -> group.sum().map(Double::intValue))
+                .end(endNode).emit();
+
+        assertTrue(endNode.received(12, 15, 18));
+
+        // The least recently used group is evicted
+
+        final SimpleNode<Integer, Integer> sourceNode = new SimpleNode<>();
+        final GroupByNode<Integer, Integer> groupByNode = new GroupByNode<Integer, Integer>(
+                value -> value % 2, (key, group) -> group.sum().map(Double::intValue)).maxGroups(1);
+        endNode.reset();
+        Graph.begin(sourceNode).next(groupByNode).end(endNode);
+
+        sourceNode.onInput(1);
+        sourceNode.onInput(3);
+        assertTrue(groupByNode.getGroupCount() == 1);
+        sourceNode.onInput(2);
+        assertTrue(endNode.received(4));
+        assertTrue(groupByNode.getGroupCount() == 1);
+    }
+
     @Test
     public void test_logic() {
 
@@ -0,0 +1,132 @@
+package com.robopupu.api.graph.cache;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.nodes.SimpleNode;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class TinyLfuCacheTest {
+
+    @Test
+    public void test_scanResistance() {
+        final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100);
+
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+
+        // A scan of keys accessed once does not flush the frequently accessed keys
+        for (int key = 1000; key < 11000; key++) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+
+        int retained = 0;
+
+        for (int key = 0; key < 50; key++) {
+            if (cache.get(key) != null) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45);
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void test_weight() {
+        final TinyLfuCache<String, String> cache = new TinyLfuCache<String, String>(100)
+                .weigher((key, value) -> value.length());
+
+        cache.put("a", "0123456789");
+        cache.put("b", "01234567890123456789");
+        cache.put("huge", new String(new char[101]));
+        assertTrue(cache.getWeight() == 30);
+        assertTrue(cache.get("huge") == null);
+
+        for (int i = 0; i < 50; i++) {
+            cache.put("k" + i, "0123456789");
+        }
+        assertTrue(cache.getWeight() <= 100);
+        assertTrue(cache.remove("missing") == null);
+        cache.clear();
+        assertTrue(cache.size() == 0 && cache.getWeight() == 0);
+    }
+
+    @Test
+    public void test_rejectedCandidate() {
+        final TinyLfuCache<String, String> cache = new TinyLfuCache<String, String>(100)
+                .weigher((key, value) -> value.length());
+
+        cache.put("cold", new String(new char[40]));
+        cache.put("hot", new String(new char[59]));
+
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot");
+        }
+        cache.get("candidate");
+        cache.get("candidate");
+
+        // The candidate would need both entries to be evicted, and it loses to the hot entry,
+        // so the cold entry is kept as well
+        cache.put("candidate", new String(new char[60]));
+
+        assertTrue(cache.get("candidate") == null);
+        assertTrue(cache.get("hot") != null);
+        assertTrue(cache.get("cold") != null);
+        assertTrue(cache.getEvictionCount() == 1);
+    }
+
+    @Test
+    public void test_expireAfterWrite() {
+        final long[] time = {0};
+        final TinyLfuCache<Integer, String> cache = new TinyLfuCache<Integer, String>(10) {
+            @Override
+            protected long currentTime() {
+                return time[0];
+            }
+        }.expireAfterWrite(100);
+
+        cache.put(1, "one");
+        time[0] = 99;
+        assertTrue("one".equals(cache.get(1)));
+        time[0] = 100;
+        assertTrue(cache.get(1) == null);
+        assertTrue(cache.size() == 0);
+        assertTrue(cache.getHitCount() == 1 && cache.getMissCount() == 1);
+    }
+
+    @Test
+    public void test_mapCached() {
+        final ArrayList<String> outputs = new ArrayList<>();
+        final int[] evaluations = {0};
+        final TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(10);
+        final SimpleNode<Integer, Integer> source = new SimpleNode<>();
+
+        Graph.begin(source).mapCached(value -> {
+            evaluations[0]++;
+            return "v" + value;
+        }, cache).<String>end(outputs::add);
+
+        source.onInput(1);
+        source.onInput(2);
+        source.onInput(1);
+        source.onInput(1);
+        assertTrue(outputs.equals(Arrays.asList("v1", "v2", "v1", "v1")));
+        assertTrue(evaluations[0] == 2);
+        assertTrue(cache.getHitCount() == 2 && cache.getMissCount() == 2);
+    }
+}
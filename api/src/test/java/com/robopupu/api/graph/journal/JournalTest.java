@@ -0,0 +1,92 @@
+package com.robopupu.api.graph.journal;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.nodes.SimpleNode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class JournalTest {
+
+    private File mDirectory;
+
+    @Before
+    public void beforeTests() throws IOException {
+        mDirectory = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void afterTests() {
+        for (final File file : mDirectory.listFiles()) {
+            file.delete();
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void test_replay() throws IOException {
+        final Journal journal = new Journal(mDirectory, 128).groupCommit(4, 0);
+        final SimpleNode<String, String> source = new SimpleNode<>();
+        final ArrayList<String> received = new ArrayList<>();
+
+        Graph.begin(source).journal(journal).<String>end(received::add);
+
+        for (int i = 0; i < 20; i++) {
+            source.onInput("event" + i);
+        }
+        journal.close();
+
+        assertTrue(received.size() == 20);
+        assertTrue(mDirectory.listFiles().length > 1);
+
+        final Journal reopened = new Journal(mDirectory, 128);
+        assertTrue(reopened.getNextOffset() == 20);
+
+        final ArrayList<String> replayed = new ArrayList<>();
+        Graph.<String>replay(reopened, 15).<String>end(replayed::add).emit();
+
+        assertTrue(replayed.size() == 5);
+        assertTrue(replayed.get(0).equals("event15"));
+        assertTrue(replayed.get(4).equals("event19"));
+    }
+
+    @Test
+    public void test_recovery() throws IOException {
+        final Journal journal = new Journal(mDirectory, 1024);
+
+        for (int i = 0; i < 3; i++) {
+            journal.append(1000L + i, i);
+        }
+        journal.close();
+
+        // Corrupt the payload of the last record
+
+        final File segment = mDirectory.listFiles()[0];
+        final RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        file.seek(2 * 21 + 16 + 1);
+        file.write(0xFF);
+        file.close();
+
+        final Journal reopened = new Journal(mDirectory, 1024);
+        assertTrue(reopened.getNextOffset() == 2);
+        assertTrue(reopened.append(2000L, 42) == 2);
+
+        final Journal.Reader reader = reopened.read(0);
+        assertTrue(reader.next() && reader.getTimestamp() == 1000L && reader.<Integer>getValue() == 0);
+        assertTrue(reader.next() && reader.getTimestamp() == 1001L);
+        assertTrue(reader.next() && reader.getTimestamp() == 2000L && reader.<Integer>getValue() == 42);
+        assertTrue(!reader.next());
+    }
+}
@@ -0,0 +1,138 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.AbstractInputNode;
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.OutputNode;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class AggregateNodeTest {
+
+    private ArrayList<Integer> mValues;
+
+    @Before
+    public void beforeTests() {
+        mValues = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            mValues.add(i);
+        }
+    }
+
+    @Test
+    public void test_aggregate() {
+        final ArrayList<Aggregate> aggregates = new ArrayList<>();
+        final AggregateNode<Integer> aggregateNode = new AggregateNode<Integer>(value -> value % 2, value -> value).emitEvery(0);
+
+        Graph.begin(mValues).next(aggregateNode).<Aggregate>end(aggregates::add).emit();
+
+        assertTrue(aggregates.size() == 2);
+
+        final Aggregate even = aggregateNode.getAggregate(0);
+        assertTrue(even.getCount() == 50);
+        assertTrue(even.getSum() == 2450);
+        assertTrue(even.getMin() == 0);
+        assertTrue(even.getMax() == 98);
+        assertTrue(even.getMean() == 49);
+        assertTrue(aggregateNode.getAggregate(2) == null);
+
+        // Each update is emitted by default
+
+        aggregates.clear();
+        Graph.begin(mValues).aggregate(value -> value % 10, value -> value).<Aggregate>end(aggregates::add).emit();
+        assertTrue(aggregates.size() == 100);
+        assertTrue(aggregates.get(99).getCount() == 10);
+    }
+
+    @Test
+    public void test_merge() {
+        final AggregateNode<Aggregate> mergeNode = AggregateNode.merge(Math::max).emitEvery(0);
+        final ArrayList<AggregateNode<Integer>> partialNodes = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            final AggregateNode<Integer> partialNode = new AggregateNode<Integer>(value -> value % 2, value -> value, Math::max)
+                    .emitEvery(10).resetOnEmit(true);
+            partialNode.attach(mergeNode);
+            partialNodes.add(partialNode);
+        }
+
+        for (final Integer value : mValues) {
+            partialNodes.get(value / 50).onInput(value);
+        }
+
+        for (final AggregateNode<Integer> partialNode : partialNodes) {
+            partialNode.emit();
+            assertTrue(partialNode.getStore().size() == 0);
+        }
+
+        final Aggregate odd = mergeNode.getAggregate(1);
+        assertTrue(odd.getCount() == 50);
+        assertTrue(odd.getSum() == 2500);
+        assertTrue(odd.getMin() == 1);
+        assertTrue(odd.getMax() == 99);
+        assertTrue(odd.getCombined() == 99);
+    }
+
+    @Test
+    public void test_concurrentEmit() throws InterruptedException {
+        final AtomicInteger active = new AtomicInteger();
+        final boolean[] overlapped = new boolean[1];
+        final AggregateNode<Integer> aggregateNode = new AggregateNode<Integer>(value -> value % 10, value -> value).emitEvery(2);
+
+        aggregateNode.attach(new AbstractInputNode<Aggregate>() {
+
+            @Override
+            protected void processInput(final OutputNode<Aggregate> outputNode, final Aggregate input) {
+                overlapped[0] |= active.incrementAndGet() > 1;
+                Thread.yield();
+                active.decrementAndGet();
+            }
+        });
+
+        // The emission on the interval runs concurrently with the inputs
+        final Thread emitter = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                aggregateNode.emit();
+            }
+        });
+        emitter.start();
+
+        for (int i = 0; i < 20000; i++) {
+            aggregateNode.onInput(i);
+        }
+        emitter.join();
+
+        assertTrue(!overlapped[0]);
+        assertTrue(aggregateNode.getAggregate(0).getCount() == 2000);
+    }
+
+    @Test
+    public void test_maxKeySize() {
+        final String longKey = "0123456789abcdef0123456789abcdef";
+        final ArrayList<String> keys = new ArrayList<>();
+        keys.add("short");
+        keys.add(longKey);
+        keys.add(longKey);
+
+        // Outputs with keys longer than the maximum key size are dropped instead of failing
+
+        final ArrayList<Aggregate> aggregates = new ArrayList<>();
+        Graph.begin(keys).aggregate(key -> key, key -> 1).<Aggregate>end(aggregates::add).emit();
+        assertTrue(aggregates.size() == 1);
+        assertTrue("short".equals(aggregates.get(0).getKey()));
+
+        aggregates.clear();
+        Graph.begin(keys).aggregate(key -> key, key -> 1, null, 64).<Aggregate>end(aggregates::add).emit();
+        assertTrue(aggregates.size() == 3);
+        assertTrue(aggregates.get(2).getCount() == 2);
+    }
+}
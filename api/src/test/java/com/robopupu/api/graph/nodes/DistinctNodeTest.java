@@ -0,0 +1,59 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.sketch.ScalableBloomFilter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class DistinctNodeTest {
+
+    private long mTime;
+
+    @Test
+    public void test_window() {
+        final ArrayList<Integer> outputs = new ArrayList<>();
+        final DistinctNode<Integer> distinctNode = new DistinctNode<Integer>(value -> value) {
+
+            @Override
+            protected long currentTime() {
+                return mTime;
+            }
+        }.window(100).maxKeys(2);
+        Graph.begin(distinctNode).<Integer>end(outputs::add);
+
+        distinctNode.onInput(1);
+        distinctNode.onInput(1);
+        distinctNode.onInput(2);
+        assertTrue(outputs.equals(Arrays.asList(1, 2)));
+
+        // A key seen outside of the window is not a duplicate
+
+        mTime = 100;
+        distinctNode.onInput(2);
+        assertTrue(outputs.equals(Arrays.asList(1, 2, 2)));
+
+        // The least recently seen key is evicted
+
+        distinctNode.onInput(3);
+        distinctNode.onInput(4);
+        distinctNode.onInput(2);
+        assertTrue(outputs.equals(Arrays.asList(1, 2, 2, 3, 4, 2)));
+    }
+
+    @Test
+    public void test_filter() {
+        final ArrayList<String> outputs = new ArrayList<>();
+        final ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.001, 1024 * 1024);
+
+        Graph.begin(Arrays.asList("a", "b", "a", "c", "b")).distinct(value -> value, filter).<String>end(outputs::add).emit();
+        assertTrue(outputs.equals(Arrays.asList("a", "b", "c")));
+    }
+}
@@ -0,0 +1,150 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class FileSinkNodeTest {
+
+    private File mDirectory;
+    private ArrayList<Integer> mValues;
+
+    @Before
+    public void beforeTests() throws IOException {
+        mDirectory = Files.createTempDirectory("sink").toFile();
+        mValues = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            mValues.add(i);
+        }
+    }
+
+    @After
+    public void afterTests() {
+        for (final File file : mDirectory.listFiles()) {
+            file.delete();
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void test_batching() throws IOException {
+        final File file = new File(mDirectory, "values.log");
+        final FileSinkNode<Integer> sinkNode = new FileSinkNode<Integer>(file).bufferSize(1024);
+
+        Graph.begin(mValues).end(sinkNode).emit();
+
+        final List<String> lines = Files.readAllLines(file.toPath());
+        assertTrue(lines.size() == 1000);
+        assertTrue(lines.get(999).equals("999"));
+        assertTrue(sinkNode.getBytesWritten() == file.length());
+        assertTrue(sinkNode.getWriteCount() < 10);
+        assertTrue(sinkNode.getError() == null);
+    }
+
+    @Test
+    public void test_rotation() throws IOException {
+        final File file = new File(mDirectory, "values.log");
+        final FileSinkNode<Integer> sinkNode = new FileSinkNode<Integer>(file).bufferSize(256).rotate(1024)
+                .sync(FileSinkNode.SyncPolicy.ON_CLOSE);
+
+        Graph.begin(mValues).end(sinkNode).emit();
+
+        assertTrue(sinkNode.getRotationCount() > 0);
+        assertTrue(mDirectory.listFiles().length == sinkNode.getRotationCount() + 1);
+
+        int lineCount = 0;
+
+        for (final File rotatedFile : mDirectory.listFiles()) {
+            assertTrue(rotatedFile.length() <= 1024);
+            lineCount += Files.readAllLines(rotatedFile.toPath()).size();
+        }
+        assertTrue(lineCount == 1000);
+    }
+
+    @Test
+    public void test_maxFiles() throws IOException {
+        final File file = new File(mDirectory, "values.log");
+        final FileSinkNode<Integer> sinkNode = new FileSinkNode<Integer>(file).bufferSize(256).rotate(1024, 2);
+
+        Graph.begin(mValues).end(sinkNode).emit();
+
+        final List<String> lines = Files.readAllLines(file.toPath());
+        assertTrue(sinkNode.getRotationCount() > 2);
+        assertTrue(mDirectory.listFiles().length == 3);
+        assertTrue(new File(mDirectory, "values.log." + sinkNode.getRotationCount()).exists());
+        assertTrue(lines.get(lines.size() - 1).equals("999"));
+    }
+
+    @Test
+    public void test_rollingRotation() throws IOException {
+        final File file = new File(mDirectory, "values.log");
+        final File staleFile = new File(mDirectory, "values.log.5");
+        Files.write(staleFile.toPath(), "stale\n".getBytes("UTF-8"));
+
+        final FileSinkNode<Integer> sinkNode = new FileSinkNode<Integer>(file).bufferSize(64).rotate(256, 3);
+
+        Graph.begin(mValues).end(sinkNode).emit();
+
+        // The rotated files continue from the highest existing suffix, and only the newest are kept
+
+        final int rotationCount = sinkNode.getRotationCount();
+        assertTrue(rotationCount > 2 * 3);
+        assertTrue(mDirectory.listFiles().length == 4);
+        assertTrue(!staleFile.exists());
+
+        final ArrayList<String> lines = new ArrayList<>();
+
+        for (int i = 2; i >= 0; i--) {
+            final File rotatedFile = new File(mDirectory, "values.log." + (5 + rotationCount - i));
+            assertTrue(rotatedFile.exists());
+            lines.addAll(Files.readAllLines(rotatedFile.toPath()));
+        }
+        lines.addAll(Files.readAllLines(file.toPath()));
+
+        final int first = Integer.parseInt(lines.get(0));
+
+        for (int i = 0; i < lines.size(); i++) {
+            assertTrue(lines.get(i).equals(Integer.toString(first + i)));
+        }
+        assertTrue(lines.get(lines.size() - 1).equals("999"));
+    }
+
+    @Test
+    public void test_writeError() throws IOException {
+        final File file = new File(mDirectory, "values.log");
+        final FileSinkNode<Integer> sinkNode = new FileSinkNode<Integer>(file).bufferSize(64);
+
+        // The file cannot be opened while a directory occupies its path
+
+        assertTrue(file.mkdir());
+
+        for (int i = 0; i < 30; i++) {
+            sinkNode.onInput(null, i);
+        }
+        assertTrue(sinkNode.getError() != null);
+        assertTrue(sinkNode.getDropCount() > 0);
+
+        // The unwritten data is written by the next flush
+
+        assertTrue(file.delete());
+        sinkNode.close();
+
+        final List<String> lines = Files.readAllLines(file.toPath());
+        assertTrue(lines.size() + sinkNode.getDropCount() == 30);
+        assertTrue(lines.get(0).equals("0"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.metrics.MetricsRegistry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class JoinNodeTest {
+
+    @Test
+    public void test_join() {
+        final ArrayList<String> outputs = new ArrayList<>();
+        final SimpleNode<long[], long[]> clicks = new SimpleNode<>();
+        final SimpleNode<long[], long[]> impressions = new SimpleNode<>();
+        final JoinNode<long[], long[], String> joinNode = new JoinNode<long[], long[], String>(
+                click -> click[0], impression -> impression[0], 100,
+                (click, impression) -> click[0] + "@" + click[1] + "/" + impression[1])
+                .timestamps(click -> click[1], impression -> impression[1]);
+
+        Graph.begin(clicks).next(joinNode.input1);
+        Graph.begin(impressions).next(joinNode.input2).<String>end(outputs::add).instrument(new MetricsRegistry());
+
+        impressions.onInput(new long[] {1, 0});
+        impressions.onInput(new long[] {2, 10});
+        clicks.onInput(new long[] {1, 50});
+        clicks.onInput(new long[] {3, 60});
+        impressions.onInput(new long[] {1, 90});
+        assertTrue(outputs.equals(Arrays.asList("1@50/0", "1@50/90")));
+
+        // Inputs out of the window are expired
+
+        clicks.onInput(new long[] {2, 200});
+        impressions.onInput(new long[] {1, 180});
+        assertTrue(outputs.equals(Arrays.asList("1@50/0", "1@50/90")));
+        assertTrue(joinNode.getBufferDepth() == 2);
+
+        // Inputs older than the window are dropped
+
+        impressions.onInput(new long[] {2, 50});
+        assertTrue(outputs.size() == 2);
+        assertTrue(joinNode.getMetrics().getDropCount() == 1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class LookupJoinNodeTest {
+
+    @Test
+    public void test_lookup() {
+        final ArrayList<String> outputs = new ArrayList<>();
+        final LookupTable<Integer, String> table = new LookupTable<>();
+        final SimpleNode<HashMap<Integer, String>, HashMap<Integer, String>> tableSource = new SimpleNode<>();
+        final SimpleNode<Integer, Integer> source = new SimpleNode<>();
+
+        Graph.begin(tableSource).end(table);
+        Graph.begin(source).lookup(table, id -> id, (id, name) -> id + ":" + name).<String>end(outputs::add);
+
+        final HashMap<Integer, String> names = new HashMap<>();
+        names.put(1, "one");
+        names.put(2, "two");
+        tableSource.onInput(names);
+        names.clear();
+
+        source.onInput(1);
+        source.onInput(3);
+        assertTrue(table.getVersion() == 1);
+        assertTrue(outputs.equals(Arrays.asList("1:one", "3:null")));
+
+        // A new version replaces the table atomically
+
+        names.put(3, "three");
+        tableSource.onInput(names);
+        table.put(4, "four");
+        source.onInput(1);
+        source.onInput(3);
+        source.onInput(4);
+        assertTrue(table.getVersion() == 3);
+        assertTrue(outputs.equals(Arrays.asList("1:one", "3:null", "1:null", "3:three", "4:four")));
+    }
+}
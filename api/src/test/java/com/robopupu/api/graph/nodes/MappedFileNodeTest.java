@@ -0,0 +1,167 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.AbstractInputNode;
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.OutputNode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class MappedFileNodeTest {
+
+    private File mFile;
+
+    @Before
+    public void beforeTests() throws IOException {
+        mFile = File.createTempFile("records", ".dat");
+    }
+
+    @After
+    public void afterTests() {
+        mFile.delete();
+    }
+
+    @Test
+    public void test_lines() throws IOException {
+        write("alpha\nbeta\r\n\ngamma".getBytes("UTF-8"));
+
+        assertTrue(read(new MappedFileNode(mFile)).equals(list("alpha", "beta", "", "gamma")));
+        assertTrue(read(new MappedFileNode(mFile).segmentSize(8)).equals(list("alpha", "beta", "", "gamma")));
+    }
+
+    @Test
+    public void test_fixedWidth() throws IOException {
+        write("aaabbbccc".getBytes("UTF-8"));
+
+        assertTrue(read(new MappedFileNode(mFile, MappedFileNode.Format.FIXED_WIDTH, 3)).equals(list("aaa", "bbb", "ccc")));
+    }
+
+    @Test
+    public void test_partialRecord() throws IOException {
+        write("aaabbbcc".getBytes("UTF-8"));
+
+        final ArrayList<String> records = new ArrayList<>();
+        final ArrayList<Throwable> errors = new ArrayList<>();
+        final MappedFileNode node = new MappedFileNode(mFile, MappedFileNode.Format.FIXED_WIDTH, 3);
+
+        node.attach(new AbstractInputNode<FileRecord>() {
+            @Override
+            protected void processInput(final OutputNode<FileRecord> outputNode, final FileRecord record) {
+                records.add(record.toString());
+            }
+
+            @Override
+            public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+                errors.add(throwable);
+            }
+        });
+        node.emit();
+
+        assertTrue(records.equals(list("aaa", "bbb")));
+        assertTrue(errors.size() == 1);
+        assertTrue(errors.get(0).getMessage().contains("position 6"));
+    }
+
+    @Test
+    public void test_failingChunk() throws IOException {
+        write("aaabbbccc".getBytes("UTF-8"));
+
+        final ArrayList<Runnable> chunks = new ArrayList<>();
+        final ArrayList<String> records = new ArrayList<>();
+        final ArrayList<Throwable> errors = new ArrayList<>();
+        final StreamNode<FileRecord> node = new MappedFileNode(mFile, MappedFileNode.Format.FIXED_WIDTH, 3).chunked(1, chunks::add);
+
+        node.attach(new AbstractInputNode<FileRecord>() {
+            @Override
+            protected void processInput(final OutputNode<FileRecord> outputNode, final FileRecord record) {
+                if (record.toString().equals("bbb")) {
+                    throw new IllegalStateException("Failed");
+                }
+                records.add(record.toString());
+            }
+
+            @Override
+            public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+                errors.add(throwable);
+            }
+        });
+        node.emit();
+        assertTrue(chunks.size() == 1);
+        chunks.remove(0).run();
+
+        // The failure of a chunk run by the executor ends the emission
+        assertTrue(records.equals(list("aaa")));
+        assertTrue(errors.size() == 1);
+        assertTrue(chunks.isEmpty());
+        assertTrue(!node.isEmitting());
+    }
+
+    @Test
+    public void test_lengthPrefixed() throws IOException {
+        final DataOutputStream output = new DataOutputStream(new FileOutputStream(mFile));
+        output.writeInt(3);
+        output.writeBytes("one");
+        output.writeInt(0);
+        output.writeInt(5);
+        output.writeBytes("three");
+        output.close();
+
+        assertTrue(read(new MappedFileNode(mFile, MappedFileNode.Format.LENGTH_PREFIXED, 0)).equals(list("one", "", "three")));
+    }
+
+    @Test
+    public void test_split() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        final ArrayList<String> expected = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            content.append("line").append(i).append('\n');
+            expected.add("line" + i);
+        }
+        write(content.toString().getBytes("UTF-8"));
+
+        final List<MappedFileNode> nodes = MappedFileNode.split(mFile, MappedFileNode.Format.LINES, 0, 7);
+        final ArrayList<String> lines = new ArrayList<>();
+
+        assertTrue(nodes.size() == 7);
+
+        for (final MappedFileNode node : nodes) {
+            lines.addAll(read(node));
+        }
+        assertTrue(lines.equals(expected));
+    }
+
+    private void write(final byte[] bytes) throws IOException {
+        final FileOutputStream output = new FileOutputStream(mFile);
+        output.write(bytes);
+        output.close();
+    }
+
+    private static List<String> read(final MappedFileNode node) {
+        final ArrayList<String> records = new ArrayList<>();
+        Graph.begin(node).<FileRecord>end(record -> records.add(record.toString())).emit();
+        return records;
+    }
+
+    private static List<String> list(final String... strings) {
+        final ArrayList<String> list = new ArrayList<>();
+
+        for (final String string : strings) {
+            list.add(string);
+        }
+        return list;
+    }
+}
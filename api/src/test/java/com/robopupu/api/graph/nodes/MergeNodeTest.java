@@ -0,0 +1,108 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.AbstractInputNode;
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.OutputNode;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class MergeNodeTest {
+
+    @Test
+    public void test_fairness() {
+        final ArrayList<Runnable> drains = new ArrayList<>();
+        final ArrayList<String> outputs = new ArrayList<>();
+        final SimpleNode<String, String> source1 = new SimpleNode<>();
+        final SimpleNode<String, String> source2 = new SimpleNode<>();
+        final MergeNode<String> mergeNode = new MergeNode<String>(2).drainOn(drains::add);
+
+        source1.attach(mergeNode);
+        source2.attach(mergeNode);
+        Graph.begin(mergeNode).<String>end(outputs::add);
+
+        for (int i = 1; i <= 5; i++) {
+            source1.onInput("a" + i);
+        }
+        source2.onInput("b1");
+        source2.onInput("b2");
+
+        assertTrue(drains.size() == 1);
+        assertTrue(mergeNode.getBufferDepth() == 7);
+        drains.remove(0).run();
+
+        assertTrue(outputs.equals(Arrays.asList("a1", "b1", "a2", "b2", "a3", "a4", "a5")));
+        assertTrue(mergeNode.getSourceCount() == 2);
+    }
+
+    @Test
+    public void test_graph() {
+        final ArrayList<String> outputs = new ArrayList<>();
+        final SimpleNode<String, String> source1 = new SimpleNode<>();
+        final SimpleNode<String, String> source2 = new SimpleNode<>();
+
+        Graph.begin(source1).merge(Arrays.asList(source2)).map(value -> value.toUpperCase()).<String>end(outputs::add);
+
+        // The merged source may emit before the begin node of the graph
+        source2.onInput("b1");
+        source2.onInput("b2");
+        source1.onInput("a1");
+        source2.onInput("b3");
+        assertTrue(outputs.equals(Arrays.asList("B1", "B2", "A1", "B3")));
+    }
+
+    @Test
+    public void test_concurrency() throws InterruptedException {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger completions = new AtomicInteger();
+        final int[] count = new int[1];
+        final boolean[] overlapped = new boolean[1];
+        final ArrayList<Thread> threads = new ArrayList<>();
+        final MergeNode<Integer> mergeNode = new MergeNode<>(4);
+
+        mergeNode.attach(new AbstractInputNode<Integer>() {
+
+            @Override
+            protected void processInput(final OutputNode<Integer> outputNode, final Integer input) {
+                overlapped[0] |= active.incrementAndGet() > 1;
+                count[0]++;
+                active.decrementAndGet();
+            }
+
+            @Override
+            public void onCompleted(final OutputNode<?> outputNode) {
+                completions.incrementAndGet();
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            final SimpleNode<Integer, Integer> source = new SimpleNode<>();
+            source.attach(mergeNode);
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    source.onInput(j);
+                }
+                source.onCompleted(source);
+            }));
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(!overlapped[0]);
+        assertTrue(count[0] == 40000);
+        assertTrue(completions.get() == 1);
+    }
+}
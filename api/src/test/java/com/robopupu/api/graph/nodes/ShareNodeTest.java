@@ -0,0 +1,73 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class ShareNodeTest {
+
+    private long mTime;
+
+    @Test
+    public void test_replay() {
+        final ArrayList<Integer> outputs1 = new ArrayList<>();
+        final ArrayList<Integer> outputs2 = new ArrayList<>();
+        final SimpleNode<Integer, Integer> source = new SimpleNode<>();
+        final ShareNode<Integer> shareNode = new ShareNode<>(3);
+
+        Graph.begin(source).next(shareNode).<Integer>end(outputs1::add);
+
+        for (int i = 1; i <= 5; i++) {
+            source.onInput(i);
+        }
+
+        final ActionNode<Integer, Integer> lateNode = new ActionNode<>(outputs2::add);
+        shareNode.attach(lateNode);
+        source.onInput(6);
+
+        assertTrue(outputs1.equals(Arrays.asList(1, 2, 3, 4, 5, 6)));
+        assertTrue(outputs2.equals(Arrays.asList(3, 4, 5, 6)));
+        assertTrue(shareNode.getSubscriberCount() == 2);
+    }
+
+    @Test
+    public void test_refCount() {
+        final ArrayList<Integer> outputs = new ArrayList<>();
+        final SimpleNode<Integer, Integer> source = new SimpleNode<>();
+        final ShareNode<Integer> shareNode = new ShareNode<Integer>(10) {
+
+            @Override
+            protected long currentTime() {
+                return mTime;
+            }
+        }.maxAge(100);
+        final ActionNode<Integer, Integer> node = new ActionNode<>(outputs::add);
+
+        source.attach(shareNode);
+        shareNode.attach(node);
+        source.onInput(1);
+        mTime = 50;
+        source.onInput(2);
+
+        shareNode.detach(node);
+        assertTrue(!shareNode.isConnected());
+        assertTrue(!source.getInputNodes().contains(shareNode));
+
+        // Only inputs within the age limit are replayed
+
+        mTime = 120;
+        outputs.clear();
+        shareNode.attach(node);
+        assertTrue(shareNode.isConnected());
+        assertTrue(source.getInputNodes().contains(shareNode));
+        assertTrue(outputs.equals(Arrays.asList(2)));
+    }
+}
@@ -0,0 +1,70 @@
+package com.robopupu.api.graph.nodes;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class TimerNodeTest {
+
+    @Test
+    public void test_repeat() {
+        final ArrayList<String> outputs = new ArrayList<>();
+        final FakeTimerNode<String> timerNode = new FakeTimerNode<>(5, 1, 3);
+
+        Graph.begin(timerNode).<String>end(outputs::add);
+        timerNode.start("a");
+        timerNode.start("b");
+        assertTrue(timerNode.getBufferDepth() == 2);
+        assertTrue(timerNode.mDelays.equals(Arrays.asList(5L, 5L)));
+
+        while (!timerNode.mScheduled.isEmpty()) {
+            timerNode.mScheduled.remove(0).run();
+        }
+
+        // The handles of finished timers are removed
+        assertTrue(outputs.equals(Arrays.asList("a", "b", "a", "b", "a", "b")));
+        assertTrue(timerNode.mDelays.equals(Arrays.asList(5L, 5L, 1L, 1L, 1L, 1L)));
+        assertTrue(timerNode.getBufferDepth() == 0);
+    }
+
+    @Test
+    public void test_cancel() {
+        final FakeTimerNode<String> timerNode = new FakeTimerNode<>(60000, 0, 0);
+
+        timerNode.start("a");
+        assertTrue(timerNode.getBufferDepth() == 1);
+        timerNode.cancel();
+
+        assertTrue(timerNode.getBufferDepth() == 0);
+        assertTrue(timerNode.mScheduled.isEmpty());
+    }
+
+    private static class FakeTimerNode<IN> extends TimerNode<IN> {
+
+        private final ArrayList<Long> mDelays = new ArrayList<>();
+        private final ArrayList<Runnable> mScheduled = new ArrayList<>();
+
+        private FakeTimerNode(final long delay, final long interval, final int repeatCount) {
+            super(delay, interval, repeatCount);
+        }
+
+        @Override
+        protected void schedule(final Runnable runnable, final long delay) {
+            mDelays.add(delay);
+            mScheduled.add(runnable);
+        }
+
+        @Override
+        protected void unschedule(final Runnable runnable) {
+            mScheduled.remove(runnable);
+        }
+    }
+}
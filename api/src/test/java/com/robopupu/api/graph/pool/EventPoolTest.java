@@ -0,0 +1,176 @@
+package com.robopupu.api.graph.pool;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.nodes.ActionNode;
+import com.robopupu.api.graph.nodes.JoinNode;
+import com.robopupu.api.graph.nodes.ListNode;
+import com.robopupu.api.graph.nodes.MergeNode;
+import com.robopupu.api.graph.nodes.PooledSourceNode;
+import com.robopupu.api.graph.nodes.ShareNode;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class EventPoolTest {
+
+    @Test
+    public void test_reuse() {
+        final EventPool<TextEvent> pool = new EventPool<>(TextEvent::new);
+        final TextSourceNode source = new TextSourceNode(pool);
+        final ArrayList<String> texts = new ArrayList<>();
+
+        Graph.begin(source).filter(event -> event.length() > 1).map(TextEvent::toString).<String>end(texts::add);
+
+        for (int i = 0; i < 100; i++) {
+            source.text(Integer.toString(i));
+        }
+
+        assertTrue(texts.size() == 90);
+        assertTrue("99".equals(texts.get(89)));
+        assertTrue(pool.getObtainedCount() == 100);
+        assertTrue(pool.getCreatedCount() == 1);
+    }
+
+    @Test
+    public void test_debug() {
+        final EventPool<TextEvent> pool = new EventPool<>(TextEvent::new).setDebug(true);
+        final TextSourceNode source = new TextSourceNode(pool);
+        final ArrayList<TextEvent> retained = new ArrayList<>();
+        final ArrayList<TextEvent> leaked = new ArrayList<>();
+
+        Graph.begin(source).<TextEvent>end(event -> {
+            if (retained.isEmpty()) {
+                retained.add(event);
+            } else {
+                leaked.add(event);
+                event.retain();
+            }
+        });
+
+        source.text("A");
+        source.text("B");
+
+        boolean failed = false;
+
+        try {
+            retained.get(0).toString();
+        } catch (IllegalStateException e) {
+            failed = true;
+        }
+
+        assertTrue(failed);
+        assertTrue("B".equals(leaked.get(0).toString()));
+        assertTrue(pool.getLeaks().size() == 1);
+        assertTrue(pool.getCreatedCount() == 2);
+    }
+
+    @Test
+    public void test_buffering() {
+        final EventPool<TextEvent> pool = new EventPool<>(TextEvent::new).setDebug(true);
+        final TextSourceNode source = new TextSourceNode(pool);
+        final ListNode<TextEvent> listNode = new ListNode<>();
+        final ArrayList<String> texts = new ArrayList<>();
+
+        Graph.begin(source).buffer(2).map(TextEvent::toString).<String>end(texts::add);
+        source.attach(listNode);
+
+        source.text("A");
+        source.text("B");
+        assertTrue(pool.getLeaks().size() == 2);
+
+        source.text("C");
+        assertTrue(texts.equals(Arrays.asList("A", "B")));
+
+        // The carriers collected by the list node are still valid
+
+        final ArrayList<String> listed = new ArrayList<>();
+        Graph.begin(listNode).map(TextEvent::toString).<String>end(listed::add);
+        listNode.emit();
+
+        assertTrue(listed.equals(Arrays.asList("A", "B", "C")));
+        assertTrue(pool.getLeaks().isEmpty());
+    }
+
+    @Test
+    public void test_sharing() {
+        final EventPool<TextEvent> pool = new EventPool<>(TextEvent::new).setDebug(true);
+        final TextSourceNode source = new TextSourceNode(pool);
+        final ShareNode<TextEvent> shareNode = new ShareNode<>(2);
+        source.attach(shareNode);
+
+        source.text("A");
+        source.text("B");
+        source.text("C");
+        assertTrue(pool.getLeaks().size() == 2);
+
+        // The replayed carriers are still valid after the source has released them
+
+        final ArrayList<String> texts = new ArrayList<>();
+        shareNode.attach(new ActionNode<TextEvent, TextEvent>(event -> texts.add(event.toString())));
+        source.text("D");
+
+        assertTrue(texts.equals(Arrays.asList("B", "C", "D")));
+        assertTrue(pool.getLeaks().size() == 2);
+        assertTrue(pool.getCreatedCount() == 4);
+    }
+
+    @Test
+    public void test_merging() {
+        final EventPool<TextEvent> pool = new EventPool<>(TextEvent::new).setDebug(true);
+        final TextSourceNode source = new TextSourceNode(pool);
+        final ArrayList<Runnable> drains = new ArrayList<>();
+        final MergeNode<TextEvent> mergeNode = new MergeNode<TextEvent>(1).drainOn(drains::add);
+        final ArrayList<String> texts = new ArrayList<>();
+
+        source.attach(mergeNode);
+        mergeNode.attach(new ActionNode<TextEvent, TextEvent>(event -> texts.add(event.toString())));
+
+        source.text("A");
+        source.text("B");
+        assertTrue(pool.getLeaks().size() == 2);
+
+        // The queued carriers are still valid when the blocked executor finally drains them
+
+        drains.remove(0).run();
+        assertTrue(texts.equals(Arrays.asList("A", "B")));
+        assertTrue(pool.getLeaks().isEmpty());
+    }
+
+    @Test
+    public void test_joining() {
+        final EventPool<TextEvent> pool = new EventPool<>(TextEvent::new).setDebug(true);
+        final TextSourceNode source1 = new TextSourceNode(pool);
+        final TextSourceNode source2 = new TextSourceNode(pool);
+        final JoinNode<TextEvent, TextEvent, String> joinNode = new JoinNode<TextEvent, TextEvent, String>(
+                TextEvent::toString, TextEvent::toString, 10, (event1, event2) -> event1 + "+" + event2)
+                .timestamps(event -> 0L, event -> 5L);
+        final ArrayList<String> outputs = new ArrayList<>();
+
+        source1.attach(joinNode.input1);
+        source2.attach(joinNode.input2);
+        Graph.begin(joinNode).<String>end(outputs::add);
+
+        source1.text("A");
+        source2.text("A");
+        assertTrue(outputs.equals(Arrays.asList("A+A")));
+        assertTrue(pool.getLeaks().size() == 2);
+    }
+
+    private static class TextSourceNode extends PooledSourceNode<TextEvent> {
+
+        private TextSourceNode(final EventPool<TextEvent> eventPool) {
+            super(eventPool);
+        }
+
+        private void text(final String text) {
+            outPooled(obtain().set(text));
+        }
+    }
+}
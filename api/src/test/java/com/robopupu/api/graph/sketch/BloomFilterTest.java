@@ -0,0 +1,54 @@
+package com.robopupu.api.graph.sketch;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class BloomFilterTest {
+
+    @Test
+    public void test_falsePositiveRate() {
+        final BloomFilter filter = new BloomFilter(10000, 0.01);
+
+        for (long i = 0; i < 10000; i++) {
+            filter.put(i);
+        }
+        assertTrue(filter.getCount() > 9900);
+
+        int falsePositives = 0;
+
+        for (long i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain(i));
+
+            if (filter.mightContain(i + 1000000)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200);
+    }
+
+    @Test
+    public void test_scaling() {
+        final ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01, 64 * 1024);
+
+        for (int i = 0; i < 20000; i++) {
+            filter.put("id" + i);
+        }
+        assertTrue(filter.getFilterCount() > 1);
+        assertTrue(filter.getMemorySize() <= 64 * 1024);
+        assertTrue(filter.mightContain("id19999"));
+        assertTrue(!filter.put("id19999"));
+
+        // Oldest filters are dropped to stay within the budget
+
+        for (int i = 20000; i < 200000; i++) {
+            filter.put("id" + i);
+        }
+        assertTrue(filter.getDroppedCount() > 0);
+        assertTrue(filter.getMemorySize() <= 64 * 1024);
+        assertTrue(filter.mightContain("id199999"));
+    }
+}
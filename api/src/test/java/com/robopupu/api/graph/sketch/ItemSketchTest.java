@@ -0,0 +1,111 @@
+package com.robopupu.api.graph.sketch;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.nodes.ItemSketchNode;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class ItemSketchTest {
+
+    private long mTime;
+
+    @Test
+    public void test_topK() {
+        final TopK topK1 = new TopK(3);
+        final TopK topK2 = new TopK(3);
+
+        for (int i = 0; i < 10000; i++) {
+            final TopK topK = (i % 2 == 0) ? topK1 : topK2;
+            topK.add("term" + (i % 100));
+
+            if (i % 10 == 0) {
+                topK.add("hot");
+                topK.add("warm", i % 20 == 0 ? 1 : 0);
+            }
+        }
+        topK1.merge(topK2);
+
+        final List<TopK.Item> items = topK1.getTopK();
+        assertTrue(items.size() == 3);
+        assertTrue(items.get(0).getKey().equals("hot"));
+        assertTrue(items.get(0).getCount() >= 1000);
+        assertTrue(items.get(1).getKey().equals("warm"));
+        assertTrue(topK1.getTotalCount() == 11500);
+
+        // Items overtaking each other are reordered in the heap
+
+        final TopK topK = new TopK(5);
+
+        for (int round = 1; round <= 20; round++) {
+            for (int key = round; key <= 20; key++) {
+                topK.add(key);
+            }
+        }
+
+        final List<TopK.Item> topItems = topK.getTopK();
+        assertTrue(topItems.size() == 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(topItems.get(i).<Integer>getKey() == 20 - i);
+            assertTrue(topItems.get(i).getCount() == 20 - i);
+        }
+    }
+
+    @Test
+    public void test_hyperLogLog() {
+        final HyperLogLog hyperLogLog1 = new HyperLogLog();
+        final HyperLogLog hyperLogLog2 = new HyperLogLog();
+
+        for (int i = 0; i < 100000; i++) {
+            hyperLogLog1.add("user" + i);
+            hyperLogLog2.add("user" + (i + 50000));
+        }
+        assertTrue(Math.abs(hyperLogLog1.getEstimate() - 100000) < 3000);
+
+        hyperLogLog1.merge(hyperLogLog2);
+        assertTrue(Math.abs(hyperLogLog1.getEstimate() - 150000) < 4500);
+
+        final HyperLogLog small = new HyperLogLog();
+
+        for (int i = 0; i < 100; i++) {
+            small.add(i);
+            small.add(i);
+        }
+        assertTrue(Math.abs(small.getEstimate() - 100) <= 2);
+    }
+
+    @Test
+    public void test_window() {
+        final ItemSketchNode<Integer, HyperLogLog> node = new ItemSketchNode<Integer, HyperLogLog>(value -> value, new HyperLogLog()) {
+
+            @Override
+            protected long currentTime() {
+                return mTime;
+            }
+        }.window(1000, 4);
+
+        mTime = 10000;
+
+        for (int i = 0; i < 100; i++) {
+            node.onInput(i);
+        }
+        mTime = 10500;
+
+        for (int i = 100; i < 150; i++) {
+            node.onInput(i);
+        }
+        assertTrue(Math.abs(node.getSummary().getEstimate() - 150) <= 3);
+
+        mTime = 11000;
+        assertTrue(Math.abs(node.getSummary().getEstimate() - 50) <= 1);
+
+        mTime = 11500;
+        assertTrue(node.getSummary().getEstimate() == 0);
+    }
+}
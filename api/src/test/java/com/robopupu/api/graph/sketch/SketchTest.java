@@ -0,0 +1,119 @@
+package com.robopupu.api.graph.sketch;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.nodes.SketchNode;
+import com.robopupu.api.graph.state.StateInput;
+import com.robopupu.api.graph.state.StateOutput;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class SketchTest {
+
+    private ArrayList<Integer> mValues;
+
+    @Before
+    public void beforeTests() {
+        mValues = new ArrayList<>();
+
+        for (int i = 1; i <= 100000; i++) {
+            mValues.add(i);
+        }
+        Collections.shuffle(mValues, new Random(42));
+    }
+
+    @Test
+    public void test_histogram() throws IOException {
+        final LogHistogram histogram1 = new LogHistogram();
+        final LogHistogram histogram2 = new LogHistogram();
+
+        for (int i = 0; i < mValues.size(); i++) {
+            (i % 2 == 0 ? histogram1 : histogram2).update(mValues.get(i));
+        }
+        histogram1.merge(histogram2);
+
+        assertTrue(histogram1.getCount() == 100000);
+        assertTrue(histogram1.getMin() == 1 && histogram1.getMax() == 100000);
+        assertTrue(isNear(histogram1.getQuantile(0.5), 50000, 0.01));
+        assertTrue(isNear(histogram1.getQuantile(0.99), 99000, 0.01));
+        assertTrue(isNear(histogram1.getQuantile(0.999), 99900, 0.01));
+        assertTrue(histogram1.getMean() == 50000.5);
+
+        final LogHistogram restored = new LogHistogram();
+        restore(restored, histogram1);
+        assertTrue(restored.getQuantile(0.99) == histogram1.getQuantile(0.99));
+    }
+
+    @Test
+    public void test_kll() throws IOException {
+        final KllSketch sketch1 = new KllSketch();
+        final KllSketch sketch2 = new KllSketch();
+
+        for (int i = 0; i < mValues.size(); i++) {
+            (i % 2 == 0 ? sketch1 : sketch2).update(mValues.get(i));
+        }
+        sketch1.merge(sketch2);
+
+        assertTrue(sketch1.getCount() == 100000);
+        assertTrue(sketch1.getRetainedCount() < 1000);
+        assertTrue(isNear(sketch1.getQuantile(0.5), 50000, 0.02));
+        assertTrue(isNear(sketch1.getQuantile(0.99), 99000, 0.02));
+        assertTrue(sketch1.getQuantile(1.0) == 100000);
+
+        final KllSketch restored = new KllSketch();
+        restore(restored, sketch1);
+        assertTrue(restored.getQuantile(0.5) == sketch1.getQuantile(0.5));
+    }
+
+    @Test
+    public void test_windows() {
+        final ArrayList<Integer> values = new ArrayList<>();
+
+        for (int i = 1; i <= 2500; i++) {
+            values.add(i);
+        }
+
+        final ArrayList<LogHistogram> windows = new ArrayList<>();
+        final LogHistogram histogram = new LogHistogram();
+        final SketchNode<Integer, LogHistogram> sketchNode =
+                new SketchNode<Integer, LogHistogram>(value -> value, histogram).emitEvery(1000).resetOnEmit(true);
+
+        Graph.begin(values).next(sketchNode).<LogHistogram>end(windows::add).emit();
+
+        // Each window covers only its own inputs, and the last window is emitted on completion
+
+        assertTrue(windows.size() == 3);
+        assertTrue(windows.get(0).getCount() == 1000);
+        assertTrue(windows.get(0).getMin() == 1 && windows.get(0).getMax() == 1000);
+        assertTrue(windows.get(1).getCount() == 1000);
+        assertTrue(windows.get(1).getMin() == 1001 && windows.get(1).getMax() == 2000);
+        assertTrue(windows.get(2).getCount() == 500);
+        assertTrue(windows.get(2).getMin() == 2001 && windows.get(2).getMax() == 2500);
+        assertTrue(windows.get(2) != histogram);
+        assertTrue(histogram.getCount() == 0);
+    }
+
+    private static boolean isNear(final double value, final double expected, final double error) {
+        return Math.abs(value - expected) <= expected * error;
+    }
+
+    private static void restore(final Sketch sketch, final Sketch savedSketch) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StateOutput output = new StateOutput(bytes);
+        savedSketch.save(output);
+        output.flush();
+        sketch.restore(new StateInput(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
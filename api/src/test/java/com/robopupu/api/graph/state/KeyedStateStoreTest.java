@@ -0,0 +1,108 @@
+package com.robopupu.api.graph.state;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class KeyedStateStoreTest {
+
+    @Test
+    public void test_keys() {
+        final KeyedStateStore store = new KeyedStateStore(16).capacity(4);
+
+        for (long key = 0; key < 10000; key++) {
+            final int slot = store.getOrCreateSlot(key);
+            store.putLong(slot, 0, store.getLong(slot, 0) + 1);
+            store.putDouble(slot, 8, key * 0.5);
+        }
+        store.putLong(store.getOrCreateSlot(7L), 0, 10);
+        store.putLong(store.getOrCreateSlot("seven"), 0, 20);
+
+        assertTrue(store.size() == 10001);
+        assertTrue(store.getLong(store.getSlot(7L), 0) == 10);
+        assertTrue(store.getDouble(store.getSlot(9999L), 8) == 4999.5);
+        assertTrue(store.getLong(store.getSlot("seven"), 0) == 20);
+        assertTrue(store.getSlot(7) == -1);
+        assertTrue(store.<Long>getKey(store.getSlot(42L)) == 42L);
+
+        assertTrue(store.remove(7L));
+        assertTrue(store.getSlot(7L) == -1);
+        assertTrue(store.size() == 10000);
+        store.close();
+    }
+
+    @Test
+    public void test_maxKeySize() {
+        final KeyedStateStore store = new KeyedStateStore(8, 8);
+
+        // A Long key is encoded in 9 bytes, so it does not fit in the maximum key size
+        assertTrue(store.tryGetOrCreateSlot(7L) == -1);
+
+        boolean failed = false;
+
+        try {
+            store.getOrCreateSlot(7L);
+        } catch (IllegalArgumentException e) {
+            failed = true;
+        }
+
+        assertTrue(failed);
+        assertTrue(store.tryGetOrCreateSlot("ab") >= 0);
+        assertTrue(store.size() == 1);
+        store.close();
+    }
+
+    @Test
+    public void test_ttl() {
+        final long[] time = {0};
+        final KeyedStateStore store = new KeyedStateStore(8) {
+            @Override
+            protected long currentTime() {
+                return time[0];
+            }
+        }.ttl(100);
+
+        store.putLong(store.getOrCreateSlot("a"), 0, 1);
+        time[0] = 50;
+        store.putLong(store.getOrCreateSlot("b"), 0, 2);
+        time[0] = 120;
+
+        assertTrue(store.getSlot("a") == -1);
+        assertTrue(store.getSlot("b") >= 0);
+        time[0] = 200;
+        assertTrue(store.expire() == 1);
+        assertTrue(store.size() == 0);
+    }
+
+    @Test
+    public void test_spillAndRestore() throws IOException {
+        final File directory = new File(System.getProperty("java.io.tmpdir"));
+        final KeyedStateStore store = new KeyedStateStore(8).spill(directory, 4096);
+
+        for (int i = 0; i < 1000; i++) {
+            store.putLong(store.getOrCreateSlot("key" + i), 0, i);
+        }
+        assertTrue(store.isSpilled());
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StateOutput output = new StateOutput(bytes);
+        store.save(output);
+        output.flush();
+        store.close();
+
+        final KeyedStateStore restored = new KeyedStateStore(8);
+        restored.restore(new StateInput(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertTrue(restored.size() == 1000);
+        assertTrue(restored.getLong(restored.getSlot("key999"), 0) == 999);
+        assertTrue(!restored.isSpilled());
+    }
+}
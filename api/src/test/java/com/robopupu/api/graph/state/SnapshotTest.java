@@ -0,0 +1,125 @@
+package com.robopupu.api.graph.state;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.Tag;
+import com.robopupu.api.graph.nodes.SimpleNode;
+import com.robopupu.api.graph.nodes.Zip2Node;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class SnapshotTest {
+
+    @Test
+    public void test_restore() throws IOException {
+        final ArrayList<Double> sums = new ArrayList<>();
+        final SimpleNode<Integer, Integer> source = new SimpleNode<>();
+        final Graph<Integer> graph = Graph.begin(source);
+        graph.skip(2).sum().<Double>end(sums::add);
+
+        for (int i = 1; i <= 5; i++) {
+            source.onInput(i);
+        }
+        final byte[] snapshot = graph.snapshot();
+
+        final SimpleNode<Integer, Integer> restoredSource = new SimpleNode<>();
+        final Graph<Integer> restoredGraph = Graph.begin(restoredSource);
+        restoredGraph.skip(2).sum().<Double>end(sums::add);
+        restoredGraph.restore(snapshot);
+
+        for (int i = 6; i <= 8; i++) {
+            restoredSource.onInput(i);
+        }
+        restoredSource.onCompleted(restoredSource);
+
+        assertTrue(sums.size() == 1);
+        assertTrue(sums.get(0) == 33.0);
+    }
+
+    @Test
+    public void test_zip() throws IOException {
+        final ArrayList<String> outputs = new ArrayList<>();
+        final SimpleNode<String, String> source = new SimpleNode<>();
+        final Graph<String> graph = createZipGraph(source, outputs);
+
+        source.onInput("A");
+        source.onInput("B");
+        final byte[] snapshot = graph.snapshot();
+        assertTrue(outputs.isEmpty());
+
+        final SimpleNode<String, String> restoredSource = new SimpleNode<>();
+        createZipGraph(restoredSource, outputs).restore(snapshot);
+        restoredSource.onInput("CC");
+        restoredSource.onInput("DDD");
+
+        assertTrue(outputs.size() == 2);
+        assertTrue(outputs.get(0).equals("A2"));
+        assertTrue(outputs.get(1).equals("B3"));
+    }
+
+    @Test
+    public void test_mismatch() throws IOException {
+        final byte[] snapshot = Graph.begin(new SimpleNode<Integer, Integer>()).skip(2).snapshot();
+
+        try {
+            Graph.begin(new SimpleNode<Integer, Integer>()).take(2).restore(snapshot);
+            assertTrue(false);
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("SkipNode"));
+        }
+    }
+
+    @Test
+    public void test_missingNode() throws IOException {
+        final byte[] snapshot = Graph.begin(new SimpleNode<Integer, Integer>()).skip(2).snapshot();
+
+        try {
+            Graph.begin(new SimpleNode<Integer, Integer>()).skip(2).buffer(2).restore(snapshot);
+            assertTrue(false);
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("1 of the 2"));
+        }
+    }
+
+    @Test
+    public void test_strings() throws IOException {
+        final StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < 30000; i++) {
+            builder.append("\u00e4\ud83d\ude00");
+        }
+
+        final String value = builder.toString();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StateOutput output = new StateOutput(bytes);
+        output.writeValue(value);
+        output.flush();
+
+        // A type byte, a length and standard UTF-8 of two and four bytes per repetition
+
+        assertTrue(bytes.size() == 1 + 4 + 30000 * 6);
+
+        final StateInput input = new StateInput(new ByteArrayInputStream(bytes.toByteArray()));
+        assertTrue(value.equals(input.readValue()));
+    }
+
+    private Graph<String> createZipGraph(final SimpleNode<String, String> source, final ArrayList<String> outputs) {
+        final Zip2Node<String, Integer, String> zipNode = new Zip2Node<>((letter, length) -> letter + length);
+        final Tag<String> begin = Tag.create("source");
+        final Graph<String> graph = Graph.begin(begin, source);
+
+        graph.node(begin).next(zipNode.input1).
+                node(begin).filter(string -> string.length() > 1).map(String::length).next(zipNode.input2).
+                <String>end(outputs::add);
+        return graph;
+    }
+}
@@ -0,0 +1,129 @@
+package com.robopupu.api.network;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class CircuitBreakerRequestDelegateTest {
+
+    private final AtomicInteger mExecutions = new AtomicInteger();
+    private final AtomicInteger mRejections = new AtomicInteger();
+
+    private volatile int mStatusCode;
+
+    @Test
+    public void test_circuitBreaker() throws InterruptedException {
+        final RequestDelegate<String> delegate = callback -> {
+            mExecutions.incrementAndGet();
+
+            if (mStatusCode == 200) {
+                callback.onResponse("OK");
+            } else {
+                final RequestError error = new RequestError();
+                error.setStatusCode(mStatusCode);
+                callback.onError(error);
+            }
+        };
+
+        final CircuitBreakerRequestDelegate<String> breaker =
+                new CircuitBreakerRequestDelegate<>(delegate).window(10, 4).failureRate(0.5).openDuration(50).probes(2);
+
+        // Client errors do not open the circuit
+
+        mStatusCode = 404;
+        execute(breaker, 10);
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.CLOSED);
+
+        // Server errors open the circuit and requests fail fast
+
+        mStatusCode = 503;
+        mExecutions.set(0);
+        execute(breaker, 10);
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.OPEN);
+        assertTrue(mExecutions.get() == 5);
+        assertTrue(mRejections.get() == 5);
+
+        // Successful probes close the circuit
+
+        Thread.sleep(60);
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.HALF_OPEN);
+        mStatusCode = 200;
+        execute(breaker, 2);
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.CLOSED);
+    }
+
+    @Test
+    public void test_staleOutcomes() throws InterruptedException {
+        final ArrayList<RequestCallback<String>> pending = new ArrayList<>();
+        final RequestDelegate<String> delegate = callback -> {
+            mExecutions.incrementAndGet();
+
+            if (mStatusCode == 0) {
+                pending.add(callback); // The request never completes by itself
+            } else {
+                final RequestError error = new RequestError();
+                error.setStatusCode(mStatusCode);
+                callback.onError(error);
+            }
+        };
+
+        final CircuitBreakerRequestDelegate<String> breaker = new CircuitBreakerRequestDelegate<>(delegate)
+                .window(4, 2).failureRate(0.5).slowCalls(30, 1.0).openDuration(20).probes(1);
+
+        // A request started while closed does not count as a probe
+
+        mStatusCode = 0;
+        execute(breaker, 1);
+        mStatusCode = 503;
+        execute(breaker, 2);
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.OPEN);
+
+        Thread.sleep(30);
+        mStatusCode = 0;
+        execute(breaker, 1);
+        pending.remove(0).onResponse("OK");
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.HALF_OPEN);
+
+        // A lost probe reopens the circuit after the probe timeout
+
+        mRejections.set(0);
+        execute(breaker, 1);
+        assertTrue(mRejections.get() == 1);
+        Thread.sleep(40);
+        execute(breaker, 1);
+        assertTrue(mRejections.get() == 2);
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.OPEN);
+
+        // The outcome of the lost probe is ignored, and a new probe closes the circuit
+
+        Thread.sleep(30);
+        execute(breaker, 1);
+        pending.remove(0).onError(new RequestError());
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.HALF_OPEN);
+        pending.remove(0).onResponse("OK");
+        assertTrue(breaker.getState() == CircuitBreakerRequestDelegate.State.CLOSED);
+    }
+
+    private void execute(final RequestDelegate<String> delegate, final int times) {
+        for (int i = 0; i < times; i++) {
+            delegate.executeRequest(new RequestCallback<String>() {
+                @Override
+                public void onResponse(final String response) {
+                }
+
+                @Override
+                public void onError(final RequestError error) {
+                    if (error instanceof CircuitOpenError) {
+                        mRejections.incrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.robopupu.api.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HttpStandIn} is an in-process HTTP server that stands in for a backend in tests and
+ * load tests. The latency, the error rate, and the size of the response payload are scripted.
+ */
+public class HttpStandIn {
+
+    private final Random mRandom;
+    private final AtomicLong mRequestCount;
+
+    private volatile double mErrorRate;
+    private volatile int mErrorStatusCode;
+    private volatile long mLatency;
+    private volatile long mLatencyJitter;
+    private volatile int mPayloadSize;
+
+    private ExecutorService mExecutor;
+    private HttpServer mServer;
+
+    public HttpStandIn() {
+        mRandom = new Random();
+        mRequestCount = new AtomicLong();
+        mErrorStatusCode = 503;
+        mPayloadSize = 64;
+    }
+
+    /**
+     * Sets the latency of the responses.
+     * @param latency The minimum latency in milliseconds.
+     * @param jitter The maximum random latency added to the minimum latency in milliseconds.
+     * @return This {@link HttpStandIn}.
+     */
+    public HttpStandIn latency(final long latency, final long jitter) {
+        mLatency = latency;
+        mLatencyJitter = jitter;
+        return this;
+    }
+
+    /**
+     * Sets the rate of error responses.
+     * @param errorRate The rate as a {@code double} between {@code 0} and {@code 1}.
+     * @param statusCode The HTTP status code of error responses.
+     * @return This {@link HttpStandIn}.
+     */
+    public HttpStandIn errors(final double errorRate, final int statusCode) {
+        mErrorRate = errorRate;
+        mErrorStatusCode = statusCode;
+        return this;
+    }
+
+    /**
+     * Sets the size of the response payload.
+     * @param size The size in bytes.
+     * @return This {@link HttpStandIn}.
+     */
+    public HttpStandIn payload(final int size) {
+        mPayloadSize = size;
+        return this;
+    }
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     * @param threads The number of server threads.
+     * @return This {@link HttpStandIn}.
+     * @throws IOException If the server could not be started.
+     */
+    public HttpStandIn start(final int threads) throws IOException {
+        mExecutor = Executors.newFixedThreadPool(threads);
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        mServer.createContext("/", this::handle);
+        mServer.setExecutor(mExecutor);
+        mServer.start();
+        return this;
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        if (mServer != null) {
+            mServer.stop(0);
+            mExecutor.shutdownNow();
+            mServer = null;
+        }
+    }
+
+    /**
+     * Gets the URL for the given path.
+     * @param path The path as a {@link String}.
+     * @return The URL as a {@link String}.
+     */
+    public String getUrl(final String path) {
+        final InetSocketAddress address = mServer.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + path;
+    }
+
+    /**
+     * Gets the number of handled requests.
+     * @return The count as a {@code long}.
+     */
+    public long getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        mRequestCount.incrementAndGet();
+
+        final long latency = mLatency + (mLatencyJitter > 0 ? (long) (mRandom.nextDouble() * mLatencyJitter) : 0);
+
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        final byte[] body;
+        final int statusCode;
+
+        if (mRandom.nextDouble() < mErrorRate) {
+            statusCode = mErrorStatusCode;
+            body = new byte[0];
+        } else {
+            statusCode = 200;
+            body = createPayload(mPayloadSize);
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, body.length > 0 ? body.length : -1);
+
+        try (final OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static byte[] createPayload(final int size) {
+        final String prefix = "{\"value\":\"";
+        final String suffix = "\"}";
+        final int fill = Math.max(0, size - prefix.length() - suffix.length());
+        final char[] chars = new char[fill];
+        Arrays.fill(chars, 'x');
+        return (prefix + new String(chars) + suffix).getBytes();
+    }
+}
@@ -0,0 +1,292 @@
+package com.robopupu.api.network;
+
+import com.robopupu.api.graph.AbstractInputNode;
+import com.robopupu.api.graph.Graph;
+import com.robopupu.api.graph.OutputNode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link NetworkLoadTest} drives {@link Graph#request(RequestDelegate)} pipelines against
+ * an {@link HttpStandIn} and measures throughput, latency percentiles, allocation and thread counts.
+ * The load is closed-loop: at most the configured number of requests are in flight, and the latency
+ * of a request is measured from the start of its execution. The load is configured with system
+ * properties {@code loadtest.requests}, {@code loadtest.concurrency}, {@code loadtest.latency},
+ * {@code loadtest.errorRate} and {@code loadtest.payload}. The defaults keep the test fast enough
+ * for regular test runs.
+ *
+ * The result of each run is printed as a summary line, and appended with its configuration to
+ * the CSV file given by the system property {@code loadtest.results}, by default
+ * {@code build/loadtest/results.csv}, so that the results of different runs can be compared.
+ */
+public class NetworkLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 200);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 8);
+    private static final long LATENCY = Long.getLong("loadtest.latency", 2L);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.errorRate", "0.1"));
+    private static final int PAYLOAD = Integer.getInteger("loadtest.payload", 1024);
+    private static final String RESULTS = System.getProperty("loadtest.results", "build/loadtest/results.csv");
+
+    private ExecutorService mExecutor;
+    private HttpStandIn mServer;
+
+    @Before
+    public void beforeTests() throws Exception {
+        mServer = new HttpStandIn().latency(LATENCY, LATENCY).payload(PAYLOAD).start(CONCURRENCY);
+        mExecutor = Executors.newFixedThreadPool(CONCURRENCY);
+    }
+
+    @After
+    public void afterTests() {
+        mExecutor.shutdownNow();
+        mServer.stop();
+    }
+
+    @Test
+    public void test_load() throws Exception {
+        mServer.errors(0.0, 503);
+        final RequestDelegate<String> delegate = new UrlConnectionRequestDelegate(mServer.getUrl("/load"), mExecutor);
+        final LoadResult result = runLoad(delegate);
+        report("load", 0.0, result);
+
+        assertTrue(result.completed == REQUESTS);
+        assertTrue(result.errors == 0);
+        assertTrue(result.p50 >= LATENCY * 1000000L && result.p99 >= result.p50);
+        assertTrue(result.throughput > 0 && result.peakThreads > 0 && result.allocated >= 0);
+    }
+
+    @Test
+    public void test_loadWithRetries() throws Exception {
+        mServer.errors(ERROR_RATE, 503);
+        final RequestDelegate<String> delegate =
+                new RetryingRequestDelegate<>(new UrlConnectionRequestDelegate(mServer.getUrl("/retry"), mExecutor)).
+                        retries(503, 5).backoff(1, 20, 2.0);
+        final LoadResult result = runLoad(delegate);
+        report("loadWithRetries", ERROR_RATE, result);
+
+        assertTrue(result.completed == REQUESTS);
+        assertTrue(mServer.getRequestCount() >= REQUESTS);
+        assertTrue(result.p50 >= LATENCY * 1000000L && result.p99 >= result.p50);
+    }
+
+    private LoadResult runLoad(final RequestDelegate<String> delegate) throws InterruptedException {
+        final List<Integer> ticks = new ArrayList<>(REQUESTS);
+
+        for (int i = 0; i < REQUESTS; i++) {
+            ticks.add(i);
+        }
+
+        final TimingRequestDelegate timingDelegate = new TimingRequestDelegate(delegate, REQUESTS, CONCURRENCY);
+        final CountingNode endNode = new CountingNode();
+        final Graph<Integer> graph = Graph.begin(ticks);
+        graph.request(timingDelegate).end(endNode);
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        final HashMap<Long, Long> allocatedBefore = getAllocatedBytes(threads);
+        final long startTime = System.nanoTime();
+
+        graph.emit();
+        assertTrue(timingDelegate.await(60));
+
+        final long elapsedTime = System.nanoTime() - startTime;
+        final HashMap<Long, Long> allocatedAfter = getAllocatedBytes(threads);
+
+        final LoadResult result = new LoadResult();
+        result.completed = timingDelegate.getCompletedCount();
+        result.errors = endNode.errors.get();
+        result.throughput = REQUESTS / (elapsedTime / 1e9);
+        result.peakThreads = threads.getPeakThreadCount();
+
+        for (final Map.Entry<Long, Long> entry : allocatedAfter.entrySet()) {
+            final Long bytesBefore = allocatedBefore.get(entry.getKey());
+            result.allocated += entry.getValue() - ((bytesBefore != null) ? bytesBefore : 0L);
+        }
+
+        final long[] latencies = timingDelegate.getLatencies();
+        Arrays.sort(latencies);
+        result.p50 = percentile(latencies, 50);
+        result.p99 = percentile(latencies, 99);
+        return result;
+    }
+
+    /**
+     * Prints a summary line of the given {@link LoadResult}, and appends it with the load
+     * configuration to the results file. The latencies are reported in microseconds.
+     * @param name The name of the run.
+     * @param errorRate The error rate of the {@link HttpStandIn} in the run.
+     * @param result The {@link LoadResult}.
+     */
+    private static void report(final String name, final double errorRate, final LoadResult result) throws IOException {
+        System.out.println(String.format(Locale.US,
+                "NetworkLoadTest %s: %d requests, %d errors, %.1f requests/s, p50 %d us, p99 %d us, %d bytes allocated, %d peak threads",
+                name, result.completed, result.errors, result.throughput, result.p50 / 1000L, result.p99 / 1000L,
+                result.allocated, result.peakThreads));
+
+        final File file = new File(RESULTS);
+        final File directory = file.getAbsoluteFile().getParentFile();
+
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+
+        final boolean created = !file.exists();
+        final FileWriter writer = new FileWriter(file, true);
+
+        try {
+            if (created) {
+                writer.write("test,requests,concurrency,latency,errorRate,payload,completed,errors,"
+                        + "throughput,p50Micros,p99Micros,allocatedBytes,peakThreads\n");
+            }
+            writer.write(String.format(Locale.US, "%s,%d,%d,%d,%.2f,%d,%d,%d,%.1f,%d,%d,%d,%d\n",
+                    name, REQUESTS, CONCURRENCY, LATENCY, errorRate, PAYLOAD, result.completed, result.errors,
+                    result.throughput, result.p50 / 1000L, result.p99 / 1000L, result.allocated, result.peakThreads));
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Gets the bytes allocated by each live thread, so that the allocation of a run is the sum of
+     * the per-thread differences, and threads that exit during the run do not skew the result.
+     */
+    private static HashMap<Long, Long> getAllocatedBytes(final ThreadMXBean threads) {
+        final HashMap<Long, Long> allocated = new HashMap<>();
+
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                final long[] ids = threads.getAllThreadIds();
+                final long[] bytes = sunThreads.getThreadAllocatedBytes(ids);
+
+                for (int i = 0; i < ids.length; i++) {
+                    if (bytes[i] > 0) {
+                        allocated.put(ids[i], bytes[i]);
+                    }
+                }
+            }
+        }
+        return allocated;
+    }
+
+    private static class LoadResult {
+        private long allocated;
+        private int completed;
+        private int errors;
+        private long p50;
+        private long p99;
+        private int peakThreads;
+        private double throughput;
+    }
+
+    /**
+     * {@link TimingRequestDelegate} bounds the number of requests in flight and records the latency
+     * of each executed request from the start of its execution.
+     */
+    private static class TimingRequestDelegate implements RequestDelegate<String> {
+
+        private final AtomicInteger mCompletedCount;
+        private final RequestDelegate<String> mDelegate;
+        private final Semaphore mInFlight;
+        private final long[] mLatencies;
+        private final CountDownLatch mLatch;
+
+        private TimingRequestDelegate(final RequestDelegate<String> delegate, final int requests, final int concurrency) {
+            mDelegate = delegate;
+            mLatencies = new long[requests];
+            mCompletedCount = new AtomicInteger();
+            mInFlight = new Semaphore(concurrency);
+            mLatch = new CountDownLatch(requests);
+        }
+
+        @Override
+        public void executeRequest(final RequestCallback<String> callback) {
+            mInFlight.acquireUninterruptibly();
+            final long startTime = System.nanoTime();
+
+            mDelegate.executeRequest(new RequestCallback<String>() {
+                @Override
+                public void onResponse(final String response) {
+                    completed(startTime);
+                    callback.onResponse(response);
+                }
+
+                @Override
+                public void onError(final RequestError error) {
+                    completed(startTime);
+                    callback.onError(error);
+                }
+            });
+        }
+
+        private void completed(final long startTime) {
+            final int index = mCompletedCount.getAndIncrement();
+
+            if (index < mLatencies.length) {
+                mLatencies[index] = System.nanoTime() - startTime;
+            }
+            mInFlight.release();
+            mLatch.countDown();
+        }
+
+        private boolean await(final long seconds) throws InterruptedException {
+            return mLatch.await(seconds, TimeUnit.SECONDS);
+        }
+
+        private int getCompletedCount() {
+            return mCompletedCount.get();
+        }
+
+        private long[] getLatencies() {
+            return Arrays.copyOf(mLatencies, Math.min(mLatencies.length, mCompletedCount.get()));
+        }
+    }
+
+    private static class CountingNode extends AbstractInputNode<String> {
+
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicInteger responses = new AtomicInteger();
+
+        @Override
+        protected void processInput(final OutputNode<String> outputNode, final String input) {
+            responses.incrementAndGet();
+        }
+
+        @Override
+        public void onError(final OutputNode<?> outputNode, final Throwable throwable) {
+            errors.incrementAndGet();
+        }
+    }
+}
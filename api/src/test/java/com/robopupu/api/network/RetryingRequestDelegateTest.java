@@ -0,0 +1,149 @@
+package com.robopupu.api.network;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class RetryingRequestDelegateTest {
+
+    @Test
+    public void test_retry() throws InterruptedException {
+        final FailingDelegate delegate = new FailingDelegate(2, 503);
+        final ResultCallback callback = new ResultCallback();
+
+        new RetryingRequestDelegate<>(delegate).retries(503, 2).backoff(1, 10, 2.0).executeRequest(callback);
+
+        assertTrue(callback.await());
+        assertTrue("OK".equals(callback.mResponse.get()));
+        assertTrue(delegate.mExecutions.get() == 3);
+    }
+
+    @Test
+    public void test_retryBudget() throws InterruptedException {
+        final FailingDelegate delegate = new FailingDelegate(5, 404);
+        final ResultCallback callback = new ResultCallback();
+
+        new RetryingRequestDelegate<>(delegate).retries(3).retries(404, 0).backoff(1, 10, 2.0).executeRequest(callback);
+
+        assertTrue(callback.await());
+        assertTrue(callback.mError.get().getStatusCode() == 404);
+        assertTrue(delegate.mExecutions.get() == 1);
+    }
+
+    @Test
+    public void test_hedge() throws InterruptedException {
+        final HedgedDelegate delegate = new HedgedDelegate();
+        final ResultCallback callback = new ResultCallback();
+        final RetryingRequestDelegate<String> retryingDelegate = new RetryingRequestDelegate<>(delegate).hedge(5);
+
+        retryingDelegate.executeRequest(callback);
+
+        assertTrue(callback.await());
+        assertTrue("Hedged".equals(callback.mResponse.get()));
+        assertTrue(delegate.mExecutions.size() == 2);
+        assertTrue(retryingDelegate.getHedgeCount() == 1);
+
+        // The losing attempt is cancelled
+        assertTrue(delegate.mCancelled.size() == 1);
+        assertTrue(delegate.mCancelled.get(0) == delegate.mExecutions.get(0));
+        assertTrue(retryingDelegate.getLatencyTracker().getSampleCount() == 1);
+        assertTrue(retryingDelegate.getLatencyTracker().getPercentile(50) >= 5);
+    }
+
+    @Test
+    public void test_hedgeBudget() throws InterruptedException {
+        final HedgedDelegate delegate = new HedgedDelegate();
+        final ResultCallback callback = new ResultCallback();
+        final RetryingRequestDelegate<String> retryingDelegate = new RetryingRequestDelegate<>(delegate).hedge(1).hedgeBudget(0);
+
+        retryingDelegate.executeRequest(callback);
+
+        assertTrue(!callback.await(50));
+        assertTrue(delegate.mExecutions.size() == 1);
+        assertTrue(retryingDelegate.getHedgeCount() == 0);
+    }
+
+    private static class FailingDelegate implements RequestDelegate<String> {
+
+        private final AtomicInteger mExecutions = new AtomicInteger();
+        private final int mFailures;
+        private final int mStatusCode;
+
+        private FailingDelegate(final int failures, final int statusCode) {
+            mFailures = failures;
+            mStatusCode = statusCode;
+        }
+
+        @Override
+        public void executeRequest(final RequestCallback<String> callback) {
+            if (mExecutions.incrementAndGet() <= mFailures) {
+                final RequestError error = new RequestError();
+                error.setStatusCode(mStatusCode);
+                callback.onError(error);
+            } else {
+                callback.onResponse("OK");
+            }
+        }
+    }
+
+    /**
+     * {@link HedgedDelegate} never responds to the first execution, and responds to the later
+     * executions immediately.
+     */
+    private static class HedgedDelegate implements CancellableRequestDelegate<String> {
+
+        private final List<RequestCallback<String>> mCancelled = new CopyOnWriteArrayList<>();
+        private final List<RequestCallback<String>> mExecutions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void executeRequest(final RequestCallback<String> callback) {
+            mExecutions.add(callback);
+
+            if (mExecutions.size() > 1) {
+                callback.onResponse("Hedged");
+            }
+        }
+
+        @Override
+        public void cancelRequest(final RequestCallback<String> callback) {
+            mCancelled.add(callback);
+        }
+    }
+
+    private static class ResultCallback implements RequestCallback<String> {
+
+        private final AtomicReference<RequestError> mError = new AtomicReference<>();
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+        private final AtomicReference<String> mResponse = new AtomicReference<>();
+
+        @Override
+        public void onResponse(final String value) {
+            mResponse.set(value);
+            mLatch.countDown();
+        }
+
+        @Override
+        public void onError(final RequestError requestError) {
+            mError.set(requestError);
+            mLatch.countDown();
+        }
+
+        private boolean await() throws InterruptedException {
+            return await(5000);
+        }
+
+        private boolean await(final long timeout) throws InterruptedException {
+            return mLatch.await(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.robopupu.api.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@link UrlConnectionRequestDelegate} implements {@link RequestDelegate} that executes GET
+ * requests with {@link HttpURLConnection} on the given {@link ExecutorService}. It is used to drive
+ * graphs against {@link HttpStandIn} on the JVM where Volley is not available.
+ */
+public class UrlConnectionRequestDelegate implements RequestDelegate<String> {
+
+    private final ExecutorService mExecutor;
+    private final String mUrl;
+
+    public UrlConnectionRequestDelegate(final String url, final ExecutorService executor) {
+        mUrl = url;
+        mExecutor = executor;
+    }
+
+    @Override
+    public void executeRequest(final RequestCallback<String> callback) {
+        mExecutor.execute(() -> execute(callback));
+    }
+
+    private void execute(final RequestCallback<String> callback) {
+        final long startTime = System.currentTimeMillis();
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) new URL(mUrl).openConnection();
+            final int statusCode = connection.getResponseCode();
+
+            if (statusCode >= 200 && statusCode < 300) {
+                callback.onResponse(read(connection.getInputStream()));
+            } else {
+                final InputStream errorStream = connection.getErrorStream();
+
+                if (errorStream != null) {
+                    read(errorStream);
+                }
+                final RequestError error = new RequestError();
+                error.setStatusCode(statusCode);
+                error.setMessage(connection.getResponseMessage());
+                error.setNetworkTime(System.currentTimeMillis() - startTime);
+                callback.onError(error);
+            }
+        } catch (IOException e) {
+            final RequestError error = new RequestError();
+            error.setCause(e);
+            error.setMessage(e.getMessage());
+            error.setNetworkTime(System.currentTimeMillis() - startTime);
+            callback.onError(error);
+        }
+    }
+
+    private static String read(final InputStream input) throws IOException {
+        try (final InputStream stream = input) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int count;
+
+            while ((count = stream.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+            return output.toString("UTF-8");
+        }
+    }
+}
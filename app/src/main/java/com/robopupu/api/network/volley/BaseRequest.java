@@ -95,10 +95,13 @@ public abstract class BaseRequest<T_Response> extends Request<T_Response> {
     public static RequestError createRequestError(final VolleyError volleyError) {
         final RequestError requestError = new RequestError();
         requestError.setCause(volleyError.getCause());
-        requestError.setHeaders(volleyError.networkResponse.headers);
         requestError.setMessage(volleyError.getMessage());
         requestError.setNetworkTime(volleyError.getNetworkTimeMs());
-        requestError.setStatusCode(volleyError.networkResponse.statusCode);
+
+        if (volleyError.networkResponse != null) {
+            requestError.setHeaders(volleyError.networkResponse.headers);
+            requestError.setStatusCode(volleyError.networkResponse.statusCode);
+        }
         return requestError;
     }
 